@@ -0,0 +1,276 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend;
+
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.events.node.NodeCircuitBreakerEvent;
+import com.shieldblaze.expressgateway.concurrent.eventstream.EventStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p> {@link CircuitBreaker} stops sending traffic to a {@link Node} which is failing
+ * even though it passes health checks, for example when it is overloaded. </p>
+ *
+ * <p> Outcomes of requests (or connections) are counted in a sliding window of {@link #BUCKETS} buckets.
+ * Circuit opens when failure rate in the window reaches the threshold, or when there are too many
+ * consecutive timeouts. While open, {@link #tryAcquire()} rejects all requests and load balancers skip
+ * the {@link Node}. After open duration has passed, circuit becomes half-open and admits a limited number
+ * of trial requests. If all trials succeed then circuit closes, if any of them fails then circuit opens again.
+ * If trials do not finish within open duration, i.e. a permit was taken but its request never reported
+ * an outcome, circuit opens again so abandoned permits cannot keep the {@link Node} out of rotation. </p>
+ *
+ * <p> All state is kept in atomics, no lock is taken. Buckets are reset without synchronization with
+ * writers, so a few outcomes can be lost when a bucket rolls over, which is fine for a failure rate. </p>
+ *
+ * <p> Every state change is published as {@link NodeCircuitBreakerEvent} on {@link EventStream} of {@link Cluster}. </p>
+ */
+public final class CircuitBreaker {
+
+    private static final Logger logger = LogManager.getLogger(CircuitBreaker.class);
+
+    /**
+     * Circuit Breaker States
+     */
+    public enum State {
+        /**
+         * Requests are allowed and outcomes are counted.
+         */
+        CLOSED,
+
+        /**
+         * Requests are rejected until open duration has passed.
+         */
+        OPEN,
+
+        /**
+         * A limited number of trial requests are allowed.
+         */
+        HALF_OPEN
+    }
+
+    private static final int BUCKETS = 10;
+    private static final long FAILURE = 1L << 32;
+    private static final long TOTAL = 1L;
+    private static final long TOTAL_MASK = 0xFFFFFFFFL;
+
+    private final long bucketNanos;
+    private final int failureRateThreshold;
+    private final int minimumRequests;
+    private final int consecutiveTimeoutsThreshold;
+    private final long openNanos;
+    private final int halfOpenTrials;
+
+    /**
+     * Bucket ID ({@link System#nanoTime()} / {@link #bucketNanos}) of every slot
+     */
+    private final AtomicLongArray bucketIds = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Number of failures in upper 32 bits and total number of outcomes in lower 32 bits of every slot
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+    private final AtomicInteger trials = new AtomicInteger();
+    private final AtomicInteger trialSuccesses = new AtomicInteger();
+    private volatile long openedAt;
+    private volatile long halfOpenedAt;
+    private Node node;
+
+    CircuitBreaker(long windowNanos, int failureRateThreshold, int minimumRequests, int consecutiveTimeoutsThreshold,
+                   long openNanos, int halfOpenTrials) {
+        this.bucketNanos = Math.max(windowNanos / BUCKETS, 1);
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumRequests = minimumRequests;
+        this.consecutiveTimeoutsThreshold = consecutiveTimeoutsThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenTrials = halfOpenTrials;
+    }
+
+    /**
+     * Bind this {@link CircuitBreaker} to a {@link Node}
+     */
+    void node(Node node) {
+        if (this.node != null) {
+            throw new IllegalStateException("CircuitBreaker is already used by Node: " + this.node);
+        }
+        this.node = node;
+    }
+
+    /**
+     * Returns current {@link State}
+     */
+    public State state() {
+        return state.get();
+    }
+
+    /**
+     * Returns {@code true} if {@link #tryAcquire()} can succeed. This does not take
+     * a trial permit and is used by load balancers to skip a {@link Node}.
+     */
+    public boolean allowsSelection() {
+        return switch (state.get()) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openedAt >= openNanos;
+            case HALF_OPEN -> !halfOpenExpired() && trials.get() < halfOpenTrials;
+        };
+    }
+
+    /**
+     * Try to acquire permission to send a request to {@link Node}
+     *
+     * @return {@code true} if request is allowed else {@code false}
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+
+        if (current == State.OPEN) {
+            long now = System.nanoTime();
+            if (now - openedAt < openNanos) {
+                return false;
+            }
+            halfOpenedAt = now;
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+
+        // Circuit may have been closed or opened again by another thread.
+        current = state.get();
+        if (current == State.HALF_OPEN) {
+            return !halfOpenExpired() && trials.incrementAndGet() <= halfOpenTrials;
+        }
+        return current == State.CLOSED;
+    }
+
+    /**
+     * Open circuit again if trials have not finished within open duration
+     *
+     * @return {@code true} if trials have expired
+     */
+    private boolean halfOpenExpired() {
+        if (System.nanoTime() - halfOpenedAt < openNanos) {
+            return false;
+        }
+        trip(State.HALF_OPEN);
+        return true;
+    }
+
+    /**
+     * Record a successful request
+     */
+    public void onSuccess() {
+        if (consecutiveTimeouts.get() != 0) {
+            consecutiveTimeouts.set(0);
+        }
+
+        State current = state.get();
+        if (current == State.CLOSED) {
+            record(TOTAL);
+        } else if (current == State.HALF_OPEN && trialSuccesses.incrementAndGet() >= halfOpenTrials) {
+            if (transition(State.HALF_OPEN, State.CLOSED)) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    buckets.set(i, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record a failed request
+     */
+    public void onFailure() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            record(FAILURE | TOTAL);
+            if (failureRateExceeded()) {
+                trip(State.CLOSED);
+            }
+        } else if (current == State.HALF_OPEN) {
+            trip(State.HALF_OPEN);
+        }
+    }
+
+    /**
+     * Record a request which has timed out. Timeouts count as failures too.
+     */
+    public void onTimeout() {
+        if (consecutiveTimeouts.incrementAndGet() >= consecutiveTimeoutsThreshold && state.get() == State.CLOSED) {
+            trip(State.CLOSED);
+            return;
+        }
+        onFailure();
+    }
+
+    private void record(long delta) {
+        long bucketId = System.nanoTime() / bucketNanos;
+        int slot = (int) (bucketId % BUCKETS);
+
+        long slotBucketId = bucketIds.get(slot);
+        if (slotBucketId != bucketId && bucketIds.compareAndSet(slot, slotBucketId, bucketId)) {
+            buckets.set(slot, 0);
+        }
+        buckets.addAndGet(slot, delta);
+    }
+
+    private boolean failureRateExceeded() {
+        long oldestBucketId = System.nanoTime() / bucketNanos - BUCKETS + 1;
+        long failures = 0;
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (bucketIds.get(i) >= oldestBucketId) {
+                long value = buckets.get(i);
+                failures += value >>> 32;
+                total += value & TOTAL_MASK;
+            }
+        }
+        return total >= minimumRequests && failures * 100 >= total * failureRateThreshold;
+    }
+
+    private void trip(State from) {
+        trials.set(0);
+        trialSuccesses.set(0);
+        consecutiveTimeouts.set(0);
+        openedAt = System.nanoTime();
+        transition(from, State.OPEN);
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+
+        logger.info("CircuitBreaker of Node: {} changed from {} to {}", node, from, to);
+        if (node != null && node.cluster().eventStream() != null) {
+            node.cluster().eventStream().publish(new NodeCircuitBreakerEvent(node, to));
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{state=" + state.get() + '}';
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend;
+
+import com.shieldblaze.expressgateway.common.utils.NumberUtil;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Builder for {@link CircuitBreaker}
+ */
+public final class CircuitBreakerBuilder {
+
+    private Duration window = Duration.ofSeconds(10);
+    private int failureRateThreshold = 50;
+    private int minimumRequests = 20;
+    private int consecutiveTimeouts = 5;
+    private Duration openDuration = Duration.ofSeconds(5);
+    private int halfOpenTrials = 3;
+
+    private CircuitBreakerBuilder() {
+        // Prevent outside initialization
+    }
+
+    public static CircuitBreakerBuilder newBuilder() {
+        return new CircuitBreakerBuilder();
+    }
+
+    /**
+     * Sliding window in which failure rate is calculated. Default is 10 seconds.
+     */
+    public CircuitBreakerBuilder withWindow(Duration window) {
+        this.window = Objects.requireNonNull(window, "Window");
+        return this;
+    }
+
+    /**
+     * Failure rate in percentage at which circuit opens. Default is 50.
+     */
+    public CircuitBreakerBuilder withFailureRateThreshold(int failureRateThreshold) {
+        this.failureRateThreshold = NumberUtil.checkInRange(failureRateThreshold, 1, 100, "FailureRateThreshold");
+        return this;
+    }
+
+    /**
+     * Minimum number of requests in window before failure rate is considered. Default is 20.
+     */
+    public CircuitBreakerBuilder withMinimumRequests(int minimumRequests) {
+        this.minimumRequests = NumberUtil.checkPositive(minimumRequests, "MinimumRequests");
+        return this;
+    }
+
+    /**
+     * Number of consecutive timeouts at which circuit opens. Default is 5.
+     */
+    public CircuitBreakerBuilder withConsecutiveTimeouts(int consecutiveTimeouts) {
+        this.consecutiveTimeouts = NumberUtil.checkPositive(consecutiveTimeouts, "ConsecutiveTimeouts");
+        return this;
+    }
+
+    /**
+     * Duration for which circuit stays open before trial requests are allowed. Default is 5 seconds.
+     */
+    public CircuitBreakerBuilder withOpenDuration(Duration openDuration) {
+        this.openDuration = Objects.requireNonNull(openDuration, "OpenDuration");
+        return this;
+    }
+
+    /**
+     * Number of trial requests allowed in half-open state. Default is 3.
+     */
+    public CircuitBreakerBuilder withHalfOpenTrials(int halfOpenTrials) {
+        this.halfOpenTrials = NumberUtil.checkPositive(halfOpenTrials, "HalfOpenTrials");
+        return this;
+    }
+
+    public CircuitBreaker build() {
+        return new CircuitBreaker(window.toNanos(), failureRateThreshold, minimumRequests, consecutiveTimeouts,
+                openDuration.toNanos(), halfOpenTrials);
+    }
+}
@@ -86,18 +86,19 @@ public abstract class Connection {
     public void init(ChannelFuture channelFuture) {
         if (this.channelFuture == null) {
             this.channelFuture = channelFuture;
+            long connectStart = System.nanoTime();
 
             // Add listener to be notified when Channel initializes
             channelFuture.addListener(future -> {
                 if (channelFuture.isSuccess()) {
+                    node.recordConnectTime(System.nanoTime() - connectStart);
                     state = State.CONNECTED_AND_ACTIVE;
                     socketAddress = (InetSocketAddress) channelFuture.channel().remoteAddress();
                     channel = channelFuture.channel();
-                } else {
-                    if (future.cause() instanceof ConnectTimeoutException) {
-                        state = State.CONNECTION_TIMEOUT;
-                    }
+                } else if (future.cause() instanceof ConnectTimeoutException) {
+                    state = State.CONNECTION_TIMEOUT;
                 }
+                recordConnectOutcome(channelFuture);
                 processBacklog(channelFuture); // Call Backlog Processor for Backlog Processing
             });
 
@@ -111,6 +112,21 @@ public abstract class Connection {
         }
     }
 
+    /**
+     * Record outcome of connecting to {@link Node} in its {@link CircuitBreaker}. For L4 connections,
+     * connect is the only outcome. Protocols which record outcome of every request override this
+     * to do nothing, so connects which carry no request (i.e. pre-warmed ones) are not counted.
+     */
+    protected void recordConnectOutcome(ChannelFuture channelFuture) {
+        if (channelFuture.isSuccess()) {
+            node.circuitBreaker().onSuccess();
+        } else if (state == State.CONNECTION_TIMEOUT) {
+            node.circuitBreaker().onTimeout();
+        } else {
+            node.circuitBreaker().onFailure();
+        }
+    }
+
     /**
      * This method is called when {@link #channelFuture()} has finished the operation.
      * Protocol implementations extending this class must clear {@link #backlogQueue} when
@@ -150,6 +166,32 @@ public abstract class Connection {
         }
     }
 
+    /**
+     * Write data without flushing. If connection is not established yet
+     * then data is added to backlog and flushed once connection is established.
+     *
+     * @param o Data to be written
+     */
+    @NonNull
+    public void write(Object o) {
+        if (state == State.INITIALIZED) {
+            backlogQueue.add(o);
+        } else if (state == State.CONNECTED_AND_ACTIVE && channel != null) {
+            channel.write(o, channel.voidPromise());
+        } else {
+            ReferenceCountedUtil.silentRelease(o);
+        }
+    }
+
+    /**
+     * Flush all pending writes
+     */
+    public void flush() {
+        if (state == State.CONNECTED_AND_ACTIVE && channel != null) {
+            channel.flush();
+        }
+    }
+
     /**
      * Release this {@linkplain Connection} back to connection pool.
      */
@@ -0,0 +1,181 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend;
+
+import com.shieldblaze.expressgateway.configuration.transport.TransportConfiguration;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.ThreadExecutorMap;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> {@link FlushBatcher} consolidates flushes of writes performed during a read burst. </p>
+ *
+ * <p> Proxy handlers write every message they read into the peer {@link Channel} or {@link Connection}
+ * using {@link #write(Channel, Object)} or {@link #write(Connection, Object)} and call {@link #flush()}
+ * from {@code channelReadComplete}. Pending writes are also flushed once {@code maxPendingWrites}
+ * is reached, or when the write target changes. </p>
+ *
+ * <p> If flush delay is set, a flush is also scheduled on the event loop of the reading channel when
+ * a write becomes pending, so writes are never held back for longer than the delay even if
+ * {@link #flush()} is not called. The scheduled flush is cancelled once pending writes are flushed. </p>
+ *
+ * <p> This class is not thread-safe and must only be used from the event loop of the reading channel. </p>
+ */
+public final class FlushBatcher {
+
+    private final int maxPendingWrites;
+    private final long flushDelayNanos;
+    private final Runnable flushTask = this::scheduledFlush;
+    private int pendingWrites;
+    private ScheduledFuture<?> flushFuture;
+    private Channel channel;
+    private Connection connection;
+
+    /**
+     * Create a new {@link FlushBatcher} Instance without flush delay
+     *
+     * @param maxPendingWrites Maximum number of writes before flush is forced.
+     *                         {@code 0} disables consolidation and flushes every write.
+     */
+    public FlushBatcher(int maxPendingWrites) {
+        this(maxPendingWrites, 0);
+    }
+
+    /**
+     * Create a new {@link FlushBatcher} Instance using flush consolidation limit and delay
+     * of {@link TransportConfiguration}
+     *
+     * @param transportConfiguration {@link TransportConfiguration} Instance
+     */
+    public FlushBatcher(TransportConfiguration transportConfiguration) {
+        this(transportConfiguration.flushConsolidationLimit(), TimeUnit.MICROSECONDS.toNanos(transportConfiguration.flushConsolidationDelay()));
+    }
+
+    /**
+     * Create a new {@link FlushBatcher} Instance
+     *
+     * @param maxPendingWrites Maximum number of writes before flush is forced.
+     *                         {@code 0} disables consolidation and flushes every write.
+     * @param flushDelayNanos  Maximum time in nanoseconds a write stays pending before it is flushed.
+     *                         {@code 0} disables timed flush.
+     */
+    public FlushBatcher(int maxPendingWrites, long flushDelayNanos) {
+        if (maxPendingWrites < 0) {
+            throw new IllegalArgumentException("MaxPendingWrites must be 0 or greater; Value: " + maxPendingWrites);
+        }
+        if (flushDelayNanos < 0) {
+            throw new IllegalArgumentException("FlushDelayNanos must be 0 or greater; Value: " + flushDelayNanos);
+        }
+        this.maxPendingWrites = maxPendingWrites;
+        this.flushDelayNanos = flushDelayNanos;
+    }
+
+    /**
+     * Write data into {@link Channel}
+     *
+     * @param channel {@link Channel} to write into
+     * @param msg     Data to be written
+     */
+    public void write(Channel channel, Object msg) {
+        if (maxPendingWrites == 0) {
+            channel.writeAndFlush(msg, channel.voidPromise());
+            return;
+        }
+
+        if (this.channel != channel) {
+            flush();
+            this.channel = channel;
+            this.connection = null;
+        }
+
+        channel.write(msg, channel.voidPromise());
+        incrementAndFlushIfNeeded();
+    }
+
+    /**
+     * Write data into {@link Connection}
+     *
+     * @param connection {@link Connection} to write into
+     * @param msg        Data to be written
+     */
+    public void write(Connection connection, Object msg) {
+        if (maxPendingWrites == 0) {
+            connection.writeAndFlush(msg);
+            return;
+        }
+
+        if (this.connection != connection) {
+            flush();
+            this.connection = connection;
+            this.channel = null;
+        }
+
+        connection.write(msg);
+        incrementAndFlushIfNeeded();
+    }
+
+    private void incrementAndFlushIfNeeded() {
+        if (++pendingWrites >= maxPendingWrites) {
+            flush();
+        } else if (flushDelayNanos > 0 && flushFuture == null) {
+            // Writes are performed from event loop of the reading channel,
+            // so the timed flush runs on the same thread as writes.
+            EventExecutor executor = ThreadExecutorMap.currentExecutor();
+            if (executor != null) {
+                flushFuture = executor.schedule(flushTask, flushDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void scheduledFlush() {
+        flushFuture = null;
+        flush();
+    }
+
+    /**
+     * Flush all pending writes
+     */
+    public void flush() {
+        if (pendingWrites == 0) {
+            return;
+        }
+        pendingWrites = 0;
+
+        // Writes are flushed now, timed flush is not needed anymore.
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+            flushFuture = null;
+        }
+
+        if (channel != null) {
+            channel.flush();
+        } else if (connection != null) {
+            connection.flush();
+        }
+    }
+
+    /**
+     * Number of writes pending flush
+     */
+    public int pendingWrites() {
+        return pendingWrites;
+    }
+}
@@ -22,6 +22,7 @@ import com.shieldblaze.expressgateway.backend.cluster.Cluster;
 import com.shieldblaze.expressgateway.backend.events.node.NodeOfflineEvent;
 import com.shieldblaze.expressgateway.backend.events.node.NodeOnlineEvent;
 import com.shieldblaze.expressgateway.backend.exceptions.TooManyConnectionsException;
+import com.shieldblaze.expressgateway.backend.latency.Latency;
 import com.shieldblaze.expressgateway.common.annotation.NonNull;
 import com.shieldblaze.expressgateway.common.utils.MathUtil;
 import com.shieldblaze.expressgateway.common.utils.NumberUtil;
@@ -37,6 +38,7 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <p> {@link Node} is the server where all requests are sent. </p>
@@ -85,6 +87,36 @@ public final class Node implements Comparable<Node>, Closeable {
      */
     private final AtomicLong bytesReceived = new AtomicLong();
 
+    /**
+     * Latency histograms of this {@link Node}
+     */
+    private final Latency latency = new Latency();
+
+    /**
+     * {@link CircuitBreaker} of this {@link Node}
+     */
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Number of times {@link #tryLease()} returned a pooled connection
+     */
+    private final LongAdder poolHits = new LongAdder();
+
+    /**
+     * Number of times {@link #tryLease()} found the connection pool empty
+     */
+    private final LongAdder poolMisses = new LongAdder();
+
+    /**
+     * Number of TLS handshakes completed with this {@link Node}
+     */
+    private final LongAdder tlsHandshakes = new LongAdder();
+
+    /**
+     * Number of TLS handshakes which resumed a cached session
+     */
+    private final LongAdder tlsResumedHandshakes = new LongAdder();
+
     /**
      * Active Connection secondary implementation
      */
@@ -114,9 +146,11 @@ public final class Node implements Comparable<Node>, Closeable {
      * Create a new Instance
      */
     @NonNull
-    Node(Cluster cluster, InetSocketAddress socketAddress) throws Exception {
+    Node(Cluster cluster, InetSocketAddress socketAddress, CircuitBreaker circuitBreaker) throws Exception {
         this.socketAddress = socketAddress;
         this.cluster = cluster;
+        this.circuitBreaker = circuitBreaker;
+        circuitBreaker.node(this);
         addedToCluster = this.cluster.addNode(this);
 
         state(State.ONLINE);
@@ -154,7 +188,7 @@ public final class Node implements Comparable<Node>, Closeable {
      *
      * @param bytes Number of bytes to increment
      */
-    void incBytesSent(int bytes) {
+    public void incBytesSent(int bytes) {
         bytesSent.addAndGet(bytes);
     }
 
@@ -163,7 +197,7 @@ public final class Node implements Comparable<Node>, Closeable {
      *
      * @param bytes Number of bytes to increment
      */
-    void incBytesReceived(int bytes) {
+    public void incBytesReceived(int bytes) {
         bytesReceived.addAndGet(bytes);
     }
 
@@ -181,6 +215,76 @@ public final class Node implements Comparable<Node>, Closeable {
         return bytesReceived.get();
     }
 
+    /**
+     * Record time taken to connect to this Node
+     *
+     * @param nanos Time in nanoseconds
+     */
+    public void recordConnectTime(long nanos) {
+        latency.connectTime().record(nanos);
+        cluster.latency().connectTime().record(nanos);
+    }
+
+    /**
+     * Record time taken to receive first byte from this Node
+     *
+     * @param nanos Time in nanoseconds
+     */
+    public void recordTimeToFirstByte(long nanos) {
+        latency.timeToFirstByte().record(nanos);
+        cluster.latency().timeToFirstByte().record(nanos);
+    }
+
+    /**
+     * Record total duration of a request or connection handled by this Node
+     *
+     * @param nanos Time in nanoseconds
+     */
+    public void recordDuration(long nanos) {
+        latency.duration().record(nanos);
+        cluster.latency().duration().record(nanos);
+    }
+
+    /**
+     * Record a completed TLS handshake with this Node
+     *
+     * @param resumed Set to {@code true} if handshake resumed a cached session
+     */
+    public void recordTlsHandshake(boolean resumed) {
+        tlsHandshakes.increment();
+        if (resumed) {
+            tlsResumedHandshakes.increment();
+        }
+    }
+
+    /**
+     * Number of TLS handshakes completed with this Node
+     */
+    public long tlsHandshakes() {
+        return tlsHandshakes.sum();
+    }
+
+    /**
+     * Number of TLS handshakes with this Node which resumed a cached session
+     */
+    public long tlsResumedHandshakes() {
+        return tlsResumedHandshakes.sum();
+    }
+
+    /**
+     * Returns {@link Latency} histograms of this Node
+     */
+    public Latency latency() {
+        return latency;
+    }
+
+    /**
+     * Returns {@link CircuitBreaker} of this Node
+     */
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
     /**
      * Returns the current {@link State} of this Node
      */
@@ -333,7 +437,34 @@ public final class Node implements Comparable<Node>, Closeable {
      * @return {@link Connection} if an available active connection is available else {@code null}
      */
     public Connection tryLease() {
-        return availableConnections.poll();
+        Connection connection = availableConnections.poll();
+        if (connection == null) {
+            poolMisses.increment();
+        } else {
+            poolHits.increment();
+        }
+        return connection;
+    }
+
+    /**
+     * Number of available connections in connection pool which can be leased
+     */
+    public int idleConnections() {
+        return availableConnections.size();
+    }
+
+    /**
+     * Number of times a connection was leased from connection pool
+     */
+    public long poolHits() {
+        return poolHits.sum();
+    }
+
+    /**
+     * Number of times connection pool was empty and a new connection was required
+     */
+    public long poolMisses() {
+        return poolMisses.sum();
     }
 
     /**
@@ -375,6 +506,7 @@ public final class Node implements Comparable<Node>, Closeable {
                 ", BytesReceived=" + bytesReceived +
                 ", Connections=" + activeConnection() + "/" + maxConnections() +
                 ", state=" + state +
+                ", circuitBreaker=" + circuitBreaker.state() +
                 ", health=" + health() +
                 '}';
     }
@@ -411,6 +543,7 @@ public final class Node implements Comparable<Node>, Closeable {
             state(State.OFFLINE);
             drainConnections();
             cluster.removeNode(this);
+            latency.close();
 
             logger.info("Successfully closed Node: {} from Cluster: {}", this, cluster);
         } catch (Exception ex) {
@@ -432,7 +565,20 @@ public final class Node implements Comparable<Node>, Closeable {
         jsonObject.addProperty("BytesReceived", bytesReceived);
         jsonObject.addProperty("State", state.toString());
         jsonObject.addProperty("Health", health().toString());
+        jsonObject.addProperty("CircuitBreaker", circuitBreaker.state().toString());
         jsonObject.addProperty("AddedToCluster", addedToCluster);
+        jsonObject.add("Latency", latency.toJson());
+
+        JsonObject pool = new JsonObject();
+        pool.addProperty("Idle", idleConnections());
+        pool.addProperty("Hits", poolHits());
+        pool.addProperty("Misses", poolMisses());
+        jsonObject.add("Pool", pool);
+
+        JsonObject tls = new JsonObject();
+        tls.addProperty("Handshakes", tlsHandshakes());
+        tls.addProperty("Resumed", tlsResumedHandshakes());
+        jsonObject.add("TLS", tls);
         return jsonObject;
     }
 }
@@ -29,6 +29,7 @@ public final class NodeBuilder {
 
     private Cluster cluster;
     private InetSocketAddress socketAddress;
+    private CircuitBreaker circuitBreaker;
 
     private NodeBuilder() {
         // Prevent outside initialization
@@ -48,6 +49,15 @@ public final class NodeBuilder {
         return this;
     }
 
+    /**
+     * Set {@link CircuitBreaker} of {@link Node}. A {@link CircuitBreaker}
+     * with default settings is used if not set.
+     */
+    public NodeBuilder withCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
     /**
      * Build {@link Node} Instance
      *
@@ -57,6 +67,10 @@ public final class NodeBuilder {
         Objects.requireNonNull(cluster, "Cluster");
         Objects.requireNonNull(socketAddress, "SocketAddress");
 
-        return new Node(cluster, socketAddress);
+        if (circuitBreaker == null) {
+            circuitBreaker = CircuitBreakerBuilder.newBuilder().build();
+        }
+
+        return new Node(cluster, socketAddress, circuitBreaker);
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend;
+
+import com.shieldblaze.expressgateway.common.annotation.NonNull;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.ssl.ReferenceCountedOpenSslEngine;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
+import io.netty.internal.tcnative.SSL;
+
+import javax.net.ssl.SSLEngine;
+
+/**
+ * <p> Handler which tracks TLS handshakes with a {@link Node} and whether
+ * the handshake resumed a cached session (using session ticket or session ID). </p>
+ *
+ * <p> OpenSSL is asked directly whether the session was reused. OpenSSL keeps creation time
+ * in seconds only, so a new session looks older than this connection. With the JDK, a resumed
+ * session keeps the creation time of the earlier connection which created it, so its creation time
+ * is before this connection started. This handler must be added after {@link SslHandler}. </p>
+ */
+public final class NodeTlsSessionTracker extends ChannelInboundHandlerAdapter {
+
+    private final Node node;
+    private final long startMillis = System.currentTimeMillis();
+
+    @NonNull
+    public NodeTlsSessionTracker(Node node) {
+        this.node = node;
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof SslHandshakeCompletionEvent sslHandshakeCompletionEvent && sslHandshakeCompletionEvent.isSuccess()) {
+            SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
+            if (sslHandler != null) {
+                node.recordTlsHandshake(isSessionReused(sslHandler.engine()));
+            }
+            ctx.pipeline().remove(this);
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    private boolean isSessionReused(SSLEngine engine) {
+        if (engine instanceof ReferenceCountedOpenSslEngine openSslEngine) {
+            // Lock the engine so SSL pointer is not freed while we use it.
+            synchronized (openSslEngine) {
+                long ssl = openSslEngine.sslPointer();
+                return ssl != 0 && SSL.isSessionReused(ssl);
+            }
+        }
+        return engine.getSession().getCreationTime() < startMillis;
+    }
+}
@@ -19,13 +19,16 @@ package com.shieldblaze.expressgateway.backend.cluster;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.shieldblaze.expressgateway.backend.CircuitBreaker;
 import com.shieldblaze.expressgateway.backend.Connection;
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.events.node.NodeAddedEvent;
 import com.shieldblaze.expressgateway.backend.events.node.NodeRemovedEvent;
 import com.shieldblaze.expressgateway.backend.exceptions.LoadBalanceException;
+import com.shieldblaze.expressgateway.backend.exceptions.NoNodeAvailableException;
 import com.shieldblaze.expressgateway.backend.healthcheck.HealthCheckService;
 import com.shieldblaze.expressgateway.backend.healthcheck.HealthCheckTemplate;
+import com.shieldblaze.expressgateway.backend.latency.Latency;
 import com.shieldblaze.expressgateway.backend.loadbalance.LoadBalance;
 import com.shieldblaze.expressgateway.backend.loadbalance.Request;
 import com.shieldblaze.expressgateway.backend.loadbalance.Response;
@@ -44,6 +47,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -77,6 +82,7 @@ public class Cluster extends ClusterOnlineNodesWorker {
     private LoadBalance<?, ?, ?, ?> loadBalance;
     private HealthCheckService healthCheckService;
     private HealthCheckTemplate healthCheckTemplate;
+    private final Latency latency = new Latency();
 
     Cluster(LoadBalance<?, ?, ?, ?> loadBalance) {
         loadBalance(loadBalance);
@@ -179,13 +185,38 @@ public class Cluster extends ClusterOnlineNodesWorker {
     }
 
     /**
-     * Get the next {@link Node} available to handle request.
+     * Get the next {@link Node} available to handle request. {@link Node}s whose
+     * {@link CircuitBreaker} rejects the request are skipped.
      *
      * @throws LoadBalanceException In case of some error while generating {@linkplain Response}
      */
     @NonNull
     public Response nextNode(Request request) throws LoadBalanceException {
-        return loadBalance.response(request);
+        return nextNode(request, Collections.emptyList());
+    }
+
+    /**
+     * Get the next {@link Node} available to handle request which is not one of {@code excluded},
+     * i.e. {@link Node}s which were already tried. Excluded {@link Node}s are skipped before their
+     * {@link CircuitBreaker} is asked, so they never take a half-open trial permit.
+     *
+     * @param excluded {@link Node}s to skip
+     * @throws LoadBalanceException In case of some error while generating {@linkplain Response}
+     */
+    @NonNull
+    public Response nextNode(Request request, Collection<Node> excluded) throws LoadBalanceException {
+        int attempts = Math.max(ONLINE_NODES.size(), 1);
+        for (int i = 0; i < attempts; i++) {
+            Response response = loadBalance.response(request);
+            Node node = response.node();
+            if (node != null && excluded.contains(node)) {
+                continue;
+            }
+            if (node == null || node.circuitBreaker().tryAcquire()) {
+                return response;
+            }
+        }
+        throw new NoNodeAvailableException(excluded.isEmpty() ? "Circuit of all Nodes is open" : "All Nodes were excluded or their circuit is open");
     }
 
     /**
@@ -248,6 +279,13 @@ public class Cluster extends ClusterOnlineNodesWorker {
         }
     }
 
+    /**
+     * Returns {@link Latency} histograms of all {@link Node}s of this {@linkplain Cluster}
+     */
+    public Latency latency() {
+        return latency;
+    }
+
     public EventStream eventStream() {
         return eventStream;
     }
@@ -332,6 +370,7 @@ public class Cluster extends ClusterOnlineNodesWorker {
                 }
             });
             nodes.clear();
+            latency.close();
 
             logger.info("Successfully shutdown Cluster: {}", this);
         } catch (Exception ex) {
@@ -365,6 +404,7 @@ public class Cluster extends ClusterOnlineNodesWorker {
         }
 
         jsonObject.add("Nodes", nodesArray);
+        jsonObject.add("Latency", latency.toJson());
         return jsonObject;
     }
 }
@@ -0,0 +1,41 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend.events.node;
+
+import com.shieldblaze.expressgateway.backend.CircuitBreaker;
+import com.shieldblaze.expressgateway.backend.Node;
+
+/**
+ * When {@link CircuitBreaker} of a {@linkplain Node} changes its {@link CircuitBreaker.State}.
+ */
+public final class NodeCircuitBreakerEvent extends NodeEvent {
+
+    private final CircuitBreaker.State state;
+
+    public NodeCircuitBreakerEvent(Node node, CircuitBreaker.State state) {
+        super(node);
+        this.state = state;
+    }
+
+    /**
+     * New {@link CircuitBreaker.State}
+     */
+    public CircuitBreaker.State state() {
+        return state;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend.latency;
+
+import com.google.gson.JsonObject;
+
+import java.io.Closeable;
+
+/**
+ * Latency histograms of a {@link com.shieldblaze.expressgateway.backend.Node}
+ * or {@link com.shieldblaze.expressgateway.backend.cluster.Cluster}
+ */
+public final class Latency implements Closeable {
+
+    private final LatencyHistogram connectTime = new LatencyHistogram();
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+    private final LatencyHistogram duration = new LatencyHistogram();
+
+    /**
+     * Time taken to establish connection with Node
+     */
+    public LatencyHistogram connectTime() {
+        return connectTime;
+    }
+
+    /**
+     * Time from sending request, or opening TCP connection, until first byte is received from Node
+     */
+    public LatencyHistogram timeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * Total duration of request or TCP connection
+     */
+    public LatencyHistogram duration() {
+        return duration;
+    }
+
+    /**
+     * Release recordings of all histograms
+     */
+    @Override
+    public void close() {
+        connectTime.close();
+        timeToFirstByte.close();
+        duration.close();
+    }
+
+    /**
+     * Convert all histograms into {@link JsonObject}. All values are in microseconds.
+     */
+    public JsonObject toJson() {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.add("ConnectTime", connectTime.snapshot().toJson());
+        jsonObject.add("TimeToFirstByte", timeToFirstByte.snapshot().toJson());
+        jsonObject.add("Duration", duration.snapshot().toJson());
+        return jsonObject;
+    }
+}
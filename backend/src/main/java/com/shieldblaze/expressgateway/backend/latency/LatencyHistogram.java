@@ -0,0 +1,341 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend.latency;
+
+import com.google.gson.JsonObject;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p> {@link LatencyHistogram} records latencies into log-linear buckets, like HdrHistogram,
+ * with 32 buckets per power of two, i.e. every recorded value is accurate within 3.2%. Values are
+ * recorded in nanoseconds and kept in microseconds, from 1 microsecond up to ~71 minutes. </p>
+ *
+ * <p> Every recording thread writes into its own {@link Recorder} without any synchronization, and
+ * all {@link Recorder}s are merged into a {@link Snapshot} on read. Recorders publish every value
+ * with a release store, so a {@link Snapshot} never sees partially written values, but it is not
+ * an atomic view of all recordings, which is fine for monitoring. </p>
+ *
+ * <p> Each histogram has an ID which is recycled once it is {@link #close() closed}. All histograms share
+ * one {@link FastThreadLocal} which holds {@link Recorder}s of the thread indexed by histogram ID, so the
+ * number of thread-local indexes does not grow with the number of histograms created. </p>
+ *
+ * <p> Memory is taken per recording thread per histogram, i.e. per node and event loop. Buckets of a
+ * {@link Recorder} are allocated lazily in chunks of one power of two (32 buckets, ~290 bytes), so a
+ * {@link Recorder} takes ~200 bytes plus ~290 bytes for every power of two it has recorded values in.
+ * Latencies of a node usually span a few powers of two, i.e. 200 microseconds to 15 milliseconds take
+ * 7 chunks or ~2.2 KB, and 1000 nodes recorded by 32 event loops take ~70 MB. A {@link Recorder}
+ * which has values in all 28 chunks takes ~8.3 KB. </p>
+ */
+public final class LatencyHistogram implements Closeable {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    private static final int MAX_MAGNITUDE = 32;
+    private static final long MAX_VALUE = (1L << MAX_MAGNITUDE) - 1;
+
+    /**
+     * Values below {@link #SUB_BUCKET_COUNT} have their own bucket, every following
+     * power of two has {@link #SUB_BUCKET_HALF_COUNT} buckets.
+     */
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    /**
+     * Buckets are allocated in chunks of {@link #SUB_BUCKET_HALF_COUNT}, one chunk per power of two
+     */
+    private static final int CHUNK_BITS = SUB_BUCKET_BITS - 1;
+    private static final int CHUNK_COUNT = BUCKET_COUNT >> CHUNK_BITS;
+
+    /**
+     * IDs of histograms which are not closed yet
+     */
+    private static final BitSet IDS = new BitSet();
+
+    private static final FastThreadLocal<Stripes> STRIPES = new FastThreadLocal<>() {
+        @Override
+        protected Stripes initialValue() {
+            return new Stripes();
+        }
+    };
+
+    private final int id;
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    private volatile Snapshot cachedSnapshot;
+    private volatile long cachedSnapshotNanos;
+
+    public LatencyHistogram() {
+        synchronized (IDS) {
+            id = IDS.nextClearBit(0);
+            IDS.set(id);
+        }
+    }
+
+    /**
+     * Record a latency. Latencies recorded after {@link #close()} are ignored.
+     *
+     * @param nanos Latency in nanoseconds
+     */
+    public void record(long nanos) {
+        Recorder recorder = STRIPES.get().recorder(this);
+        if (recorder != null) {
+            recorder.record(nanos / 1000);
+        }
+    }
+
+    /**
+     * Merge all recordings into a {@link Snapshot}
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+
+        for (Recorder recorder : recorders) {
+            // Read totals first, chunks allocated before the last recording are visible afterwards.
+            AtomicLongArray totals = recorder.totals;
+            count += totals.get(Recorder.COUNT);
+            sum += totals.get(Recorder.SUM);
+            max = Math.max(max, totals.get(Recorder.MAX));
+
+            AtomicLongArray[] chunks = recorder.chunks;
+            for (int chunk = 0; chunk < CHUNK_COUNT; chunk++) {
+                AtomicLongArray values = chunks[chunk];
+                if (values != null) {
+                    int offset = chunk << CHUNK_BITS;
+                    for (int i = 0; i < SUB_BUCKET_HALF_COUNT; i++) {
+                        counts[offset + i] += values.get(i);
+                    }
+                }
+            }
+        }
+        return new Snapshot(counts, count, sum, max);
+    }
+
+    /**
+     * Get a {@link Snapshot} which is at most {@code maxAgeNanos} old. Use this on hot paths
+     * which only need an approximate view, merging all {@link Recorder}s is not cheap.
+     */
+    public Snapshot snapshot(long maxAgeNanos) {
+        Snapshot snapshot = cachedSnapshot;
+        long now = System.nanoTime();
+        if (snapshot == null || now - cachedSnapshotNanos > maxAgeNanos) {
+            snapshot = snapshot();
+            cachedSnapshot = snapshot;
+            cachedSnapshotNanos = now;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Release all recordings and recycle ID of this histogram. {@link Recorder}s left in
+     * threads are replaced once the ID is used by another histogram.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        recorders.clear();
+        cachedSnapshot = null;
+        synchronized (IDS) {
+            IDS.clear(id);
+        }
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) Math.max(micros, 0);
+        }
+
+        long value = Math.min(micros, MAX_VALUE);
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift) - SUB_BUCKET_HALF_COUNT;
+    }
+
+    /**
+     * Highest value which is recorded into bucket at {@code index}
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * {@link Recorder}s of a thread indexed by histogram ID
+     */
+    private static final class Stripes {
+        private Recorder[] recorders = new Recorder[16];
+
+        private Recorder recorder(LatencyHistogram histogram) {
+            int id = histogram.id;
+            if (id < recorders.length) {
+                Recorder recorder = recorders[id];
+                if (recorder != null && recorder.histogram == histogram) {
+                    return recorder;
+                }
+            }
+
+            // Slot is empty or left by a closed histogram which had the same ID.
+            if (histogram.closed) {
+                return null;
+            }
+            if (id >= recorders.length) {
+                recorders = Arrays.copyOf(recorders, Math.max(id + 1, recorders.length * 2));
+            }
+
+            Recorder recorder = new Recorder(histogram);
+            recorders[id] = recorder;
+            histogram.recorders.add(recorder);
+            return recorder;
+        }
+    }
+
+    /**
+     * Recordings of one thread. Only the owning thread writes, so every value
+     * is published with {@link AtomicLongArray#lazySet(int, long)}. A chunk is
+     * allocated on first value recorded into it and published by the following
+     * release store of the count.
+     */
+    private static final class Recorder {
+        private static final int COUNT = 0;
+        private static final int SUM = 1;
+        private static final int MAX = 2;
+
+        private final LatencyHistogram histogram;
+        private final AtomicLongArray[] chunks = new AtomicLongArray[CHUNK_COUNT];
+        private final AtomicLongArray totals = new AtomicLongArray(3);
+
+        private Recorder(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        private void record(long micros) {
+            int index = bucketIndex(micros);
+            AtomicLongArray values = chunks[index >> CHUNK_BITS];
+            if (values == null) {
+                values = new AtomicLongArray(SUB_BUCKET_HALF_COUNT);
+                chunks[index >> CHUNK_BITS] = values;
+            }
+
+            int offset = index & (SUB_BUCKET_HALF_COUNT - 1);
+            values.lazySet(offset, values.get(offset) + 1);
+            totals.lazySet(COUNT, totals.get(COUNT) + 1);
+            totals.lazySet(SUM, totals.get(SUM) + micros);
+            if (micros > totals.get(MAX)) {
+                totals.lazySet(MAX, micros);
+            }
+        }
+    }
+
+    /**
+     * Merged recordings of a {@link LatencyHistogram}. All values are in microseconds.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Number of recorded values
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Mean of recorded values
+         */
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Maximum recorded value
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Value at percentile
+         *
+         * @param percentile Percentile between 0 and 100
+         */
+        public long valueAtPercentile(double percentile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Convert this {@link Snapshot} into {@link JsonObject}
+         */
+        public JsonObject toJson() {
+            JsonObject jsonObject = new JsonObject();
+            jsonObject.addProperty("Count", count);
+            jsonObject.addProperty("Mean", mean());
+            jsonObject.addProperty("P50", valueAtPercentile(50));
+            jsonObject.addProperty("P90", valueAtPercentile(90));
+            jsonObject.addProperty("P99", valueAtPercentile(99));
+            jsonObject.addProperty("P999", valueAtPercentile(99.9));
+            jsonObject.addProperty("Max", max);
+            return jsonObject;
+        }
+    }
+}
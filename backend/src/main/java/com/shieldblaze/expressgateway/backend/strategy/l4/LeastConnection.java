@@ -54,7 +54,7 @@ public final class LeastConnection extends L4Balance {
     public L4Response response(L4Request l4Request) throws LoadBalanceException {
         Node node = sessionPersistence.node(l4Request);
         if (node != null) {
-            if (node.state() == State.ONLINE) {
+            if (node.state() == State.ONLINE && node.circuitBreaker().allowsSelection()) {
                 return new L4Response(node);
             } else {
                 sessionPersistence.removeRoute(l4Request.socketAddress(), node);
@@ -64,6 +64,7 @@ public final class LeastConnection extends L4Balance {
         // Get the Node with the least amount of active connections
         Optional<Node> optionalNode = cluster.onlineNodes()
                 .stream()
+                .filter(onlineNode -> onlineNode.circuitBreaker().allowsSelection())
                 .reduce((a, b) -> a.activeConnection() < b.activeConnection() ? a : b);
 
         // If we don't have any node available then throw an exception.
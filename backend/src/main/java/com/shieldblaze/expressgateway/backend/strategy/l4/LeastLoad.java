@@ -54,7 +54,7 @@ public final class LeastLoad extends L4Balance {
     public L4Response response(L4Request l4Request) throws LoadBalanceException {
         Node node = sessionPersistence.node(l4Request);
         if (node != null) {
-            if (node.state() == State.ONLINE) {
+            if (node.state() == State.ONLINE && node.circuitBreaker().allowsSelection()) {
                 return new L4Response(node);
             } else {
                 sessionPersistence.removeRoute(l4Request.socketAddress(), node);
@@ -64,6 +64,7 @@ public final class LeastLoad extends L4Balance {
         // Get the Node with least amount of active connections
         Optional<Node> optionalNode = cluster.onlineNodes()
                 .stream()
+                .filter(onlineNode -> onlineNode.circuitBreaker().allowsSelection())
                 .reduce((node1, node2) -> node1.load() < 100 ? node1 : node2);
 
         // If we don't have any node available then throw an exception.
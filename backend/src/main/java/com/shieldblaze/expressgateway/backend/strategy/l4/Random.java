@@ -56,7 +56,7 @@ public final class Random extends L4Balance {
     public L4Response response(L4Request l4Request) throws LoadBalanceException {
         Node node = sessionPersistence.node(l4Request);
         if (node != null) {
-            if (node.state() == State.ONLINE) {
+            if (node.state() == State.ONLINE && node.circuitBreaker().allowsSelection()) {
                 return new L4Response(node);
             } else {
                 sessionPersistence.removeRoute(l4Request.socketAddress(), node);
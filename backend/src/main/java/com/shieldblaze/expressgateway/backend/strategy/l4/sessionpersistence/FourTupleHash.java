@@ -20,12 +20,11 @@ package com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence;
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.loadbalance.Request;
 import com.shieldblaze.expressgateway.backend.loadbalance.SessionPersistence;
-import com.shieldblaze.expressgateway.common.map.SelfExpiringMap;
+import com.shieldblaze.expressgateway.common.map.ConcurrentExpiringMap;
 
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -35,7 +34,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public final class FourTupleHash implements SessionPersistence<Node, Node, InetSocketAddress, Node> {
 
     private final Map<InetSocketAddress, Node> routeMap =
-            new SelfExpiringMap<>(new ConcurrentHashMap<>(), Duration.ofHours(1), false);
+            new ConcurrentExpiringMap<>(Duration.ofHours(1), false);
 
     @Override
     public Node node(Request request) {
@@ -20,7 +20,7 @@ package com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence;
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.loadbalance.Request;
 import com.shieldblaze.expressgateway.backend.loadbalance.SessionPersistence;
-import com.shieldblaze.expressgateway.common.map.SelfExpiringMap;
+import com.shieldblaze.expressgateway.common.map.ConcurrentExpiringMap;
 import io.netty.util.NetUtil;
 
 import java.math.BigInteger;
@@ -28,14 +28,13 @@ import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetSocketAddress;
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class SourceIPHash implements SessionPersistence<Node, Node, InetSocketAddress, Node> {
 
     private static final BigInteger MINUS_ONE = BigInteger.valueOf(-1);
 
-    private final SelfExpiringMap<Object, Node> routeMap = new SelfExpiringMap<>(new ConcurrentHashMap<>(), Duration.ofHours(1), false);
+    private final ConcurrentExpiringMap<Object, Node> routeMap = new ConcurrentExpiringMap<>(Duration.ofHours(1), false);
 
     @Override
     public Node node(Request request) {
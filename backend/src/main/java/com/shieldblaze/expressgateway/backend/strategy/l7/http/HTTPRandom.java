@@ -56,9 +56,9 @@ public final class HTTPRandom extends HTTPBalance {
     public HTTPBalanceResponse response(HTTPBalanceRequest request) throws LoadBalanceException {
         HTTPBalanceResponse httpBalanceResponse = sessionPersistence.node(request);
         if (httpBalanceResponse != null) {
-            // If Backend is ONLINE then return the response
+            // If Backend is ONLINE and its circuit allows it then return the response
             // else remove it from session persistence.
-            if (httpBalanceResponse.node().state() == State.ONLINE) {
+            if (httpBalanceResponse.node().state() == State.ONLINE && httpBalanceResponse.node().circuitBreaker().allowsSelection()) {
                 return httpBalanceResponse;
             } else {
                 sessionPersistence.removeRoute(request, httpBalanceResponse.node());
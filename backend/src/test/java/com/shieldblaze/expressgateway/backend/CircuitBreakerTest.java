@@ -0,0 +1,200 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend;
+
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.events.node.NodeCircuitBreakerEvent;
+import com.shieldblaze.expressgateway.backend.strategy.l4.L4Request;
+import com.shieldblaze.expressgateway.backend.strategy.l4.RoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence.NOOPSessionPersistence;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void tripOnFailureRateAndSkipNode() throws Exception {
+        Cluster cluster = ClusterBuilder.newBuilder().withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE)).build();
+        List<CircuitBreaker.State> states = new CopyOnWriteArrayList<>();
+        cluster.eventStream().subscribe(event -> {
+            if (event instanceof NodeCircuitBreakerEvent circuitBreakerEvent) {
+                states.add(circuitBreakerEvent.state());
+            }
+        });
+
+        Node failing = NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("192.168.1.1", 1))
+                .withCircuitBreaker(CircuitBreakerBuilder.newBuilder()
+                        .withMinimumRequests(10)
+                        .withFailureRateThreshold(50)
+                        .withOpenDuration(Duration.ofMinutes(1))
+                        .build())
+                .build();
+
+        Node healthy = NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("192.168.1.2", 1))
+                .build();
+
+        // Below minimum requests, circuit stays closed.
+        for (int i = 0; i < 4; i++) {
+            failing.circuitBreaker().onSuccess();
+            failing.circuitBreaker().onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, failing.circuitBreaker().state());
+
+        failing.circuitBreaker().onSuccess();
+        failing.circuitBreaker().onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, failing.circuitBreaker().state());
+        assertEquals(List.of(CircuitBreaker.State.OPEN), states);
+
+        assertFalse(failing.circuitBreaker().tryAcquire());
+        L4Request l4Request = new L4Request(new InetSocketAddress("10.0.0.1", 1));
+        for (int i = 0; i < 10; i++) {
+            assertSame(healthy, cluster.nextNode(l4Request).node());
+        }
+    }
+
+    @Test
+    void excludedNodeDoesNotTakeTrialPermit() throws Exception {
+        Cluster cluster = ClusterBuilder.newBuilder().withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE)).build();
+
+        Node tried = NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("192.168.1.1", 1))
+                .withCircuitBreaker(CircuitBreakerBuilder.newBuilder()
+                        .withConsecutiveTimeouts(1)
+                        .withOpenDuration(Duration.ofMillis(100))
+                        .withHalfOpenTrials(1)
+                        .build())
+                .build();
+
+        Node untried = NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("192.168.1.2", 1))
+                .build();
+
+        tried.circuitBreaker().onTimeout();
+        Thread.sleep(150);
+
+        L4Request l4Request = new L4Request(new InetSocketAddress("10.0.0.1", 1));
+        for (int i = 0; i < 10; i++) {
+            assertSame(untried, cluster.nextNode(l4Request, List.of(tried)).node());
+        }
+
+        // Trial permit of excluded Node is still available.
+        assertTrue(tried.circuitBreaker().tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, tried.circuitBreaker().state());
+    }
+
+    @Test
+    void staysClosedBelowThreshold() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreakerBuilder.newBuilder()
+                .withMinimumRequests(10)
+                .withFailureRateThreshold(50)
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            circuitBreaker.onSuccess();
+            circuitBreaker.onSuccess();
+            circuitBreaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpenTrials() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreakerBuilder.newBuilder()
+                .withConsecutiveTimeouts(3)
+                .withOpenDuration(Duration.ofMillis(100))
+                .withHalfOpenTrials(2)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onTimeout();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        Thread.sleep(150);
+
+        // Only 2 trials are admitted in half-open state
+        assertTrue(circuitBreaker.allowsSelection());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.allowsSelection());
+
+        // A failed trial opens circuit again
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+
+        Thread.sleep(150);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void abandonedTrialsOpenCircuitAgain() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreakerBuilder.newBuilder()
+                .withConsecutiveTimeouts(1)
+                .withOpenDuration(Duration.ofMillis(100))
+                .withHalfOpenTrials(2)
+                .build();
+
+        circuitBreaker.onTimeout();
+        Thread.sleep(150);
+
+        // Trial permits are taken but their requests never report an outcome.
+        assertTrue(circuitBreaker.tryAcquire());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.allowsSelection());
+
+        // Trials have not finished within open duration, circuit opens again.
+        Thread.sleep(150);
+        assertFalse(circuitBreaker.allowsSelection());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+
+        // And admits new trials once open duration has passed.
+        Thread.sleep(150);
+        assertTrue(circuitBreaker.allowsSelection());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+}
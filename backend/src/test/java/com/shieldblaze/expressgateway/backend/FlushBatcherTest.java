@@ -0,0 +1,175 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.internal.ThreadExecutorMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FlushBatcherTest {
+
+    @Test
+    void flushOnLimitAndReadComplete() {
+        FlushCounter flushCounter = new FlushCounter();
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(flushCounter);
+        FlushBatcher flushBatcher = new FlushBatcher(16);
+
+        // 40 writes in a read burst must cause 2 flushes by limit and 1 flush by read complete.
+        for (int i = 0; i < 40; i++) {
+            flushBatcher.write(embeddedChannel, Unpooled.buffer().writeZero(1));
+        }
+        assertEquals(2, flushCounter.flushes);
+        assertEquals(8, flushBatcher.pendingWrites());
+
+        flushBatcher.flush();
+        assertEquals(3, flushCounter.flushes);
+        assertEquals(0, flushBatcher.pendingWrites());
+
+        // Nothing is pending, flush must be no-op.
+        flushBatcher.flush();
+        assertEquals(3, flushCounter.flushes);
+
+        assertEquals(40, releaseOutbound(embeddedChannel));
+        embeddedChannel.close();
+    }
+
+    @Test
+    void flushEveryWriteWhenDisabled() {
+        FlushCounter flushCounter = new FlushCounter();
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(flushCounter);
+        FlushBatcher flushBatcher = new FlushBatcher(0);
+
+        for (int i = 0; i < 10; i++) {
+            flushBatcher.write(embeddedChannel, Unpooled.buffer().writeZero(1));
+        }
+        assertEquals(10, flushCounter.flushes);
+        assertEquals(0, flushBatcher.pendingWrites());
+
+        assertEquals(10, releaseOutbound(embeddedChannel));
+        embeddedChannel.close();
+    }
+
+    @Test
+    void flushPreviousChannelOnTargetChange() {
+        FlushCounter first = new FlushCounter();
+        FlushCounter second = new FlushCounter();
+        EmbeddedChannel firstChannel = new EmbeddedChannel(first);
+        EmbeddedChannel secondChannel = new EmbeddedChannel(second);
+        FlushBatcher flushBatcher = new FlushBatcher(16);
+
+        flushBatcher.write(firstChannel, Unpooled.buffer().writeZero(1));
+        flushBatcher.write(secondChannel, Unpooled.buffer().writeZero(1));
+        assertEquals(1, first.flushes);
+        assertEquals(0, second.flushes);
+
+        flushBatcher.flush();
+        assertEquals(1, second.flushes);
+
+        assertEquals(1, releaseOutbound(firstChannel));
+        assertEquals(1, releaseOutbound(secondChannel));
+        firstChannel.close();
+        secondChannel.close();
+    }
+
+    @Test
+    void flushOnDelayWithoutReadComplete() throws Exception {
+        FlushCounter flushCounter = new FlushCounter();
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(flushCounter);
+        FlushBatcher flushBatcher = new FlushBatcher(16, TimeUnit.MILLISECONDS.toNanos(10));
+        EventLoop eventLoop = new DefaultEventLoop();
+
+        try {
+            // Writes must be performed from an event loop for timed flush to be scheduled.
+            eventLoop.submit(() -> {
+                for (int i = 0; i < 4; i++) {
+                    flushBatcher.write(embeddedChannel, Unpooled.buffer().writeZero(1));
+                }
+            }).sync();
+            assertEquals(0, flushCounter.flushes);
+
+            // Read burst never completes, pending writes must still be flushed once delay has elapsed.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (eventLoop.submit(flushBatcher::pendingWrites).get() != 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, eventLoop.submit(flushBatcher::pendingWrites).get());
+            assertEquals(1, flushCounter.flushes);
+        } finally {
+            eventLoop.shutdownGracefully().sync();
+        }
+
+        assertEquals(4, releaseOutbound(embeddedChannel));
+        embeddedChannel.close();
+    }
+
+    @Test
+    void flushCancelsTimedFlush() {
+        FlushCounter flushCounter = new FlushCounter();
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(flushCounter);
+        FlushBatcher flushBatcher = new FlushBatcher(16, TimeUnit.SECONDS.toNanos(10));
+
+        ThreadExecutorMap.apply(() -> flushBatcher.write(embeddedChannel, Unpooled.buffer().writeZero(1)), embeddedChannel.eventLoop()).run();
+        assertNotEquals(-1, embeddedChannel.runScheduledPendingTasks());
+
+        // Read complete flushes pending writes, timed flush must not stay scheduled.
+        flushBatcher.flush();
+        assertEquals(1, flushCounter.flushes);
+        assertEquals(-1, embeddedChannel.runScheduledPendingTasks());
+
+        assertEquals(1, releaseOutbound(embeddedChannel));
+        embeddedChannel.close();
+    }
+
+    @Test
+    void negativeLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new FlushBatcher(-1));
+        assertThrows(IllegalArgumentException.class, () -> new FlushBatcher(16, -1));
+    }
+
+    private static int releaseOutbound(EmbeddedChannel embeddedChannel) {
+        int count = 0;
+        ByteBuf byteBuf;
+        while ((byteBuf = embeddedChannel.readOutbound()) != null) {
+            byteBuf.release();
+            count++;
+        }
+        return count;
+    }
+
+    private static final class FlushCounter extends ChannelOutboundHandlerAdapter {
+        private int flushes;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            flushes++;
+            ctx.flush();
+        }
+    }
+}
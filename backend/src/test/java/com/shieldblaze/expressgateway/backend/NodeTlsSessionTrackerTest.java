@@ -0,0 +1,145 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend;
+
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l4.RoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence.NOOPSessionPersistence;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class NodeTlsSessionTrackerTest {
+
+    private static SelfSignedCertificate ssc;
+    private static EventLoopGroup eventLoopGroup;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        ssc = new SelfSignedCertificate("localhost", "EC", 256);
+        eventLoopGroup = new NioEventLoopGroup(2);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+        ssc.delete();
+    }
+
+    @Test
+    void openSslFullAndResumedHandshakes() throws Exception {
+        assumeTrue(OpenSsl.isAvailable());
+        fullAndResumedHandshakes(SslProvider.OPENSSL, "TLSv1.3");
+        fullAndResumedHandshakes(SslProvider.OPENSSL, "TLSv1.2");
+    }
+
+    @Test
+    void jdkFullAndResumedHandshakes() throws Exception {
+        fullAndResumedHandshakes(SslProvider.JDK, "TLSv1.3");
+        fullAndResumedHandshakes(SslProvider.JDK, "TLSv1.2");
+    }
+
+    private static void fullAndResumedHandshakes(SslProvider provider, String protocol) throws Exception {
+        SslContext serverContext = SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey())
+                .sslProvider(provider)
+                .protocols(protocol)
+                .build();
+
+        SslContext clientContext = SslContextBuilder.forClient()
+                .sslProvider(provider)
+                .protocols(protocol)
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .build();
+
+        Channel server = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(serverContext.newHandler(ch.alloc()));
+                    }
+                })
+                .bind("127.0.0.1", 0)
+                .sync()
+                .channel();
+
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        Node node = NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress((InetSocketAddress) server.localAddress())
+                .build();
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                Channel channel = new Bootstrap()
+                        .group(eventLoopGroup)
+                        .channel(NioSocketChannel.class)
+                        .handler(new ChannelInitializer<SocketChannel>() {
+                            @Override
+                            protected void initChannel(SocketChannel ch) {
+                                ch.pipeline().addLast(clientContext.newHandler(ch.alloc(), "localhost", node.socketAddress().getPort()));
+                                ch.pipeline().addLast(new NodeTlsSessionTracker(node));
+                            }
+                        })
+                        .connect(node.socketAddress())
+                        .sync()
+                        .channel();
+
+                channel.pipeline().get(SslHandler.class).handshakeFuture().get(5, TimeUnit.SECONDS);
+
+                // TLS 1.3 session ticket is sent by server after handshake has finished
+                Thread.sleep(100);
+                channel.close().sync();
+            }
+
+            // First handshake is a full handshake, following ones resume its session.
+            assertEquals(3, node.tlsHandshakes(), provider + " " + protocol);
+            assertEquals(2, node.tlsResumedHandshakes(), provider + " " + protocol);
+        } finally {
+            server.close().sync();
+            cluster.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.backend.latency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverEveryValue() {
+        int previous = -1;
+        for (long micros = 0; micros < 1 << 20; micros++) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            assertTrue(index == previous || index == previous + 1, "Bucket gap at " + micros);
+            assertTrue(LatencyHistogram.highestValue(index) >= micros);
+            previous = index;
+        }
+
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucketIndex(-1));
+    }
+
+    @Test
+    void percentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(5000.5, snapshot.mean(), 0.001);
+        assertEquals(10_000, snapshot.max());
+        assertWithinPrecision(5000, snapshot.valueAtPercentile(50));
+        assertWithinPrecision(9900, snapshot.valueAtPercentile(99));
+        assertWithinPrecision(9990, snapshot.valueAtPercentile(99.9));
+        assertEquals(10_000, snapshot.valueAtPercentile(100));
+    }
+
+    @Test
+    void recordIntoFirstAndLastChunk() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(1));
+        histogram.record(TimeUnit.HOURS.toNanos(1));
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.count());
+        assertEquals(1, snapshot.valueAtPercentile(50));
+        assertEquals(TimeUnit.HOURS.toMicros(1), snapshot.valueAtPercentile(100));
+    }
+
+    @Test
+    void mergeRecordingsOfAllThreads() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            long micros = (i + 1) * 100L;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(4000, snapshot.count());
+        assertEquals(400, snapshot.max());
+        assertWithinPrecision(100, snapshot.valueAtPercentile(25));
+        assertWithinPrecision(300, snapshot.valueAtPercentile(75));
+    }
+
+    @Test
+    void closeReleasesRecordingsAndId() {
+        LatencyHistogram closed = new LatencyHistogram();
+        closed.record(TimeUnit.MICROSECONDS.toNanos(100));
+        closed.close();
+        assertEquals(0, closed.snapshot().count());
+
+        // Recordings after close are ignored.
+        closed.record(TimeUnit.MICROSECONDS.toNanos(100));
+        assertEquals(0, closed.snapshot().count());
+
+        // New histogram may reuse the ID and must not see recordings of the closed one.
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(200));
+        closed.record(TimeUnit.MICROSECONDS.toNanos(100));
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.count());
+        assertEquals(200, snapshot.max());
+        assertEquals(0, closed.snapshot().count());
+        histogram.close();
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(Math.abs(expected - actual) <= expected * 0.032, "Expected: " + expected + ", Actual: " + actual);
+    }
+}
@@ -21,6 +21,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shieldblaze.expressgateway.common.ExpressGateway;
 import com.shieldblaze.expressgateway.common.zookeeper.CertificateManager;
 import com.shieldblaze.expressgateway.common.zookeeper.Curator;
+import com.shieldblaze.expressgateway.common.zookeeper.SessionTicketKeyManager;
 import com.shieldblaze.expressgateway.restapi.RestApi;
 import com.shieldblaze.expressgateway.servicediscovery.client.ServiceDiscoveryClient;
 import org.apache.logging.log4j.LogManager;
@@ -79,6 +80,8 @@ public final class Bootstrap {
             Curator.init();
             assert Curator.isInitialized().get() : "Failed to initialize ZooKeeper";
             assert CertificateManager.isInitialized().get() : "Failed to initialize CertificateManager";
+            assert SessionTicketKeyManager.isInitialized().get() : "Failed to initialize SessionTicketKeyManager";
+            SessionTicketKeyManager.startRotation(SessionTicketKeyManager.DEFAULT_ROTATION_INTERVAL);
 
             // If we are running on REPLICA mode then we will register ourselves at Service Discovery.
             if (ExpressGateway.getInstance().runningMode() == ExpressGateway.RunningMode.REPLICA) {
@@ -0,0 +1,675 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.common.map;
+
+import com.shieldblaze.expressgateway.concurrent.GlobalExecutors;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <p> Concurrent {@link Map} which expires entries once they have not been written,
+ * or read if {@code autoRenew} is enabled, for TTL duration. </p>
+ *
+ * <p> Entries are stored in segments, each guarded by its own {@link StampedLock}, so there is no
+ * global lock. Reads are lock-free unless they race with a write to the same segment. Every entry
+ * holds its own timestamp, and every segment keeps its entries in expiry order, so expired entries
+ * are removed from the head of that order in amortised O(1) instead of scanning the whole map.
+ * Renewing an entry on read only updates its timestamp, entry is moved in expiry order lazily
+ * when it reaches the head. </p>
+ *
+ * <p> Expired entries are removed when a segment is written to and once every second. Expired entries
+ * are never returned, but they are counted by {@link #size()} until removed. {@link EntryRemovedListener}
+ * is called for expired entries on an {@link Executor}, never on the thread accessing the map. </p>
+ *
+ * <p> {@code null} keys and values are not allowed. </p>
+ *
+ * @param <K> Key
+ * @param <V> Value
+ */
+public final class ConcurrentExpiringMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>, Closeable {
+
+    private static final int INITIAL_SEGMENT_CAPACITY = 8;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+    private final long ttlNanos;
+    private final long renewIntervalNanos;
+    private final boolean autoRenew;
+    private final EntryRemovedListener<V> entryRemovedListener;
+    private final Executor listenerExecutor;
+    private final ScheduledFuture<?> scheduledFuture;
+    private EntrySet entrySet;
+
+    /**
+     * Create a new {@link ConcurrentExpiringMap} Instance with {@code autoRenew} set to {@code true}
+     *
+     * @param ttlDuration TTL (Time-to-live) Duration of Entries
+     */
+    public ConcurrentExpiringMap(Duration ttlDuration) {
+        this(ttlDuration, true);
+    }
+
+    /**
+     * Create a new {@link ConcurrentExpiringMap} Instance
+     *
+     * @param ttlDuration TTL (Time-to-live) Duration of Entries
+     * @param autoRenew   Set to {@code true} if entries will be auto-renewed on {@link #get(Object)} call
+     *                    else set to {@code false}
+     */
+    public ConcurrentExpiringMap(Duration ttlDuration, boolean autoRenew) {
+        this(ttlDuration, autoRenew, new IgnoreEntryRemovedListener<>());
+    }
+
+    /**
+     * Create a new {@link ConcurrentExpiringMap} Instance which calls {@link EntryRemovedListener}
+     * on {@link GlobalExecutors#executorService()}
+     *
+     * @param ttlDuration          TTL (Time-to-live) Duration of Entries
+     * @param autoRenew            Set to {@code true} if entries will be auto-renewed on {@link #get(Object)} call
+     *                             else set to {@code false}
+     * @param entryRemovedListener {@link EntryRemovedListener} Instance
+     */
+    public ConcurrentExpiringMap(Duration ttlDuration, boolean autoRenew, EntryRemovedListener<V> entryRemovedListener) {
+        this(ttlDuration, autoRenew, entryRemovedListener, GlobalExecutors.executorService());
+    }
+
+    /**
+     * Create a new {@link ConcurrentExpiringMap} Instance
+     *
+     * @param ttlDuration          TTL (Time-to-live) Duration of Entries
+     * @param autoRenew            Set to {@code true} if entries will be auto-renewed on {@link #get(Object)} call
+     *                             else set to {@code false}
+     * @param entryRemovedListener {@link EntryRemovedListener} Instance
+     * @param listenerExecutor     {@link Executor} on which {@link EntryRemovedListener} is called
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentExpiringMap(Duration ttlDuration, boolean autoRenew, EntryRemovedListener<V> entryRemovedListener, Executor listenerExecutor) {
+        this.ttlNanos = ttlDuration.toNanos();
+        if (ttlNanos <= 0) {
+            throw new IllegalArgumentException("TTL Duration must be positive; Value: " + ttlDuration);
+        }
+
+        // Renewing on every read would write to a shared cache line on every read,
+        // TTL is not precise to less than this anyway.
+        this.renewIntervalNanos = ttlNanos >> 4;
+        this.autoRenew = autoRenew;
+        this.entryRemovedListener = Objects.requireNonNull(entryRemovedListener, "EntryRemovedListener");
+        this.listenerExecutor = Objects.requireNonNull(listenerExecutor, "ListenerExecutor");
+
+        int segmentCount = Integer.highestOneBit(Math.max(16, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>();
+        }
+        segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+
+        scheduledFuture = GlobalExecutors.submitTaskAndRunEvery(this::cleanUp, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private static int spread(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[hash >>> segmentShift];
+    }
+
+    private boolean isExpired(Node<K, V> node, long nanoTime) {
+        return nanoTime - node.timestamp > ttlNanos;
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.count;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment<K, V> segment : segments) {
+            if (segment.count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        int hash = spread(key.hashCode());
+        Segment<K, V> segment = segmentFor(hash);
+
+        Node<K, V> node;
+        long stamp = segment.tryOptimisticRead();
+        node = segment.find(hash, key);
+        if (!segment.validate(stamp)) {
+            stamp = segment.readLock();
+            try {
+                node = segment.find(hash, key);
+            } finally {
+                segment.unlockRead(stamp);
+            }
+        }
+
+        if (node == null) {
+            return null;
+        }
+
+        long nanoTime = System.nanoTime();
+        if (isExpired(node, nanoTime)) {
+            return null;
+        }
+
+        if (autoRenew && nanoTime - node.timestamp > renewIntervalNanos) {
+            node.timestamp = nanoTime;
+        }
+        return node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    private V put(K key, V value, boolean onlyIfAbsent) {
+        Objects.requireNonNull(value, "Value");
+        int hash = spread(key.hashCode());
+        Segment<K, V> segment = segmentFor(hash);
+        long nanoTime = System.nanoTime();
+        List<Node<K, V>> expired;
+
+        V oldValue = null;
+        long stamp = segment.writeLock();
+        try {
+            expired = segment.expire(nanoTime, ttlNanos);
+
+            Node<K, V> node = segment.find(hash, key);
+            if (node != null) {
+                oldValue = node.value;
+                if (!onlyIfAbsent) {
+                    node.value = value;
+                    node.timestamp = nanoTime;
+                    segment.relink(node, nanoTime);
+                }
+            } else {
+                segment.insert(new Node<>(hash, key, value, nanoTime));
+            }
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        notifyRemoved(expired);
+        return oldValue;
+    }
+
+    @Override
+    public V remove(Object key) {
+        return remove(key, null, true);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return value != null && remove(key, value, false) != null;
+    }
+
+    private V remove(Object key, Object value, boolean anyValue) {
+        int hash = spread(key.hashCode());
+        Segment<K, V> segment = segmentFor(hash);
+        long nanoTime = System.nanoTime();
+        List<Node<K, V>> expired;
+
+        V oldValue = null;
+        long stamp = segment.writeLock();
+        try {
+            expired = segment.expire(nanoTime, ttlNanos);
+
+            Node<K, V> node = segment.find(hash, key);
+            if (node != null && (anyValue || value.equals(node.value))) {
+                oldValue = node.value;
+                segment.unlink(node);
+            }
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        notifyRemoved(expired);
+        return oldValue;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue, "OldValue");
+        return replace(key, oldValue, newValue, false) != null;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return replace(key, null, value, true);
+    }
+
+    private V replace(K key, V expectedValue, V value, boolean anyValue) {
+        Objects.requireNonNull(value, "Value");
+        int hash = spread(key.hashCode());
+        Segment<K, V> segment = segmentFor(hash);
+        long nanoTime = System.nanoTime();
+        List<Node<K, V>> expired;
+
+        V oldValue = null;
+        long stamp = segment.writeLock();
+        try {
+            expired = segment.expire(nanoTime, ttlNanos);
+
+            Node<K, V> node = segment.find(hash, key);
+            if (node != null && (anyValue || expectedValue.equals(node.value))) {
+                oldValue = node.value;
+                node.value = value;
+                node.timestamp = nanoTime;
+                segment.relink(node, nanoTime);
+            }
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        notifyRemoved(expired);
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            long stamp = segment.writeLock();
+            try {
+                segment.clear();
+            } finally {
+                segment.unlockWrite(stamp);
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        EntrySet es = entrySet;
+        return es == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    /**
+     * Remove expired entries of all segments. Segments which are being written to are
+     * skipped, they remove expired entries themselves.
+     */
+    void cleanUp() {
+        long nanoTime = System.nanoTime();
+        for (Segment<K, V> segment : segments) {
+            if (segment.count == 0) {
+                continue;
+            }
+
+            long stamp = segment.tryWriteLock();
+            if (stamp == 0) {
+                continue;
+            }
+
+            List<Node<K, V>> expired;
+            try {
+                expired = segment.expire(nanoTime, ttlNanos);
+            } finally {
+                segment.unlockWrite(stamp);
+            }
+            notifyRemoved(expired);
+        }
+    }
+
+    private void notifyRemoved(List<Node<K, V>> expired) {
+        if (expired == null || entryRemovedListener instanceof IgnoreEntryRemovedListener) {
+            return;
+        }
+
+        listenerExecutor.execute(() -> {
+            for (Node<K, V> node : expired) {
+                entryRemovedListener.removed(node.key, node.value);
+            }
+        });
+    }
+
+    /**
+     * Stop periodic removal of expired entries and clear this map
+     */
+    @Override
+    public void close() {
+        scheduledFuture.cancel(false);
+        clear();
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentExpiringMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentExpiringMap.this.clear();
+        }
+    }
+
+    /**
+     * Weakly consistent {@link Iterator} which takes snapshot of one segment at a time,
+     * so map may be modified while iterating.
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final long nanoTime = System.nanoTime();
+        private final List<Node<K, V>> snapshot = new ArrayList<>();
+        private int segmentIndex;
+        private int snapshotIndex;
+        private Node<K, V> last;
+
+        @Override
+        public boolean hasNext() {
+            while (snapshotIndex == snapshot.size()) {
+                if (segmentIndex == segments.length) {
+                    return false;
+                }
+
+                snapshot.clear();
+                snapshotIndex = 0;
+
+                Segment<K, V> segment = segments[segmentIndex++];
+                long stamp = segment.readLock();
+                try {
+                    for (Node<K, V> node = segment.head; node != null; node = node.after) {
+                        if (!isExpired(node, nanoTime)) {
+                            snapshot.add(node);
+                        }
+                    }
+                } finally {
+                    segment.unlockRead(stamp);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return last = snapshot.get(snapshotIndex++);
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentExpiringMap.this.remove(last.key, last.value);
+            last = null;
+        }
+    }
+
+    /**
+     * Entry of {@link ConcurrentExpiringMap}. {@link #next} links entries of a hash bucket,
+     * {@link #before} and {@link #after} link entries of a segment in expiry order.
+     */
+    private static final class Node<K, V> implements Entry<K, V> {
+        private final int hash;
+        private final K key;
+        private volatile V value;
+        private volatile long timestamp;
+        private Node<K, V> next;
+        private Node<K, V> before;
+        private Node<K, V> after;
+        private long linkedTimestamp;
+
+        private Node(int hash, K key, V value, long timestamp) {
+            this.hash = hash;
+            this.key = Objects.requireNonNull(key, "Key");
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> entry && key.equals(entry.getKey()) && value.equals(entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Segment of {@link ConcurrentExpiringMap}. All methods except {@link #find(int, Object)} must be called
+     * with write lock held. {@link #find(int, Object)} may be called in optimistic read mode, so bucket links
+     * are only ever changed to point to entries which come later in the bucket, and a reader never loops.
+     */
+    @SuppressWarnings("serial")
+    private static final class Segment<K, V> extends StampedLock {
+
+        @SuppressWarnings("unchecked")
+        private Node<K, V>[] table = new Node[INITIAL_SEGMENT_CAPACITY];
+        private volatile int count;
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        private Node<K, V> find(int hash, Object key) {
+            Node<K, V>[] tab = table;
+            for (Node<K, V> node = tab[hash & (tab.length - 1)]; node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        private void insert(Node<K, V> node) {
+            if (count >= table.length - (table.length >>> 2)) {
+                resize();
+            }
+
+            int index = node.hash & (table.length - 1);
+            node.next = table[index];
+            table[index] = node;
+            count++;
+
+            node.linkedTimestamp = node.timestamp;
+            appendToTail(node);
+        }
+
+        private void unlink(Node<K, V> node) {
+            int index = node.hash & (table.length - 1);
+            Node<K, V> prev = null;
+            for (Node<K, V> e = table[index]; e != null; prev = e, e = e.next) {
+                if (e == node) {
+                    if (prev == null) {
+                        table[index] = node.next;
+                    } else {
+                        prev.next = node.next;
+                    }
+                    count--;
+                    break;
+                }
+            }
+
+            removeFromList(node);
+        }
+
+        /**
+         * Move {@link Node} to tail of expiry order
+         */
+        private void relink(Node<K, V> node, long timestamp) {
+            removeFromList(node);
+            node.linkedTimestamp = timestamp;
+            appendToTail(node);
+        }
+
+        /**
+         * Remove expired entries from head of expiry order. Entries which were renewed by reads
+         * since they were linked are moved to tail instead.
+         *
+         * @return Removed entries or {@code null} if no entry was removed
+         */
+        private List<Node<K, V>> expire(long nanoTime, long ttlNanos) {
+            List<Node<K, V>> expired = null;
+            while (head != null && nanoTime - head.linkedTimestamp > ttlNanos) {
+                Node<K, V> node = head;
+                if (nanoTime - node.timestamp > ttlNanos) {
+                    unlink(node);
+                    if (expired == null) {
+                        expired = new ArrayList<>();
+                    }
+                    expired.add(node);
+                } else {
+                    relink(node, node.timestamp);
+                }
+            }
+            return expired;
+        }
+
+        private void clear() {
+            @SuppressWarnings("unchecked")
+            Node<K, V>[] newTable = new Node[INITIAL_SEGMENT_CAPACITY];
+            table = newTable;
+            head = null;
+            tail = null;
+            count = 0;
+        }
+
+        /**
+         * Double table size. Every bucket is split into two buckets, preserving order of entries,
+         * so that a concurrent optimistic reader only ever moves forward.
+         */
+        private void resize() {
+            Node<K, V>[] oldTable = table;
+            int oldCapacity = oldTable.length;
+            @SuppressWarnings("unchecked")
+            Node<K, V>[] newTable = new Node[oldCapacity << 1];
+
+            for (int i = 0; i < oldCapacity; i++) {
+                Node<K, V> loHead = null, loTail = null, hiHead = null, hiTail = null;
+                for (Node<K, V> node = oldTable[i]; node != null; node = node.next) {
+                    if ((node.hash & oldCapacity) == 0) {
+                        if (loTail == null) {
+                            loHead = node;
+                        } else {
+                            loTail.next = node;
+                        }
+                        loTail = node;
+                    } else {
+                        if (hiTail == null) {
+                            hiHead = node;
+                        } else {
+                            hiTail.next = node;
+                        }
+                        hiTail = node;
+                    }
+                }
+
+                if (loTail != null) {
+                    loTail.next = null;
+                }
+                if (hiTail != null) {
+                    hiTail.next = null;
+                }
+                newTable[i] = loHead;
+                newTable[i + oldCapacity] = hiHead;
+            }
+
+            table = newTable;
+        }
+
+        private void appendToTail(Node<K, V> node) {
+            node.before = tail;
+            node.after = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.after = node;
+            }
+            tail = node;
+        }
+
+        private void removeFromList(Node<K, V> node) {
+            if (node.before == null) {
+                head = node.after;
+            } else {
+                node.before.after = node.after;
+            }
+            if (node.after == null) {
+                tail = node.before;
+            } else {
+                node.after.before = node.before;
+            }
+            node.before = null;
+            node.after = null;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.common.zookeeper;
+
+import com.shieldblaze.expressgateway.common.ExpressGateway;
+import com.shieldblaze.expressgateway.concurrent.GlobalExecutors;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p> Manages TLS session ticket keys shared by all replicas of a cluster, so a client
+ * can resume its session on any replica instead of doing a full handshake. </p>
+ *
+ * <p> Keys are generated and rotated on a schedule, encrypted using password of
+ * {@link ExpressGateway.LoadBalancerTLS} and stored in ZooKeeper next to certificates
+ * of {@link CertificateManager}. Every replica watches the ZNode and notifies listeners
+ * (Server {@code SslContext}s) when keys change. Rotation uses versioned writes, so only
+ * one replica rotates keys per interval. In standalone mode, keys are managed locally. </p>
+ *
+ * <p> Each key is {@link #KEY_LENGTH} bytes: 16 bytes name, 16 bytes HMAC key and 16 bytes AES key.
+ * First key is used to issue new tickets and previous keys are kept to accept older tickets. </p>
+ */
+public final class SessionTicketKeyManager {
+
+    private static final Logger logger = LogManager.getLogger(SessionTicketKeyManager.class);
+
+    public static final int KEY_LENGTH = 48;
+    public static final Duration DEFAULT_ROTATION_INTERVAL = Duration.ofHours(4);
+    static final int MAX_KEYS = 3;
+
+    private static final int SALT_LENGTH = 16;
+    private static final int IV_LENGTH = 12;
+    private static final int PBKDF2_ITERATIONS = 10_000;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public static final SessionTicketKeyManager INSTANCE = new SessionTicketKeyManager();
+
+    private final List<Consumer<List<byte[]>>> listeners = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Boolean> isInitialized = new CompletableFuture<>();
+    private final boolean useZooKeeper;
+    private volatile TicketKeys ticketKeys = new TicketKeys(0, List.of());
+    private CuratorCache curatorCache;
+    private ScheduledFuture<?> scheduledFuture;
+
+    private SessionTicketKeyManager() {
+        useZooKeeper = ExpressGateway.getInstance() != null && ExpressGateway.getInstance().runningMode() == ExpressGateway.RunningMode.REPLICA;
+
+        if (useZooKeeper) {
+            try {
+                String path = of().path();
+                CuratorCacheListener listener = CuratorCacheListener.builder()
+                        .forCreatesAndChanges((oldNode, node) -> {
+                            if (node.getPath().equals(path)) {
+                                load(node);
+                            }
+                        })
+                        .forInitialized(() -> isInitialized.complete(true))
+                        .build();
+
+                curatorCache = CuratorCache.build(Curator.getInstance(), path);
+                curatorCache.listenable().addListener(listener);
+                curatorCache.start();
+            } catch (Exception ex) {
+                logger.fatal("Failed to initialize SessionTicketKeyManager", ex);
+            }
+        } else {
+            logger.info("SessionTicketKeyManager is managing keys locally because ZooKeeper is disabled");
+            isInitialized.complete(true);
+        }
+    }
+
+    public static CompletableFuture<Boolean> isInitialized() {
+        return INSTANCE.isInitialized;
+    }
+
+    /**
+     * Returns current session ticket keys, newest first.
+     * Empty {@link List} is returned if keys were never rotated.
+     */
+    public static List<byte[]> keys() {
+        return INSTANCE.ticketKeys.keys();
+    }
+
+    /**
+     * Add a listener which is called with current keys (if any) and every time keys change
+     */
+    public static void addListener(Consumer<List<byte[]>> listener) {
+        INSTANCE.listeners.add(listener);
+
+        List<byte[]> keys = keys();
+        if (!keys.isEmpty()) {
+            listener.accept(keys);
+        }
+    }
+
+    public static void removeListener(Consumer<List<byte[]>> listener) {
+        INSTANCE.listeners.remove(listener);
+    }
+
+    /**
+     * Start rotating keys periodically. Keys are rotated immediately if they
+     * were never rotated or are older than rotation interval.
+     *
+     * @param interval Rotation interval
+     */
+    public static synchronized void startRotation(Duration interval) {
+        if (INSTANCE.scheduledFuture != null) {
+            INSTANCE.scheduledFuture.cancel(false);
+        }
+
+        // Check more often than interval so keys are rotated on time even if replica which rotated last has left.
+        int period = (int) Math.max(1, interval.toSeconds() / 10);
+        INSTANCE.scheduledFuture = GlobalExecutors.submitTaskAndRunEvery(() -> {
+            try {
+                rotateIfOlderThan(interval);
+            } catch (Exception ex) {
+                logger.error("Failed to rotate Session Ticket Keys", ex);
+            }
+        }, 0, period, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stopRotation() {
+        if (INSTANCE.scheduledFuture != null) {
+            INSTANCE.scheduledFuture.cancel(false);
+            INSTANCE.scheduledFuture = null;
+        }
+    }
+
+    /**
+     * Rotate keys if newest key is older than interval.
+     *
+     * @param interval Rotation interval
+     * @return {@code true} if keys were rotated by this call else {@code false}
+     * @throws Exception If reading or writing ZooKeeper fails
+     */
+    public static boolean rotateIfOlderThan(Duration interval) throws Exception {
+        return INSTANCE.rotate(interval);
+    }
+
+    private synchronized boolean rotate(Duration interval) throws Exception {
+        if (!useZooKeeper) {
+            if (!ticketKeys.olderThan(interval)) {
+                return false;
+            }
+            update(ticketKeys.rotate());
+            return true;
+        }
+
+        CuratorFramework curatorFramework = Curator.getInstance();
+        String path = of().path();
+
+        Stat stat = new Stat();
+        byte[] data = null;
+        try {
+            data = curatorFramework.getData().storingStatIn(stat).forPath(path);
+        } catch (KeeperException.NoNodeException ex) {
+            // Keys were never generated
+        }
+
+        TicketKeys current = data == null ? new TicketKeys(0, List.of()) : decrypt(data);
+        if (!current.olderThan(interval)) {
+            return false;
+        }
+
+        TicketKeys rotated = current.rotate();
+        byte[] encrypted = encrypt(rotated);
+        try {
+            // Versioned writes make sure that only one replica rotates keys.
+            if (data == null) {
+                curatorFramework.create().creatingParentsIfNeeded().forPath(path, encrypted);
+            } else {
+                curatorFramework.setData().withVersion(stat.getVersion()).forPath(path, encrypted);
+            }
+        } catch (KeeperException.NodeExistsException | KeeperException.BadVersionException ex) {
+            logger.debug("Session Ticket Keys were rotated by another replica");
+            return false;
+        }
+
+        logger.info("Rotated Session Ticket Keys");
+        update(rotated);
+        return true;
+    }
+
+    private void load(ChildData childData) {
+        try {
+            TicketKeys newTicketKeys = decrypt(childData.getData());
+            synchronized (this) {
+                if (newTicketKeys.rotatedAt() > ticketKeys.rotatedAt()) {
+                    update(newTicketKeys);
+                }
+            }
+        } catch (Exception ex) {
+            logger.error("Failed to load Session Ticket Keys from ZooKeeper", ex);
+        }
+    }
+
+    private void update(TicketKeys newTicketKeys) {
+        ticketKeys = newTicketKeys;
+        for (Consumer<List<byte[]>> listener : listeners) {
+            try {
+                listener.accept(newTicketKeys.keys());
+            } catch (Exception ex) {
+                logger.error("Failed to install Session Ticket Keys", ex);
+            }
+        }
+    }
+
+    // Format: Salt | IV | AES-GCM(RotatedAt | Count | Keys...)
+    private static byte[] encrypt(TicketKeys ticketKeys) throws GeneralSecurityException {
+        ByteBuffer plaintext = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + ticketKeys.keys().size() * KEY_LENGTH);
+        plaintext.putLong(ticketKeys.rotatedAt());
+        plaintext.putInt(ticketKeys.keys().size());
+        ticketKeys.keys().forEach(plaintext::put);
+
+        byte[] salt = randomBytes(SALT_LENGTH);
+        byte[] iv = randomBytes(IV_LENGTH);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey(salt), new GCMParameterSpec(128, iv));
+        byte[] ciphertext = cipher.doFinal(plaintext.array());
+
+        return ByteBuffer.allocate(SALT_LENGTH + IV_LENGTH + ciphertext.length)
+                .put(salt)
+                .put(iv)
+                .put(ciphertext)
+                .array();
+    }
+
+    private static TicketKeys decrypt(byte[] data) throws GeneralSecurityException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte[] salt = new byte[SALT_LENGTH];
+        byte[] iv = new byte[IV_LENGTH];
+        buffer.get(salt).get(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, secretKey(salt), new GCMParameterSpec(128, iv));
+        ByteBuffer plaintext = ByteBuffer.wrap(cipher.doFinal(data, SALT_LENGTH + IV_LENGTH, data.length - SALT_LENGTH - IV_LENGTH));
+
+        long rotatedAt = plaintext.getLong();
+        int count = plaintext.getInt();
+        List<byte[]> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] key = new byte[KEY_LENGTH];
+            plaintext.get(key);
+            keys.add(key);
+        }
+        return new TicketKeys(rotatedAt, List.copyOf(keys));
+    }
+
+    private static SecretKeySpec secretKey(byte[] salt) throws GeneralSecurityException {
+        PBEKeySpec keySpec = new PBEKeySpec(ExpressGateway.getInstance().loadBalancerTLS().passwordAsChars(), salt, PBKDF2_ITERATIONS, 256);
+        try {
+            byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(keySpec).getEncoded();
+            return new SecretKeySpec(key, "AES");
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static ZNodePath of() {
+        Environment environment = Environment.detectEnv();
+        return ZNodePath.create("ExpressGateway",
+                environment,
+                ExpressGateway.getInstance().clusterID(),
+                "CertificateManagerSessionTicketKeys");
+    }
+
+    private record TicketKeys(long rotatedAt, List<byte[]> keys) {
+
+        boolean olderThan(Duration interval) {
+            return keys.isEmpty() || System.currentTimeMillis() - rotatedAt >= interval.toMillis();
+        }
+
+        TicketKeys rotate() {
+            List<byte[]> rotated = new ArrayList<>(MAX_KEYS);
+            rotated.add(randomBytes(KEY_LENGTH));
+            for (int i = 0; i < keys.size() && rotated.size() < MAX_KEYS; i++) {
+                rotated.add(keys.get(i));
+            }
+            return new TicketKeys(System.currentTimeMillis(), List.copyOf(rotated));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.common.map;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares throughput, allocation and memory footprint of {@link ConcurrentExpiringMap} and
+ * {@link SelfExpiringMap} backed by {@link ConcurrentHashMap}, the way session persistence used it.
+ * Every thread performs 90% {@link Map#get(Object)} and 10% {@link Map#put(Object, Object)} on random keys.
+ * Results depend on JVM and hardware, so this is run manually instead of as part of the test suite.
+ */
+public class ConcurrentExpiringMapBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int OPERATIONS = 10_000_000;
+    private static final int FOOTPRINT_ENTRIES = 1_000_000;
+    private static final Integer[] KEY_POOL = new Integer[Math.max(KEYS, FOOTPRINT_ENTRIES)];
+
+    static {
+        for (int i = 0; i < KEY_POOL.length; i++) {
+            KEY_POOL[i] = i;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = {1, 4};
+
+        for (int threads : threadCounts) {
+            // Warmup
+            run("SelfExpiringMap", new SelfExpiringMap<>(new ConcurrentHashMap<>(), Duration.ofMinutes(1), true), threads);
+            run("ConcurrentExpiringMap", new ConcurrentExpiringMap<>(Duration.ofMinutes(1)), threads);
+
+            print("SelfExpiringMap", threads, run("SelfExpiringMap", new SelfExpiringMap<>(new ConcurrentHashMap<>(), Duration.ofMinutes(1), true), threads));
+            print("ConcurrentExpiringMap", threads, run("ConcurrentExpiringMap", new ConcurrentExpiringMap<>(Duration.ofMinutes(1)), threads));
+        }
+
+        System.out.printf("%-22s %6d bytes/entry%n", "SelfExpiringMap:",
+                footprint(new SelfExpiringMap<>(new ConcurrentHashMap<>(), Duration.ofMinutes(1), true)));
+        System.out.printf("%-22s %6d bytes/entry%n", "ConcurrentExpiringMap:",
+                footprint(new ConcurrentExpiringMap<>(Duration.ofMinutes(1))));
+        System.exit(0);
+    }
+
+    /**
+     * @return Operations per second and allocated bytes per operation, or {@code null} if map failed
+     */
+    private static <M extends Map<Integer, Integer> & Closeable> long[] run(String name, M map, int threads) throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < KEYS; i++) {
+            map.put(KEY_POOL[i], KEY_POOL[i]);
+        }
+
+        int operationsPerThread = OPERATIONS / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicLong allocated = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long startBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        Integer key = KEY_POOL[random.nextInt(KEYS)];
+                        if (random.nextInt(10) == 0) {
+                            map.put(key, key);
+                        } else {
+                            map.get(key);
+                        }
+                    }
+                    allocated.addAndGet(threadMXBean.getCurrentThreadAllocatedBytes() - startBytes);
+                } catch (Exception ex) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            }, name + "-benchmark-" + t).start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - startTime;
+
+        map.close();
+        if (failures.get() != 0) {
+            return null;
+        }
+        return new long[]{OPERATIONS * 1_000_000_000L / elapsed, allocated.get() / OPERATIONS};
+    }
+
+    private static <M extends Map<Integer, Integer> & Closeable> long footprint(M map) throws Exception {
+        long before = usedMemory();
+        for (int i = 0; i < FOOTPRINT_ENTRIES; i++) {
+            map.put(KEY_POOL[i], KEY_POOL[i]);
+        }
+        long after = usedMemory();
+        map.close();
+        return (after - before) / FOOTPRINT_ENTRIES;
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+    private static void print(String name, int threads, long[] result) {
+        if (result == null) {
+            System.out.printf("%-22s %d threads: failed with concurrent modification%n", name + ':', threads);
+        } else {
+            System.out.printf("%-22s %d threads: %10d operations/s %4d bytes/operation%n", name + ':', threads, result[0], result[1]);
+        }
+    }
+}
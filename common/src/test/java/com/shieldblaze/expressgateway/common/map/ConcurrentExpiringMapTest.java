@@ -0,0 +1,153 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.common.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentExpiringMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        try (ConcurrentExpiringMap<String, String> map = new ConcurrentExpiringMap<>(Duration.ofMinutes(1))) {
+            // Add enough entries to resize segments
+            for (int i = 0; i < 10_000; i++) {
+                assertNull(map.put("Meow" + i, "Cat" + i));
+            }
+            assertEquals(10_000, map.size());
+
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals("Cat" + i, map.get("Meow" + i));
+            }
+
+            assertEquals("Cat1", map.putIfAbsent("Meow1", "Dog"));
+            assertEquals("Cat1", map.replace("Meow1", "Dog"));
+            assertFalse(map.replace("Meow1", "Cat1", "Cow"));
+            assertTrue(map.replace("Meow1", "Dog", "Cow"));
+            assertFalse(map.remove("Meow1", "Dog"));
+            assertTrue(map.remove("Meow1", "Cow"));
+            assertEquals("Cat2", map.remove("Meow2"));
+            assertNull(map.get("Meow1"));
+            assertEquals(9_998, map.size());
+
+            // Remove half of entries while iterating
+            Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                iterator.next();
+                if (count++ % 2 == 0) {
+                    iterator.remove();
+                }
+            }
+            assertEquals(9_998, count);
+            assertEquals(4_999, map.size());
+
+            map.clear();
+            assertTrue(map.isEmpty());
+        }
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        List<String> removed = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(100);
+        try (ConcurrentExpiringMap<String, String> map = new ConcurrentExpiringMap<>(Duration.ofMillis(500), false, (key, value) -> {
+            synchronized (removed) {
+                removed.add(value);
+            }
+            latch.countDown();
+        })) {
+            for (int i = 0; i < 100; i++) {
+                map.put("Meow" + i, "Cat" + i);
+            }
+            assertEquals(100, map.size());
+
+            Thread.sleep(600);
+
+            // Expired entries must not be returned even if not removed yet
+            for (int i = 0; i < 100; i++) {
+                assertNull(map.get("Meow" + i));
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(0, map.size());
+            assertEquals(100, removed.size());
+        }
+    }
+
+    @Test
+    public void testAutoRenew() throws Exception {
+        try (ConcurrentExpiringMap<String, String> map = new ConcurrentExpiringMap<>(Duration.ofMillis(1000), true)) {
+            map.put("Meow", "Cat");
+            map.put("Woof", "Dog");
+
+            // Keep reading one entry for longer than TTL
+            for (int i = 0; i < 15; i++) {
+                Thread.sleep(100);
+                assertEquals("Cat", map.get("Meow"));
+            }
+
+            assertNull(map.get("Woof"));
+            assertEquals("Cat", map.get("Meow"));
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        try (ConcurrentExpiringMap<Integer, Integer> map = new ConcurrentExpiringMap<>(Duration.ofMinutes(1))) {
+            Map<Integer, Integer> expected = new ConcurrentHashMap<>();
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                int base = t * 10_000;
+                threads[t] = new Thread(() -> {
+                    for (int i = base; i < base + 10_000; i++) {
+                        map.put(i, i);
+                        expected.put(i, i);
+                        if (!Integer.valueOf(i).equals(map.get(i))) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(0, failures.get());
+            assertEquals(expected.size(), map.size());
+            expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.common.zookeeper;
+
+import com.shieldblaze.expressgateway.common.ExpressGateway;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.shieldblaze.expressgateway.common.zookeeper.ExpressGatewayCustomizedUtil.forTest;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTicketKeyManagerTest {
+
+    private static TestingServer testingServer;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        testingServer = new TestingServer();
+        testingServer.start();
+
+        ExpressGateway.setInstance(forTest(testingServer.getConnectString()));
+        Curator.init();
+        SessionTicketKeyManager.isInitialized().get(30, TimeUnit.SECONDS);
+    }
+
+    @AfterAll
+    static void shutdown() throws Exception {
+        try {
+            CuratorUtils.deleteData(Curator.getInstance(), ZNodePath.create("ExpressGateway", Environment.detectEnv()), true);
+        } finally {
+            Curator.shutdown();
+            testingServer.close();
+        }
+    }
+
+    @Test
+    void rotateKeys() throws Exception {
+        List<List<byte[]>> installedKeys = Collections.synchronizedList(new ArrayList<>());
+        SessionTicketKeyManager.addListener(installedKeys::add);
+
+        assertTrue(SessionTicketKeyManager.rotateIfOlderThan(Duration.ofHours(1)));
+        List<byte[]> keys = SessionTicketKeyManager.keys();
+        assertEquals(1, keys.size());
+        assertEquals(SessionTicketKeyManager.KEY_LENGTH, keys.get(0).length);
+
+        // Keys are fresh, so they are not rotated again.
+        assertFalse(SessionTicketKeyManager.rotateIfOlderThan(Duration.ofHours(1)));
+
+        // Previous key is kept to accept older tickets.
+        assertTrue(SessionTicketKeyManager.rotateIfOlderThan(Duration.ZERO));
+        List<byte[]> rotatedKeys = SessionTicketKeyManager.keys();
+        assertEquals(2, rotatedKeys.size());
+        assertArrayEquals(keys.get(0), rotatedKeys.get(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(SessionTicketKeyManager.rotateIfOlderThan(Duration.ZERO));
+        }
+        assertEquals(SessionTicketKeyManager.MAX_KEYS, SessionTicketKeyManager.keys().size());
+        assertEquals(7, installedKeys.size());
+
+        // Keys are stored encrypted in ZooKeeper
+        byte[] data = Curator.getInstance().getData().forPath(ZNodePath.create("ExpressGateway",
+                Environment.detectEnv(), ExpressGateway.getInstance().clusterID(), "CertificateManagerSessionTicketKeys").path());
+        byte[] key = SessionTicketKeyManager.keys().get(0);
+        for (int i = 0; i + key.length <= data.length; i++) {
+            assertFalse(Arrays.equals(key, Arrays.copyOfRange(data, i, i + key.length)));
+        }
+    }
+}
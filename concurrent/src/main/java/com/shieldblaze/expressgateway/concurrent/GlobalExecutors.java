@@ -84,6 +84,16 @@ public final class GlobalExecutors {
         return SCHEDULED_EXECUTOR_SERVICE.scheduleWithFixedDelay(runnable, initialDelay, period, timeUnit);
     }
 
+    /**
+     * Schedule a new {@link Runnable} task to be executed once after a delay
+     *
+     * @param runnable {@link Runnable} to be executed
+     * @return {@link ScheduledFuture} Instance of task to be executed
+     */
+    public static ScheduledFuture<?> scheduleTask(Runnable runnable, long delay, TimeUnit timeUnit) {
+        return SCHEDULED_EXECUTOR_SERVICE.schedule(runnable, delay, timeUnit);
+    }
+
     public static ExecutorService executorService() {
         return EXECUTOR_SERVICE;
     }
@@ -17,6 +17,7 @@
  */
 package com.shieldblaze.expressgateway.configuration;
 
+import com.shieldblaze.expressgateway.configuration.accesslog.AccessLogConfiguration;
 import com.shieldblaze.expressgateway.configuration.buffer.BufferConfiguration;
 import com.shieldblaze.expressgateway.configuration.eventloop.EventLoopConfiguration;
 import com.shieldblaze.expressgateway.configuration.eventstream.EventStreamConfiguration;
@@ -28,7 +29,8 @@ import com.shieldblaze.expressgateway.configuration.transport.TransportConfigura
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-public record ConfigurationContext(BufferConfiguration bufferConfiguration,
+public record ConfigurationContext(AccessLogConfiguration accessLogConfiguration,
+                                   BufferConfiguration bufferConfiguration,
                                    EventLoopConfiguration eventLoopConfiguration,
                                    EventStreamConfiguration eventStreamConfiguration,
                                    HealthCheckConfiguration healthCheckConfiguration,
@@ -43,6 +45,7 @@ public record ConfigurationContext(BufferConfiguration bufferConfiguration,
      * Default instance of {@link ConfigurationContext} with default configurations
      */
     public static final ConfigurationContext DEFAULT = new ConfigurationContext(
+            AccessLogConfiguration.DEFAULT,
             BufferConfiguration.DEFAULT,
             EventLoopConfiguration.DEFAULT,
             EventStreamConfiguration.DEFAULT,
@@ -54,6 +57,7 @@ public record ConfigurationContext(BufferConfiguration bufferConfiguration,
     );
 
     public static ConfigurationContext create(Configuration<?>... configurations) {
+        AccessLogConfiguration accessLogConfiguration = AccessLogConfiguration.DEFAULT;
         BufferConfiguration bufferConfiguration = BufferConfiguration.DEFAULT;
         EventLoopConfiguration eventLoopConfiguration = EventLoopConfiguration.DEFAULT;
         EventStreamConfiguration eventStreamConfiguration = EventStreamConfiguration.DEFAULT;
@@ -64,7 +68,9 @@ public record ConfigurationContext(BufferConfiguration bufferConfiguration,
         TransportConfiguration transportConfiguration = TransportConfiguration.DEFAULT;
 
         for (Configuration<?> configuration : configurations) {
-            if (configuration instanceof BufferConfiguration) {
+            if (configuration instanceof AccessLogConfiguration) {
+                accessLogConfiguration = (AccessLogConfiguration) configuration;
+            } else if (configuration instanceof BufferConfiguration) {
                 bufferConfiguration = (BufferConfiguration) configuration;
             } else if (configuration instanceof EventLoopConfiguration) {
                 eventLoopConfiguration = (EventLoopConfiguration) configuration;
@@ -86,6 +92,7 @@ public record ConfigurationContext(BufferConfiguration bufferConfiguration,
         }
 
         return new ConfigurationContext(
+                accessLogConfiguration,
                 bufferConfiguration,
                 eventLoopConfiguration,
                 eventStreamConfiguration,
@@ -96,7 +103,8 @@ public record ConfigurationContext(BufferConfiguration bufferConfiguration,
                 transportConfiguration);
     }
 
-    public ConfigurationContext(BufferConfiguration bufferConfiguration,
+    public ConfigurationContext(AccessLogConfiguration accessLogConfiguration,
+                                BufferConfiguration bufferConfiguration,
                                 EventLoopConfiguration eventLoopConfiguration,
                                 EventStreamConfiguration eventStreamConfiguration,
                                 HealthCheckConfiguration healthCheckConfiguration,
@@ -104,6 +112,7 @@ public record ConfigurationContext(BufferConfiguration bufferConfiguration,
                                 TlsClientConfiguration tlsClientConfiguration,
                                 TlsServerConfiguration tlsServerConfiguration,
                                 TransportConfiguration transportConfiguration) {
+        this.accessLogConfiguration = accessLogConfiguration;
         this.bufferConfiguration = bufferConfiguration;
         this.eventLoopConfiguration = eventLoopConfiguration;
         this.eventStreamConfiguration = eventStreamConfiguration;
@@ -0,0 +1,170 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.accesslog;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.shieldblaze.expressgateway.common.utils.NumberUtil;
+import com.shieldblaze.expressgateway.configuration.Configuration;
+
+import java.io.File;
+
+/**
+ * Configuration for Access Log
+ */
+public final class AccessLogConfiguration implements Configuration<AccessLogConfiguration> {
+
+    @JsonProperty
+    private boolean enabled;
+
+    @JsonProperty
+    private String path;
+
+    @JsonProperty
+    private int bufferSize;
+
+    @JsonProperty
+    private long maxFileSize;
+
+    @JsonProperty
+    private int maxFiles;
+
+    @JsonIgnore
+    private boolean validated;
+
+    public static final AccessLogConfiguration DEFAULT = new AccessLogConfiguration();
+
+    static {
+        DEFAULT.enabled = false;
+        DEFAULT.path = System.getProperty("java.io.tmpdir") + File.separator + "expressgateway-access.log";
+        DEFAULT.bufferSize = 8192;
+        DEFAULT.maxFileSize = 1024 * 1024 * 100;
+        DEFAULT.maxFiles = 10;
+        DEFAULT.validated = true;
+    }
+
+    /**
+     * Set to {@code true} to enable Access Log
+     */
+    public AccessLogConfiguration setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if Access Log is enabled
+     */
+    public boolean enabled() {
+        assertValidated();
+        return enabled;
+    }
+
+    /**
+     * Path of Access Log file
+     */
+    public AccessLogConfiguration setPath(String path) {
+        this.path = path;
+        return this;
+    }
+
+    /**
+     * Path of Access Log file
+     */
+    public String path() {
+        assertValidated();
+        return path;
+    }
+
+    /**
+     * Number of records buffered per thread. Records are dropped
+     * when buffer is full. Must be a power of two.
+     */
+    public AccessLogConfiguration setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Number of records buffered per thread
+     */
+    public int bufferSize() {
+        assertValidated();
+        return bufferSize;
+    }
+
+    /**
+     * Maximum size of Access Log file in bytes before it is rotated
+     */
+    public AccessLogConfiguration setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    /**
+     * Maximum size of Access Log file in bytes before it is rotated
+     */
+    public long maxFileSize() {
+        assertValidated();
+        return maxFileSize;
+    }
+
+    /**
+     * Maximum number of rotated Access Log files to keep
+     */
+    public AccessLogConfiguration setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles;
+        return this;
+    }
+
+    /**
+     * Maximum number of rotated Access Log files to keep
+     */
+    public int maxFiles() {
+        assertValidated();
+        return maxFiles;
+    }
+
+    /**
+     * Validate all parameters of this configuration
+     *
+     * @return this class instance
+     * @throws IllegalArgumentException If any value is invalid
+     */
+    public AccessLogConfiguration validate() throws IllegalArgumentException {
+        if (enabled) {
+            if (path == null || path.isBlank()) {
+                throw new IllegalArgumentException("Path must be set");
+            }
+
+            NumberUtil.checkPositive(bufferSize, "BufferSize");
+            if ((bufferSize & (bufferSize - 1)) != 0) {
+                throw new IllegalArgumentException("BufferSize must be a power of two");
+            }
+
+            NumberUtil.checkPositive(maxFileSize, "MaxFileSize");
+            NumberUtil.checkPositive(maxFiles, "MaxFiles");
+        }
+        validated = true;
+        return this;
+    }
+
+    @Override
+    public boolean validated() {
+        return validated;
+    }
+}
@@ -54,6 +54,12 @@ public final class HttpConfiguration implements Configuration<HttpConfiguration>
     @JsonProperty
     private int h2MaxFrameSize;
 
+    @JsonProperty
+    private int h2MaxAdaptiveWindowSize;
+
+    @JsonProperty
+    private boolean h1LowAllocationDecoder;
+
     @JsonProperty
     private int compressionThreshold;
 
@@ -63,6 +69,21 @@ public final class HttpConfiguration implements Configuration<HttpConfiguration>
     @JsonProperty
     private int brotliCompressionLevel;
 
+    @JsonProperty
+    private int maxRetries;
+
+    @JsonProperty
+    private int retryBudgetPercent;
+
+    @JsonProperty
+    private boolean hedgeRequests;
+
+    @JsonProperty
+    private int minIdleConnections;
+
+    @JsonProperty
+    private boolean webSocketRelay;
+
     @JsonIgnore
     private boolean validated;
 
@@ -75,12 +96,15 @@ public final class HttpConfiguration implements Configuration<HttpConfiguration>
         DEFAULT.h2MaxHeaderListSize = 262144;
         DEFAULT.h2MaxHeaderTableSize = 65536;
         DEFAULT.h2MaxFrameSize = 16777215;
+        DEFAULT.h2MaxAdaptiveWindowSize = 16777216;
         DEFAULT.maxInitialLineLength = 1024 * 8;
         DEFAULT.maxHeaderSize = 1024 * 8;
         DEFAULT.maxChunkSize = 1024 * 8;
         DEFAULT.compressionThreshold = 1024;
         DEFAULT.deflateCompressionLevel = 6;
         DEFAULT.brotliCompressionLevel = 4;
+        DEFAULT.maxRetries = 1;
+        DEFAULT.retryBudgetPercent = 20;
         DEFAULT.validated = true;
     }
 
@@ -232,6 +256,45 @@ public final class HttpConfiguration implements Configuration<HttpConfiguration>
         return h2MaxFrameSize;
     }
 
+    /**
+     * <p> HTTP/2 Max Adaptive Window Size </p>
+     *
+     * <p> Upper bound of connection and stream flow-control windows when they are
+     * auto-tuned using bandwidth-delay product. Set to {@code 0} to disable auto-tuning. </p>
+     */
+    public HttpConfiguration setH2MaxAdaptiveWindowSize(int h2MaxAdaptiveWindowSize) {
+        this.h2MaxAdaptiveWindowSize = h2MaxAdaptiveWindowSize;
+        return this;
+    }
+
+    /**
+     * HTTP/2 Max Adaptive Window Size
+     */
+    public int h2MaxAdaptiveWindowSize() {
+        assertValidated();
+        return h2MaxAdaptiveWindowSize;
+    }
+
+    /**
+     * <p> HTTP/1.1 Low Allocation Decoder </p>
+     *
+     * <p> Set to {@code true} to decode HTTP/1.1 requests using a decoder which keeps header
+     * names and values as {@code AsciiString} views over the request bytes instead of Netty's
+     * {@code HttpServerCodec} which creates a {@link String} for each of them. </p>
+     */
+    public HttpConfiguration setH1LowAllocationDecoder(boolean h1LowAllocationDecoder) {
+        this.h1LowAllocationDecoder = h1LowAllocationDecoder;
+        return this;
+    }
+
+    /**
+     * HTTP/1.1 Low Allocation Decoder
+     */
+    public boolean h1LowAllocationDecoder() {
+        assertValidated();
+        return h1LowAllocationDecoder;
+    }
+
     /**
      * Compression Threshold
      */
@@ -277,6 +340,105 @@ public final class HttpConfiguration implements Configuration<HttpConfiguration>
         return brotliCompressionLevel;
     }
 
+    /**
+     * <p> Max Retries </p>
+     *
+     * <p> Maximum number of times an idempotent request is retried on a different node
+     * when connection to a node fails or is closed before response has started.
+     * Set to {@code 0} to disable retries. </p>
+     */
+    public HttpConfiguration setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * Max Retries
+     */
+    public int maxRetries() {
+        assertValidated();
+        return maxRetries;
+    }
+
+    /**
+     * <p> Retry Budget Percent </p>
+     *
+     * <p> Retries and hedged requests are allowed only while they are below this
+     * percentage of all requests, so retries cannot multiply load on an overloaded cluster. </p>
+     */
+    public HttpConfiguration setRetryBudgetPercent(int retryBudgetPercent) {
+        this.retryBudgetPercent = retryBudgetPercent;
+        return this;
+    }
+
+    /**
+     * Retry Budget Percent
+     */
+    public int retryBudgetPercent() {
+        assertValidated();
+        return retryBudgetPercent;
+    }
+
+    /**
+     * <p> Hedge Requests </p>
+     *
+     * <p> Set to {@code true} to send a copy of an idempotent request to a second node when
+     * the first node has not responded within 95th percentile of time to first byte of the cluster.
+     * Whichever response arrives first is used. </p>
+     */
+    public HttpConfiguration setHedgeRequests(boolean hedgeRequests) {
+        this.hedgeRequests = hedgeRequests;
+        return this;
+    }
+
+    /**
+     * Hedge Requests
+     */
+    public boolean hedgeRequests() {
+        assertValidated();
+        return hedgeRequests;
+    }
+
+    /**
+     * <p> Minimum Idle Connections </p>
+     *
+     * <p> Number of connections per node which are opened (and TLS handshaked, if enabled)
+     * in background and kept ready in connection pool, so requests do not pay for
+     * connection setup. Set to {@code 0} to disable connection pre-warming. </p>
+     */
+    public HttpConfiguration setMinIdleConnections(int minIdleConnections) {
+        this.minIdleConnections = minIdleConnections;
+        return this;
+    }
+
+    /**
+     * Minimum Idle Connections
+     */
+    public int minIdleConnections() {
+        assertValidated();
+        return minIdleConnections;
+    }
+
+    /**
+     * <p> WebSocket Relay </p>
+     *
+     * <p> Set to {@code true} to stop decoding WebSocket frames once both client and backend
+     * handshakes are complete. Raw bytes are then relayed between client and backend, only frame
+     * headers are inspected to enforce masking direction and detect close frames. </p>
+     */
+    public HttpConfiguration setWebSocketRelay(boolean webSocketRelay) {
+        this.webSocketRelay = webSocketRelay;
+        return this;
+    }
+
+    /**
+     * WebSocket Relay
+     */
+    public boolean webSocketRelay() {
+        assertValidated();
+        return webSocketRelay;
+    }
+
     /**
      * Validate all parameters of this configuration
      *
@@ -290,12 +452,19 @@ public final class HttpConfiguration implements Configuration<HttpConfiguration>
         NumberUtil.checkPositive(h2MaxHeaderListSize, "h2MaxHeaderListSize");
         NumberUtil.checkPositive(h2MaxHeaderTableSize, "h2MaxHeaderTableSize");
         NumberUtil.checkPositive(h2MaxFrameSize, "h2MaxFrameSize");
+        NumberUtil.checkZeroOrPositive(h2MaxAdaptiveWindowSize, "h2MaxAdaptiveWindowSize");
+        if (h2MaxAdaptiveWindowSize != 0 && h2MaxAdaptiveWindowSize < h2InitialWindowSize) {
+            throw new IllegalArgumentException("h2MaxAdaptiveWindowSize must be 0 or greater than or equal to h2InitialWindowSize");
+        }
         NumberUtil.checkPositive(maxInitialLineLength, "maxInitialLineLength");
         NumberUtil.checkPositive(maxHeaderSize, "maxHeaderSize");
         NumberUtil.checkPositive(maxChunkSize, "maxChunkSize");
         NumberUtil.checkZeroOrPositive(compressionThreshold, "compressionThreshold");
         NumberUtil.checkInRange(deflateCompressionLevel, 0, 9, "deflateCompressionLevel");
         NumberUtil.checkInRange(brotliCompressionLevel, 1, 11, "brotliCompressionLevel");
+        NumberUtil.checkZeroOrPositive(maxRetries, "maxRetries");
+        NumberUtil.checkInRange(retryBudgetPercent, 0, 100, "retryBudgetPercent");
+        NumberUtil.checkZeroOrPositive(minIdleConnections, "minIdleConnections");
         validated = true;
         return this;
     }
@@ -304,4 +473,32 @@ public final class HttpConfiguration implements Configuration<HttpConfiguration>
     public boolean validated() {
         return validated;
     }
+
+    public static HttpConfiguration copyFrom(HttpConfiguration from) {
+        from.validate();
+
+        HttpConfiguration configuration = new HttpConfiguration();
+        configuration.maxContentLength = from.maxContentLength;
+        configuration.maxInitialLineLength = from.maxInitialLineLength;
+        configuration.maxHeaderSize = from.maxHeaderSize;
+        configuration.maxChunkSize = from.maxChunkSize;
+        configuration.h2InitialWindowSize = from.h2InitialWindowSize;
+        configuration.h2MaxConcurrentStreams = from.h2MaxConcurrentStreams;
+        configuration.h2MaxHeaderListSize = from.h2MaxHeaderListSize;
+        configuration.h2MaxHeaderTableSize = from.h2MaxHeaderTableSize;
+        configuration.h2MaxFrameSize = from.h2MaxFrameSize;
+        configuration.h2MaxAdaptiveWindowSize = from.h2MaxAdaptiveWindowSize;
+        configuration.h1LowAllocationDecoder = from.h1LowAllocationDecoder;
+        configuration.compressionThreshold = from.compressionThreshold;
+        configuration.deflateCompressionLevel = from.deflateCompressionLevel;
+        configuration.brotliCompressionLevel = from.brotliCompressionLevel;
+        configuration.maxRetries = from.maxRetries;
+        configuration.retryBudgetPercent = from.retryBudgetPercent;
+        configuration.hedgeRequests = from.hedgeRequests;
+        configuration.minIdleConnections = from.minIdleConnections;
+        configuration.webSocketRelay = from.webSocketRelay;
+
+        configuration.validate();
+        return configuration;
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.tls;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * <p> Index of {@link CertificateKeyPair} by hostname, stored as a trie of
+ * reversed labels ({@code www.shieldblaze.com} is stored as {@code com -> shieldblaze -> www}). </p>
+ *
+ * <p> Wildcard mapping {@code *.shieldblaze.com} is stored as {@code com -> shieldblaze -> *} and
+ * matches exactly one label, so exact and wildcard matches are found in a single walk
+ * without building candidate hostnames on every lookup. </p>
+ */
+final class CertificateIndex {
+
+    private static final String WILDCARD = "*";
+
+    private final Node root = new Node();
+
+    /**
+     * Add or replace mapping of a hostname
+     */
+    synchronized void put(String host, CertificateKeyPair certificateKeyPair) {
+        Node node = root;
+        int end = host.length();
+        while (end >= 0) {
+            int dot = host.lastIndexOf('.', end - 1);
+            node = node.children().computeIfAbsent(host.substring(dot + 1, end), label -> new Node());
+            end = dot;
+        }
+        node.host = host;
+        node.certificateKeyPair = certificateKeyPair;
+    }
+
+    /**
+     * Remove mapping of a hostname
+     *
+     * @return Removed {@link CertificateKeyPair} or {@code null} if hostname was not mapped
+     */
+    synchronized CertificateKeyPair remove(String host) {
+        Node node = find(host);
+        if (node == null) {
+            return null;
+        }
+
+        CertificateKeyPair certificateKeyPair = node.certificateKeyPair;
+        node.host = null;
+        node.certificateKeyPair = null;
+        return certificateKeyPair;
+    }
+
+    /**
+     * Remove all mappings
+     */
+    synchronized void clear() {
+        root.children = null;
+    }
+
+    /**
+     * Get {@link CertificateKeyPair} mapped with exactly this hostname
+     */
+    CertificateKeyPair get(String host) {
+        Node node = find(host);
+        return node == null ? null : node.certificateKeyPair;
+    }
+
+    /**
+     * Get {@link CertificateKeyPair} for a FQDN. Exact match is preferred over wildcard match.
+     *
+     * @return {@link CertificateKeyPair} or {@code null} if no mapping matches
+     */
+    CertificateKeyPair lookup(String fqdn) {
+        Node node = root;
+        int end = fqdn.length();
+        for (;;) {
+            int dot = fqdn.lastIndexOf('.', end - 1);
+
+            // Only left-most label is remaining, try exact match and then wildcard.
+            if (dot == -1) {
+                Node exact = node.child(fqdn.substring(0, end));
+                if (exact != null && exact.certificateKeyPair != null) {
+                    return exact.certificateKeyPair;
+                }
+
+                Node wildcard = node.child(WILDCARD);
+                return wildcard == null ? null : wildcard.certificateKeyPair;
+            }
+
+            node = node.child(fqdn.substring(dot + 1, end));
+            if (node == null) {
+                return null;
+            }
+            end = dot;
+        }
+    }
+
+    /**
+     * Call {@link BiConsumer} for every mapping
+     */
+    void forEach(BiConsumer<String, CertificateKeyPair> consumer) {
+        forEach(root, consumer);
+    }
+
+    private static void forEach(Node node, BiConsumer<String, CertificateKeyPair> consumer) {
+        if (node.certificateKeyPair != null) {
+            consumer.accept(node.host, node.certificateKeyPair);
+        }
+
+        Map<String, Node> children = node.children;
+        if (children != null) {
+            children.values().forEach(child -> forEach(child, consumer));
+        }
+    }
+
+    private Node find(String host) {
+        Node node = root;
+        int end = host.length();
+        while (end >= 0 && node != null) {
+            int dot = host.lastIndexOf('.', end - 1);
+            node = node.child(host.substring(dot + 1, end));
+            end = dot;
+        }
+        return node;
+    }
+
+    private static final class Node {
+        private volatile Map<String, Node> children;
+        private volatile String host;
+        private volatile CertificateKeyPair certificateKeyPair;
+
+        private Node child(String label) {
+            Map<String, Node> children = this.children;
+            return children == null ? null : children.get(label);
+        }
+
+        // Called while holding CertificateIndex lock
+        private Map<String, Node> children() {
+            if (children == null) {
+                children = new ConcurrentHashMap<>();
+            }
+            return children;
+        }
+    }
+}
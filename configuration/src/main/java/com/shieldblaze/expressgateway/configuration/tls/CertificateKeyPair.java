@@ -20,19 +20,20 @@ package com.shieldblaze.expressgateway.configuration.tls;
 import com.shieldblaze.expressgateway.common.annotation.InternalCall;
 import com.shieldblaze.expressgateway.common.crypto.Keypair;
 import com.shieldblaze.expressgateway.common.utils.ListUtil;
+import com.shieldblaze.expressgateway.common.zookeeper.SessionTicketKeyManager;
 import com.shieldblaze.expressgateway.concurrent.GlobalExecutors;
 import io.netty.handler.ssl.ApplicationProtocolConfig;
 import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslContextOption;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.cert.ocsp.BasicOCSPResp;
-import org.bouncycastle.cert.ocsp.OCSPResp;
-import org.bouncycastle.cert.ocsp.SingleResp;
 
 import javax.net.ssl.SSLException;
 import javax.net.ssl.TrustManagerFactory;
@@ -42,19 +43,22 @@ import java.io.IOException;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * <p> {@link X509Certificate} and {@link PrivateKey} Pair </p>
  */
-public final class CertificateKeyPair implements Runnable, Closeable {
+public final class CertificateKeyPair implements Closeable {
 
     private static final Logger logger = LogManager.getLogger(CertificateKeyPair.class);
 
@@ -62,9 +66,18 @@ public final class CertificateKeyPair implements Runnable, Closeable {
     private final PrivateKey privateKey;
     private final boolean useOCSPStapling;
 
-    private byte[] ocspStaplingData = null;
-    private ScheduledFuture<?> scheduledFuture;
-    private SslContext sslContext;
+    private volatile OCSPStapleCache.Entry ocspStaple;
+    private volatile SslContext sslContext;
+    private Consumer<List<byte[]>> ticketKeysListener;
+
+    /**
+     * {@link TlsConfiguration} used to build {@link SslContext} lazily
+     */
+    private volatile TlsConfiguration tlsConfiguration;
+    private volatile SslContextCache sslContextCache;
+    private CompletableFuture<SslContext> buildFuture;
+    private volatile long lastAccessMillis;
+    private long estimatedSize;
 
     /**
      * <p> Create a new TLS Client Instance </p>
@@ -156,12 +169,51 @@ public final class CertificateKeyPair implements Runnable, Closeable {
 
     /**
      * <p> Initialize and build {@link SslContext} </p>
-     * Internal Call; Initiated by {@link TlsConfiguration#addMapping(String, CertificateKeyPair)}
      *
      * @param tlsConfiguration {@link TlsConfiguration} to use for initializing and building.
      */
     @InternalCall
     public CertificateKeyPair init(TlsConfiguration tlsConfiguration) throws SSLException {
+        configure(tlsConfiguration, null);
+        evict();
+        build();
+        return this;
+    }
+
+    /**
+     * <p> Associate {@link TlsConfiguration} with this pair without building {@link SslContext}. </p>
+     * Internal Call; Initiated by {@link TlsConfiguration#addMapping(String, CertificateKeyPair)}
+     */
+    void configure(TlsConfiguration tlsConfiguration, SslContextCache sslContextCache) {
+        if (useOCSPStapling && !OpenSsl.isOcspSupported()) {
+            throw new IllegalArgumentException("OCSP Stapling is unavailable because OpenSSL is unavailable.");
+        }
+
+        this.tlsConfiguration = tlsConfiguration;
+        this.sslContextCache = sslContextCache;
+    }
+
+    /**
+     * Build {@link SslContext} if it is not built yet
+     */
+    SslContext build() throws SSLException {
+        SslContext context;
+        synchronized (this) {
+            if (sslContext != null) {
+                return sslContext;
+            }
+            context = build(tlsConfiguration);
+        }
+
+        // Notify cache outside of lock because it may evict other pairs.
+        SslContextCache cache = sslContextCache;
+        if (cache != null) {
+            cache.built(this);
+        }
+        return context;
+    }
+
+    private SslContext build(TlsConfiguration tlsConfiguration) throws SSLException {
         if (useOCSPStapling && !OpenSsl.isOcspSupported()) {
             throw new IllegalArgumentException("OCSP Stapling is unavailable because OpenSSL is unavailable.");
         }
@@ -191,8 +243,16 @@ public final class CertificateKeyPair implements Runnable, Closeable {
                             ApplicationProtocolNames.HTTP_2,
                             ApplicationProtocolNames.HTTP_1_1));
 
-            if (useOCSPStapling) {
-                scheduledFuture = GlobalExecutors.submitTaskAndRunEvery(this, 0, 6, TimeUnit.HOURS);
+            // Sign handshakes on dedicated thread pool instead of event loops.
+            // Only BoringSSL supports asynchronous private key method.
+            PrivateKeyOffloadExecutor offloadExecutor = tlsConfiguration.privateKeyOffloadExecutor();
+            if (offloadExecutor != null && OpenSsl.isAvailable() && OpenSsl.versionString().startsWith("BoringSSL")) {
+                sslContextBuilder.option(OpenSslContextOption.ASYNC_PRIVATE_KEY_METHOD, new OffloadPrivateKeyMethod(privateKey, offloadExecutor));
+            }
+
+            // Staple is shared by all pairs using same certificate and refreshed in background.
+            if (useOCSPStapling && ocspStaple == null) {
+                ocspStaple = OCSPStapleCache.INSTANCE.subscribe(certificates.get(0), certificates.get(1));
             }
         } else {
             TrustManagerFactory trustManagerFactory;
@@ -217,6 +277,10 @@ public final class CertificateKeyPair implements Runnable, Closeable {
                     .clientAuth(tlsConfiguration.mutualTLS().clientAuth())
                     .trustManager(trustManagerFactory)
                     .startTls(tlsConfiguration.useStartTLS())
+                    // Sessions are cached by Node hostname and port, so new connections
+                    // to the same Node can resume a session instead of a full handshake.
+                    .sessionTimeout(tlsConfiguration.sessionTimeout())
+                    .sessionCacheSize(tlsConfiguration.sessionCacheSize())
                     .applicationProtocolConfig(new ApplicationProtocolConfig(
                             ApplicationProtocolConfig.Protocol.ALPN,
                             ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
@@ -229,16 +293,127 @@ public final class CertificateKeyPair implements Runnable, Closeable {
             }
         }
 
-        this.sslContext = sslContextBuilder.build();
-        return this;
+        SslContext sslContext = sslContextBuilder.build();
+
+        // Share session ticket keys with all replicas so sessions can be resumed on any of them.
+        // JDK provider does not allow setting ticket keys, only OpenSSL does.
+        if (tlsConfiguration instanceof TlsServerConfiguration && sslContext.sessionContext() instanceof OpenSslSessionContext sessionContext) {
+            ticketKeysListener = keys -> sessionContext.setTicketKeys(keys.stream()
+                    .map(key -> new OpenSslSessionTicketKey(Arrays.copyOfRange(key, 0, 16), Arrays.copyOfRange(key, 16, 32), Arrays.copyOfRange(key, 32, 48)))
+                    .toArray(OpenSslSessionTicketKey[]::new));
+            SessionTicketKeyManager.addListener(ticketKeysListener);
+        }
+
+        lastAccessMillis = System.currentTimeMillis();
+        this.sslContext = sslContext;
+        return sslContext;
     }
 
+    /**
+     * Returns {@link SslContext} of this pair. If it is not built yet (or has been
+     * evicted) then it is built on calling thread.
+     *
+     * @return {@link SslContext} or {@code null} if this pair was never initialized
+     */
     public SslContext sslContext() {
-        return sslContext;
+        SslContext context = sslContext;
+        if (context == null && tlsConfiguration != null) {
+            try {
+                context = build();
+            } catch (SSLException ex) {
+                throw new IllegalStateException("Failed to build SslContext", ex);
+            }
+        }
+
+        lastAccessMillis = System.currentTimeMillis();
+        return context;
     }
 
+    /**
+     * Returns {@link SslContext} of this pair. If it is not built yet (or has been
+     * evicted) then it is built on {@link GlobalExecutors} so event loops are not blocked.
+     */
+    public CompletableFuture<SslContext> sslContextAsync() {
+        SslContext context = sslContext;
+        if (context != null) {
+            lastAccessMillis = System.currentTimeMillis();
+            return CompletableFuture.completedFuture(context);
+        }
+
+        synchronized (this) {
+            if (sslContext != null) {
+                return CompletableFuture.completedFuture(sslContext);
+            }
+
+            // Concurrent handshakes for a cold context share same build.
+            if (buildFuture == null) {
+                CompletableFuture<SslContext> future = GlobalExecutors.submitTask(() -> {
+                    try {
+                        return build();
+                    } catch (SSLException ex) {
+                        throw new CompletionException(ex);
+                    }
+                });
+                buildFuture = future;
+                future.whenComplete((sslContext, throwable) -> {
+                    synchronized (this) {
+                        if (buildFuture == future) {
+                            buildFuture = null;
+                        }
+                    }
+                });
+            }
+            return buildFuture;
+        }
+    }
+
+    /**
+     * Release {@link SslContext} of this pair. It is built again when needed.
+     */
+    synchronized void evict() {
+        if (ticketKeysListener != null) {
+            SessionTicketKeyManager.removeListener(ticketKeysListener);
+            ticketKeysListener = null;
+        }
+        sslContext = null;
+    }
+
+    /**
+     * Returns {@code true} if certificate of this pair has ECDSA public key
+     */
+    boolean ecdsa() {
+        return !certificates.isEmpty() && certificates.get(0).getPublicKey().getAlgorithm().equals("EC");
+    }
+
+    long lastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    /**
+     * Estimated memory used by {@link SslContext} of this pair: fixed overhead
+     * of native context plus encoded certificate chain.
+     */
+    long estimatedSize() {
+        if (estimatedSize == 0) {
+            long size = 32 * 1024;
+            for (X509Certificate certificate : certificates) {
+                try {
+                    size += certificate.getEncoded().length;
+                } catch (CertificateEncodingException ex) {
+                    // Use fixed overhead only
+                }
+            }
+            estimatedSize = size;
+        }
+        return estimatedSize;
+    }
+
+    /**
+     * Returns last good OCSP Staple of certificate or {@code null} if not available
+     */
     public byte[] ocspStaplingData() {
-        return ocspStaplingData;
+        OCSPStapleCache.Entry entry = ocspStaple;
+        return entry == null ? null : entry.staple();
     }
 
     public boolean useOCSPStapling() {
@@ -246,27 +421,16 @@ public final class CertificateKeyPair implements Runnable, Closeable {
     }
 
     @Override
-    public void run() {
-        try {
-            OCSPResp response = OCSPClient.response(certificates.get(0), certificates.get(1));
-            SingleResp ocspResp = ((BasicOCSPResp) response.getResponseObject()).getResponses()[0];
-
-            // null indicates good status.
-            if (ocspResp.getCertStatus() == null) {
-                ocspStaplingData = response.getEncoded();
-                return;
+    public void close() throws IOException {
+        synchronized (this) {
+            if (ocspStaple != null) {
+                OCSPStapleCache.INSTANCE.unsubscribe(ocspStaple);
+                ocspStaple = null;
             }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            logger.error(ex);
         }
-        ocspStaplingData = null;
-    }
 
-    @Override
-    public void close() throws IOException {
-        if (scheduledFuture != null && !scheduledFuture.isCancelled()) {
-            scheduledFuture.cancel(true);
+        if (ticketKeysListener != null) {
+            SessionTicketKeyManager.removeListener(ticketKeysListener);
         }
     }
 }
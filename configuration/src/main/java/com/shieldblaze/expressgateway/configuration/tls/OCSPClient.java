@@ -17,6 +17,7 @@
  */
 package com.shieldblaze.expressgateway.configuration.tls;
 
+import com.shieldblaze.expressgateway.concurrent.GlobalExecutors;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DEROctetString;
@@ -40,6 +41,7 @@ import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
 import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -49,6 +51,9 @@ import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Enumeration;
 import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * OCSP Client
@@ -62,12 +67,33 @@ final class OCSPClient {
     private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
             .followRedirects(HttpClient.Redirect.NEVER)
             .connectTimeout(Duration.of(30, ChronoUnit.SECONDS))
+            .executor(GlobalExecutors.executorService())
             .build();
 
     private static final String OCSP_REQUEST_TYPE = "application/ocsp-request";
     private static final String OCSP_RESPONSE_TYPE = "application/ocsp-response";
 
+    /**
+     * Query OCSP Responder and wait for the response
+     */
     static OCSPResp response(X509Certificate x509Certificate, X509Certificate issuer) throws Exception {
+        try {
+            return responseAsync(x509Certificate, issuer).get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Query OCSP Responder without blocking calling thread. Response is received
+     * and validated on {@link GlobalExecutors}.
+     *
+     * @throws NullPointerException If OCSP URL is not present in certificate
+     */
+    static CompletableFuture<OCSPResp> responseAsync(X509Certificate x509Certificate, X509Certificate issuer) throws Exception {
         CertificateID certificateID = new CertificateID(new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
                 new JcaX509CertificateHolder(issuer), x509Certificate.getSerialNumber());
 
@@ -83,24 +109,29 @@ final class OCSPClient {
 
         // Get OCSP URL from Certificate and query it.
         URI uri = URI.create(getOcspUrlFromCertificate(x509Certificate));
-        OCSPResp ocspResp = queryCA(uri, builder.build());
-        if (ocspResp.getStatus() != OCSPResponseStatus.SUCCESSFUL) {
-            throw new IllegalArgumentException("OCSP Request was not successful, Status: " + ocspResp.getStatus());
-        }
+        return queryCA(uri, builder.build()).thenApply(ocspResp -> {
+            try {
+                if (ocspResp.getStatus() != OCSPResponseStatus.SUCCESSFUL) {
+                    throw new IllegalArgumentException("OCSP Request was not successful, Status: " + ocspResp.getStatus());
+                }
 
-        BasicOCSPResp basicResponse = (BasicOCSPResp) ocspResp.getResponseObject();
-        checkNonce(basicResponse, derNonce);
-        checkSignature(basicResponse, issuer);
+                BasicOCSPResp basicResponse = (BasicOCSPResp) ocspResp.getResponseObject();
+                checkNonce(basicResponse, derNonce);
+                checkSignature(basicResponse, issuer);
 
-        int numResponses = basicResponse.getResponses().length;
-        if (numResponses != 1) {
-            throw new IllegalArgumentException("Expected number of response was 1 but we got: " + numResponses);
-        }
+                int numResponses = basicResponse.getResponses().length;
+                if (numResponses != 1) {
+                    throw new IllegalArgumentException("Expected number of response was 1 but we got: " + numResponses);
+                }
 
-        return ocspResp;
+                return ocspResp;
+            } catch (OCSPException ex) {
+                throw new CompletionException(ex);
+            }
+        });
     }
 
-    private static OCSPResp queryCA(URI uri, OCSPReq request) throws Exception {
+    private static CompletableFuture<OCSPResp> queryCA(URI uri, OCSPReq request) throws Exception {
         HttpRequest httpRequest = HttpRequest.newBuilder()
                 .uri(uri)
                 .setHeader("Accept-Content", OCSP_RESPONSE_TYPE)
@@ -110,19 +141,23 @@ final class OCSPClient {
                 .timeout(Duration.ofSeconds(30))
                 .build();
 
-        HttpResponse<byte[]> httpResponse = HTTP_CLIENT.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
-
-        if (httpResponse.headers().firstValue("Content-Type").isEmpty() ||
-                !httpResponse.headers().firstValue("Content-Type").get().equalsIgnoreCase(OCSP_RESPONSE_TYPE)) {
-            throw new IllegalArgumentException("Response Content-Type was: " + httpResponse.headers().firstValue("Content-Type").get() +
-                    "; Expected: " + OCSP_RESPONSE_TYPE);
-        }
+        return HTTP_CLIENT.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray()).thenApply(httpResponse -> {
+            if (httpResponse.statusCode() != 200) {
+                throw new IllegalArgumentException("HTTP Response Code was: " + httpResponse.statusCode() + "; Expected: 200");
+            }
 
-        if (httpResponse.statusCode() != 200) {
-            throw new IllegalArgumentException("HTTP Response Code was: " + httpResponse.statusCode() + "; Expected: 200");
-        }
+            if (httpResponse.headers().firstValue("Content-Type").isEmpty() ||
+                    !httpResponse.headers().firstValue("Content-Type").get().equalsIgnoreCase(OCSP_RESPONSE_TYPE)) {
+                throw new IllegalArgumentException("Response Content-Type was: " + httpResponse.headers().firstValue("Content-Type").orElse(null) +
+                        "; Expected: " + OCSP_RESPONSE_TYPE);
+            }
 
-        return new OCSPResp(httpResponse.body());
+            try {
+                return new OCSPResp(httpResponse.body());
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        });
     }
 
     private static String getOcspUrlFromCertificate(X509Certificate cert) {
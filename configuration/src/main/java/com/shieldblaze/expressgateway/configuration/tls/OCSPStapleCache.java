@@ -0,0 +1,265 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.tls;
+
+import com.shieldblaze.expressgateway.concurrent.GlobalExecutors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
+
+import javax.security.auth.x500.X500Principal;
+import java.math.BigInteger;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Cache of OCSP Staples keyed by issuer and serial number of certificate. </p>
+ *
+ * <p> Many SNI mappings can share same certificate, all of them subscribe to same
+ * {@link Entry} and only one OCSP request is made for them. Staple is refreshed
+ * at {@link #REFRESH_FRACTION} of its validity window. If OCSP Responder is down
+ * then last good staple keeps being served until its {@code nextUpdate}. </p>
+ */
+final class OCSPStapleCache {
+
+    private static final Logger logger = LogManager.getLogger(OCSPStapleCache.class);
+
+    static final OCSPStapleCache INSTANCE = new OCSPStapleCache();
+
+    /**
+     * Fraction of validity window (thisUpdate to nextUpdate) after which staple is refreshed
+     */
+    static final double REFRESH_FRACTION = 0.5;
+
+    /**
+     * Refresh interval when response does not carry {@code nextUpdate}
+     */
+    static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofHours(1);
+
+    /**
+     * Lower bound of refresh interval so OCSP Responder is not hammered
+     */
+    static final Duration MIN_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+    /**
+     * Upper bound of retry interval after failed fetch
+     */
+    static final Duration MAX_RETRY_INTERVAL = Duration.ofMinutes(30);
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private OCSPStapleCache() {
+        // Prevent outside initialization
+    }
+
+    /**
+     * Subscribe to OCSP Staple of certificate. Staple is fetched
+     * if nobody has subscribed to it yet.
+     *
+     * @param certificate {@link X509Certificate} to staple
+     * @param issuer      Issuer {@link X509Certificate} of certificate
+     * @return {@link Entry} holding staple
+     */
+    Entry subscribe(X509Certificate certificate, X509Certificate issuer) {
+        Key key = new Key(certificate.getIssuerX500Principal(), certificate.getSerialNumber());
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (k, existing) -> {
+            if (existing == null) {
+                existing = new Entry(k, certificate, issuer);
+                created[0] = existing;
+            }
+            existing.subscribers++;
+            return existing;
+        });
+
+        if (created[0] != null) {
+            entry.refresh();
+        }
+        return entry;
+    }
+
+    /**
+     * Unsubscribe from OCSP Staple. Refresh is cancelled
+     * once there are no subscribers left.
+     */
+    void unsubscribe(Entry entry) {
+        entries.computeIfPresent(entry.key, (k, existing) -> {
+            if (existing != entry) {
+                return existing;
+            }
+
+            if (--existing.subscribers > 0) {
+                return existing;
+            }
+
+            existing.cancel();
+            return null;
+        });
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Calculate delay until next refresh
+     *
+     * @param thisUpdate {@code thisUpdate} of response in millis
+     * @param nextUpdate {@code nextUpdate} of response in millis or {@code -1} if absent
+     * @param now        Current time in millis
+     * @return Delay in millis
+     */
+    static long refreshDelay(long thisUpdate, long nextUpdate, long now) {
+        long delay;
+        if (nextUpdate == -1) {
+            delay = DEFAULT_REFRESH_INTERVAL.toMillis();
+        } else {
+            long refreshAt = thisUpdate + (long) ((nextUpdate - thisUpdate) * REFRESH_FRACTION);
+            delay = refreshAt - now;
+        }
+        return Math.max(delay, MIN_REFRESH_INTERVAL.toMillis());
+    }
+
+    /**
+     * Calculate delay until next retry after consecutive failures
+     */
+    static long retryDelay(int failures) {
+        long delay = MIN_REFRESH_INTERVAL.toMillis() << Math.min(failures - 1, 16);
+        return Math.min(delay, MAX_RETRY_INTERVAL.toMillis());
+    }
+
+    private record Key(X500Principal issuer, BigInteger serial) {
+    }
+
+    /**
+     * OCSP Staple of a certificate shared by all its subscribers
+     */
+    static final class Entry {
+        private final Key key;
+        private final X509Certificate certificate;
+        private final X509Certificate issuer;
+
+        // Guarded by compute of entries map
+        private int subscribers;
+
+        private volatile byte[] staple;
+        private volatile long nextUpdate = -1;
+        private CompletableFuture<OCSPResp> inFlight;
+        private ScheduledFuture<?> scheduledFuture;
+        private int failures;
+        private boolean cancelled;
+
+        private Entry(Key key, X509Certificate certificate, X509Certificate issuer) {
+            this.key = key;
+            this.certificate = certificate;
+            this.issuer = issuer;
+        }
+
+        /**
+         * Returns last good OCSP Staple or {@code null} if there is
+         * no staple or it has expired.
+         */
+        byte[] staple() {
+            byte[] data = staple;
+            if (data != null && nextUpdate != -1 && System.currentTimeMillis() > nextUpdate) {
+                return null;
+            }
+            return data;
+        }
+
+        /**
+         * Fetch OCSP Staple now. If a fetch is already in progress
+         * then that one is returned.
+         */
+        synchronized CompletableFuture<OCSPResp> refresh() {
+            if (cancelled) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (inFlight != null) {
+                return inFlight;
+            }
+
+            CompletableFuture<OCSPResp> future;
+            try {
+                future = OCSPClient.responseAsync(certificate, issuer);
+            } catch (Exception ex) {
+                future = CompletableFuture.failedFuture(ex);
+            }
+
+            inFlight = future;
+            future.whenComplete(this::onResponse);
+            return future;
+        }
+
+        private synchronized void onResponse(OCSPResp response, Throwable throwable) {
+            inFlight = null;
+            if (cancelled) {
+                return;
+            }
+
+            long delay;
+            if (throwable == null) {
+                try {
+                    SingleResp singleResp = ((BasicOCSPResp) response.getResponseObject()).getResponses()[0];
+                    long thisUpdate = singleResp.getThisUpdate().getTime();
+                    long next = singleResp.getNextUpdate() == null ? -1 : singleResp.getNextUpdate().getTime();
+
+                    // null indicates good status. Never keep serving good staple of revoked certificate.
+                    if (singleResp.getCertStatus() == null) {
+                        staple = response.getEncoded();
+                        nextUpdate = next;
+                    } else {
+                        logger.warn("OCSP status of certificate {} is not good: {}", certificate.getSubjectX500Principal(), singleResp.getCertStatus());
+                        staple = null;
+                        nextUpdate = -1;
+                    }
+
+                    failures = 0;
+                    delay = refreshDelay(thisUpdate, next, System.currentTimeMillis());
+                } catch (Exception ex) {
+                    delay = onFailure(ex);
+                }
+            } else {
+                delay = onFailure(throwable);
+            }
+
+            scheduledFuture = GlobalExecutors.scheduleTask(this::refresh, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private long onFailure(Throwable throwable) {
+            failures++;
+            logger.error("Failed to fetch OCSP Staple of certificate {}, serving last good staple", certificate.getSubjectX500Principal(), throwable);
+            return retryDelay(failures);
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (scheduledFuture != null) {
+                scheduledFuture.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.tls;
+
+import io.netty.handler.ssl.OpenSslAsyncPrivateKeyMethod;
+import io.netty.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+import javax.net.ssl.SSLEngine;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+
+/**
+ * {@link OpenSslAsyncPrivateKeyMethod} which signs and decrypts handshake
+ * data using {@link PrivateKey} on {@link PrivateKeyOffloadExecutor}.
+ */
+final class OffloadPrivateKeyMethod implements OpenSslAsyncPrivateKeyMethod {
+
+    private final PrivateKey privateKey;
+    private final PrivateKeyOffloadExecutor executor;
+
+    OffloadPrivateKeyMethod(PrivateKey privateKey, PrivateKeyOffloadExecutor executor) {
+        this.privateKey = privateKey;
+        this.executor = executor;
+    }
+
+    @Override
+    public Future<byte[]> sign(SSLEngine engine, int signatureAlgorithm, byte[] input) {
+        return executor.execute(() -> signInline(privateKey, signatureAlgorithm, input));
+    }
+
+    @Override
+    public Future<byte[]> decrypt(SSLEngine engine, byte[] input) {
+        return executor.execute(() -> {
+            // OpenSSL expects raw RSA decryption, it removes padding itself.
+            Cipher cipher = Cipher.getInstance("RSA/ECB/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, privateKey);
+            return cipher.doFinal(input);
+        });
+    }
+
+    /**
+     * Sign unhashed input using TLS signature algorithm
+     */
+    static byte[] signInline(PrivateKey privateKey, int signatureAlgorithm, byte[] input) throws Exception {
+        Signature signature;
+        if (signatureAlgorithm == SSL_SIGN_RSA_PKCS1_MD5_SHA1) {
+            // TLS 1.0 and 1.1 sign concatenation of MD5 and SHA-1 digests without DigestInfo.
+            byte[] md5 = MessageDigest.getInstance("MD5").digest(input);
+            byte[] sha1 = MessageDigest.getInstance("SHA-1").digest(input);
+            byte[] digest = new byte[md5.length + sha1.length];
+            System.arraycopy(md5, 0, digest, 0, md5.length);
+            System.arraycopy(sha1, 0, digest, md5.length, sha1.length);
+
+            signature = Signature.getInstance("NONEwithRSA");
+            signature.initSign(privateKey);
+            signature.update(digest);
+            return signature.sign();
+        } else if (signatureAlgorithm == SSL_SIGN_RSA_PSS_RSAE_SHA256) {
+            signature = pss("SHA-256", MGF1ParameterSpec.SHA256, 32);
+        } else if (signatureAlgorithm == SSL_SIGN_RSA_PSS_RSAE_SHA384) {
+            signature = pss("SHA-384", MGF1ParameterSpec.SHA384, 48);
+        } else if (signatureAlgorithm == SSL_SIGN_RSA_PSS_RSAE_SHA512) {
+            signature = pss("SHA-512", MGF1ParameterSpec.SHA512, 64);
+        } else {
+            signature = Signature.getInstance(algorithm(signatureAlgorithm));
+        }
+
+        signature.initSign(privateKey);
+        signature.update(input);
+        return signature.sign();
+    }
+
+    private static Signature pss(String digest, MGF1ParameterSpec mgf1, int saltLength) throws Exception {
+        Signature signature = Signature.getInstance("RSASSA-PSS");
+        signature.setParameter(new PSSParameterSpec(digest, "MGF1", mgf1, saltLength, 1));
+        return signature;
+    }
+
+    private static String algorithm(int signatureAlgorithm) {
+        if (signatureAlgorithm == SSL_SIGN_RSA_PKCS1_SHA1) {
+            return "SHA1withRSA";
+        } else if (signatureAlgorithm == SSL_SIGN_RSA_PKCS1_SHA256) {
+            return "SHA256withRSA";
+        } else if (signatureAlgorithm == SSL_SIGN_RSA_PKCS1_SHA384) {
+            return "SHA384withRSA";
+        } else if (signatureAlgorithm == SSL_SIGN_RSA_PKCS1_SHA512) {
+            return "SHA512withRSA";
+        } else if (signatureAlgorithm == SSL_SIGN_ECDSA_SHA1) {
+            return "SHA1withECDSA";
+        } else if (signatureAlgorithm == SSL_SIGN_ECDSA_SECP256R1_SHA256) {
+            return "SHA256withECDSA";
+        } else if (signatureAlgorithm == SSL_SIGN_ECDSA_SECP384R1_SHA384) {
+            return "SHA384withECDSA";
+        } else if (signatureAlgorithm == SSL_SIGN_ECDSA_SECP521R1_SHA512) {
+            return "SHA512withECDSA";
+        } else if (signatureAlgorithm == SSL_SIGN_ED25519) {
+            return "Ed25519";
+        } else {
+            throw new IllegalArgumentException("Unsupported Signature Algorithm: " + signatureAlgorithm);
+        }
+    }
+}
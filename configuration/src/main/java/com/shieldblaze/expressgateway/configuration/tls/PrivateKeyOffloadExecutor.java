@@ -0,0 +1,124 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.tls;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> Bounded thread pool dedicated to TLS private-key operations (handshake signing
+ * and decryption) so they do not run on event loops. </p>
+ *
+ * <p> When the pool and its queue are full, operation runs inline on calling thread
+ * instead of failing the handshake. </p>
+ */
+public final class PrivateKeyOffloadExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final LongAdder offloaded = new LongAdder();
+    private final LongAdder inlineFallbacks = new LongAdder();
+
+    /**
+     * Create a new {@link PrivateKeyOffloadExecutor}
+     *
+     * @param threads   Number of handshake threads
+     * @param queueSize Maximum number of pending operations
+     */
+    PrivateKeyOffloadExecutor(int threads, int queueSize) {
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+                new DefaultThreadFactory("tls-private-key", true));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Execute private-key operation on handshake thread pool or inline if pool is saturated.
+     *
+     * @param operation Private-key operation
+     * @return {@link Future} completed with result of operation
+     */
+    Future<byte[]> execute(Callable<byte[]> operation) {
+        Promise<byte[]> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        try {
+            executor.execute(() -> complete(promise, operation));
+            offloaded.increment();
+        } catch (RejectedExecutionException ex) {
+            inlineFallbacks.increment();
+            complete(promise, operation);
+        }
+        return promise;
+    }
+
+    private static void complete(Promise<byte[]> promise, Callable<byte[]> operation) {
+        try {
+            promise.setSuccess(operation.call());
+        } catch (Throwable throwable) {
+            promise.setFailure(throwable);
+        }
+    }
+
+    /**
+     * Number of operations waiting in queue
+     */
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Number of operations being executed right now
+     */
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Number of operations offloaded to handshake thread pool
+     */
+    public long offloaded() {
+        return offloaded.sum();
+    }
+
+    /**
+     * Number of operations executed inline because handshake thread pool was saturated
+     */
+    public long inlineFallbacks() {
+        return inlineFallbacks.sum();
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "PrivateKeyOffloadExecutor{" +
+                "queueDepth=" + queueDepth() +
+                ", activeCount=" + activeCount() +
+                ", offloaded=" + offloaded() +
+                ", inlineFallbacks=" + inlineFallbacks() +
+                '}';
+    }
+}
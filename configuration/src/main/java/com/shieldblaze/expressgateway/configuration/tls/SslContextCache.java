@@ -0,0 +1,95 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.tls;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> Tracks {@link CertificateKeyPair}s of a {@link TlsConfiguration} whose {@code SslContext}
+ * is built, and evicts least recently used ones once estimated memory of all built
+ * contexts exceeds {@link TlsConfiguration#sslContextMemoryBudget()}. </p>
+ *
+ * <p> Evicted contexts are built again on next handshake which needs them. </p>
+ */
+final class SslContextCache {
+
+    private final Set<CertificateKeyPair> builtPairs = ConcurrentHashMap.newKeySet();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final TlsConfiguration tlsConfiguration;
+
+    SslContextCache(TlsConfiguration tlsConfiguration) {
+        this.tlsConfiguration = tlsConfiguration;
+    }
+
+    /**
+     * Called when {@code SslContext} of a {@link CertificateKeyPair} has been built
+     */
+    void built(CertificateKeyPair certificateKeyPair) {
+        if (builtPairs.add(certificateKeyPair)) {
+            estimatedBytes.addAndGet(certificateKeyPair.estimatedSize());
+        }
+
+        if (estimatedBytes.get() > tlsConfiguration.sslContextMemoryBudget()) {
+            evict(certificateKeyPair);
+        }
+    }
+
+    /**
+     * Release {@code SslContext} of a {@link CertificateKeyPair} which is no longer mapped
+     */
+    void remove(CertificateKeyPair certificateKeyPair) {
+        if (builtPairs.remove(certificateKeyPair)) {
+            estimatedBytes.addAndGet(-certificateKeyPair.estimatedSize());
+            certificateKeyPair.evict();
+        }
+    }
+
+    void clear() {
+        builtPairs.forEach(this::remove);
+    }
+
+    /**
+     * Estimated memory used by all built contexts
+     */
+    long estimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    int size() {
+        return builtPairs.size();
+    }
+
+    private synchronized void evict(CertificateKeyPair justBuilt) {
+        List<CertificateKeyPair> candidates = new ArrayList<>(builtPairs);
+        candidates.remove(justBuilt);
+        candidates.sort(Comparator.comparingLong(CertificateKeyPair::lastAccessMillis));
+
+        long budget = tlsConfiguration.sslContextMemoryBudget();
+        for (CertificateKeyPair candidate : candidates) {
+            if (estimatedBytes.get() <= budget) {
+                break;
+            }
+            remove(candidate);
+        }
+    }
+}
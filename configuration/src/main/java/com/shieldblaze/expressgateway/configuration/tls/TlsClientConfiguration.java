@@ -42,6 +42,8 @@ public final class TlsClientConfiguration extends TlsConfiguration {
         DEFAULT.protocols = IntermediateCrypto.PROTOCOLS;
         DEFAULT.useStartTLS = false;
         DEFAULT.acceptAllCerts = false;
+        DEFAULT.sessionTimeout = 7_200;
+        DEFAULT.sessionCacheSize = 10_000;
         DEFAULT.validated = true;
     }
 
@@ -61,7 +63,7 @@ public final class TlsClientConfiguration extends TlsConfiguration {
         from.validate();
 
         TlsClientConfiguration configuration = new TlsClientConfiguration();
-        configuration.certificateKeyPairMap.putAll(from.certificateKeyPairMap);
+        configuration.copyMappings(from);
 
         configuration.ciphers = from.ciphers;
         configuration.protocols = from.protocols;
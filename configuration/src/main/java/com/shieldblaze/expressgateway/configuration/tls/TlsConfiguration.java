@@ -24,9 +24,7 @@ import com.shieldblaze.expressgateway.common.utils.NumberUtil;
 import com.shieldblaze.expressgateway.configuration.Configuration;
 
 import javax.net.ssl.SSLException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -35,7 +33,17 @@ import java.util.Objects;
 public abstract class TlsConfiguration implements Configuration<TlsConfiguration> {
 
     @JsonIgnore
-    protected final Map<String, CertificateKeyPair> certificateKeyPairMap = new HashMap<>();
+    protected final CertificateIndex certificateIndex = new CertificateIndex();
+
+    /**
+     * ECDSA {@link CertificateKeyPair}s, served alongside RSA ones in {@link #certificateIndex}
+     * to clients which support ECDSA.
+     */
+    @JsonIgnore
+    protected final CertificateIndex ecdsaCertificateIndex = new CertificateIndex();
+
+    @JsonIgnore
+    protected final SslContextCache sslContextCache = new SslContextCache(this);
 
     @JsonProperty("enabled")
     private boolean enabled = false;
@@ -72,18 +80,31 @@ public abstract class TlsConfiguration implements Configuration<TlsConfiguration
      * Get default mapping {@link CertificateKeyPair}
      */
     public CertificateKeyPair defaultMapping() {
-        return certificateKeyPairMap.get("DEFAULT");
+        CertificateKeyPair certificateKeyPair = certificateIndex.get("DEFAULT");
+        return certificateKeyPair == null ? ecdsaCertificateIndex.get("DEFAULT") : certificateKeyPair;
     }
 
     /**
-     * Add a new mapping
+     * Add a new mapping. A hostname can have one ECDSA and one RSA mapping,
+     * ECDSA is served to clients which support it and RSA to the rest.
      *
      * @param host               FQDN
      * @param certificateKeyPair {@link CertificateKeyPair} Instance
      */
     public void addMapping(String host, CertificateKeyPair certificateKeyPair) throws SSLException {
-        certificateKeyPairMap.put(host, certificateKeyPair);
-        certificateKeyPair.init(this);
+        certificateKeyPair.configure(this, sslContextCache);
+
+        // Server contexts are built lazily on first handshake. Client has only
+        // default mapping which is used by every Backend connection, build it right away.
+        if (this instanceof TlsClientConfiguration) {
+            certificateKeyPair.build();
+        }
+
+        if (certificateKeyPair.ecdsa()) {
+            ecdsaCertificateIndex.put(host, certificateKeyPair);
+        } else {
+            certificateIndex.put(host, certificateKeyPair);
+        }
     }
 
     /**
@@ -93,14 +114,28 @@ public abstract class TlsConfiguration implements Configuration<TlsConfiguration
      * @return {@code true} if mapping is successfully removed else {@code false}
      */
     public boolean removeMapping(String host) {
-        return certificateKeyPairMap.remove(host) != null;
+        CertificateKeyPair certificateKeyPair = certificateIndex.remove(host);
+        CertificateKeyPair ecdsaCertificateKeyPair = ecdsaCertificateIndex.remove(host);
+        if (certificateKeyPair == null && ecdsaCertificateKeyPair == null) {
+            return false;
+        }
+
+        if (certificateKeyPair != null) {
+            sslContextCache.remove(certificateKeyPair);
+        }
+        if (ecdsaCertificateKeyPair != null) {
+            sslContextCache.remove(ecdsaCertificateKeyPair);
+        }
+        return true;
     }
 
     /**
      * Remove all mappings
      */
     public void clearMappings() {
-        certificateKeyPairMap.clear();
+        certificateIndex.clear();
+        ecdsaCertificateIndex.clear();
+        sslContextCache.clear();
     }
 
     /**
@@ -111,26 +146,61 @@ public abstract class TlsConfiguration implements Configuration<TlsConfiguration
      * @throws NullPointerException If Mapping is not found for a Hostname
      */
     public CertificateKeyPair mapping(String fqdn) {
-        String _fqdn = fqdn;
-        try {
-            CertificateKeyPair certificateKeyPair = certificateKeyPairMap.get(fqdn);
+        return mapping(fqdn, false);
+    }
 
-            // If `null` then it means mapping was not found with FQDN.
-            // We'll try wildcard now.
+    /**
+     * Get {@link CertificateKeyPair} for a Hostname
+     *
+     * @param fqdn           FQDN
+     * @param ecdsaSupported Set to {@code true} if client supports ECDSA certificates
+     * @return ECDSA {@link CertificateKeyPair} if client supports it and one is mapped,
+     * else RSA {@link CertificateKeyPair} if found
+     * @throws NullPointerException If Mapping is not found for a Hostname
+     */
+    public CertificateKeyPair mapping(String fqdn, boolean ecdsaSupported) {
+        CertificateKeyPair certificateKeyPair = null;
+        if (fqdn != null) {
+            if (ecdsaSupported) {
+                certificateKeyPair = ecdsaCertificateIndex.lookup(fqdn);
+            }
             if (certificateKeyPair == null) {
-                fqdn = "*" + fqdn.substring(fqdn.indexOf("."));
-                certificateKeyPair = certificateKeyPairMap.get(fqdn);
-                if (certificateKeyPair != null) {
-                    return certificateKeyPair;
-                }
-            } else {
-                return certificateKeyPair;
+                certificateKeyPair = certificateIndex.lookup(fqdn);
+            }
+            // Hostname has ECDSA mapping only
+            if (certificateKeyPair == null && !ecdsaSupported) {
+                certificateKeyPair = ecdsaCertificateIndex.lookup(fqdn);
             }
-        } catch (Exception ex) {
-            // Ignore
         }
 
-        throw new NullPointerException("Mapping not found for Hostname: " + _fqdn);
+        if (certificateKeyPair == null) {
+            throw new NullPointerException("Mapping not found for Hostname: " + fqdn);
+        }
+        return certificateKeyPair;
+    }
+
+    /**
+     * Copy all mappings of another {@link TlsConfiguration} into this configuration
+     */
+    protected void copyMappings(TlsConfiguration from) {
+        from.certificateIndex.forEach(certificateIndex::put);
+        from.ecdsaCertificateIndex.forEach(ecdsaCertificateIndex::put);
+    }
+
+    /**
+     * Maximum estimated memory of built {@link io.netty.handler.ssl.SslContext}s. Once exceeded,
+     * least recently used contexts are released and built again on next use.
+     */
+    public long sslContextMemoryBudget() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * {@link PrivateKeyOffloadExecutor} running private-key operations of handshakes
+     * or {@code null} if they run inline on event loops.
+     */
+    public PrivateKeyOffloadExecutor privateKeyOffloadExecutor() {
+        return null;
     }
 
     /**
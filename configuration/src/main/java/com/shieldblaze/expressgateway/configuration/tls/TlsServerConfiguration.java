@@ -18,12 +18,26 @@
 package com.shieldblaze.expressgateway.configuration.tls;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.shieldblaze.expressgateway.common.utils.NumberUtil;
 
 /**
  * Configuration for TLS Server (Internet--to--ExpressGateway)
  */
 public final class TlsServerConfiguration extends TlsConfiguration {
 
+    @JsonProperty("sslContextMemoryBudget")
+    private long sslContextMemoryBudget = 256 * 1024 * 1024;
+
+    @JsonProperty("privateKeyOffloadThreads")
+    private int privateKeyOffloadThreads;
+
+    @JsonProperty("privateKeyOffloadQueueSize")
+    private int privateKeyOffloadQueueSize = 1024;
+
+    @JsonIgnore
+    private PrivateKeyOffloadExecutor privateKeyOffloadExecutor;
+
     @JsonIgnore
     private boolean validated;
 
@@ -46,9 +60,68 @@ public final class TlsServerConfiguration extends TlsConfiguration {
         DEFAULT.validated = true;
     }
 
+    /**
+     * Set maximum estimated memory in bytes of built {@link io.netty.handler.ssl.SslContext}s.
+     * Once exceeded, least recently used contexts are released and built again on next handshake.
+     */
+    public TlsServerConfiguration setSslContextMemoryBudget(long sslContextMemoryBudget) {
+        NumberUtil.checkPositive(sslContextMemoryBudget, "SslContext Memory Budget");
+        this.sslContextMemoryBudget = sslContextMemoryBudget;
+        return this;
+    }
+
+    @Override
+    public long sslContextMemoryBudget() {
+        return sslContextMemoryBudget;
+    }
+
+    /**
+     * Set number of threads dedicated to private-key operations during handshake.
+     * Set to {@code 0} to run them inline on event loops. Offloading requires
+     * OpenSSL provider backed by BoringSSL.
+     */
+    public TlsServerConfiguration setPrivateKeyOffloadThreads(int privateKeyOffloadThreads) {
+        NumberUtil.checkZeroOrPositive(privateKeyOffloadThreads, "Private Key Offload Threads");
+        this.privateKeyOffloadThreads = privateKeyOffloadThreads;
+        return this;
+    }
+
+    public int privateKeyOffloadThreads() {
+        return privateKeyOffloadThreads;
+    }
+
+    /**
+     * Set maximum number of pending private-key operations. Once full,
+     * operations run inline on event loops.
+     */
+    public TlsServerConfiguration setPrivateKeyOffloadQueueSize(int privateKeyOffloadQueueSize) {
+        NumberUtil.checkPositive(privateKeyOffloadQueueSize, "Private Key Offload Queue Size");
+        this.privateKeyOffloadQueueSize = privateKeyOffloadQueueSize;
+        return this;
+    }
+
+    public int privateKeyOffloadQueueSize() {
+        return privateKeyOffloadQueueSize;
+    }
+
+    @Override
+    public synchronized PrivateKeyOffloadExecutor privateKeyOffloadExecutor() {
+        if (privateKeyOffloadThreads == 0) {
+            return null;
+        }
+
+        if (privateKeyOffloadExecutor == null) {
+            privateKeyOffloadExecutor = new PrivateKeyOffloadExecutor(privateKeyOffloadThreads, privateKeyOffloadQueueSize);
+        }
+        return privateKeyOffloadExecutor;
+    }
+
     @Override
     public TlsConfiguration validate() throws IllegalArgumentException, NullPointerException {
         super.validate();
+        NumberUtil.checkPositive(sslContextMemoryBudget, "SslContext Memory Budget");
+        NumberUtil.checkZeroOrPositive(privateKeyOffloadThreads, "Private Key Offload Threads");
+        NumberUtil.checkPositive(privateKeyOffloadQueueSize, "Private Key Offload Queue Size");
         validated = true;
         return this;
     }
@@ -62,7 +135,7 @@ public final class TlsServerConfiguration extends TlsConfiguration {
         from.validate();
 
         TlsServerConfiguration configuration = new TlsServerConfiguration();
-        configuration.certificateKeyPairMap.putAll(from.certificateKeyPairMap);
+        configuration.copyMappings(from);
 
         configuration.ciphers = from.ciphers;
         configuration.protocols = from.protocols;
@@ -71,6 +144,9 @@ public final class TlsServerConfiguration extends TlsConfiguration {
         configuration.sessionTimeout = from.sessionTimeout;
         configuration.sessionCacheSize = from.sessionCacheSize;
         configuration.acceptAllCerts = from.acceptAllCerts;
+        configuration.sslContextMemoryBudget = from.sslContextMemoryBudget;
+        configuration.privateKeyOffloadThreads = from.privateKeyOffloadThreads;
+        configuration.privateKeyOffloadQueueSize = from.privateKeyOffloadQueueSize;
 
         configuration.validate();
         return configuration;
@@ -23,6 +23,7 @@ import com.shieldblaze.expressgateway.configuration.Configuration;
 import io.netty.channel.AdaptiveRecvByteBufAllocator;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.epoll.Epoll;
 import io.netty.incubator.channel.uring.IOUring;
 import io.netty.util.internal.ObjectUtil;
@@ -61,6 +62,30 @@ public final class TransportConfiguration implements Configuration<TransportConf
     @JsonProperty("connectionIdleTimeout")
     private int connectionIdleTimeout;
 
+    @JsonProperty("writeBufferLowWaterMark")
+    private int writeBufferLowWaterMark;
+
+    @JsonProperty("writeBufferHighWaterMark")
+    private int writeBufferHighWaterMark;
+
+    @JsonProperty("flushConsolidationLimit")
+    private int flushConsolidationLimit;
+
+    @JsonProperty("flushConsolidationDelay")
+    private int flushConsolidationDelay;
+
+    @JsonProperty("tcpSplice")
+    private boolean tcpSplice;
+
+    @JsonProperty("udpMaxDatagramPayloadSize")
+    private int udpMaxDatagramPayloadSize;
+
+    @JsonProperty("udpGso")
+    private boolean udpGso;
+
+    @JsonProperty("udpNatSockets")
+    private int udpNatSockets;
+
     @JsonIgnore
     private boolean validated;
 
@@ -83,6 +108,14 @@ public final class TransportConfiguration implements Configuration<TransportConf
         DEFAULT.tcpFastOpenMaximumPendingRequests = 100_000;
         DEFAULT.backendConnectTimeout = 1000 * 10;  // 10 Seconds
         DEFAULT.connectionIdleTimeout = 1000 * 120; // 2 Minute
+        DEFAULT.writeBufferLowWaterMark = 1024 * 32;   // 32 KB
+        DEFAULT.writeBufferHighWaterMark = 1024 * 64;  // 64 KB
+        DEFAULT.flushConsolidationLimit = 256;
+        DEFAULT.flushConsolidationDelay = 1000; // 1 Millisecond
+        DEFAULT.tcpSplice = true;
+        DEFAULT.udpMaxDatagramPayloadSize = 0;
+        DEFAULT.udpGso = true;
+        DEFAULT.udpNatSockets = 0;
         DEFAULT.validated = true;
     }
 
@@ -233,6 +266,156 @@ public final class TransportConfiguration implements Configuration<TransportConf
         return connectionIdleTimeout;
     }
 
+    /**
+     * Write Buffer Low Water Mark. Once outbound buffer of a connection drops below
+     * this mark, reads are resumed on the connection feeding it.
+     */
+    public TransportConfiguration setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+        return this;
+    }
+
+    /**
+     * Write Buffer Low Water Mark
+     */
+    public int writeBufferLowWaterMark() {
+        return writeBufferLowWaterMark;
+    }
+
+    /**
+     * Write Buffer High Water Mark. Once outbound buffer of a connection exceeds
+     * this mark, reads are paused on the connection feeding it.
+     */
+    public TransportConfiguration setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+        return this;
+    }
+
+    /**
+     * Write Buffer High Water Mark
+     */
+    public int writeBufferHighWaterMark() {
+        return writeBufferHighWaterMark;
+    }
+
+    /**
+     * Returns {@link WriteBufferWaterMark} of connections. If both water marks
+     * are {@code 0} then {@link WriteBufferWaterMark#DEFAULT} is returned.
+     */
+    public WriteBufferWaterMark writeBufferWaterMark() {
+        if (writeBufferLowWaterMark == 0 && writeBufferHighWaterMark == 0) {
+            return WriteBufferWaterMark.DEFAULT;
+        }
+        return new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark);
+    }
+
+    /**
+     * Maximum number of writes consolidated into a single flush during a read burst.
+     * Pending writes are flushed once read burst completes or this limit is reached.
+     * Set to {@code 0} to disable consolidation and flush every write.
+     */
+    public TransportConfiguration setFlushConsolidationLimit(int flushConsolidationLimit) {
+        this.flushConsolidationLimit = flushConsolidationLimit;
+        return this;
+    }
+
+    /**
+     * Maximum number of writes consolidated into a single flush during a read burst
+     */
+    public int flushConsolidationLimit() {
+        return flushConsolidationLimit;
+    }
+
+    /**
+     * Maximum time in microseconds a consolidated write stays pending before it is flushed,
+     * in case read burst does not complete. Set to {@code 0} to only flush on read burst
+     * completion and consolidation limit.
+     */
+    public TransportConfiguration setFlushConsolidationDelay(int flushConsolidationDelay) {
+        this.flushConsolidationDelay = flushConsolidationDelay;
+        return this;
+    }
+
+    /**
+     * Maximum time in microseconds a consolidated write stays pending before it is flushed
+     */
+    public int flushConsolidationDelay() {
+        return flushConsolidationDelay;
+    }
+
+    /**
+     * Set to {@code true} to forward plain (non-TLS) TCP connections using splice(2).
+     * Splice is only available on {@link TransportType#EPOLL}, other transports
+     * fall back to regular forwarding.
+     */
+    public TransportConfiguration setTcpSplice(boolean tcpSplice) {
+        this.tcpSplice = tcpSplice;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if plain TCP connections are forwarded using splice(2)
+     */
+    public boolean tcpSplice() {
+        return tcpSplice;
+    }
+
+    /**
+     * <p> Maximum payload size of a UDP datagram. If set to a value greater than {@code 0}, multiple datagrams
+     * are received with a single system call (recvmmsg(2) on {@link TransportType#EPOLL}, batched recvmsg
+     * on {@link TransportType#IO_URING}). Datagrams larger than this size are truncated. </p>
+     *
+     * <p> Set to {@code 0} to receive one datagram per read. </p>
+     */
+    public TransportConfiguration setUdpMaxDatagramPayloadSize(int udpMaxDatagramPayloadSize) {
+        this.udpMaxDatagramPayloadSize = udpMaxDatagramPayloadSize;
+        return this;
+    }
+
+    /**
+     * Maximum payload size of a UDP datagram, {@code 0} if batched receive is disabled
+     */
+    public int udpMaxDatagramPayloadSize() {
+        return udpMaxDatagramPayloadSize;
+    }
+
+    /**
+     * Set to {@code true} to send consecutive equally sized datagrams to the same recipient
+     * as a single UDP GSO (Generic Segmentation Offload) send. GSO is only available on
+     * {@link TransportType#EPOLL}, other transports send datagrams one by one.
+     */
+    public TransportConfiguration setUdpGso(boolean udpGso) {
+        this.udpGso = udpGso;
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if UDP GSO is enabled
+     */
+    public boolean udpGso() {
+        return udpGso;
+    }
+
+    /**
+     * <p> Number of shared backend-facing sockets per event loop for UDP NAT mode. In NAT mode, flows
+     * are multiplexed over shared sockets and backend replies are mapped back to flows by the backend
+     * address they are received from, so a shared socket carries one flow per backend at a time. Flows
+     * which do not fit into shared sockets use a dedicated socket. </p>
+     *
+     * <p> Set to {@code 0} to disable NAT mode and use a dedicated socket for every flow. </p>
+     */
+    public TransportConfiguration setUdpNatSockets(int udpNatSockets) {
+        this.udpNatSockets = udpNatSockets;
+        return this;
+    }
+
+    /**
+     * Number of shared backend-facing sockets per event loop for UDP NAT mode, {@code 0} if disabled
+     */
+    public int udpNatSockets() {
+        return udpNatSockets;
+    }
+
     /**
      * Validate all parameters of this configuration
      *
@@ -248,6 +431,15 @@ public final class TransportConfiguration implements Configuration<TransportConf
         ObjectUtil.checkPositive(tcpFastOpenMaximumPendingRequests, "TCP Fast Open Maximum Pending Requests");
         ObjectUtil.checkPositive(backendConnectTimeout, "Backend Connect Timeout");
         ObjectUtil.checkPositive(connectionIdleTimeout, "Connection Idle Timeout");
+        ObjectUtil.checkPositiveOrZero(writeBufferLowWaterMark, "Write Buffer Low Water Mark");
+        ObjectUtil.checkPositiveOrZero(writeBufferHighWaterMark, "Write Buffer High Water Mark");
+        ObjectUtil.checkPositiveOrZero(flushConsolidationLimit, "Flush Consolidation Limit");
+        ObjectUtil.checkPositiveOrZero(flushConsolidationDelay, "Flush Consolidation Delay");
+        ObjectUtil.checkPositiveOrZero(udpNatSockets, "UDP NAT Sockets");
+
+        if (writeBufferHighWaterMark < writeBufferLowWaterMark) {
+            throw new IllegalArgumentException("Write Buffer High Water Mark Cannot Be Less Than Write Buffer Low Water Mark");
+        }
 
         if (transportType == TransportType.EPOLL && !Epoll.isAvailable()) {
             throw new IllegalArgumentException("Epoll is not available");
@@ -291,6 +483,10 @@ public final class TransportConfiguration implements Configuration<TransportConf
             throw new IllegalArgumentException("Socket Send Buffer Size Must Be Greater Than 64");
         }
 
+        if (udpMaxDatagramPayloadSize != 0 && (udpMaxDatagramPayloadSize < 64 || udpMaxDatagramPayloadSize > 65507)) {
+            throw new IllegalArgumentException("UDP Max Datagram Payload Size Must Be 0 Or In Range Of 64-65507");
+        }
+
         validated = true;
         return this;
     }
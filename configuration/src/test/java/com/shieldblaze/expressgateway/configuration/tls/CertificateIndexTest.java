@@ -0,0 +1,102 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.tls;
+
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CertificateIndexTest {
+
+    private static CertificateKeyPair first;
+    private static CertificateKeyPair second;
+    private static CertificateKeyPair third;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        SelfSignedCertificate ssc = new SelfSignedCertificate("www.shieldblaze.com", "EC", 256);
+        first = CertificateKeyPair.forServer(Collections.singletonList(ssc.cert()), ssc.key(), false);
+        second = CertificateKeyPair.forServer(Collections.singletonList(ssc.cert()), ssc.key(), false);
+        third = CertificateKeyPair.forServer(Collections.singletonList(ssc.cert()), ssc.key(), false);
+    }
+
+    @Test
+    void exactAndWildcardLookup() {
+        CertificateIndex certificateIndex = new CertificateIndex();
+        certificateIndex.put("*.shieldblaze.com", first);
+        certificateIndex.put("www.shieldblaze.com", second);
+        certificateIndex.put("DEFAULT", third);
+
+        assertSame(second, certificateIndex.lookup("www.shieldblaze.com"));
+        assertSame(first, certificateIndex.lookup("meow.shieldblaze.com"));
+        assertSame(third, certificateIndex.lookup("DEFAULT"));
+
+        // Wildcard matches exactly one label
+        assertNull(certificateIndex.lookup("shieldblaze.com"));
+        assertNull(certificateIndex.lookup("a.b.shieldblaze.com"));
+        assertNull(certificateIndex.lookup("www.shieldblaze.net"));
+
+        assertSame(first, certificateIndex.get("*.shieldblaze.com"));
+        assertNull(certificateIndex.get("meow.shieldblaze.com"));
+
+        assertSame(second, certificateIndex.remove("www.shieldblaze.com"));
+        assertNull(certificateIndex.remove("www.shieldblaze.com"));
+        assertSame(first, certificateIndex.lookup("www.shieldblaze.com"));
+
+        certificateIndex.clear();
+        assertNull(certificateIndex.lookup("meow.shieldblaze.com"));
+    }
+
+    @Test
+    void lazyContextsAreEvictedOverBudget() throws Exception {
+        TlsServerConfiguration tlsServerConfiguration = TlsServerConfiguration.copyFrom(TlsServerConfiguration.DEFAULT);
+        tlsServerConfiguration.setSslContextMemoryBudget(first.estimatedSize() * 2);
+
+        tlsServerConfiguration.addMapping("one.shieldblaze.com", first);
+        tlsServerConfiguration.addMapping("two.shieldblaze.com", second);
+        tlsServerConfiguration.addMapping("three.shieldblaze.com", third);
+
+        // Nothing is built until first handshake
+        assertEquals(0, tlsServerConfiguration.sslContextCache.size());
+
+        assertNotNull(first.sslContextAsync().get(10, TimeUnit.SECONDS));
+        Thread.sleep(5);
+        assertNotNull(second.sslContextAsync().get(10, TimeUnit.SECONDS));
+        assertEquals(2, tlsServerConfiguration.sslContextCache.size());
+
+        // Least recently used context is evicted
+        assertNotNull(third.sslContextAsync().get(10, TimeUnit.SECONDS));
+        assertEquals(2, tlsServerConfiguration.sslContextCache.size());
+        assertEquals(first.estimatedSize() * 2, tlsServerConfiguration.sslContextCache.estimatedBytes());
+
+        // Evicted context is built again when needed
+        assertNotNull(first.sslContext());
+        assertEquals(2, tlsServerConfiguration.sslContextCache.size());
+
+        tlsServerConfiguration.clearMappings();
+        assertEquals(0, tlsServerConfiguration.sslContextCache.size());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.tls;
+
+import com.sun.net.httpserver.HttpServer;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.jcajce.JcaBasicOCSPRespBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OCSPStapleCacheTest {
+
+    private static final AtomicInteger REQUESTS = new AtomicInteger();
+    private static volatile boolean responderDown;
+
+    private static HttpServer responder;
+    private static KeyPair issuerKeyPair;
+    private static X509Certificate issuer;
+    private static X509Certificate certificate;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(256);
+        issuerKeyPair = keyPairGenerator.generateKeyPair();
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        responder = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        responder.createContext("/", exchange -> {
+            REQUESTS.incrementAndGet();
+            try (InputStream in = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+                if (responderDown) {
+                    exchange.sendResponseHeaders(503, -1);
+                    return;
+                }
+
+                byte[] response = respond(new OCSPReq(in.readAllBytes()));
+                exchange.getResponseHeaders().set("Content-Type", "application/ocsp-response");
+                exchange.sendResponseHeaders(200, response.length);
+                out.write(response);
+            } catch (Exception ex) {
+                exchange.sendResponseHeaders(500, -1);
+            }
+        });
+        responder.start();
+
+        ContentSigner signer = new JcaContentSignerBuilder("SHA256withECDSA").build(issuerKeyPair.getPrivate());
+        Date notBefore = new Date(System.currentTimeMillis() - 60_000);
+        Date notAfter = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+
+        X500Name issuerName = new X500Name("CN=ExpressGateway Test CA");
+        X509CertificateHolder issuerHolder = new JcaX509v3CertificateBuilder(issuerName, BigInteger.ONE, notBefore, notAfter, issuerName, issuerKeyPair.getPublic())
+                .addExtension(Extension.basicConstraints, true, new BasicConstraints(true))
+                .build(signer);
+        issuer = new JcaX509CertificateConverter().getCertificate(issuerHolder);
+
+        String url = "http://127.0.0.1:" + responder.getAddress().getPort() + "/";
+        X509CertificateHolder holder = new JcaX509v3CertificateBuilder(issuerName, BigInteger.TWO, notBefore, notAfter,
+                new X500Name("CN=www.shieldblaze.com"), keyPair.getPublic())
+                .addExtension(Extension.authorityInfoAccess, false, new AuthorityInformationAccess(
+                        new AccessDescription(AccessDescription.id_ad_ocsp, new GeneralName(GeneralName.uniformResourceIdentifier, url))))
+                .build(signer);
+        certificate = new JcaX509CertificateConverter().getCertificate(holder);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        responder.stop(0);
+    }
+
+    @Test
+    void fetchOnceAndServeLastGoodStapleTest() throws Exception {
+        REQUESTS.set(0);
+        responderDown = false;
+
+        // Two SNI mappings sharing same certificate
+        OCSPStapleCache.Entry first = OCSPStapleCache.INSTANCE.subscribe(certificate, issuer);
+        OCSPStapleCache.Entry second = OCSPStapleCache.INSTANCE.subscribe(certificate, issuer);
+        assertSame(first, second);
+
+        OCSPResp response = first.refresh().get(10, TimeUnit.SECONDS);
+        assertEquals(CertificateStatus.GOOD, ((BasicOCSPResp) response.getResponseObject()).getResponses()[0].getCertStatus());
+        assertEquals(1, REQUESTS.get());
+
+        byte[] staple = first.staple();
+        assertNotNull(staple);
+
+        // Responder goes down, last good staple must still be served.
+        responderDown = true;
+        assertThrows(Exception.class, () -> first.refresh().get(10, TimeUnit.SECONDS));
+        assertEquals(2, REQUESTS.get());
+        assertArrayEquals(staple, second.staple());
+
+        OCSPStapleCache.INSTANCE.unsubscribe(first);
+        assertEquals(1, OCSPStapleCache.INSTANCE.size());
+        OCSPStapleCache.INSTANCE.unsubscribe(second);
+        assertEquals(0, OCSPStapleCache.INSTANCE.size());
+    }
+
+    @Test
+    void refreshDelayTest() {
+        long validity = Duration.ofHours(4).toMillis();
+        assertEquals(Duration.ofHours(2).toMillis(), OCSPStapleCache.refreshDelay(0, validity, 0));
+        assertEquals(Duration.ofHours(1).toMillis(), OCSPStapleCache.refreshDelay(0, validity, Duration.ofHours(1).toMillis()));
+        assertEquals(OCSPStapleCache.DEFAULT_REFRESH_INTERVAL.toMillis(), OCSPStapleCache.refreshDelay(0, -1, 0));
+        assertEquals(OCSPStapleCache.MIN_REFRESH_INTERVAL.toMillis(), OCSPStapleCache.refreshDelay(0, validity, validity));
+
+        assertEquals(OCSPStapleCache.MIN_REFRESH_INTERVAL.toMillis(), OCSPStapleCache.retryDelay(1));
+        assertEquals(OCSPStapleCache.MIN_REFRESH_INTERVAL.toMillis() * 2, OCSPStapleCache.retryDelay(2));
+        assertEquals(OCSPStapleCache.MAX_RETRY_INTERVAL.toMillis(), OCSPStapleCache.retryDelay(100));
+    }
+
+    private static byte[] respond(OCSPReq request) throws Exception {
+        BasicOCSPRespBuilder builder = new JcaBasicOCSPRespBuilder(issuerKeyPair.getPublic(),
+                new JcaDigestCalculatorProviderBuilder().build().get(org.bouncycastle.cert.ocsp.CertificateID.HASH_SHA1));
+
+        Date now = new Date();
+        for (Req req : request.getRequestList()) {
+            builder.addResponse(req.getCertID(), CertificateStatus.GOOD, now, new Date(now.getTime() + TimeUnit.HOURS.toMillis(4)), null);
+        }
+
+        Extension nonce = request.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce);
+        if (nonce != null) {
+            builder.setResponseExtensions(new Extensions(new Extension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce, false,
+                    (DEROctetString) nonce.getExtnValue())));
+        }
+
+        BasicOCSPResp basicResponse = builder.build(new JcaContentSignerBuilder("SHA256withECDSA").build(issuerKeyPair.getPrivate()), null, now);
+        return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).getEncoded();
+    }
+}
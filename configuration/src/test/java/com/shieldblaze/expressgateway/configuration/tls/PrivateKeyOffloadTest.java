@@ -0,0 +1,96 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.configuration.tls;
+
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslAsyncPrivateKeyMethod;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PrivateKeyOffloadTest {
+
+    @Test
+    void signOnHandshakeThreadTest() throws Exception {
+        // Signature algorithm constants are loaded from netty-tcnative
+        assumeTrue(OpenSsl.isAvailable(), "OpenSSL is not available");
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        PrivateKeyOffloadExecutor executor = new PrivateKeyOffloadExecutor(1, 16);
+        OffloadPrivateKeyMethod method = new OffloadPrivateKeyMethod(keyPair.getPrivate(), executor);
+
+        byte[] input = "ExpressGateway".getBytes();
+        Future<byte[]> future = method.sign(null, OpenSslAsyncPrivateKeyMethod.SSL_SIGN_RSA_PSS_RSAE_SHA256, input);
+        assertTrue(future.await(10, TimeUnit.SECONDS));
+
+        Signature signature = Signature.getInstance("RSASSA-PSS");
+        signature.setParameter(new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+        signature.initVerify(keyPair.getPublic());
+        signature.update(input);
+        assertTrue(signature.verify(future.getNow()));
+
+        assertEquals(1, executor.offloaded());
+        assertEquals(0, executor.inlineFallbacks());
+        executor.shutdown();
+    }
+
+    @Test
+    void inlineFallbackWhenSaturatedTest() throws Exception {
+        PrivateKeyOffloadExecutor executor = new PrivateKeyOffloadExecutor(1, 1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Occupy only thread and only queue slot
+        Future<byte[]> first = executor.execute(() -> {
+            running.countDown();
+            release.await();
+            return new byte[0];
+        });
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        Future<byte[]> second = executor.execute(() -> new byte[0]);
+        assertEquals(1, executor.queueDepth());
+
+        // Pool is saturated so operation runs on calling thread
+        Thread caller = Thread.currentThread();
+        Future<byte[]> third = executor.execute(() -> new byte[]{(byte) (Thread.currentThread() == caller ? 1 : 0)});
+        assertTrue(third.isDone());
+        assertArrayEquals(new byte[]{1}, third.getNow());
+        assertEquals(1, executor.inlineFallbacks());
+        assertEquals(2, executor.offloaded());
+
+        release.countDown();
+        assertTrue(first.await(10, TimeUnit.SECONDS));
+        assertTrue(second.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+}
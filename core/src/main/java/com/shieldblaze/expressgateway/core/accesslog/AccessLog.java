@@ -0,0 +1,167 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.accesslog;
+
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.configuration.accesslog.AccessLogConfiguration;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> Access Log records every TCP connection and HTTP request. </p>
+ *
+ * <p> Records are copied into a preallocated ring owned by the calling thread, so logging does not
+ * allocate or block the EventLoop. A background thread drains all rings and writes records into file as
+ * JSON lines. If a ring is full because writer could not keep up, record is dropped and counted in {@link #dropped()}. </p>
+ */
+public final class AccessLog implements Closeable {
+
+    private final List<AccessLogRing> rings = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private final FastThreadLocal<AccessLogRing> threadRing;
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    /**
+     * Create a new {@link AccessLog} and start its writer
+     *
+     * @param configuration {@link AccessLogConfiguration} to use
+     * @throws IOException If Access Log file cannot be opened
+     */
+    public AccessLog(AccessLogConfiguration configuration) throws IOException {
+        int bufferSize = configuration.bufferSize();
+        threadRing = new FastThreadLocal<>() {
+            @Override
+            protected AccessLogRing initialValue() {
+                AccessLogRing accessLogRing = new AccessLogRing(bufferSize);
+                rings.add(accessLogRing);
+                return accessLogRing;
+            }
+        };
+
+        writerThread = new Thread(new AccessLogWriter(this, rings, configuration), "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Log a TCP connection
+     *
+     * @param timestamp     Time in milliseconds since epoch when connection was accepted
+     * @param durationNanos Duration of connection in nanoseconds
+     * @param client        Client address
+     * @param cluster       Hostname of {@link com.shieldblaze.expressgateway.backend.cluster.Cluster}
+     * @param node          {@link Node} which handled connection or {@code null} if none
+     * @param bytesReceived Bytes received from client
+     * @param bytesSent     Bytes sent to client
+     */
+    public void logConnection(long timestamp, long durationNanos, SocketAddress client, String cluster, Node node,
+                              long bytesReceived, long bytesSent) {
+        AccessLogRing ring = threadRing.get();
+        AccessLogRing.Slot slot = claim(ring);
+        if (slot != null) {
+            slot.http = false;
+            slot.timestamp = timestamp;
+            slot.durationNanos = durationNanos;
+            slot.client = client;
+            slot.cluster = cluster;
+            slot.node = node;
+            slot.bytesReceived = bytesReceived;
+            slot.bytesSent = bytesSent;
+            ring.publish();
+        }
+    }
+
+    /**
+     * Log an HTTP request
+     *
+     * @param timestamp     Time in milliseconds since epoch when request was received
+     * @param durationNanos Duration from request to end of response in nanoseconds
+     * @param client        Client address
+     * @param cluster       Hostname of {@link com.shieldblaze.expressgateway.backend.cluster.Cluster}
+     * @param node          {@link Node} which handled request or {@code null} if none
+     * @param method        Request method
+     * @param uri           Request URI
+     * @param status        Response status code
+     * @param bytesReceived Request body bytes received from client
+     * @param bytesSent     Response body bytes sent to client
+     */
+    public void logRequest(long timestamp, long durationNanos, SocketAddress client, String cluster, Node node,
+                           String method, String uri, int status, long bytesReceived, long bytesSent) {
+        AccessLogRing ring = threadRing.get();
+        AccessLogRing.Slot slot = claim(ring);
+        if (slot != null) {
+            slot.http = true;
+            slot.timestamp = timestamp;
+            slot.durationNanos = durationNanos;
+            slot.client = client;
+            slot.cluster = cluster;
+            slot.node = node;
+            slot.method = method;
+            slot.uri = uri;
+            slot.status = status;
+            slot.bytesReceived = bytesReceived;
+            slot.bytesSent = bytesSent;
+            ring.publish();
+        }
+    }
+
+    private AccessLogRing.Slot claim(AccessLogRing ring) {
+        AccessLogRing.Slot slot = closed ? null : ring.claim();
+        if (slot == null) {
+            dropped.increment();
+        }
+        return slot;
+    }
+
+    /**
+     * Number of records dropped because buffer was full, {@link AccessLog} was closed
+     * or Access Log file could not be written
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    void incrementDropped() {
+        dropped.increment();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Write pending records and close Access Log file
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.accesslog;
+
+import com.shieldblaze.expressgateway.backend.Node;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer single-consumer ring of preallocated {@link Slot}s.
+ * Producer is the thread which owns this ring and consumer is {@link AccessLogWriter}.
+ */
+final class AccessLogRing {
+
+    private final Slot[] slots;
+    private final int mask;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * Last seen value of {@link #consumerIndex}, only accessed by producer
+     */
+    private long cachedConsumerIndex;
+
+    AccessLogRing(int capacity) {
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Claim next {@link Slot} for writing. Must be followed by {@link #publish()}.
+     *
+     * @return {@link Slot} or {@code null} if ring is full
+     */
+    Slot claim() {
+        long index = producerIndex.get();
+        if (index - cachedConsumerIndex >= slots.length) {
+            cachedConsumerIndex = consumerIndex.get();
+            if (index - cachedConsumerIndex >= slots.length) {
+                return null;
+            }
+        }
+        return slots[(int) (index & mask)];
+    }
+
+    /**
+     * Publish {@link Slot} returned by {@link #claim()} to consumer
+     */
+    void publish() {
+        producerIndex.lazySet(producerIndex.get() + 1);
+    }
+
+    /**
+     * Pass all published {@link Slot}s to {@link AccessLogWriter}
+     *
+     * @return Number of drained {@link Slot}s
+     */
+    int drain(AccessLogWriter writer) {
+        long index = consumerIndex.get();
+        long limit = producerIndex.get();
+
+        int drained = 0;
+        for (; index < limit; index++) {
+            Slot slot = slots[(int) (index & mask)];
+            writer.write(slot);
+            slot.clear();
+            consumerIndex.lazySet(index + 1);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Preallocated access log record
+     */
+    static final class Slot {
+        boolean http;
+        long timestamp;
+        long durationNanos;
+        SocketAddress client;
+        String cluster;
+        Node node;
+        String method;
+        String uri;
+        int status;
+        long bytesReceived;
+        long bytesSent;
+
+        private void clear() {
+            client = null;
+            cluster = null;
+            node = null;
+            method = null;
+            uri = null;
+        }
+    }
+}
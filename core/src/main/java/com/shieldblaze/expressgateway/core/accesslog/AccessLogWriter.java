@@ -0,0 +1,257 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.accesslog;
+
+import com.shieldblaze.expressgateway.configuration.accesslog.AccessLogConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains {@link AccessLogRing}s and writes records as JSON lines into Access Log file.
+ * File is rotated once it grows beyond {@link AccessLogConfiguration#maxFileSize()}.
+ *
+ * <p> If writing, flushing or rotating fails, the file is closed and reopened after a back-off
+ * which doubles on every consecutive failure. Rings keep being drained in the meantime
+ * and records which could not be written are counted in {@link AccessLog#dropped()}. </p>
+ */
+final class AccessLogWriter implements Runnable {
+
+    private static final Logger logger = LogManager.getLogger(AccessLogWriter.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long DROPPED_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final AccessLog accessLog;
+    private final List<AccessLogRing> rings;
+    private final Path path;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final StringBuilder sb = new StringBuilder(512);
+
+    /**
+     * Access Log file {@link Writer}, {@code null} if writing has failed and file is not reopened yet
+     */
+    private Writer writer;
+    private long fileSize;
+    private long reportedDropped;
+    private long lastDroppedReport = System.nanoTime();
+    private long backoffNanos = MIN_BACKOFF_NANOS;
+    private long reopenAt;
+
+    AccessLogWriter(AccessLog accessLog, List<AccessLogRing> rings, AccessLogConfiguration configuration) throws IOException {
+        this.accessLog = accessLog;
+        this.rings = rings;
+        this.path = Path.of(configuration.path());
+        this.maxFileSize = configuration.maxFileSize();
+        this.maxFiles = configuration.maxFiles();
+        open();
+    }
+
+    @Override
+    public void run() {
+        while (!accessLog.isClosed()) {
+            try {
+                if (writer == null && System.nanoTime() - reopenAt >= 0) {
+                    open();
+                    logger.info("Reopened Access Log: {}", path);
+                }
+
+                if (drain() == 0) {
+                    if (writer != null) {
+                        writer.flush();
+                        backoffNanos = MIN_BACKOFF_NANOS;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            } catch (Exception ex) {
+                failed(ex);
+            }
+            reportDropped();
+        }
+
+        // Write whatever is left after close
+        drain();
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                logger.error("Failed to close Access Log", ex);
+            }
+        }
+    }
+
+    private int drain() {
+        int drained = 0;
+        for (AccessLogRing ring : rings) {
+            drained += ring.drain(this);
+        }
+        return drained;
+    }
+
+    void write(AccessLogRing.Slot slot) {
+        sb.setLength(0);
+        sb.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(slot.timestamp)).append('"');
+        sb.append(",\"protocol\":\"").append(slot.http ? "HTTP" : "TCP").append('"');
+        sb.append(",\"client\":");
+        appendAddress(slot.client);
+        sb.append(",\"cluster\":");
+        appendString(slot.cluster);
+        sb.append(",\"node\":");
+        appendAddress(slot.node == null ? null : slot.node.socketAddress());
+        if (slot.http) {
+            sb.append(",\"method\":");
+            appendString(slot.method);
+            sb.append(",\"uri\":");
+            appendString(slot.uri);
+            sb.append(",\"status\":").append(slot.status);
+        }
+        sb.append(",\"durationMicros\":").append(TimeUnit.NANOSECONDS.toMicros(slot.durationNanos));
+        sb.append(",\"bytesReceived\":").append(slot.bytesReceived);
+        sb.append(",\"bytesSent\":").append(slot.bytesSent);
+        sb.append("}\n");
+
+        if (writer == null) {
+            accessLog.incrementDropped();
+            return;
+        }
+
+        try {
+            // Everything is escaped to ASCII, so length is size in bytes.
+            writer.append(sb);
+            fileSize += sb.length();
+            if (fileSize >= maxFileSize) {
+                rotate();
+            }
+        } catch (Exception ex) {
+            // Record may or may not have reached the file, count it as dropped.
+            accessLog.incrementDropped();
+            failed(ex);
+        }
+    }
+
+    /**
+     * Close Access Log file and schedule reopening it after back-off
+     */
+    private void failed(Exception cause) {
+        logger.error("Failed to write Access Log: {}, retrying in {} ms", path, TimeUnit.NANOSECONDS.toMillis(backoffNanos), cause);
+
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                // Writer is discarded anyway, pending data is lost.
+                logger.debug("Failed to close Access Log", ex);
+            }
+            writer = null;
+        }
+
+        reopenAt = System.nanoTime() + backoffNanos;
+        backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+    }
+
+    private void appendAddress(SocketAddress socketAddress) {
+        if (socketAddress instanceof InetSocketAddress inetSocketAddress && inetSocketAddress.getAddress() != null) {
+            sb.append('"').append(inetSocketAddress.getAddress().getHostAddress()).append(':').append(inetSocketAddress.getPort()).append('"');
+        } else if (socketAddress != null) {
+            appendString(socketAddress.toString());
+        } else {
+            sb.append("null");
+        }
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                sb.append("\\u").append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF]).append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private void reportDropped() {
+        long now = System.nanoTime();
+        if (now - lastDroppedReport >= DROPPED_REPORT_INTERVAL_NANOS) {
+            lastDroppedReport = now;
+            long dropped = accessLog.dropped();
+            if (dropped != reportedDropped) {
+                logger.warn("Access Log dropped {} records because writer could not keep up", dropped - reportedDropped);
+                reportedDropped = dropped;
+            }
+        }
+    }
+
+    /**
+     * Rotate Access Log file: {@code access.log} becomes {@code access.log.1},
+     * {@code access.log.1} becomes {@code access.log.2} and so on.
+     */
+    private void rotate() throws IOException {
+        Writer writer = this.writer;
+        this.writer = null;
+        writer.close();
+
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = Path.of(path + "." + i);
+            if (Files.exists(source)) {
+                Files.move(source, Path.of(path + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(path, Path.of(path + ".1"), StandardCopyOption.REPLACE_EXISTING);
+
+        open();
+    }
+
+    private void open() throws IOException {
+        Writer writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            fileSize = Files.size(path);
+        } catch (IOException ex) {
+            writer.close();
+            throw ex;
+        }
+        this.writer = writer;
+    }
+}
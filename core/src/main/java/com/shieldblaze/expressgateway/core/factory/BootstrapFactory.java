@@ -24,6 +24,8 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.epoll.EpollDatagramChannel;
 import io.netty.channel.epoll.EpollDatagramChannelConfig;
 import io.netty.channel.epoll.EpollMode;
@@ -33,6 +35,7 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.channel.unix.UnixChannelOption;
 import io.netty.incubator.channel.uring.IOUringChannelOption;
 import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringDatagramChannelConfig;
 import io.netty.incubator.channel.uring.IOUringSocketChannel;
 
 /**
@@ -40,6 +43,11 @@ import io.netty.incubator.channel.uring.IOUringSocketChannel;
  */
 public final class BootstrapFactory {
 
+    /**
+     * Number of datagrams received by a single batched read
+     */
+    private static final int UDP_RECEIVE_BATCH_SIZE = 32;
+
     @NonNull
     public static Bootstrap tcp(ConfigurationContext configurationContext, EventLoopGroup eventLoopGroup, ByteBufAllocator byteBufAllocator) {
         return new Bootstrap()
@@ -51,6 +59,7 @@ public final class BootstrapFactory {
                 .option(ChannelOption.TCP_NODELAY, true)
                 .option(ChannelOption.AUTO_READ, true)
                 .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, configurationContext.transportConfiguration().writeBufferWaterMark())
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, configurationContext.transportConfiguration().backendConnectTimeout())
                 .channelFactory(() -> {
                     if (configurationContext.transportConfiguration().transportType() == TransportType.IO_URING) {
@@ -76,10 +85,21 @@ public final class BootstrapFactory {
 
     @NonNull
     public static Bootstrap udp(ConfigurationContext configurationContext, EventLoopGroup eventLoopGroup, ByteBufAllocator byteBufAllocator) {
+        int maxDatagramPayloadSize = configurationContext.transportConfiguration().udpMaxDatagramPayloadSize();
+
+        // Batched receive splits a single read buffer into datagrams of maximum payload size,
+        // so read buffer must be able to hold a full batch.
+        RecvByteBufAllocator recvByteBufAllocator;
+        if (maxDatagramPayloadSize > 0 && configurationContext.transportConfiguration().transportType().nativeTransport()) {
+            recvByteBufAllocator = new FixedRecvByteBufAllocator(maxDatagramPayloadSize * UDP_RECEIVE_BATCH_SIZE);
+        } else {
+            recvByteBufAllocator = configurationContext.transportConfiguration().recvByteBufAllocator();
+        }
+
         return new Bootstrap()
                 .group(eventLoopGroup)
                 .option(ChannelOption.ALLOCATOR, byteBufAllocator)
-                .option(ChannelOption.RCVBUF_ALLOCATOR, configurationContext.transportConfiguration().recvByteBufAllocator())
+                .option(ChannelOption.RCVBUF_ALLOCATOR, recvByteBufAllocator)
                 .option(ChannelOption.SO_SNDBUF, configurationContext.transportConfiguration().socketSendBufferSize())
                 .option(ChannelOption.SO_RCVBUF, configurationContext.transportConfiguration().socketReceiveBufferSize())
                 .option(ChannelOption.AUTO_READ, true)
@@ -87,7 +107,11 @@ public final class BootstrapFactory {
                 .channelFactory(() -> {
                     if (configurationContext.transportConfiguration().transportType() == TransportType.IO_URING) {
                         IOUringDatagramChannel datagramChannel = new IOUringDatagramChannel();
-                        datagramChannel.config().setOption(IOUringChannelOption.SO_REUSEPORT, true);
+
+                        IOUringDatagramChannelConfig config = datagramChannel.config();
+                        config.setOption(IOUringChannelOption.SO_REUSEPORT, true);
+                        config.setMaxDatagramPayloadSize(maxDatagramPayloadSize);
+
                         return datagramChannel;
                     } else if (configurationContext.transportConfiguration().transportType() == TransportType.EPOLL) {
                         EpollDatagramChannel datagramChannel = new EpollDatagramChannel();
@@ -96,6 +120,7 @@ public final class BootstrapFactory {
                         config.setEpollMode(EpollMode.EDGE_TRIGGERED);
                         config.setOption(UnixChannelOption.SO_REUSEPORT, true);
                         config.setUdpGro(true);
+                        config.setMaxDatagramPayloadSize(maxDatagramPayloadSize);
 
                         return datagramChannel;
                     } else {
@@ -0,0 +1,170 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.handlers;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p> Capabilities advertised by TLS ClientHello which are used to pick
+ * {@link com.shieldblaze.expressgateway.configuration.tls.CertificateKeyPair}
+ * and cipher suite order. </p>
+ *
+ * <p> Parsing uses absolute indexes and does not modify reader index of buffer. </p>
+ */
+final class ClientHello {
+
+    /**
+     * ClientHello which advertises nothing, used when ClientHello could not be parsed.
+     */
+    static final ClientHello UNKNOWN = new ClientHello(false, false);
+
+    private static final int EXTENSION_SUPPORTED_GROUPS = 10;
+    private static final int EXTENSION_SIGNATURE_ALGORITHMS = 13;
+
+    private final boolean ecdsaSupported;
+    private final boolean prefersChaCha20;
+
+    private ClientHello(boolean ecdsaSupported, boolean prefersChaCha20) {
+        this.ecdsaSupported = ecdsaSupported;
+        this.prefersChaCha20 = prefersChaCha20;
+    }
+
+    /**
+     * Parse ClientHello handshake message body
+     *
+     * @param in {@link ByteBuf} containing ClientHello body (without handshake header)
+     * @return {@link ClientHello} instance or {@link #UNKNOWN} if it could not be parsed
+     */
+    static ClientHello parse(ByteBuf in) {
+        if (in == null) {
+            return UNKNOWN;
+        }
+
+        try {
+            int offset = in.readerIndex() + 34; // Version + Random
+            int end = in.writerIndex();
+
+            offset += in.getUnsignedByte(offset) + 1; // Session ID
+
+            int cipherSuitesLength = in.getUnsignedShort(offset);
+            offset += 2;
+            int cipherSuitesEnd = offset + cipherSuitesLength;
+
+            boolean ecdsaCipher = false;
+            boolean prefersChaCha20 = false;
+            boolean first = true;
+            for (int i = offset; i + 1 < cipherSuitesEnd; i += 2) {
+                int cipherSuite = in.getUnsignedShort(i);
+                if (isGrease(cipherSuite)) {
+                    continue;
+                }
+
+                if (first) {
+                    prefersChaCha20 = isChaCha20(cipherSuite);
+                    first = false;
+                }
+                ecdsaCipher |= isTls13(cipherSuite) || isEcdsa(cipherSuite);
+            }
+            offset = cipherSuitesEnd;
+
+            offset += in.getUnsignedByte(offset) + 1; // Compression Methods
+
+            boolean ecdsaSignature = false;
+            boolean ecdsaCurve = true;
+            if (offset + 2 <= end) {
+                int extensionsEnd = Math.min(end, offset + 2 + in.getUnsignedShort(offset));
+                offset += 2;
+
+                while (offset + 4 <= extensionsEnd) {
+                    int type = in.getUnsignedShort(offset);
+                    int length = in.getUnsignedShort(offset + 2);
+                    offset += 4;
+
+                    if (type == EXTENSION_SIGNATURE_ALGORITHMS) {
+                        ecdsaSignature = containsEcdsaSignature(in, offset);
+                    } else if (type == EXTENSION_SUPPORTED_GROUPS) {
+                        ecdsaCurve = containsEcdsaCurve(in, offset);
+                    }
+                    offset += length;
+                }
+            }
+
+            return new ClientHello(ecdsaCipher && ecdsaSignature && ecdsaCurve, prefersChaCha20);
+        } catch (IndexOutOfBoundsException ex) {
+            return UNKNOWN;
+        }
+    }
+
+    private static boolean containsEcdsaSignature(ByteBuf in, int offset) {
+        int end = offset + 2 + in.getUnsignedShort(offset);
+        for (int i = offset + 2; i + 1 < end; i += 2) {
+            int scheme = in.getUnsignedShort(i);
+            // ecdsa_sha1, ecdsa_secp256r1_sha256, ecdsa_secp384r1_sha384, ecdsa_secp521r1_sha512
+            if (scheme == 0x0203 || scheme == 0x0403 || scheme == 0x0503 || scheme == 0x0603) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsEcdsaCurve(ByteBuf in, int offset) {
+        int end = offset + 2 + in.getUnsignedShort(offset);
+        for (int i = offset + 2; i + 1 < end; i += 2) {
+            int group = in.getUnsignedShort(i);
+            // secp256r1, secp384r1, secp521r1
+            if (group == 0x0017 || group == 0x0018 || group == 0x0019) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isGrease(int value) {
+        return (value & 0x0F0F) == 0x0A0A;
+    }
+
+    private static boolean isTls13(int cipherSuite) {
+        return cipherSuite >= 0x1301 && cipherSuite <= 0x1305;
+    }
+
+    private static boolean isEcdsa(int cipherSuite) {
+        return switch (cipherSuite) {
+            case 0xC009, 0xC00A, 0xC023, 0xC024, 0xC02B, 0xC02C, 0xCCA9, 0xC0AC, 0xC0AD, 0xC0AE, 0xC0AF -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isChaCha20(int cipherSuite) {
+        return cipherSuite == 0x1303 || cipherSuite == 0xCCA8 || cipherSuite == 0xCCA9 || cipherSuite == 0xCCAA;
+    }
+
+    /**
+     * Returns {@code true} if client can verify ECDSA certificate chain
+     */
+    boolean ecdsaSupported() {
+        return ecdsaSupported;
+    }
+
+    /**
+     * Returns {@code true} if client listed ChaCha20-Poly1305 as most preferred cipher suite,
+     * which usually means client does not have AES hardware acceleration.
+     */
+    boolean prefersChaCha20() {
+        return prefersChaCha20;
+    }
+}
@@ -17,16 +17,20 @@
  */
 package com.shieldblaze.expressgateway.core.handlers;
 
-import com.shieldblaze.expressgateway.concurrent.GlobalExecutors;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 
 import java.time.Duration;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
-public final class ConnectionTimeoutHandler extends ChannelDuplexHandler implements Runnable {
+/**
+ * <p> Fires {@link State} user event when read or write of a channel has been idle for timeout. </p>
+ *
+ * <p> Deadlines are tracked by {@link IdleTimerWheel} of the channel's event loop. Reads and writes
+ * only record timestamp, deadline is re-armed from timestamps when it expires. Events are fired
+ * on the channel's event loop. </p>
+ */
+public final class ConnectionTimeoutHandler extends ChannelDuplexHandler {
 
     public enum State {
         /**
@@ -52,10 +56,13 @@ public final class ConnectionTimeoutHandler extends ChannelDuplexHandler impleme
 
     private final long timeoutNanos;
     private final boolean isUpstream;
+    private final TimeoutEntry entry = new TimeoutEntry();
     private long lastTransferredRead = System.nanoTime();
     private long lastTransferredWrite = lastTransferredRead;
+    private long readIdleFired;
+    private long writeIdleFired;
     private ChannelHandlerContext ctx;
-    private ScheduledFuture<?> scheduledFuture;
+    private IdleTimerWheel wheel;
 
     /**
      * Create a new Instance of {@linkplain ConnectionTimeoutHandler}
@@ -71,16 +78,32 @@ public final class ConnectionTimeoutHandler extends ChannelDuplexHandler impleme
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
-        scheduledFuture = GlobalExecutors.submitTaskAndRunEvery(this, 0, 500, TimeUnit.MILLISECONDS);
+        lastTransferredRead = System.nanoTime();
+        lastTransferredWrite = lastTransferredRead;
+        readIdleFired = lastTransferredRead;
+        writeIdleFired = lastTransferredRead;
+
+        wheel = IdleTimerWheel.of(ctx.channel().eventLoop());
+        wheel.add(entry, lastTransferredRead + timeoutNanos);
         super.channelActive(ctx);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        scheduledFuture.cancel(true);
+        if (wheel != null) {
+            wheel.remove(entry);
+        }
         super.channelInactive(ctx);
     }
 
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        // Stop timeout checks if this handler is removed from an active pipeline.
+        if (wheel != null) {
+            wheel.remove(entry);
+        }
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         lastTransferredRead = System.nanoTime();
@@ -93,16 +116,34 @@ public final class ConnectionTimeoutHandler extends ChannelDuplexHandler impleme
         super.write(ctx, msg, promise);
     }
 
-    @Override
-    public void run() {
-        long nanoTime = System.nanoTime();
-
-        if (nanoTime - lastTransferredRead > timeoutNanos) {
-            ctx.fireUserEventTriggered(isUpstream ? State.UPSTREAM_READ_IDLE : State.DOWNSTREAM_READ_IDLE);
-        }
-
-        if (nanoTime - lastTransferredWrite > timeoutNanos) {
-            ctx.fireUserEventTriggered(isUpstream ? State.UPSTREAM_WRITE_IDLE : State.DOWNSTREAM_WRITE_IDLE);
+    /**
+     * Checks read and write idleness once deadline expires. An idle event is fired again
+     * if the channel stays idle for another timeout.
+     */
+    private final class TimeoutEntry extends IdleTimerWheel.Entry {
+
+        @Override
+        void expire(long nanoTime) {
+            // Measure from last transfer or last fired event, whichever is later.
+            long readDeadline = (lastTransferredRead - readIdleFired > 0 ? lastTransferredRead : readIdleFired) + timeoutNanos;
+            long writeDeadline = (lastTransferredWrite - writeIdleFired > 0 ? lastTransferredWrite : writeIdleFired) + timeoutNanos;
+
+            if (nanoTime - readDeadline >= 0) {
+                readIdleFired = nanoTime;
+                readDeadline = nanoTime + timeoutNanos;
+                ctx.fireUserEventTriggered(isUpstream ? State.UPSTREAM_READ_IDLE : State.DOWNSTREAM_READ_IDLE);
+            }
+
+            if (nanoTime - writeDeadline >= 0) {
+                writeIdleFired = nanoTime;
+                writeDeadline = nanoTime + timeoutNanos;
+                ctx.fireUserEventTriggered(isUpstream ? State.UPSTREAM_WRITE_IDLE : State.DOWNSTREAM_WRITE_IDLE);
+            }
+
+            // Channel may have been closed by idle event handlers.
+            if (ctx.channel().isActive()) {
+                wheel.add(entry, readDeadline - writeDeadline < 0 ? readDeadline : writeDeadline);
+            }
         }
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.handlers;
+
+import io.netty.channel.EventLoop;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * <p> Idle timeout of a flow which is not backed by its own channel. </p>
+ *
+ * <p> Deadline is tracked by {@link IdleTimerWheel} of the {@link EventLoop}, same as
+ * {@link ConnectionTimeoutHandler}. {@link #touch()} only records timestamp, deadline is re-armed
+ * from it when it expires. Idle task runs on the {@link EventLoop} once the flow has not been
+ * touched for timeout. </p>
+ *
+ * <p> This class is not thread-safe and must only be used from its {@link EventLoop}. </p>
+ */
+public final class IdleTimeout {
+
+    private final long timeoutNanos;
+    private final Runnable idleTask;
+    private final IdleTimerWheel wheel;
+    private final TimeoutEntry entry = new TimeoutEntry();
+    private long lastTouched = System.nanoTime();
+
+    /**
+     * Create and start a new {@link IdleTimeout}. Must be called from the {@link EventLoop}.
+     *
+     * @param eventLoop {@link EventLoop} of the flow
+     * @param timeout   Idle timeout
+     * @param idleTask  Task to run once the flow has been idle for timeout
+     */
+    public IdleTimeout(EventLoop eventLoop, Duration timeout, Runnable idleTask) {
+        this.timeoutNanos = timeout.toNanos();
+        this.idleTask = Objects.requireNonNull(idleTask, "IdleTask");
+        this.wheel = IdleTimerWheel.of(eventLoop);
+        wheel.add(entry, lastTouched + timeoutNanos);
+    }
+
+    /**
+     * Record activity of the flow
+     */
+    public void touch() {
+        lastTouched = System.nanoTime();
+    }
+
+    /**
+     * Stop tracking the flow. Idle task will not run.
+     */
+    public void cancel() {
+        wheel.remove(entry);
+    }
+
+    private final class TimeoutEntry extends IdleTimerWheel.Entry {
+
+        @Override
+        void expire(long nanoTime) {
+            long deadline = lastTouched + timeoutNanos;
+            if (nanoTime - deadline >= 0) {
+                idleTask.run();
+            } else {
+                wheel.add(this, deadline);
+            }
+        }
+    }
+}
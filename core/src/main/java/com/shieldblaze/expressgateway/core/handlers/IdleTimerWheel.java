@@ -0,0 +1,178 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.handlers;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Hashed timing wheel of an {@link EventLoop}. All channels of an {@link EventLoop} share
+ * one wheel, which is advanced by a single task scheduled on that {@link EventLoop}. Adding and
+ * removing an {@link Entry} is O(1) and {@link Entry#expire(long)} is called on the {@link EventLoop}. </p>
+ *
+ * <p> The ticker is cancelled when the wheel becomes empty and scheduled again on next {@link #add(Entry, long)}. </p>
+ *
+ * <p> This class is not thread-safe and must only be used from its {@link EventLoop}. </p>
+ */
+final class IdleTimerWheel implements Runnable {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int WHEEL_SIZE = 512;
+    private static final FastThreadLocal<IdleTimerWheel> WHEELS = new FastThreadLocal<>();
+
+    /**
+     * Entry of {@link IdleTimerWheel}. Entries are linked into wheel slots directly,
+     * so adding an entry again does not allocate.
+     */
+    abstract static class Entry {
+        private Entry prev;
+        private Entry next;
+        private int slot = -1;
+        private long rounds;
+
+        /**
+         * Called on {@link EventLoop} once deadline of this entry has passed.
+         * Entry is not in wheel anymore and may add itself again.
+         *
+         * @param nanoTime Current {@link System#nanoTime()}
+         */
+        abstract void expire(long nanoTime);
+    }
+
+    private final EventLoop eventLoop;
+    private final Entry[] slots = new Entry[WHEEL_SIZE];
+    private final long startNanos = System.nanoTime();
+    private long tick;
+    private int size;
+    private Entry cursor;
+    private ScheduledFuture<?> ticker;
+
+    private IdleTimerWheel(EventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    /**
+     * Returns {@link IdleTimerWheel} of {@link EventLoop}. Must be called from the {@link EventLoop}.
+     */
+    static IdleTimerWheel of(EventLoop eventLoop) {
+        IdleTimerWheel wheel = WHEELS.getIfExists();
+        if (wheel == null || wheel.eventLoop != eventLoop) {
+            wheel = new IdleTimerWheel(eventLoop);
+            WHEELS.set(wheel);
+        }
+        return wheel;
+    }
+
+    /**
+     * Add {@link Entry} which expires at deadline
+     *
+     * @param entry         {@link Entry} to add, must not be in wheel already
+     * @param deadlineNanos Deadline in {@link System#nanoTime()} units
+     */
+    void add(Entry entry, long deadlineNanos) {
+        if (size == 0) {
+            // Nothing was pending, skip ticks which passed while wheel was empty.
+            tick = Math.max(tick, (System.nanoTime() - startNanos) / TICK_NANOS);
+        }
+
+        // Round up, so entry never expires before its deadline.
+        long ticks = Math.max(Math.floorDiv(deadlineNanos - startNanos + TICK_NANOS - 1, TICK_NANOS), tick);
+        int slot = (int) (ticks & (WHEEL_SIZE - 1));
+
+        entry.rounds = (ticks - tick) / WHEEL_SIZE;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = slots[slot];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        slots[slot] = entry;
+
+        if (size++ == 0 && ticker == null) {
+            ticker = eventLoop.scheduleAtFixedRate(this, TICK_NANOS, TICK_NANOS, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Remove {@link Entry} from wheel. Does nothing if {@link Entry} is not in wheel.
+     */
+    void remove(Entry entry) {
+        if (entry.slot == -1) {
+            return;
+        }
+
+        // Entry is next to be visited by run(), skip it.
+        if (entry == cursor) {
+            cursor = entry.next;
+        }
+
+        if (entry.prev == null) {
+            slots[entry.slot] = entry.next;
+        } else {
+            entry.prev.next = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+
+        entry.prev = null;
+        entry.next = null;
+        entry.slot = -1;
+        size--;
+    }
+
+    /**
+     * Advance the wheel up to current time and expire due entries
+     */
+    @Override
+    public void run() {
+        long nanoTime = System.nanoTime();
+        long currentTick = (nanoTime - startNanos) / TICK_NANOS;
+
+        while (tick <= currentTick && size > 0) {
+            // Entries added while expiring go to next tick or later, and entries removed
+            // while expiring are skipped by advancing cursor in remove(Entry).
+            cursor = slots[(int) (tick++ & (WHEEL_SIZE - 1))];
+            while (cursor != null) {
+                Entry entry = cursor;
+                cursor = entry.next;
+                if (entry.rounds > 0) {
+                    entry.rounds--;
+                } else {
+                    remove(entry);
+                    entry.expire(nanoTime);
+                }
+            }
+        }
+
+        if (size == 0) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    /**
+     * Number of entries in wheel
+     */
+    int size() {
+        return size;
+    }
+}
@@ -19,38 +19,59 @@ package com.shieldblaze.expressgateway.core.handlers;
 
 import com.shieldblaze.expressgateway.configuration.tls.CertificateKeyPair;
 import com.shieldblaze.expressgateway.configuration.tls.TlsConfiguration;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.ssl.AbstractSniHandler;
 import io.netty.handler.ssl.ReferenceCountedOpenSslEngine;
 import io.netty.handler.ssl.SslHandler;
-import io.netty.util.AsyncMapping;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
 
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * {@link SNIHandler} TLS Server Name Indication (SNI) and serve the correct
- * {@link CertificateKeyPair} as requested in SNI.
+ * {@link CertificateKeyPair} as requested in SNI. If hostname has both ECDSA and RSA
+ * {@link CertificateKeyPair} then ECDSA is served to clients which support it.
  */
 public final class SNIHandler extends AbstractSniHandler<CertificateKeyPair> {
 
-    private final AsyncMapping<String, CertificateKeyPair> promise;
+    private final TlsConfiguration tlsConfiguration;
+    private ClientHello clientHello = ClientHello.UNKNOWN;
 
     public SNIHandler(TlsConfiguration tlsConfiguration) {
-        promise = (input, promise) -> {
-            try {
-                return promise.setSuccess(tlsConfiguration.mapping(input));
-            } catch (Exception ex) {
-                return promise.setFailure(ex);
-            }
-        };
+        this.tlsConfiguration = tlsConfiguration;
+    }
+
+    @Override
+    protected Future<CertificateKeyPair> lookup(ChannelHandlerContext ctx, ByteBuf clientHello) throws Exception {
+        this.clientHello = ClientHello.parse(clientHello);
+        return super.lookup(ctx, clientHello);
     }
 
     @Override
     protected Future<CertificateKeyPair> lookup(ChannelHandlerContext ctx, String hostname) {
-        return promise.map(hostname, ctx.executor().newPromise());
+        Promise<CertificateKeyPair> promise = ctx.executor().newPromise();
+        try {
+            // SslContext of a cold mapping is built off the event loop,
+            // lookup completes once it is ready.
+            CertificateKeyPair certificateKeyPair = tlsConfiguration.mapping(hostname, clientHello.ecdsaSupported());
+            certificateKeyPair.sslContextAsync().whenComplete((sslContext, throwable) -> {
+                if (throwable == null) {
+                    promise.trySuccess(certificateKeyPair);
+                } else {
+                    promise.tryFailure(throwable);
+                }
+            });
+            return promise;
+        } catch (Exception ex) {
+            return promise.setFailure(ex);
+        }
     }
 
     @Override
@@ -72,9 +93,17 @@ public final class SNIHandler extends AbstractSniHandler<CertificateKeyPair> {
         try {
             sslHandler = new TLSHandler(certificateKeyPair.sslContext().newHandler(ctx.alloc()).engine());
 
+            // Clients without AES hardware acceleration list ChaCha20 first,
+            // serve it to them instead of server preferred AES.
+            if (clientHello.prefersChaCha20()) {
+                preferChaCha20(sslHandler.engine());
+            }
+
             try {
-                if (sslHandler.engine() instanceof ReferenceCountedOpenSslEngine && certificateKeyPair.useOCSPStapling()) {
-                    ((ReferenceCountedOpenSslEngine) sslHandler.engine()).setOcspResponse(certificateKeyPair.ocspStaplingData());
+                // Staple is null until the first OCSP response has been fetched, skip stapling until then.
+                byte[] ocspStaplingData = certificateKeyPair.ocspStaplingData();
+                if (sslHandler.engine() instanceof ReferenceCountedOpenSslEngine && certificateKeyPair.useOCSPStapling() && ocspStaplingData != null) {
+                    ((ReferenceCountedOpenSslEngine) sslHandler.engine()).setOcspResponse(ocspStaplingData);
                 }
             } catch (Exception ex) {
                 ctx.fireExceptionCaught(ex);
@@ -92,6 +121,33 @@ public final class SNIHandler extends AbstractSniHandler<CertificateKeyPair> {
         }
     }
 
+    private static void preferChaCha20(SSLEngine engine) {
+        SSLParameters parameters = engine.getSSLParameters();
+        String[] cipherSuites = parameters.getCipherSuites();
+
+        List<String> reordered = new ArrayList<>(cipherSuites.length);
+        for (String cipherSuite : cipherSuites) {
+            if (cipherSuite.contains("CHACHA20")) {
+                reordered.add(cipherSuite);
+            }
+        }
+
+        // ChaCha20 is not enabled
+        if (reordered.isEmpty()) {
+            return;
+        }
+
+        for (String cipherSuite : cipherSuites) {
+            if (!cipherSuite.contains("CHACHA20")) {
+                reordered.add(cipherSuite);
+            }
+        }
+
+        parameters.setCipherSuites(reordered.toArray(String[]::new));
+        parameters.setUseCipherSuitesOrder(true);
+        engine.setSSLParameters(parameters);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         ctx.fireExceptionCaught(cause);
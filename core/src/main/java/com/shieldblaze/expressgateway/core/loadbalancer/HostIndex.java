@@ -0,0 +1,236 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.loadbalancer;
+
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import io.netty.util.AsciiString;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p> Immutable index of {@link Cluster} by hostname. </p>
+ *
+ * <p> Hostnames are matched case-insensitively (ASCII) and port is ignored, i.e. {@code Example.com:8080}
+ * matches {@code example.com}. Wildcard hostnames like {@code *.example.com} match any subdomain
+ * of {@code example.com}; the most specific wildcard wins. If no hostname matches, the
+ * {@link L4LoadBalancer#DEFAULT} cluster is returned. </p>
+ *
+ * <p> Lookup works directly on the given {@link CharSequence}, such as {@link String} or {@link AsciiString},
+ * and does not allocate. </p>
+ */
+public final class HostIndex {
+
+    /**
+     * {@link HostIndex} without any {@link Cluster}
+     */
+    public static final HostIndex EMPTY = build(Map.of());
+
+    private final Table exact;
+    private final Table wildcard;
+    private final Cluster defaultCluster;
+    private final Map<Cluster, String> hostnames;
+
+    private HostIndex(Table exact, Table wildcard, Cluster defaultCluster, Map<Cluster, String> hostnames) {
+        this.exact = exact;
+        this.wildcard = wildcard;
+        this.defaultCluster = defaultCluster;
+        this.hostnames = hostnames;
+    }
+
+    /**
+     * Build a new {@link HostIndex}
+     *
+     * @param clusters {@link Map} of Hostname and {@link Cluster}
+     * @return New {@link HostIndex} instance
+     */
+    public static HostIndex build(Map<String, Cluster> clusters) {
+        List<String> exactKeys = new ArrayList<>();
+        List<Cluster> exactValues = new ArrayList<>();
+        List<String> wildcardKeys = new ArrayList<>();
+        List<Cluster> wildcardValues = new ArrayList<>();
+        Cluster defaultCluster = null;
+        Map<Cluster, String> hostnames = new IdentityHashMap<>();
+
+        for (Map.Entry<String, Cluster> entry : clusters.entrySet()) {
+            String hostname = entry.getKey();
+            hostnames.putIfAbsent(entry.getValue(), hostname);
+            if (hostname.equals(L4LoadBalancer.DEFAULT)) {
+                defaultCluster = entry.getValue();
+                continue;
+            }
+
+            String host = hostname.substring(0, hostEnd(hostname)).toLowerCase(Locale.ROOT);
+            if (host.startsWith("*.")) {
+                wildcardKeys.add(host.substring(2));
+                wildcardValues.add(entry.getValue());
+            } else {
+                exactKeys.add(host);
+                exactValues.add(entry.getValue());
+            }
+        }
+
+        return new HostIndex(new Table(exactKeys, exactValues), new Table(wildcardKeys, wildcardValues), defaultCluster, hostnames);
+    }
+
+    /**
+     * Lookup {@link Cluster} for a hostname
+     *
+     * @param hostname Hostname, optionally with port. May be {@code null}.
+     * @return {@link Cluster} if found else {@code null}
+     */
+    public Cluster lookup(CharSequence hostname) {
+        if (hostname == null) {
+            return defaultCluster;
+        }
+
+        int end = hostEnd(hostname);
+
+        Cluster cluster = exact.get(hostname, 0, end);
+        if (cluster != null) {
+            return cluster;
+        }
+
+        if (wildcard.size != 0) {
+            // Try each parent domain, most specific first.
+            for (int i = 0; i < end; i++) {
+                if (hostname.charAt(i) == '.') {
+                    cluster = wildcard.get(hostname, i + 1, end);
+                    if (cluster != null) {
+                        return cluster;
+                    }
+                }
+            }
+        }
+
+        return defaultCluster;
+    }
+
+    /**
+     * Hostname a {@link Cluster} is mapped with, as it was given when mapping.
+     * If {@link Cluster} is mapped with multiple hostnames, any one of them is returned.
+     *
+     * @param cluster {@link Cluster} to find hostname of
+     * @return Hostname if {@link Cluster} is mapped else {@code null}
+     */
+    public String hostname(Cluster cluster) {
+        return hostnames.get(cluster);
+    }
+
+    /**
+     * Returns index where hostname ends, excluding port and trailing dot.
+     */
+    private static int hostEnd(CharSequence hostname) {
+        int length = hostname.length();
+        int end = length;
+
+        if (length > 0 && hostname.charAt(0) == '[') {
+            // IPv6 literal, i.e. '[::1]:8080'
+            for (int i = 1; i < length; i++) {
+                if (hostname.charAt(i) == ']') {
+                    return i + 1;
+                }
+            }
+            return length;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (hostname.charAt(i) == ':') {
+                end = i;
+                break;
+            }
+        }
+
+        if (end > 0 && hostname.charAt(end - 1) == '.') {
+            end--;
+        }
+        return end;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+    private static int hash(CharSequence value, int start, int end) {
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ toLowerCase(value.charAt(i))) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Open addressing hash table of lower-case hostnames
+     */
+    private static final class Table {
+        private final String[] keys;
+        private final Cluster[] values;
+        private final int mask;
+        private final int size;
+
+        private Table(List<String> keys, List<Cluster> values) {
+            // Keep load factor at or below 0.5
+            int capacity = Integer.highestOneBit(Math.max(keys.size(), 1) * 2 - 1) << 1;
+            this.keys = new String[capacity];
+            this.values = new Cluster[capacity];
+            this.mask = capacity - 1;
+
+            int size = 0;
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get(i);
+                int index = hash(key, 0, key.length()) & mask;
+                while (this.keys[index] != null && !this.keys[index].equals(key)) {
+                    index = (index + 1) & mask;
+                }
+                if (this.keys[index] == null) {
+                    size++;
+                }
+                this.keys[index] = key;
+                this.values[index] = values.get(i);
+            }
+            this.size = size;
+        }
+
+        private Cluster get(CharSequence hostname, int start, int end) {
+            int index = hash(hostname, start, end) & mask;
+            String key;
+            while ((key = keys[index]) != null) {
+                if (matches(key, hostname, start, end)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private static boolean matches(String key, CharSequence hostname, int start, int end) {
+            if (key.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != toLowerCase(hostname.charAt(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
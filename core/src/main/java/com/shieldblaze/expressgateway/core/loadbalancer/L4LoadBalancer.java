@@ -24,6 +24,7 @@ import com.shieldblaze.expressgateway.common.annotation.NonNull;
 import com.shieldblaze.expressgateway.concurrent.eventstream.EventStream;
 import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
 import com.shieldblaze.expressgateway.core.L4FrontListener;
+import com.shieldblaze.expressgateway.core.accesslog.AccessLog;
 import com.shieldblaze.expressgateway.core.events.L4FrontListenerShutdownEvent;
 import com.shieldblaze.expressgateway.core.events.L4FrontListenerStartupEvent;
 import com.shieldblaze.expressgateway.core.events.L4FrontListenerStopEvent;
@@ -35,7 +36,10 @@ import io.netty.channel.ChannelHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -59,6 +63,7 @@ public abstract class L4LoadBalancer {
     private final InetSocketAddress bindAddress;
     private final L4FrontListener l4FrontListener;
     private final Map<String, Cluster> clusterMap = new ConcurrentHashMap<>();
+    private volatile HostIndex hostIndex = HostIndex.EMPTY;
     private final ConfigurationContext configurationContext;
     private final ChannelHandler channelHandler;
 
@@ -67,6 +72,7 @@ public abstract class L4LoadBalancer {
 
     private L4FrontListenerStartupEvent l4FrontListenerStartupEvent;
     private final ConnectionTracker connectionTracker = new ConnectionTracker();
+    private final AccessLog accessLog;
 
     /**
      * @param name                 Name of this Load Balancer
@@ -75,6 +81,7 @@ public abstract class L4LoadBalancer {
      * @param configurationContext {@link ConfigurationContext} to be applied
      * @param channelHandler       {@link ChannelHandler} to use for handling traffic
      * @throws NullPointerException If a required parameter if {@code null}
+     * @throws UncheckedIOException If Access Log is enabled and its file cannot be opened
      */
     public L4LoadBalancer(String name,
                           @NonNull InetSocketAddress bindAddress,
@@ -95,6 +102,16 @@ public abstract class L4LoadBalancer {
         this.byteBufAllocator = new PooledByteBufAllocatorFactory(configurationContext.bufferConfiguration()).instance();
         this.eventLoopFactory = new EventLoopFactory(configurationContext);
 
+        if (configurationContext.accessLogConfiguration().enabled()) {
+            try {
+                this.accessLog = new AccessLog(configurationContext.accessLogConfiguration());
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to open Access Log", ex);
+            }
+        } else {
+            this.accessLog = null;
+        }
+
         l4FrontListener.l4LoadBalancer(this);
     }
 
@@ -170,6 +187,10 @@ public abstract class L4LoadBalancer {
             logger.fatal("Failed to shutdown L4FrontListener", ex);
             throw ex;
         } finally {
+            if (accessLog != null) {
+                accessLog.close();
+            }
+
             logger.info("Shutdown L4FrontListener: {}", event);
         }
     }
@@ -193,30 +214,40 @@ public abstract class L4LoadBalancer {
      *
      * @param hostname FQDN Hostname
      * @throws NullPointerException If {@link Cluster} is not found
+     * @see HostIndex
      */
     @NonNull
     public Cluster cluster(String hostname) {
-        logger.info("Looking up for Cluster with hostname: {}", hostname);
-        try {
-            Cluster cluster = clusterMap.get(hostname);
-            if (cluster == null) {
-                cluster = clusterMap.get("DEFAULT");
-                if (cluster == null) {
-                    throw new NullPointerException("Cluster not found with Hostname: " + hostname);
-                }
-            }
-            return cluster;
-        } catch (Exception ex) {
-            logger.error("Failed to lookup for Cluster", ex);
-            throw ex;
+        Cluster cluster = hostIndex.lookup(hostname);
+        if (cluster == null) {
+            throw new NullPointerException("Cluster not found with Hostname: " + hostname);
         }
+        return cluster;
+    }
+
+    /**
+     * Get {@link HostIndex} of all mapped {@link Cluster}. A new {@link HostIndex}
+     * is built every time a {@link Cluster} is mapped, remapped or removed.
+     */
+    public HostIndex hostIndex() {
+        return hostIndex;
     }
 
     /**
      * Get all {@link Cluster}
      */
     public Map<String, Cluster> clusters() {
-        return clusterMap;
+        return Collections.unmodifiableMap(clusterMap);
+    }
+
+    /**
+     * Remove all {@link Cluster} mappings
+     */
+    public void clearClusters() {
+        synchronized (clusterMap) {
+            clusterMap.clear();
+            hostIndex = HostIndex.EMPTY;
+        }
     }
 
     /**
@@ -247,7 +278,10 @@ public abstract class L4LoadBalancer {
             logger.info("Mapping Cluster: {} with Hostname: {} and EventStream: {}", cluster, hostname, eventStream);
 
             cluster.useEventStream(eventStream);
-            clusterMap.put(hostname, cluster);
+            synchronized (clusterMap) {
+                clusterMap.put(hostname, cluster);
+                hostIndex = HostIndex.build(clusterMap);
+            }
 
             logger.info("Successfully mapped Cluster");
         } catch (Exception ex) {
@@ -269,12 +303,16 @@ public abstract class L4LoadBalancer {
         try {
             logger.info("Remapping Cluster from Hostname: {} to Hostname: {}", oldHostname, newHostname);
 
-            Cluster cluster = clusterMap.remove(oldHostname);
-            if (cluster == null) {
-                throw new NullPointerException("Cluster not found with Hostname: " + oldHostname);
-            }
+            Cluster cluster;
+            synchronized (clusterMap) {
+                cluster = clusterMap.remove(oldHostname);
+                if (cluster == null) {
+                    throw new NullPointerException("Cluster not found with Hostname: " + oldHostname);
+                }
 
-            clusterMap.put(newHostname, cluster);
+                clusterMap.put(newHostname, cluster);
+                hostIndex = HostIndex.build(clusterMap);
+            }
             logger.info("Successfully remapped Cluster: {}, from Hostname: {} to Hostname: {}", cluster, oldHostname, newHostname);
         } catch (Exception ex) {
             logger.error("Failed to Remap Cluster", ex);
@@ -291,9 +329,13 @@ public abstract class L4LoadBalancer {
     public boolean removeCluster(String hostname) {
         boolean removed = false;
         try {
-            Cluster cluster = clusterMap.remove(hostname);
-            if (cluster == null) {
-                return false;
+            Cluster cluster;
+            synchronized (clusterMap) {
+                cluster = clusterMap.remove(hostname);
+                if (cluster == null) {
+                    return false;
+                }
+                hostIndex = HostIndex.build(clusterMap);
             }
 
             cluster.close();
@@ -346,6 +388,13 @@ public abstract class L4LoadBalancer {
         return connectionTracker;
     }
 
+    /**
+     * Get {@link AccessLog} or {@code null} if Access Log is disabled
+     */
+    public AccessLog accessLog() {
+        return accessLog;
+    }
+
     /**
      * Return the Type of Load Balancer
      */
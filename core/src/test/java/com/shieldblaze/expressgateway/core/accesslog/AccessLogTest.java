@@ -0,0 +1,176 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.accesslog;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l4.RoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.accesslog.AccessLogConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeConnectionAndRequestRecords() throws Exception {
+        Path path = directory.resolve("access.log");
+        AccessLog accessLog = new AccessLog(configuration(path, 1024, 1024 * 1024, 10));
+
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+        Node node = NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("127.0.0.1", 9131))
+                .build();
+        InetSocketAddress client = new InetSocketAddress("127.0.0.2", 50000);
+
+        accessLog.logConnection(1_000, TimeUnit.MILLISECONDS.toNanos(5), client, "DEFAULT", node, 100, 200);
+        accessLog.logRequest(2_000, TimeUnit.MICROSECONDS.toNanos(7), client, "example.com", null, "GET", "/a\"bé", 502, 0, 0);
+        accessLog.close();
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(2, lines.size());
+
+        JsonObject connection = JsonParser.parseString(lines.get(0)).getAsJsonObject();
+        assertEquals("1970-01-01T00:00:01Z", connection.get("timestamp").getAsString());
+        assertEquals("TCP", connection.get("protocol").getAsString());
+        assertEquals("127.0.0.2:50000", connection.get("client").getAsString());
+        assertEquals("DEFAULT", connection.get("cluster").getAsString());
+        assertEquals("127.0.0.1:9131", connection.get("node").getAsString());
+        assertEquals(5000, connection.get("durationMicros").getAsLong());
+        assertEquals(100, connection.get("bytesReceived").getAsLong());
+        assertEquals(200, connection.get("bytesSent").getAsLong());
+        assertFalse(connection.has("status"));
+
+        JsonObject request = JsonParser.parseString(lines.get(1)).getAsJsonObject();
+        assertEquals("HTTP", request.get("protocol").getAsString());
+        assertTrue(request.get("node").isJsonNull());
+        assertEquals("GET", request.get("method").getAsString());
+        assertEquals("/a\"bé", request.get("uri").getAsString());
+        assertEquals(502, request.get("status").getAsInt());
+        assertEquals(7, request.get("durationMicros").getAsLong());
+
+        cluster.close();
+    }
+
+    @Test
+    void recordsAreDroppedWhenBufferIsFull() throws Exception {
+        Path path = directory.resolve("access.log");
+        AccessLog accessLog = new AccessLog(configuration(path, 4, 1024 * 1024, 10));
+
+        int records = 100_000;
+        for (int i = 0; i < records; i++) {
+            accessLog.logConnection(i, 0, null, "DEFAULT", null, i, i);
+        }
+        accessLog.close();
+
+        // Every record is either written or dropped, none are lost silently.
+        long written = Files.readAllLines(path).size();
+        assertTrue(accessLog.dropped() > 0);
+        assertEquals(records, written + accessLog.dropped());
+
+        accessLog.logConnection(0, 0, null, "DEFAULT", null, 0, 0);
+        assertEquals(records - written + 1, accessLog.dropped());
+    }
+
+    @Test
+    void rotateWhenFileIsFull() throws Exception {
+        Path path = directory.resolve("access.log");
+        AccessLog accessLog = new AccessLog(configuration(path, 1024, 1024, 2));
+
+        for (int i = 0; i < 100; i++) {
+            accessLog.logConnection(i, 0, null, "DEFAULT", null, i, i);
+            if (i % 8 == 0) {
+                // Let writer catch up so nothing is dropped
+                Thread.sleep(20);
+            }
+        }
+        accessLog.close();
+
+        assertTrue(Files.exists(path));
+        assertTrue(Files.size(directory.resolve("access.log.1")) >= 1024);
+        assertTrue(Files.exists(directory.resolve("access.log.2")));
+        assertFalse(Files.exists(directory.resolve("access.log.3")));
+    }
+
+    @Test
+    void writerRecoversFromWriteFailure() throws Exception {
+        Path path = directory.resolve("access.log");
+        AccessLog accessLog = new AccessLog(configuration(path, 1024, 1024, 1));
+
+        // Rotation fails while a non-empty directory is in place of 'access.log.1'.
+        Path blocker = Files.createDirectories(directory.resolve("access.log.1"));
+        Files.createFile(blocker.resolve("file"));
+
+        for (int i = 0; i < 50; i++) {
+            accessLog.logConnection(i, 0, null, "DEFAULT", null, i, i);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (accessLog.dropped() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(accessLog.dropped() > 0);
+
+        Files.delete(blocker.resolve("file"));
+        Files.delete(blocker);
+
+        // Writer must reopen the file after back-off, rotate and keep writing.
+        for (int i = 0; i < 50; i++) {
+            accessLog.logConnection(i, 0, null, "DEFAULT", null, 1000 + i, i);
+            Thread.sleep(20);
+        }
+        accessLog.close();
+
+        assertTrue(Files.isRegularFile(directory.resolve("access.log.1")));
+        // Last record may have caused rotation, leaving current file empty.
+        List<String> lines = new ArrayList<>(Files.readAllLines(directory.resolve("access.log.1")));
+        lines.addAll(Files.readAllLines(path));
+        JsonObject last = JsonParser.parseString(lines.get(lines.size() - 1)).getAsJsonObject();
+        assertEquals(1049, last.get("bytesReceived").getAsLong());
+    }
+
+    private static AccessLogConfiguration configuration(Path path, int bufferSize, long maxFileSize, int maxFiles) {
+        return new AccessLogConfiguration()
+                .setEnabled(true)
+                .setPath(path.toString())
+                .setBufferSize(bufferSize)
+                .setMaxFileSize(maxFileSize)
+                .setMaxFiles(maxFiles)
+                .validate();
+    }
+}
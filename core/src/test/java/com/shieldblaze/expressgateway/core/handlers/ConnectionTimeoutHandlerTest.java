@@ -0,0 +1,85 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.handlers;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionTimeoutHandlerTest {
+
+    @Test
+    void idleEventsFiredOnEventLoopTest() throws InterruptedException {
+        List<Object> events = new ArrayList<>();
+        EmbeddedChannel channel = newChannel(Duration.ofMillis(200), events);
+
+        Thread.sleep(50);
+        channel.runScheduledPendingTasks();
+        assertTrue(events.isEmpty());
+
+        Thread.sleep(400);
+        channel.runScheduledPendingTasks();
+        assertEquals(List.of(ConnectionTimeoutHandler.State.UPSTREAM_READ_IDLE, ConnectionTimeoutHandler.State.UPSTREAM_WRITE_IDLE), events);
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void transferDefersIdleEventTest() throws InterruptedException {
+        List<Object> events = new ArrayList<>();
+        EmbeddedChannel channel = newChannel(Duration.ofMillis(300), events);
+
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(100);
+            channel.writeInbound("Read");
+            channel.writeOutbound("Write");
+            channel.runScheduledPendingTasks();
+        }
+        assertTrue(events.isEmpty());
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void closedChannelIsRemovedFromWheelTest() {
+        EmbeddedChannel channel = newChannel(Duration.ofSeconds(30), new ArrayList<>());
+        IdleTimerWheel wheel = IdleTimerWheel.of(channel.eventLoop());
+        assertEquals(1, wheel.size());
+
+        channel.close();
+        assertEquals(0, wheel.size());
+    }
+
+    private static EmbeddedChannel newChannel(Duration timeout, List<Object> events) {
+        return new EmbeddedChannel(new ConnectionTimeoutHandler(timeout, true), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                assertTrue(ctx.channel().eventLoop().inEventLoop());
+                events.add(evt);
+            }
+        });
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.handlers;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdleTimeoutTest {
+
+    @Test
+    void touchDefersIdleTaskTest() throws InterruptedException {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        AtomicInteger idle = new AtomicInteger();
+        IdleTimeout idleTimeout = new IdleTimeout(channel.eventLoop(), Duration.ofMillis(300), idle::incrementAndGet);
+
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(100);
+            idleTimeout.touch();
+            channel.runScheduledPendingTasks();
+        }
+        assertEquals(0, idle.get());
+
+        Thread.sleep(500);
+        channel.runScheduledPendingTasks();
+        assertEquals(1, idle.get());
+
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void cancelRemovesFromWheelTest() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        IdleTimerWheel wheel = IdleTimerWheel.of(channel.eventLoop());
+        int size = wheel.size();
+
+        IdleTimeout idleTimeout = new IdleTimeout(channel.eventLoop(), Duration.ofSeconds(30), () -> {
+        });
+        assertEquals(size + 1, wheel.size());
+
+        idleTimeout.cancel();
+        assertEquals(size, wheel.size());
+
+        channel.finishAndReleaseAll();
+    }
+}
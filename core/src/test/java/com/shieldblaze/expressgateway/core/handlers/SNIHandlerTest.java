@@ -0,0 +1,162 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.handlers;
+
+import com.shieldblaze.expressgateway.configuration.tls.CertificateKeyPair;
+import com.shieldblaze.expressgateway.configuration.tls.TlsServerConfiguration;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SNIHandlerTest {
+
+    private static final String HOSTNAME = "www.shieldblaze.com";
+    private static final String OCSP_HOSTNAME = "ocsp.shieldblaze.com";
+
+    private static EventLoopGroup serverGroup;
+    private static EventLoopGroup clientGroup;
+    private static Channel serverChannel;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        SelfSignedCertificate ecdsa = new SelfSignedCertificate(HOSTNAME, "EC", 256);
+        SelfSignedCertificate rsa = new SelfSignedCertificate(HOSTNAME, "RSA", 2048);
+
+        TlsServerConfiguration tlsServerConfiguration = TlsServerConfiguration.copyFrom(TlsServerConfiguration.DEFAULT);
+        tlsServerConfiguration.addMapping(HOSTNAME, CertificateKeyPair.forServer(List.of(ecdsa.cert()), ecdsa.key(), false));
+        tlsServerConfiguration.addMapping(HOSTNAME, CertificateKeyPair.forServer(List.of(rsa.cert()), rsa.key(), false));
+
+        // Self-signed certificate has no OCSP Responder so staple is never fetched.
+        if (OpenSsl.isOcspSupported()) {
+            SelfSignedCertificate ocsp = new SelfSignedCertificate(OCSP_HOSTNAME, "EC", 256);
+            tlsServerConfiguration.addMapping(OCSP_HOSTNAME, CertificateKeyPair.forServer(List.of(ocsp.cert(), ocsp.cert()), ocsp.key(), true));
+        }
+
+        serverGroup = new NioEventLoopGroup(1);
+        clientGroup = new NioEventLoopGroup(1);
+
+        serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new SNIHandler(tlsServerConfiguration));
+                    }
+                })
+                .bind("127.0.0.1", 0)
+                .sync()
+                .channel();
+    }
+
+    @AfterAll
+    static void shutdown() {
+        serverChannel.close().syncUninterruptibly();
+        serverGroup.shutdownGracefully();
+        clientGroup.shutdownGracefully();
+    }
+
+    @Test
+    void ecdsaCapableClientTest() throws Exception {
+        SSLSession session = handshake(client(List.of("TLSv1.3"), null));
+        assertEquals("EC", session.getPeerCertificates()[0].getPublicKey().getAlgorithm());
+    }
+
+    @Test
+    void rsaOnlyClientTest() throws Exception {
+        SSLSession session = handshake(client(List.of("TLSv1.2"), List.of("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256")));
+        assertEquals("RSA", session.getPeerCertificates()[0].getPublicKey().getAlgorithm());
+    }
+
+    @Test
+    void chaCha20PreferringClientTest() throws Exception {
+        SSLSession session = handshake(client(List.of("TLSv1.3"),
+                List.of("TLS_CHACHA20_POLY1305_SHA256", "TLS_AES_256_GCM_SHA384", "TLS_AES_128_GCM_SHA256")));
+        assertEquals("TLS_CHACHA20_POLY1305_SHA256", session.getCipherSuite());
+
+        // Server preference applies to clients which prefer AES
+        session = handshake(client(List.of("TLSv1.3"),
+                List.of("TLS_AES_128_GCM_SHA256", "TLS_CHACHA20_POLY1305_SHA256", "TLS_AES_256_GCM_SHA384")));
+        assertTrue(session.getCipherSuite().startsWith("TLS_AES"));
+    }
+
+    @Test
+    void ocspStaplingWithoutStapleTest() throws Exception {
+        assumeTrue(OpenSsl.isOcspSupported(), "OCSP Stapling requires OpenSSL");
+
+        SSLSession session = handshake(client(List.of("TLSv1.3"), null), OCSP_HOSTNAME);
+        assertEquals(OCSP_HOSTNAME, session.getPeerHost());
+    }
+
+    private static SslContext client(List<String> protocols, List<String> ciphers) throws Exception {
+        return SslContextBuilder.forClient()
+                .sslProvider(SslProvider.JDK)
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .protocols(protocols)
+                .ciphers(ciphers)
+                .build();
+    }
+
+    private static SSLSession handshake(SslContext sslContext) throws Exception {
+        return handshake(sslContext, HOSTNAME);
+    }
+
+    private static SSLSession handshake(SslContext sslContext, String hostname) throws Exception {
+        InetSocketAddress address = (InetSocketAddress) serverChannel.localAddress();
+        SslHandler sslHandler = sslContext.newHandler(ByteBufAllocator.DEFAULT, hostname, address.getPort());
+
+        Channel channel = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .handler(sslHandler)
+                .connect(address)
+                .sync()
+                .channel();
+
+        try {
+            assertTrue(sslHandler.handshakeFuture().await().isSuccess(), () -> String.valueOf(sslHandler.handshakeFuture().cause()));
+            return sslHandler.engine().getSession();
+        } finally {
+            channel.close().sync();
+        }
+    }
+}
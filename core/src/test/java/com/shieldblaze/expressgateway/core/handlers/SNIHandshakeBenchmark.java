@@ -0,0 +1,154 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.handlers;
+
+import com.shieldblaze.expressgateway.configuration.tls.CertificateKeyPair;
+import com.shieldblaze.expressgateway.configuration.tls.TlsServerConfiguration;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures CPU time spent by {@link SNIHandler} event loop per full TLS handshake when client
+ * negotiates ECDSA P-256 or RSA-2048 certificate of the same hostname, and handshake latency seen by client.
+ * Results depend on JVM, SSL provider and hardware, so this is run manually instead of as part of the test suite.
+ */
+public class SNIHandshakeBenchmark {
+
+    private static final String HOSTNAME = "www.shieldblaze.com";
+    private static final int WARMUP_HANDSHAKES = 200;
+    private static final int HANDSHAKES = 1000;
+
+    private static Channel serverChannel;
+    private static EventLoopGroup clientGroup;
+
+    public static void main(String[] args) throws Exception {
+        SelfSignedCertificate ecdsa = new SelfSignedCertificate(HOSTNAME, "EC", 256);
+        SelfSignedCertificate rsa = new SelfSignedCertificate(HOSTNAME, "RSA", 2048);
+
+        TlsServerConfiguration tlsServerConfiguration = TlsServerConfiguration.copyFrom(TlsServerConfiguration.DEFAULT);
+        tlsServerConfiguration.addMapping(HOSTNAME, CertificateKeyPair.forServer(List.of(ecdsa.cert()), ecdsa.key(), false));
+        tlsServerConfiguration.addMapping(HOSTNAME, CertificateKeyPair.forServer(List.of(rsa.cert()), rsa.key(), false));
+
+        EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        clientGroup = new NioEventLoopGroup(1);
+        Thread serverThread = serverGroup.submit(Thread::currentThread).get();
+
+        serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new SNIHandler(tlsServerConfiguration));
+                    }
+                })
+                .bind("127.0.0.1", 0)
+                .sync()
+                .channel();
+
+        SslContext ecdsaClient = client("TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256");
+        SslContext rsaClient = client("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256");
+
+        // Warm up SslContexts and JIT
+        for (int i = 0; i < WARMUP_HANDSHAKES; i++) {
+            handshake(ecdsaClient);
+            handshake(rsaClient);
+        }
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        run("ECDSA P-256", ecdsaClient, threadMXBean, serverThread);
+        run("RSA-2048", rsaClient, threadMXBean, serverThread);
+
+        serverChannel.close().sync();
+        serverGroup.shutdownGracefully();
+        clientGroup.shutdownGracefully();
+        System.exit(0);
+    }
+
+    private static void run(String name, SslContext sslContext, ThreadMXBean threadMXBean, Thread serverThread) throws Exception {
+        long[] latencies = new long[HANDSHAKES];
+        long cpuStart = threadMXBean.getThreadCpuTime(serverThread.getId());
+        long start = System.nanoTime();
+        for (int i = 0; i < HANDSHAKES; i++) {
+            latencies[i] = handshake(sslContext);
+        }
+        long elapsed = System.nanoTime() - start;
+        long cpu = threadMXBean.getThreadCpuTime(serverThread.getId()) - cpuStart;
+
+        Arrays.sort(latencies);
+        System.out.printf("%-12s server CPU %5d us/handshake   %5d handshakes/s   p50 %5d us   p99 %5d us%n", name,
+                cpu / HANDSHAKES / 1000,
+                HANDSHAKES * 1_000_000_000L / elapsed,
+                latencies[HANDSHAKES / 2] / 1000,
+                latencies[HANDSHAKES * 99 / 100] / 1000);
+    }
+
+    private static SslContext client(String cipher) throws Exception {
+        return SslContextBuilder.forClient()
+                .sslProvider(SslProvider.JDK)
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .protocols("TLSv1.2")
+                .ciphers(List.of(cipher))
+                .build();
+    }
+
+    /**
+     * @return Nanoseconds from connect to handshake completion
+     */
+    private static long handshake(SslContext sslContext) throws Exception {
+        InetSocketAddress address = (InetSocketAddress) serverChannel.localAddress();
+        SslHandler sslHandler = sslContext.newHandler(ByteBufAllocator.DEFAULT, HOSTNAME, address.getPort());
+
+        long start = System.nanoTime();
+        Channel channel = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .handler(sslHandler)
+                .connect(address)
+                .sync()
+                .channel();
+
+        try {
+            if (!sslHandler.handshakeFuture().await().isSuccess()) {
+                throw new IllegalStateException("Handshake failed", sslHandler.handshakeFuture().cause());
+            }
+            return System.nanoTime() - start;
+        } finally {
+            channel.close().sync();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.core.loadbalancer;
+
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l4.RoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence.NOOPSessionPersistence;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HostIndexTest {
+
+    @Test
+    void exactHostnameIgnoresCaseAndPort() {
+        Cluster example = newCluster();
+        Cluster localhost = newCluster();
+        Cluster ipv6 = newCluster();
+
+        HostIndex hostIndex = HostIndex.build(Map.of(
+                "example.com", example,
+                "localhost:9110", localhost,
+                "[::1]:8080", ipv6
+        ));
+
+        assertSame(example, hostIndex.lookup("example.com"));
+        assertSame(example, hostIndex.lookup("Example.COM"));
+        assertSame(example, hostIndex.lookup("example.com:8443"));
+        assertSame(example, hostIndex.lookup("example.com."));
+        assertSame(example, hostIndex.lookup(AsciiString.of("EXAMPLE.com:80")));
+        assertSame(localhost, hostIndex.lookup("localhost"));
+        assertSame(localhost, hostIndex.lookup("localhost:9110"));
+        assertSame(ipv6, hostIndex.lookup("[::1]"));
+        assertSame(ipv6, hostIndex.lookup("[::1]:443"));
+
+        assertNull(hostIndex.lookup("example.org"));
+        assertNull(hostIndex.lookup("www.example.com"));
+        assertNull(hostIndex.lookup(null));
+    }
+
+    @Test
+    void wildcardHostname() {
+        Cluster exampleCom = newCluster();
+        Cluster anyExampleCom = newCluster();
+        Cluster anyApiExampleCom = newCluster();
+
+        HostIndex hostIndex = HostIndex.build(Map.of(
+                "example.com", exampleCom,
+                "*.example.com", anyExampleCom,
+                "*.api.example.com", anyApiExampleCom
+        ));
+
+        assertSame(exampleCom, hostIndex.lookup("example.com"));
+        assertSame(anyExampleCom, hostIndex.lookup("www.example.com"));
+        assertSame(anyExampleCom, hostIndex.lookup("a.b.example.com:8080"));
+        assertSame(anyExampleCom, hostIndex.lookup("api.example.com"));
+        assertSame(anyApiExampleCom, hostIndex.lookup("v1.api.example.com"));
+        assertSame(anyApiExampleCom, hostIndex.lookup(AsciiString.of("V1.API.Example.com")));
+        assertNull(hostIndex.lookup("example.org"));
+        assertNull(hostIndex.lookup("wwwexample.com"));
+    }
+
+    @Test
+    void defaultCluster() {
+        Cluster defaultCluster = newCluster();
+        Cluster example = newCluster();
+
+        HostIndex hostIndex = HostIndex.build(Map.of(
+                L4LoadBalancer.DEFAULT, defaultCluster,
+                "example.com", example
+        ));
+
+        assertSame(example, hostIndex.lookup("example.com"));
+        assertSame(defaultCluster, hostIndex.lookup("example.org"));
+        assertSame(defaultCluster, hostIndex.lookup(L4LoadBalancer.DEFAULT));
+        assertSame(defaultCluster, hostIndex.lookup(null));
+        assertNull(HostIndex.EMPTY.lookup("example.com"));
+    }
+
+    @Test
+    void hostnameOfCluster() {
+        Cluster defaultCluster = newCluster();
+        Cluster example = newCluster();
+
+        HostIndex hostIndex = HostIndex.build(Map.of(
+                L4LoadBalancer.DEFAULT, defaultCluster,
+                "Example.com:8080", example
+        ));
+
+        assertEquals(L4LoadBalancer.DEFAULT, hostIndex.hostname(defaultCluster));
+        assertEquals("Example.com:8080", hostIndex.hostname(example));
+        assertNull(hostIndex.hostname(newCluster()));
+    }
+
+    private static Cluster newCluster() {
+        return ClusterBuilder.newBuilder()
+                .withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+    }
+}
@@ -17,8 +17,10 @@
  */
 package com.shieldblaze.expressgateway.protocol.http;
 
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.NodeBytesTracker;
+import com.shieldblaze.expressgateway.backend.NodeTlsSessionTracker;
 import com.shieldblaze.expressgateway.core.factory.BootstrapFactory;
 import com.shieldblaze.expressgateway.core.handlers.ConnectionTimeoutHandler;
 import com.shieldblaze.expressgateway.protocol.http.adapter.http1.HTTPOutboundAdapter;
@@ -65,7 +67,7 @@ final class Bootstrapper {
                 Duration timeout = Duration.ofMillis(httpLoadBalancer.configurationContext().transportConfiguration().connectionIdleTimeout());
                 pipeline.addLast(new ConnectionTimeoutHandler(timeout, false));
 
-                DownstreamHandler downstreamHandler = new DownstreamHandler(channel);
+                DownstreamHandler downstreamHandler = new DownstreamHandler(channel, new FlushBatcher(httpLoadBalancer.configurationContext().transportConfiguration()));
                 httpConnection.downstreamHandler(downstreamHandler);
 
                 if (!httpLoadBalancer.configurationContext().tlsClientConfiguration().enabled()) {
@@ -94,6 +96,7 @@ final class Bootstrapper {
                             .build();
 
                     pipeline.addLast(sslHandler);
+                    pipeline.addLast(new NodeTlsSessionTracker(node));
                     pipeline.addLast(alpnHandler);
                 }
             }
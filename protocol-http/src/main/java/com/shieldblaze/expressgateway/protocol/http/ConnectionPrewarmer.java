@@ -0,0 +1,158 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.backend.State;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.events.node.NodeAddedEvent;
+import com.shieldblaze.expressgateway.backend.events.node.NodeOnlineEvent;
+import com.shieldblaze.expressgateway.backend.events.node.NodeRemovedEvent;
+import com.shieldblaze.expressgateway.backend.exceptions.TooManyConnectionsException;
+import com.shieldblaze.expressgateway.concurrent.event.Event;
+import com.shieldblaze.expressgateway.concurrent.eventstream.EventListener;
+import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancer;
+import io.netty.channel.EventLoopGroup;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p> {@link ConnectionPrewarmer} keeps {@link HttpConfiguration#minIdleConnections()} connections
+ * per {@link Node} established (TLS handshake and ALPN negotiation included) and idle in
+ * connection pool, so requests can lease a ready connection instead of paying for connection setup. </p>
+ *
+ * <p> Nodes are warmed when they are added to or come online in a mapped {@link Cluster},
+ * and refilled whenever a pooled connection is leased or closed. </p>
+ */
+public final class ConnectionPrewarmer implements EventListener<Void> {
+
+    private static final Logger logger = LogManager.getLogger(ConnectionPrewarmer.class);
+
+    /**
+     * Delay before refilling pool after a pre-warmed connection is closed, so a Node which
+     * closes connections right after accepting them cannot cause a reconnect loop.
+     */
+    private static final long REFILL_DELAY_MILLIS = 1000;
+
+    private final Map<Node, AtomicInteger> pendingConnections = new ConcurrentHashMap<>();
+    private final Bootstrapper bootstrapper;
+    private final EventLoopGroup eventLoopGroup;
+    private final int minIdleConnections;
+
+    ConnectionPrewarmer(HTTPLoadBalancer httpLoadBalancer) {
+        this.minIdleConnections = httpLoadBalancer.httpConfiguration().minIdleConnections();
+        this.bootstrapper = new Bootstrapper(httpLoadBalancer);
+        this.eventLoopGroup = httpLoadBalancer.eventLoopFactory().childGroup();
+
+        if (enabled()) {
+            httpLoadBalancer.eventStream().subscribe(this);
+        }
+    }
+
+    /**
+     * Returns {@code true} if connection pre-warming is enabled
+     */
+    public boolean enabled() {
+        return minIdleConnections > 0;
+    }
+
+    @Override
+    public void accept(Event<Void> event) {
+        if (event instanceof NodeOnlineEvent nodeOnlineEvent) {
+            warmLater(nodeOnlineEvent.node(), 0);
+        } else if (event instanceof NodeAddedEvent nodeAddedEvent) {
+            warmLater(nodeAddedEvent.node(), 0);
+        } else if (event instanceof NodeRemovedEvent nodeRemovedEvent) {
+            pendingConnections.remove(nodeRemovedEvent.node());
+        }
+    }
+
+    /**
+     * Warm all online {@link Node}s of a {@link Cluster}
+     */
+    public void warm(Cluster cluster) {
+        if (enabled()) {
+            cluster.onlineNodes().forEach(node -> warmLater(node, 0));
+        }
+    }
+
+    /**
+     * Open new connections to a {@link Node} until idle and connecting
+     * connections reach {@link HttpConfiguration#minIdleConnections()}.
+     */
+    public void warm(Node node) {
+        if (!enabled() || eventLoopGroup.isShuttingDown() || node.state() != State.ONLINE || !node.circuitBreaker().allowsSelection()) {
+            return;
+        }
+
+        AtomicInteger pending = pendingConnections.computeIfAbsent(node, key -> new AtomicInteger());
+        for (;;) {
+            int connecting = pending.get();
+            if (node.idleConnections() + connecting >= minIdleConnections) {
+                return;
+            }
+
+            if (pending.compareAndSet(connecting, connecting + 1) && !open(node, pending)) {
+                pending.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private boolean open(Node node, AtomicInteger pending) {
+        HTTPConnection connection = bootstrapper.newInit(node, null);
+        try {
+            node.addConnection(connection);
+        } catch (TooManyConnectionsException | IllegalStateException ex) {
+            connection.close();
+            return false;
+        }
+
+        connection.readyFuture().whenComplete((httpConnection, throwable) -> {
+            pending.decrementAndGet();
+
+            if (throwable == null) {
+                httpConnection.release();
+                httpConnection.channelFuture().channel().closeFuture().addListener(future -> warmLater(node, REFILL_DELAY_MILLIS));
+            } else {
+                logger.debug("Failed to pre-warm connection to Node: {}", node, throwable);
+            }
+        });
+        return true;
+    }
+
+    private void warmLater(Node node, long delayMillis) {
+        if (!eventLoopGroup.isShuttingDown()) {
+            eventLoopGroup.schedule(() -> warm(node), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPrewarmer{" +
+                "minIdleConnections=" + minIdleConnections +
+                ", pendingConnections=" + pendingConnections.values().stream().mapToInt(AtomicInteger::get).sum() +
+                '}';
+    }
+}
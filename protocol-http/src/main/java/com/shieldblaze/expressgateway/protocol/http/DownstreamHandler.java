@@ -17,31 +17,116 @@
  */
 package com.shieldblaze.expressgateway.protocol.http;
 
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import com.shieldblaze.expressgateway.common.utils.ReferenceCountedUtil;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 final class DownstreamHandler extends ChannelInboundHandlerAdapter {
 
     private static final Logger logger = LogManager.getLogger(DownstreamHandler.class);
 
+    /**
+     * Number of Backend Channels serving an Upstream Channel which are not writable.
+     * Upstream Channel is only resumed once all of them are writable again.
+     */
+    private static final AttributeKey<AtomicInteger> UNWRITABLE_BACKENDS = AttributeKey.valueOf("UnwritableBackends");
+
+    private final FlushBatcher flushBatcher;
+    private final AtomicBoolean unwritable = new AtomicBoolean();
     private Channel channel;
 
-    DownstreamHandler(Channel channel) {
+    DownstreamHandler(Channel channel, FlushBatcher flushBatcher) {
         this.channel = channel;
+        this.flushBatcher = flushBatcher;
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        channel.writeAndFlush(msg, channel.voidPromise());
+        // Pre-warmed connection has not been leased by any Upstream Channel yet.
+        if (channel == null) {
+            ReferenceCountedUtil.silentRelease(msg);
+            return;
+        }
+
+        flushBatcher.write(channel, msg);
+
+        // If Upstream Channel cannot take more data then stop reading from Backend
+        // until Upstream Channel drains its outbound buffer below low water mark.
+        if (!channel.isWritable()) {
+            ctx.channel().config().setAutoRead(false);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        flushBatcher.flush();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (channel != null) {
+            if (!ctx.channel().isWritable()) {
+                markUnwritable();
+            } else {
+                // Backend Channel is writable again, resume reading from Upstream Channel
+                // unless another Backend serving it is still unwritable.
+                markWritable();
+            }
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        markWritable();
+        super.channelInactive(ctx);
     }
 
     void channel(Channel channel) {
+        // Connection is moving to another Upstream Channel, stop holding back the previous one.
+        markWritable();
         this.channel = channel;
     }
 
+    private void markUnwritable() {
+        if (unwritable.compareAndSet(false, true)) {
+            unwritableBackends(channel).incrementAndGet();
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    private void markWritable() {
+        if (unwritable.compareAndSet(true, false)) {
+            if (unwritableBackends(channel).decrementAndGet() == 0) {
+                channel.config().setAutoRead(true);
+            }
+        }
+    }
+
+    private static AtomicInteger unwritableBackends(Channel channel) {
+        AtomicInteger count = channel.attr(UNWRITABLE_BACKENDS).get();
+        if (count == null) {
+            AtomicInteger newCount = new AtomicInteger();
+            count = channel.attr(UNWRITABLE_BACKENDS).setIfAbsent(newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        return count;
+    }
+
+    Channel channel() {
+        return channel;
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         logger.error("Caught Error at Downstream Handler", cause);
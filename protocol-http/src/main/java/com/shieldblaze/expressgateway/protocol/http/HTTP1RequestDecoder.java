@@ -0,0 +1,612 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderResult;
+import io.netty.handler.codec.PrematureChannelClosureException;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.TooLongHttpHeaderException;
+import io.netty.handler.codec.http.TooLongHttpLineException;
+import io.netty.util.AsciiString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * <p> HTTP/1.1 request decoder which allocates less than {@link HttpRequestDecoder}. </p>
+ *
+ * <p> Request head is copied once into a byte array. Header names are resolved to {@link HttpHeaderNames}
+ * constants when known, and header values are kept as {@link AsciiString} views over that array, so they are
+ * not converted to {@link String} unless a handler asks for it and are written to the backend as-is.
+ * Request line, header names and values, Content-Length and Transfer-Encoding are validated, everything else
+ * is left to {@link HTTPServerValidator}. </p>
+ *
+ * <p> Header names must be tokens and header values must not contain control characters other than HTAB,
+ * so a bare CR or other CTL cannot be used to inject headers or smuggle requests through to the backend,
+ * RFC 7230 Section 3.2. </p>
+ *
+ * <p> This class extends {@link HttpRequestDecoder} only so handlers looking up HTTP/1.1 decoder in the pipeline,
+ * i.e. WebSocket handshaker, keep working. Decoding is entirely implemented here. </p>
+ */
+final class HTTP1RequestDecoder extends HttpRequestDecoder {
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte SP = ' ';
+    private static final byte HT = '\t';
+    private static final byte DEL = 127;
+
+    private static final HttpMethod[] METHODS = {
+            HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.HEAD,
+            HttpMethod.OPTIONS, HttpMethod.PATCH, HttpMethod.TRACE, HttpMethod.CONNECT
+    };
+
+    /**
+     * {@code tchar} of RFC 7230 Section 3.2.6, indexed by character
+     */
+    private static final boolean[] TOKEN = new boolean[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            TOKEN[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            TOKEN[c] = true;
+            TOKEN[c + 32] = true;
+        }
+        for (char c : "!#$%&'*+-.^_`|~".toCharArray()) {
+            TOKEN[c] = true;
+        }
+    }
+
+    private static final AsciiString HTTP_1_1 = AsciiString.cached("HTTP/1.1");
+    private static final AsciiString HTTP_1_0 = AsciiString.cached("HTTP/1.0");
+
+    /**
+     * Known header names indexed by their length
+     */
+    private static final AsciiString[][] HEADER_NAMES = headerNames(
+            HttpHeaderNames.HOST, HttpHeaderNames.CONNECTION, HttpHeaderNames.KEEP_ALIVE, HttpHeaderNames.UPGRADE,
+            HttpHeaderNames.CONTENT_LENGTH, HttpHeaderNames.CONTENT_TYPE, HttpHeaderNames.CONTENT_ENCODING,
+            HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderNames.TE, HttpHeaderNames.EXPECT, HttpHeaderNames.ACCEPT,
+            HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderNames.ACCEPT_LANGUAGE, HttpHeaderNames.ACCEPT_CHARSET,
+            HttpHeaderNames.USER_AGENT, HttpHeaderNames.COOKIE, HttpHeaderNames.AUTHORIZATION,
+            HttpHeaderNames.CACHE_CONTROL, HttpHeaderNames.PRAGMA, HttpHeaderNames.ORIGIN, HttpHeaderNames.REFERER,
+            HttpHeaderNames.RANGE, HttpHeaderNames.IF_NONE_MATCH, HttpHeaderNames.IF_MODIFIED_SINCE,
+            HttpHeaderNames.IF_MATCH, HttpHeaderNames.X_REQUESTED_WITH, HttpHeaderNames.SEC_WEBSOCKET_KEY,
+            HttpHeaderNames.SEC_WEBSOCKET_VERSION, HttpHeaderNames.SEC_WEBSOCKET_PROTOCOL,
+            HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, AsciiString.cached(Headers.X_FORWARDED_FOR),
+            AsciiString.cached(Headers.X_FORWARDED_PROTO), AsciiString.cached("x-real-ip"), AsciiString.cached("forwarded"), AsciiString.cached("dnt")
+    );
+
+    private enum State {
+        READ_HEAD,
+        READ_FIXED_LENGTH_CONTENT,
+        READ_CHUNK_SIZE,
+        READ_CHUNKED_CONTENT,
+        READ_CHUNK_DELIMITER,
+        READ_CHUNK_TRAILER,
+        BAD_MESSAGE
+    }
+
+    private final int maxInitialLineLength;
+    private final int maxHeaderSize;
+    private final int maxChunkSize;
+    private final Queue<HttpMethod> methods;
+
+    private State state = State.READ_HEAD;
+    private long remaining;
+    private int scanned;
+    private HttpHeaders trailers;
+
+    /**
+     * @param methods {@link Queue} where {@link HttpMethod} of each decoded request is added
+     */
+    HTTP1RequestDecoder(int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, Queue<HttpMethod> methods) {
+        this.maxInitialLineLength = maxInitialLineLength;
+        this.maxHeaderSize = maxHeaderSize;
+        this.maxChunkSize = maxChunkSize;
+        this.methods = methods;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        try {
+            for (;;) {
+                switch (state) {
+                    case READ_HEAD -> {
+                        if (!readHead(in, out)) {
+                            return;
+                        }
+                    }
+                    case READ_FIXED_LENGTH_CONTENT -> {
+                        int toRead = (int) Math.min(Math.min(in.readableBytes(), maxChunkSize), remaining);
+                        if (toRead == 0) {
+                            return;
+                        }
+
+                        ByteBuf content = in.readRetainedSlice(toRead);
+                        remaining -= toRead;
+                        if (remaining == 0) {
+                            out.add(new DefaultLastHttpContent(content, false));
+                            state = State.READ_HEAD;
+                        } else {
+                            out.add(new DefaultHttpContent(content));
+                        }
+                    }
+                    case READ_CHUNK_SIZE -> {
+                        int lineEnd = lineEnd(in, maxInitialLineLength);
+                        if (lineEnd == -1) {
+                            return;
+                        }
+
+                        long chunkSize = chunkSize(in, in.readerIndex(), lineEnd);
+                        in.readerIndex(lineEnd + 1);
+                        if (chunkSize == 0) {
+                            state = State.READ_CHUNK_TRAILER;
+                        } else {
+                            remaining = chunkSize;
+                            state = State.READ_CHUNKED_CONTENT;
+                        }
+                    }
+                    case READ_CHUNKED_CONTENT -> {
+                        int toRead = (int) Math.min(Math.min(in.readableBytes(), maxChunkSize), remaining);
+                        if (toRead == 0) {
+                            return;
+                        }
+
+                        out.add(new DefaultHttpContent(in.readRetainedSlice(toRead)));
+                        remaining -= toRead;
+                        if (remaining == 0) {
+                            state = State.READ_CHUNK_DELIMITER;
+                        }
+                    }
+                    case READ_CHUNK_DELIMITER -> {
+                        int lineEnd = lineEnd(in, 2);
+                        if (lineEnd == -1) {
+                            return;
+                        }
+                        if (lineEnd != in.readerIndex() && (lineEnd != in.readerIndex() + 1 || in.getByte(in.readerIndex()) != CR)) {
+                            throw new IllegalArgumentException("Invalid chunk delimiter");
+                        }
+                        in.readerIndex(lineEnd + 1);
+                        state = State.READ_CHUNK_SIZE;
+                    }
+                    case READ_CHUNK_TRAILER -> {
+                        if (!readTrailer(in, out)) {
+                            return;
+                        }
+                    }
+                    case BAD_MESSAGE -> {
+                        in.skipBytes(in.readableBytes());
+                        return;
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            invalidMessage(in, out, ex);
+        }
+    }
+
+    @Override
+    protected void decodeLast(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        decode(ctx, in, out);
+
+        // Connection was closed in the middle of request content.
+        if (state != State.READ_HEAD && state != State.BAD_MESSAGE) {
+            LastHttpContent content = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER, false);
+            content.setDecoderResult(DecoderResult.failure(new PrematureChannelClosureException("Connection closed before received entire request")));
+            out.add(content);
+            state = State.BAD_MESSAGE;
+        }
+    }
+
+    /**
+     * Read request head and emit {@link io.netty.handler.codec.http.HttpRequest}
+     *
+     * @return {@code true} if request head was read else {@code false} if more data is required
+     */
+    private boolean readHead(ByteBuf in, List<Object> out) {
+        // Ignore empty lines before request line, RFC 7230 Section 3.5
+        while (in.isReadable() && scanned == 0) {
+            byte b = in.getByte(in.readerIndex());
+            if (b != CR && b != LF) {
+                break;
+            }
+            in.skipBytes(1);
+        }
+
+        int headEnd = headEnd(in);
+        if (headEnd == -1) {
+            if (in.readableBytes() > maxInitialLineLength + maxHeaderSize) {
+                throw new TooLongHttpHeaderException("HTTP header is larger than " + maxHeaderSize + " bytes.");
+            }
+            return false;
+        }
+
+        scanned = 0;
+        byte[] head = new byte[headEnd - in.readerIndex() + 1];
+        in.readBytes(head);
+
+        // Request Line
+        int lineEnd = indexOf(head, LF, 0);
+        if (lineEnd > maxInitialLineLength) {
+            throw new TooLongHttpLineException("An HTTP line is larger than " + maxInitialLineLength + " bytes.");
+        }
+        int lineLength = lineEnd > 0 && head[lineEnd - 1] == CR ? lineEnd - 1 : lineEnd;
+
+        int methodEnd = indexOf(head, SP, 0);
+        int uriEnd = lastIndexOf(head, SP, lineLength);
+        if (methodEnd <= 0 || uriEnd <= methodEnd + 1) {
+            throw new IllegalArgumentException("Invalid request line");
+        }
+
+        HttpMethod method = method(head, methodEnd);
+        for (int i = methodEnd + 1; i < uriEnd; i++) {
+            // Request target must not contain whitespace or control characters, RFC 7230 Section 3.1.1
+            if ((head[i] >= 0 && head[i] <= SP) || head[i] == DEL) {
+                throw new IllegalArgumentException("Invalid request target");
+            }
+        }
+        String uri = new String(head, methodEnd + 1, uriEnd - methodEnd - 1, StandardCharsets.ISO_8859_1);
+        HttpVersion version = version(head, uriEnd + 1, lineLength);
+
+        // Headers
+        if (head.length - lineEnd - 1 > maxHeaderSize) {
+            throw new TooLongHttpHeaderException("HTTP header is larger than " + maxHeaderSize + " bytes.");
+        }
+
+        HttpHeaders headers = new DefaultHttpHeaders(false);
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean transferEncoding = false;
+
+        int position = lineEnd + 1;
+        for (;;) {
+            lineEnd = indexOf(head, LF, position);
+            lineLength = lineEnd > position && head[lineEnd - 1] == CR ? lineEnd - 1 - position : lineEnd - position;
+            if (lineLength == 0) {
+                break;
+            }
+
+            AsciiString name = headerName(head, position, lineLength);
+            AsciiString value = headerValue(head, position + name.length() + 1, position + lineLength);
+
+            if (name == HttpHeaderNames.CONTENT_LENGTH) {
+                long length = contentLength(value);
+                if (contentLength != -1 && contentLength != length) {
+                    throw new IllegalArgumentException("Multiple Content-Length values found");
+                }
+                contentLength = length;
+            } else if (name == HttpHeaderNames.TRANSFER_ENCODING) {
+                transferEncoding = true;
+                chunked = value.contentEqualsIgnoreCase(HttpHeaderValues.CHUNKED);
+            }
+
+            headers.add(name, value);
+            position = lineEnd + 1;
+        }
+
+        if (transferEncoding && !chunked) {
+            throw new IllegalArgumentException("Unsupported Transfer-Encoding");
+        }
+
+        DefaultHttpRequest request = new DefaultHttpRequest(version, method, uri, headers);
+        methods.add(method);
+        out.add(request);
+
+        if (chunked) {
+            // Transfer-Encoding overrides Content-Length, RFC 7230 Section 3.3.3
+            headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+            state = State.READ_CHUNK_SIZE;
+        } else if (contentLength > 0) {
+            remaining = contentLength;
+            state = State.READ_FIXED_LENGTH_CONTENT;
+        } else {
+            out.add(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+        return true;
+    }
+
+    /**
+     * Read chunked trailer and emit {@link LastHttpContent}
+     *
+     * @return {@code true} if trailer was read else {@code false} if more data is required
+     */
+    private boolean readTrailer(ByteBuf in, List<Object> out) {
+        for (;;) {
+            int lineEnd = lineEnd(in, maxHeaderSize);
+            if (lineEnd == -1) {
+                return false;
+            }
+
+            int start = in.readerIndex();
+            int length = lineEnd > start && in.getByte(lineEnd - 1) == CR ? lineEnd - 1 - start : lineEnd - start;
+            if (length == 0) {
+                in.readerIndex(lineEnd + 1);
+                LastHttpContent lastHttpContent = trailers == null ? LastHttpContent.EMPTY_LAST_CONTENT
+                        : new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER, trailers);
+                trailers = null;
+                out.add(lastHttpContent);
+                state = State.READ_HEAD;
+                return true;
+            }
+
+            byte[] line = new byte[length];
+            in.getBytes(start, line);
+            in.readerIndex(lineEnd + 1);
+
+            AsciiString name = headerName(line, 0, length);
+            if (trailers == null) {
+                trailers = new DefaultHttpHeaders(false);
+            }
+            trailers.add(name, headerValue(line, name.length() + 1, length));
+        }
+    }
+
+    private void invalidMessage(ByteBuf in, List<Object> out, Exception cause) {
+        boolean inHead = state == State.READ_HEAD;
+        state = State.BAD_MESSAGE;
+        scanned = 0;
+        trailers = null;
+        in.skipBytes(in.readableBytes());
+
+        if (inHead) {
+            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_0, HttpMethod.GET, "/bad-request");
+            request.setDecoderResult(DecoderResult.failure(cause));
+            out.add(request);
+        } else {
+            LastHttpContent content = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER, false);
+            content.setDecoderResult(DecoderResult.failure(cause));
+            out.add(content);
+        }
+    }
+
+    /**
+     * Find end of request head, i.e. {@code \n} of the empty line. Scanning resumes
+     * where the previous call stopped.
+     *
+     * @return Index of end of head or {@code -1} if not found
+     */
+    private int headEnd(ByteBuf in) {
+        int start = in.readerIndex() + Math.max(scanned - 2, 0);
+        int end = in.writerIndex();
+        for (int i = start; i < end; i++) {
+            if (in.getByte(i) == LF && i > in.readerIndex()) {
+                byte previous = in.getByte(i - 1);
+                if (previous == LF || previous == CR && i - 2 >= in.readerIndex() && in.getByte(i - 2) == LF) {
+                    return i;
+                }
+            }
+        }
+        scanned = end - in.readerIndex();
+        return -1;
+    }
+
+    /**
+     * Find end of line, i.e. index of {@code \n}
+     *
+     * @return Index of end of line or {@code -1} if not found
+     */
+    private static int lineEnd(ByteBuf in, int maxLength) {
+        int lineEnd = in.indexOf(in.readerIndex(), in.writerIndex(), LF);
+        if (lineEnd == -1 && in.readableBytes() > maxLength || lineEnd - in.readerIndex() > maxLength) {
+            throw new TooLongHttpLineException("An HTTP line is larger than " + maxLength + " bytes.");
+        }
+        return lineEnd;
+    }
+
+    private static HttpMethod method(byte[] head, int length) {
+        for (HttpMethod method : METHODS) {
+            if (equals(method.asciiName(), head, 0, length)) {
+                return method;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isToken(head[i])) {
+                throw new IllegalArgumentException("Invalid method");
+            }
+        }
+        return HttpMethod.valueOf(new String(head, 0, length, StandardCharsets.US_ASCII));
+    }
+
+    private static HttpVersion version(byte[] head, int start, int end) {
+        if (equals(HTTP_1_1, head, start, end - start)) {
+            return HttpVersion.HTTP_1_1;
+        } else if (equals(HTTP_1_0, head, start, end - start)) {
+            return HttpVersion.HTTP_1_0;
+        }
+        return HttpVersion.valueOf(new String(head, start, end - start, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Returns header name as known {@link HttpHeaderNames} constant or a view over the head
+     */
+    private static AsciiString headerName(byte[] head, int start, int lineLength) {
+        int end = start;
+        int limit = start + lineLength;
+        while (end < limit && head[end] != ':') {
+            // Header name must be a token, whitespace is not allowed in header name
+            // or between name and colon, RFC 7230 Section 3.2.4
+            if (!isToken(head[end])) {
+                throw new IllegalArgumentException("Invalid header name");
+            }
+            end++;
+        }
+
+        int length = end - start;
+        if (end == limit || length == 0) {
+            throw new IllegalArgumentException("Invalid header");
+        }
+
+        if (length < HEADER_NAMES.length && HEADER_NAMES[length] != null) {
+            for (AsciiString name : HEADER_NAMES[length]) {
+                if (equalsIgnoreCase(name, head, start, length)) {
+                    return name;
+                }
+            }
+        }
+        return new AsciiString(head, start, length, false);
+    }
+
+    /**
+     * Returns header value without leading and trailing whitespace as a view over the head
+     *
+     * @throws IllegalArgumentException If value contains a control character other than HTAB, i.e. bare CR
+     */
+    private static AsciiString headerValue(byte[] head, int start, int end) {
+        while (start < end && (head[start] == SP || head[start] == HT)) {
+            start++;
+        }
+        while (end > start && (head[end - 1] == SP || head[end - 1] == HT)) {
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            byte b = head[i];
+            // obs-text (0x80-0xFF) is negative and allowed, RFC 7230 Section 3.2
+            if ((b >= 0 && b < SP && b != HT) || b == DEL) {
+                throw new IllegalArgumentException("Invalid header value");
+            }
+        }
+        return start == end ? AsciiString.EMPTY_STRING : new AsciiString(head, start, end - start, false);
+    }
+
+    private static boolean isToken(byte b) {
+        return b >= 0 && TOKEN[b];
+    }
+
+    private static long contentLength(AsciiString value) {
+        if (value.isEmpty() || value.length() > 18) {
+            throw new IllegalArgumentException("Invalid Content-Length");
+        }
+
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            byte b = value.byteAt(i);
+            if (b < '0' || b > '9') {
+                throw new IllegalArgumentException("Invalid Content-Length");
+            }
+            length = length * 10 + (b - '0');
+        }
+        return length;
+    }
+
+    private static long chunkSize(ByteBuf in, int start, int end) {
+        long size = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            byte b = in.getByte(i);
+            int digit = Character.digit(b, 16);
+            if (digit == -1) {
+                // Chunk extensions and trailing whitespace are ignored.
+                if (b == ';' || b == SP || b == HT || b == CR) {
+                    break;
+                }
+                throw new IllegalArgumentException("Invalid chunk size");
+            }
+            if (++digits > 15) {
+                throw new IllegalArgumentException("Chunk size too large");
+            }
+            size = size << 4 | digit;
+        }
+
+        if (digits == 0) {
+            throw new IllegalArgumentException("Invalid chunk size");
+        }
+        return size;
+    }
+
+    private static int indexOf(byte[] array, byte value, int from) {
+        for (int i = from; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] array, byte value, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean equals(AsciiString string, byte[] array, int start, int length) {
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.byteAt(i) != array[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreCase(AsciiString lowerCase, byte[] array, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = array[start + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 32;
+            }
+            if (lowerCase.byteAt(i) != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static AsciiString[][] headerNames(AsciiString... names) {
+        int maxLength = 0;
+        for (AsciiString name : names) {
+            maxLength = Math.max(maxLength, name.length());
+        }
+
+        AsciiString[][] table = new AsciiString[maxLength + 1][];
+        for (AsciiString name : names) {
+            AsciiString[] bucket = table[name.length()];
+            if (bucket == null) {
+                bucket = new AsciiString[]{name};
+            } else {
+                bucket = Arrays.copyOf(bucket, bucket.length + 1);
+                bucket[bucket.length - 1] = name;
+            }
+            table[name.length()] = bucket;
+        }
+        return table;
+    }
+}
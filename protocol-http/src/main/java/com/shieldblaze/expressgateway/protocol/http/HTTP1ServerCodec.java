@@ -0,0 +1,90 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * <p> Server codec which uses {@link HTTP1RequestDecoder} for decoding requests. </p>
+ *
+ * <p> Decoder and encoder are added to pipeline as separate handlers and this handler removes
+ * itself once they are added, so WebSocket handshaker can find and replace them. </p>
+ */
+final class HTTP1ServerCodec extends ChannelHandlerAdapter {
+
+    private final int maxInitialLineLength;
+    private final int maxHeaderSize;
+    private final int maxChunkSize;
+
+    HTTP1ServerCodec(HttpConfiguration httpConfiguration) {
+        this.maxInitialLineLength = httpConfiguration.maxInitialLineLength();
+        this.maxHeaderSize = httpConfiguration.maxHeaderSize();
+        this.maxChunkSize = httpConfiguration.maxChunkSize();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        // Queue is used for correlating a request and a response.
+        Queue<HttpMethod> methods = new ArrayDeque<>();
+
+        ctx.pipeline().addAfter(ctx.name(), null, new ResponseEncoder(methods));
+        ctx.pipeline().addAfter(ctx.name(), null, new HTTP1RequestDecoder(maxInitialLineLength, maxHeaderSize, maxChunkSize, methods));
+        ctx.pipeline().remove(this);
+    }
+
+    private static final class ResponseEncoder extends HttpResponseEncoder {
+
+        private final Queue<HttpMethod> methods;
+        private HttpMethod method;
+
+        private ResponseEncoder(Queue<HttpMethod> methods) {
+            this.methods = methods;
+        }
+
+        @Override
+        protected void sanitizeHeadersBeforeEncode(HttpResponse msg, boolean isAlwaysEmpty) {
+            // Transfer-Encoding is not allowed in 2xx response to CONNECT, RFC 7230 Section 3.3.1
+            if (!isAlwaysEmpty && method == HttpMethod.CONNECT && msg.status().codeClass() == HttpStatusClass.SUCCESS) {
+                msg.headers().remove(HttpHeaderNames.TRANSFER_ENCODING);
+                return;
+            }
+
+            super.sanitizeHeadersBeforeEncode(msg, isAlwaysEmpty);
+        }
+
+        @Override
+        protected boolean isContentAlwaysEmpty(HttpResponse msg) {
+            // Interim responses do not complete a request, except Switching Protocols.
+            if (msg.status().codeClass() != HttpStatusClass.INFORMATIONAL || msg.status().code() == HttpResponseStatus.SWITCHING_PROTOCOLS.code()) {
+                method = methods.poll();
+            }
+            return method == HttpMethod.HEAD || super.isContentAlwaysEmpty(msg);
+        }
+    }
+}
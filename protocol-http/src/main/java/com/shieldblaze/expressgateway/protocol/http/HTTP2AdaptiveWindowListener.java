@@ -0,0 +1,114 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2FrameListener;
+import io.netty.handler.codec.http2.Http2FrameListenerDecorator;
+import io.netty.handler.codec.http2.Http2Settings;
+
+/**
+ * <p> {@link HTTP2AdaptiveWindowListener} returns received DATA bytes to the local flow controller
+ * and auto-tunes the connection and stream flow-control windows using bandwidth-delay product (BDP). </p>
+ *
+ * <p> When a DATA frame is received and no BDP PING is outstanding, a PING frame is sent. All bytes
+ * received until its ACK arrives are a sample of the BDP of the link. If the sample reaches half of the
+ * current window then the window is grown to twice the sample, bounded by
+ * {@link HttpConfiguration#h2MaxAdaptiveWindowSize()}. The connection window is grown using WINDOW_UPDATE
+ * and the stream window is grown using SETTINGS_INITIAL_WINDOW_SIZE. </p>
+ */
+final class HTTP2AdaptiveWindowListener extends Http2FrameListenerDecorator {
+
+    /**
+     * Opaque data of BDP PING frames ("BDP_PING") to distinguish them from other PING frames.
+     */
+    static final long BDP_PING_DATA = 0x4244505F50494E47L;
+
+    private final Http2Connection connection;
+    private final Http2ConnectionEncoder encoder;
+    private final int maxWindowSize;
+    private int windowSize;
+    private boolean pingOutstanding;
+    private long bytesSincePing;
+
+    /**
+     * Create a new {@link HTTP2AdaptiveWindowListener} Instance
+     *
+     * @param listener          {@link Http2FrameListener} to delegate to
+     * @param connection        {@link Http2Connection} of the codec
+     * @param encoder           {@link Http2ConnectionEncoder} of the codec
+     * @param initialWindowSize Initial connection and stream window size
+     * @param maxWindowSize     Maximum window size for auto-tuning, {@code 0} disables auto-tuning
+     */
+    HTTP2AdaptiveWindowListener(Http2FrameListener listener, Http2Connection connection, Http2ConnectionEncoder encoder,
+                                int initialWindowSize, int maxWindowSize) {
+        super(listener);
+        this.connection = connection;
+        this.encoder = encoder;
+        this.windowSize = initialWindowSize;
+        this.maxWindowSize = maxWindowSize;
+    }
+
+    @Override
+    public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream) throws Http2Exception {
+        // Read the number of bytes before delegating because the next handler may consume the data.
+        int bytes = data.readableBytes() + padding;
+
+        if (maxWindowSize > 0) {
+            if (!pingOutstanding) {
+                pingOutstanding = true;
+                bytesSincePing = 0;
+                encoder.writePing(ctx, false, BDP_PING_DATA, ctx.voidPromise());
+            }
+            bytesSincePing += bytes;
+        }
+
+        super.onDataRead(ctx, streamId, data, padding, endOfStream);
+        return bytes;
+    }
+
+    @Override
+    public void onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+        if (data == BDP_PING_DATA && pingOutstanding) {
+            pingOutstanding = false;
+            if (bytesSincePing * 2 >= windowSize && windowSize < maxWindowSize) {
+                grow(ctx, (int) Math.min(bytesSincePing * 2, maxWindowSize));
+            }
+            return;
+        }
+        super.onPingAckRead(ctx, data);
+    }
+
+    private void grow(ChannelHandlerContext ctx, int newWindowSize) throws Http2Exception {
+        connection.local().flowController().incrementWindowSize(connection.connectionStream(), newWindowSize - windowSize);
+        encoder.writeSettings(ctx, new Http2Settings().initialWindowSize(newWindowSize), ctx.voidPromise());
+        windowSize = newWindowSize;
+    }
+
+    /**
+     * Current connection and stream window size
+     */
+    int windowSize() {
+        return windowSize;
+    }
+}
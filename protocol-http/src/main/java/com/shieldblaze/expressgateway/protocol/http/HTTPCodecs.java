@@ -19,6 +19,7 @@ package com.shieldblaze.expressgateway.protocol.http;
 
 import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
 import com.shieldblaze.expressgateway.protocol.http.compression.HTTP2ContentCompressor;
+import io.netty.channel.ChannelHandler;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http2.DefaultHttp2Connection;
@@ -32,6 +33,7 @@ import io.netty.handler.codec.http2.Http2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameListener;
 import io.netty.handler.codec.http2.Http2FrameReader;
 import io.netty.handler.codec.http2.Http2FrameWriter;
 import io.netty.handler.codec.http2.Http2HeadersEncoder;
@@ -46,7 +48,25 @@ public final class HTTPCodecs {
 
     private static final Logger logger = LogManager.getLogger(HTTPCodecs.class);
 
+    /**
+     * Create new {@link Http2FrameCodec} Instance for backend (client) connections
+     *
+     * @param httpConfiguration {@link HttpConfiguration} Instance
+     */
     public static Http2FrameCodec http2ClientCodec(HttpConfiguration httpConfiguration) {
+        return http2Codec(httpConfiguration, false);
+    }
+
+    /**
+     * Create new {@link Http2FrameCodec} Instance for frontend (server) connections
+     *
+     * @param httpConfiguration {@link HttpConfiguration} Instance
+     */
+    public static Http2FrameCodec http2ServerCodec(HttpConfiguration httpConfiguration) {
+        return http2Codec(httpConfiguration, true);
+    }
+
+    private static Http2FrameCodec http2Codec(HttpConfiguration httpConfiguration, boolean server) {
         Http2Settings http2Settings = new Http2Settings();
         http2Settings.initialWindowSize(httpConfiguration.h2InitialWindowSize());
         http2Settings.maxConcurrentStreams(httpConfiguration.h2MaxConcurrentStreams());
@@ -54,7 +74,7 @@ public final class HTTPCodecs {
         http2Settings.headerTableSize(httpConfiguration.h2MaxHeaderTableSize());
         http2Settings.maxFrameSize(httpConfiguration.h2MaxFrameSize());
 
-        Http2Connection connection = new DefaultHttp2Connection(false);
+        Http2Connection connection = new DefaultHttp2Connection(server);
 
         Http2FrameReader reader = new DefaultHttp2FrameReader(new DefaultHttp2HeadersDecoder(true, http2Settings.maxHeaderListSize()));
         Http2FrameWriter writer = new DefaultHttp2FrameWriter(Http2HeadersEncoder.NEVER_SENSITIVE, false);
@@ -74,40 +94,12 @@ public final class HTTPCodecs {
             constructor.setAccessible(true);
             Object[] obj = {encoder, decoder, http2Settings, false, true};
             Http2FrameCodec http2FrameCodec = constructor.newInstance(obj);
-            decoder.frameListener(new DelegatingDecompressorFrameListener(connection, decoder.frameListener()));
 
-            return http2FrameCodec;
-        } catch (Exception ex) {
-            logger.fatal("Failed to initialize Http2FrameCodec", ex);
-            return null;
-        }
-    }
-
-    public static Http2FrameCodec http2ServerCodec(HttpConfiguration httpConfiguration) {
-        Http2Settings http2Settings = new Http2Settings();
-        http2Settings.maxHeaderListSize(httpConfiguration.h2MaxHeaderListSize());
-
-        Http2Connection connection = new DefaultHttp2Connection(true);
-
-        Http2FrameReader reader = new DefaultHttp2FrameReader(new DefaultHttp2HeadersDecoder(true, http2Settings.maxHeaderListSize()));
-        Http2FrameWriter writer = new DefaultHttp2FrameWriter(Http2HeadersEncoder.NEVER_SENSITIVE, false);
-
-        Http2ConnectionEncoder encoder = new HTTP2ContentCompressor(new DefaultHttp2ConnectionEncoder(connection, writer), httpConfiguration);
-
-        DefaultHttp2ConnectionDecoder decoder = new DefaultHttp2ConnectionDecoder(connection, encoder, reader,
-                Http2PromisedRequestVerifier.ALWAYS_VERIFY, true, true);
-
-        try {
-            Constructor<Http2FrameCodec> constructor = Http2FrameCodec.class.getDeclaredConstructor(
-                    Http2ConnectionEncoder.class,
-                    Http2ConnectionDecoder.class,
-                    Http2Settings.class,
-                    boolean.class,
-                    boolean.class);
-            constructor.setAccessible(true);
-            Object[] obj = {encoder, decoder, http2Settings, false, true};
-            Http2FrameCodec http2FrameCodec = constructor.newInstance(obj);
-            decoder.frameListener(new DelegatingDecompressorFrameListener(connection, decoder.frameListener()));
+            // Adaptive Window Listener sits behind Decompressor so returned bytes are
+            // converted back into compressed (on the wire) bytes by the flow controller.
+            Http2FrameListener adaptiveWindowListener = new HTTP2AdaptiveWindowListener(decoder.frameListener(), connection, encoder,
+                    httpConfiguration.h2InitialWindowSize(), httpConfiguration.h2MaxAdaptiveWindowSize());
+            decoder.frameListener(new DelegatingDecompressorFrameListener(connection, adaptiveWindowListener));
 
             return http2FrameCodec;
         } catch (Exception ex) {
@@ -117,11 +109,16 @@ public final class HTTPCodecs {
     }
 
     /**
-     * Create new {@link HttpServerCodec} Instance
+     * Create new HTTP/1.1 server codec. {@link HTTP1ServerCodec} is returned if
+     * {@link HttpConfiguration#h1LowAllocationDecoder()} is enabled else {@link HttpServerCodec}.
      *
      * @param httpConfiguration {@link HttpConfiguration} Instance
      */
-    static HttpServerCodec http1ServerCodec(HttpConfiguration httpConfiguration) {
+    static ChannelHandler http1ServerCodec(HttpConfiguration httpConfiguration) {
+        if (httpConfiguration.h1LowAllocationDecoder()) {
+            return new HTTP1ServerCodec(httpConfiguration);
+        }
+
         int maxInitialLineLength = httpConfiguration.maxInitialLineLength();
         int maxHeaderSize = httpConfiguration.maxHeaderSize();
         int maxChunkSize = httpConfiguration.maxChunkSize();
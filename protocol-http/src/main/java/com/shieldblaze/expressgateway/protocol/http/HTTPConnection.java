@@ -26,6 +26,7 @@ import io.netty.handler.ssl.ApplicationProtocolNames;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongList;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
 final class HTTPConnection extends Connection {
@@ -33,6 +34,12 @@ final class HTTPConnection extends Connection {
     private final AtomicInteger totalRequests = new AtomicInteger();
     private final LongList outstandingRequests = new LongArrayList();
 
+    /**
+     * Completed once this connection is established and, if TLS is enabled,
+     * handshake and ALPN negotiation has finished.
+     */
+    private final CompletableFuture<HTTPConnection> readyFuture = new CompletableFuture<>();
+
     /**
      * Set to {@code true} if this connection is established on top of HTTP/2 (h2)
      */
@@ -43,6 +50,37 @@ final class HTTPConnection extends Connection {
         super(node);
     }
 
+    @Override
+    public void init(ChannelFuture channelFuture) {
+        super.init(channelFuture);
+
+        // When connection fails or is closed, let the Upstream Channel retry
+        // or fail the requests which were not finished on this connection.
+        channelFuture.channel().closeFuture().addListener(future -> {
+            if (downstreamHandler == null) {
+                return;
+            }
+
+            // Pre-warmed connections which were never leased have no Upstream Channel.
+            Channel upstreamChannel = downstreamHandler.channel();
+            if (upstreamChannel == null) {
+                return;
+            }
+
+            upstreamChannel.eventLoop().execute(() -> {
+                UpstreamHandler upstreamHandler = upstreamChannel.pipeline().get(UpstreamHandler.class);
+                if (upstreamHandler != null) {
+                    upstreamHandler.backendFailed(this, channelFuture.isSuccess());
+                }
+            });
+        });
+    }
+
+    @Override
+    protected void recordConnectOutcome(ChannelFuture channelFuture) {
+        // Outcome of every request is recorded by UpstreamHandler instead.
+    }
+
     @Override
     protected void processBacklog(ChannelFuture channelFuture) {
         ALPNHandler alpnHandler = channelFuture.channel().pipeline().get(ALPNHandler.class);
@@ -62,18 +100,30 @@ final class HTTPConnection extends Connection {
                         }
 
                         writeBacklog();
+                        readyFuture.complete(this);
                     } else {
                         clearBacklog();
+                        readyFuture.completeExceptionally(throwable);
                     }
                 }, channelFuture.channel().eventLoop());
             } else {
                 writeBacklog();
+                readyFuture.complete(this);
             }
         } else {
             clearBacklog();
+            readyFuture.completeExceptionally(channelFuture.cause());
         }
     }
 
+    /**
+     * Returns {@link CompletableFuture} which is completed once this connection
+     * is ready to send requests.
+     */
+    CompletableFuture<HTTPConnection> readyFuture() {
+        return readyFuture;
+    }
+
     boolean isHTTP2() {
         return isHTTP2;
     }
@@ -84,6 +134,27 @@ final class HTTPConnection extends Connection {
 
     void upstreamChannel(Channel channel) {
         downstreamHandler.channel(channel);
+
+        // Previous Upstream Channel may have paused reads on this connection.
+        autoRead(true);
+    }
+
+    /**
+     * Returns {@code false} if outbound buffer of this connection has exceeded
+     * high water mark. Connections which are still connecting are writable
+     * because writes are queued in backlog.
+     */
+    boolean isWritable() {
+        return channel == null || channel.isWritable();
+    }
+
+    /**
+     * Pause or resume reading from Backend
+     */
+    void autoRead(boolean autoRead) {
+        if (channel != null) {
+            channel.config().setAutoRead(autoRead);
+        }
     }
 
     void addOutstandingRequest(long id) {
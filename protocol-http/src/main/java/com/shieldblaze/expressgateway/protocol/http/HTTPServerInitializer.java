@@ -25,9 +25,18 @@ import io.netty.channel.socket.SocketChannel;
 public abstract class HTTPServerInitializer extends ChannelInitializer<SocketChannel> {
 
     protected HTTPLoadBalancer httpLoadBalancer;
+    private ConnectionPrewarmer connectionPrewarmer;
 
     @NonNull
     public void httpLoadBalancer(HTTPLoadBalancer httpLoadBalancer) {
         this.httpLoadBalancer = httpLoadBalancer;
+        this.connectionPrewarmer = new ConnectionPrewarmer(httpLoadBalancer);
+    }
+
+    /**
+     * Get {@link ConnectionPrewarmer} of {@link HTTPLoadBalancer}
+     */
+    public ConnectionPrewarmer connectionPrewarmer() {
+        return connectionPrewarmer;
     }
 }
@@ -17,54 +17,134 @@
  */
 package com.shieldblaze.expressgateway.protocol.http;
 
+import com.shieldblaze.expressgateway.backend.Connection;
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.exceptions.LoadBalanceException;
+import com.shieldblaze.expressgateway.backend.exceptions.TooManyConnectionsException;
+import com.shieldblaze.expressgateway.backend.latency.LatencyHistogram;
 import com.shieldblaze.expressgateway.backend.strategy.l7.http.HTTPBalanceRequest;
 import com.shieldblaze.expressgateway.common.utils.ReferenceCountedUtil;
+import com.shieldblaze.expressgateway.core.accesslog.AccessLog;
+import com.shieldblaze.expressgateway.core.loadbalancer.HostIndex;
 import com.shieldblaze.expressgateway.protocol.http.compression.HTTPContentCompressor;
 import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancer;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.RetryBudget;
+import com.shieldblaze.expressgateway.protocol.http.routing.Route;
+import com.shieldblaze.expressgateway.protocol.http.routing.RouteTable;
 import com.shieldblaze.expressgateway.protocol.http.websocket.WebSocketUpgradeProperty;
 import com.shieldblaze.expressgateway.protocol.http.websocket.WebSocketUpstreamHandler;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.util.AsciiString;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public final class UpstreamHandler extends ChannelDuplexHandler {
 
     private static final Logger logger = LogManager.getLogger(UpstreamHandler.class);
 
+    private static final long HEDGE_SNAPSHOT_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long HEDGE_MIN_SAMPLES = 100;
+    private static final long HEDGE_MIN_DELAY_MICROS = 1000;
+
     /**
      * Long: Request ID
      * HTTPConnection: {@link HTTPConnection} Instance
      */
     private final Long2ObjectMap<HTTPConnection> connectionMap = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Long: Request ID of an attempt sent to Backend
+     * Long: {@link System#nanoTime()} when Request was received, or when attempt was sent
+     * if it is a retried or hedged attempt of a {@link ReplayableRequest}
+     */
+    private final Long2LongMap requestStartMap = new Long2LongOpenHashMap();
+
+    /**
+     * Long: Request ID of an attempt sent to Backend
+     * ReplayableRequest: {@link ReplayableRequest} which can be retried or hedged
+     * <p>
+     * Attempts of a {@link ReplayableRequest} have their own Request IDs and
+     * map to the same {@link ReplayableRequest}.
+     */
+    private final Long2ObjectMap<ReplayableRequest> replayableMap = new Long2ObjectOpenHashMap<>();
     private long lastNonce;
 
     private final HTTPLoadBalancer httpLoadBalancer;
     private final Bootstrapper bootstrapper;
+    private final ConnectionPrewarmer connectionPrewarmer;
     private final boolean isTLSConnection;
+    private final RetryBudget retryBudget;
+    private final int maxRetries;
+    private final boolean hedgeRequests;
+    private ChannelHandlerContext ctx;
+
+    /**
+     * Long: Request ID
+     * RequestLog: {@link RequestLog} of Request which is not finished yet
+     * <p>
+     * This is {@code null} if {@link AccessLog} is disabled.
+     */
+    private final AccessLog accessLog;
+    private final Long2ObjectMap<RequestLog> requestLogMap;
+
+    /**
+     * {@link Cluster} resolved for the last Hostname of this connection.
+     * It is valid as long as Hostname and {@link HostIndex} do not change.
+     */
+    private CharSequence cachedHostname;
+    private HostIndex cachedHostIndex;
+    private Cluster cachedCluster;
 
     public UpstreamHandler(HTTPLoadBalancer httpLoadBalancer, boolean isTLSConnection) {
         this.httpLoadBalancer = httpLoadBalancer;
         this.bootstrapper = new Bootstrapper(httpLoadBalancer);
+        this.connectionPrewarmer = httpLoadBalancer.connectionPrewarmer();
         this.isTLSConnection = isTLSConnection;
+        this.retryBudget = httpLoadBalancer.retryBudget();
+        this.maxRetries = httpLoadBalancer.httpConfiguration().maxRetries();
+        this.hedgeRequests = httpLoadBalancer.httpConfiguration().hedgeRequests();
+        this.accessLog = httpLoadBalancer.accessLog();
+        this.requestLogMap = accessLog == null ? null : new Long2ObjectOpenHashMap<>();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
     }
 
     @Override
@@ -72,11 +152,20 @@ public final class UpstreamHandler extends ChannelDuplexHandler {
         if (msg instanceof HttpRequest request) {
 
             InetSocketAddress socketAddress = (InetSocketAddress) ctx.channel().remoteAddress();
-            Cluster cluster = httpLoadBalancer.cluster(request.headers().getAsString(HttpHeaderNames.HOST));
+
+            // Read Hostname once, it is used by both RouteTable and HostIndex.
+            CharSequence hostname = request.headers().get(HttpHeaderNames.HOST);
+            Route route = httpLoadBalancer.routeTable().match(request, hostname);
+            Cluster cluster = route != null ? route.cluster() : cluster(hostname);
 
             // If `Cluster` is `null` then no `Cluster` was found for that Hostname.
             // Throw error back to client, `BAD_GATEWAY`.
             if (cluster == null) {
+                if (accessLog != null) {
+                    accessLog.logRequest(System.currentTimeMillis(), 0, socketAddress, hostname == null ? null : hostname.toString(), null,
+                            request.method().name(), request.uri(), HTTPResponses.BAD_GATEWAY_502.status().code(), 0, 0);
+                }
+
                 ctx.writeAndFlush(HTTPResponses.BAD_GATEWAY_502.retainedDuplicate()).addListener(ChannelFutureListener.CLOSE);
                 return;
             }
@@ -93,49 +182,250 @@ public final class UpstreamHandler extends ChannelDuplexHandler {
                 return;
             }
 
-            /*
-             * We'll try to lease an available connection. If available, we'll get
-             * HTTPConnection Instance else we'll get 'null'.
-             *
-             * If we don't get any available connection, we'll create a new
-             * HTTPConnection.
-             */
-            HTTPConnection connection = validateConnection((HTTPConnection) node.tryLease());
-
-            if (connection == null) {
-                connection = bootstrapper.newInit(node, ctx.channel());
-                node.addConnection(connection);
-            } else {
-                // Set this as a new Upstream Channel
-                connection.upstreamChannel(ctx.channel());
-            }
+            // Modify Request Headers
+            onHeadersRead(request.headers(), socketAddress);
 
-            // Map nonce with Connection
             NonceWrapped<HttpRequest> nonceWrappedRequest = new NonceWrapped<>(request);
             lastNonce = nonceWrappedRequest.nonce();
-            connectionMap.put(lastNonce, connection);
+            requestStartMap.put(lastNonce, System.nanoTime());
+            retryBudget.onRequest();
 
-            // Add Nonce value in outstanding list and increment total number of requests.
-            connection.addOutstandingRequest(lastNonce);
-            connection.incrementTotalRequests();
+            if (requestLogMap != null) {
+                requestLogMap.put(lastNonce, new RequestLog(request, node));
+            }
 
-            // Modify Request Headers
-            onHeadersRead(nonceWrappedRequest.get().headers(), socketAddress);
+            // Keep a copy of idempotent request, so it can be sent again to another Node.
+            if (isReplayable(request, route)) {
+                ReplayableRequest replayable = new ReplayableRequest(lastNonce, request, cluster, socketAddress, node);
+                replayableMap.put(lastNonce, replayable);
+                if (hedgeRequests) {
+                    scheduleHedge(ctx, replayable);
+                }
+            }
 
             // Write the request to Backend
-            connection.writeAndFlush(nonceWrappedRequest);
+            HTTPConnection connection = send(ctx, node, nonceWrappedRequest);
+            pauseReadIfUnwritable(ctx, connection);
             return;
         } else if (msg instanceof HttpContent httpContent) {
 
             HTTPConnection httpConnection = connectionMap.get(lastNonce);
             if (httpConnection != null) {
+                // Request has body, it cannot be sent again.
+                if (httpContent.content().isReadable() && !replayableMap.isEmpty()) {
+                    ReplayableRequest replayable = replayableMap.remove(lastNonce);
+                    if (replayable != null) {
+                        replayable.cancelHedge();
+                    }
+                }
+
+
+                if (requestLogMap != null) {
+                    RequestLog requestLog = requestLogMap.get(lastNonce);
+                    if (requestLog != null) {
+                        requestLog.bytesReceived += httpContent.content().readableBytes();
+                    }
+                }
+
                 httpConnection.writeAndFlush(new NonceWrapped<>(lastNonce, httpContent));
+                pauseReadIfUnwritable(ctx, httpConnection);
                 return;
             }
         }
         ReferenceCountedUtil.silentRelease(msg);
     }
 
+    /**
+     * Send a request to {@link Node}. We'll try to lease an available connection and
+     * if no connection is available then a new {@link HTTPConnection} is created.
+     */
+    private HTTPConnection send(ChannelHandlerContext ctx, Node node, NonceWrapped<HttpRequest> request) throws TooManyConnectionsException {
+        HTTPConnection connection = validateConnection((HTTPConnection) node.tryLease());
+
+        if (connection == null) {
+            connection = bootstrapper.newInit(node, ctx.channel());
+            node.addConnection(connection);
+        } else {
+            // Set this as a new Upstream Channel
+            connection.upstreamChannel(ctx.channel());
+        }
+
+        // Refill connection pool of this Node in background
+        if (connectionPrewarmer.enabled()) {
+            connectionPrewarmer.warm(node);
+        }
+
+        // Map nonce with Connection
+        connectionMap.put(request.nonce(), connection);
+
+        // Add Nonce value in outstanding list and increment total number of requests.
+        connection.addOutstandingRequest(request.nonce());
+        connection.incrementTotalRequests();
+
+        connection.writeAndFlush(request);
+        return connection;
+    }
+
+    /**
+     * Returns {@code true} if request is idempotent and has no body.
+     * Only such requests can be sent to Backend again.
+     */
+    private boolean isReplayable(HttpRequest request, Route route) {
+        if (maxRetries == 0 && !hedgeRequests) {
+            return false;
+        }
+
+        HttpMethod method = request.method();
+        boolean idempotent = method.equals(HttpMethod.GET) || method.equals(HttpMethod.HEAD) || method.equals(HttpMethod.OPTIONS) ||
+                (route != null && route.idempotent());
+        if (!idempotent) {
+            return false;
+        }
+
+        if (request instanceof FullHttpRequest fullHttpRequest) {
+            return !fullHttpRequest.content().isReadable();
+        }
+        return !HttpUtil.isTransferEncodingChunked(request) && HttpUtil.getContentLength(request, 0L) == 0;
+    }
+
+    /**
+     * Send a new attempt of {@link ReplayableRequest} to a {@link Node} which was not tried yet
+     *
+     * @return {@code true} if attempt was sent else {@code false} if there is no other {@link Node}
+     */
+    private boolean replay(ChannelHandlerContext ctx, ReplayableRequest replayable) {
+        Node node = replayable.nextNode();
+        if (node == null) {
+            return false;
+        }
+
+        NonceWrapped<HttpRequest> attempt = new NonceWrapped<>(replayable.newAttempt(node));
+        try {
+            HTTPConnection connection = send(ctx, node, attempt);
+            connection.writeAndFlush(new NonceWrapped<>(attempt.nonce(), LastHttpContent.EMPTY_LAST_CONTENT));
+        } catch (TooManyConnectionsException e) {
+            replayable.pending--;
+            return false;
+        }
+
+        replayableMap.put(attempt.nonce(), replayable);
+        requestStartMap.put(attempt.nonce(), System.nanoTime());
+        return true;
+    }
+
+    /**
+     * Schedule a hedged attempt after 95th percentile of time to first byte of the {@link Cluster}.
+     * Nothing is scheduled until the {@link Cluster} has enough samples.
+     */
+    private void scheduleHedge(ChannelHandlerContext ctx, ReplayableRequest replayable) {
+        LatencyHistogram.Snapshot snapshot = replayable.cluster.latency().timeToFirstByte().snapshot(HEDGE_SNAPSHOT_MAX_AGE_NANOS);
+        if (snapshot.count() < HEDGE_MIN_SAMPLES) {
+            return;
+        }
+
+        long delay = Math.max(snapshot.valueAtPercentile(95), HEDGE_MIN_DELAY_MICROS);
+        replayable.hedgeTask = ctx.executor().schedule(() -> {
+            replayable.hedgeTask = null;
+
+            // Send a hedged attempt only if no response has arrived yet and request is still replayable.
+            if (replayable.winner == 0 && replayableMap.get(replayable.requestId) == replayable && retryBudget.tryAcquire()) {
+                replay(ctx, replayable);
+            }
+        }, delay, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Called when {@link HTTPConnection} has failed to connect or has been closed.
+     * Requests which were not finished on that connection are retried on another {@link Node}
+     * if they are replayable and response has not started yet, else they are failed.
+     *
+     * @param connection  {@link HTTPConnection} which has failed
+     * @param established {@code true} if connection was established before it was closed
+     */
+    void backendFailed(HTTPConnection connection, boolean established) {
+        if (ctx == null || !ctx.channel().isActive()) {
+            return;
+        }
+
+        LongList failedRequests = new LongArrayList();
+        connectionMap.forEach((id, httpConnection) -> {
+            if (httpConnection == connection) {
+                failedRequests.add((long) id);
+            }
+        });
+
+        for (int i = 0; i < failedRequests.size(); i++) {
+            long id = failedRequests.getLong(i);
+
+            // Every request which has failed with the connection is a failed outcome of the Node.
+            if (connection.state() == Connection.State.CONNECTION_TIMEOUT) {
+                connection.node().circuitBreaker().onTimeout();
+            } else {
+                connection.node().circuitBreaker().onFailure();
+            }
+
+            connectionMap.remove(id);
+            connection.finishedOutstandingRequest(id);
+            requestStartMap.remove(id);
+
+            ReplayableRequest replayable = replayableMap.remove(id);
+            if (replayable != null) {
+                if (replayable.winner == id) {
+                    // Response has already started, we cannot recover.
+                    ctx.close();
+                    return;
+                }
+
+                replayable.pending--;
+                if (replayable.winner != 0 || replayable.pending > 0) {
+                    // Another attempt has responded or is still in progress.
+                    continue;
+                }
+
+                if (replayable.retries < maxRetries && retryBudget.tryAcquire() && replay(ctx, replayable)) {
+                    replayable.retries++;
+                    continue;
+                }
+
+                replayable.cancelHedge();
+                badGateway(replayable.requestId);
+            } else if (!established) {
+                // Request was never sent to Backend
+                badGateway(id);
+            } else {
+                // Response may have already started, we cannot recover.
+                ctx.close();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Respond with {@code BAD_GATEWAY} for a request which cannot be completed and close the connection.
+     */
+    private void badGateway(long id) {
+        requestStartMap.remove(id);
+        if (requestLogMap != null) {
+            RequestLog requestLog = requestLogMap.remove(id);
+            if (requestLog != null) {
+                requestLog.status = HTTPResponses.BAD_GATEWAY_502.status().code();
+                requestLog.log(accessLog, ctx);
+            }
+        }
+
+        ctx.writeAndFlush(HTTPResponses.BAD_GATEWAY_502.retainedDuplicate()).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    /**
+     * If Backend cannot take more data then stop reading from Upstream until
+     * Backend drains its outbound buffer below low water mark.
+     */
+    private static void pauseReadIfUnwritable(ChannelHandlerContext ctx, HTTPConnection connection) {
+        if (!connection.isWritable()) {
+            ctx.channel().config().setAutoRead(false);
+        }
+    }
+
     /**
      * Handles HTTP Protocol Upgrades to WebSocket
      *
@@ -161,6 +451,12 @@ public final class UpstreamHandler extends ChannelDuplexHandler {
             WebSocketServerHandshaker handshaker = wsFactory.newHandshaker(httpRequest);
             if (handshaker == null) {
                 WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
+            } else if (httpLoadBalancer.httpConfiguration().webSocketRelay()) {
+                // Client handshake is performed by relay once Backend handshake is complete.
+                FullHttpRequest request = new DefaultFullHttpRequest(httpRequest.protocolVersion(), httpRequest.method(), httpRequest.uri(),
+                        Unpooled.EMPTY_BUFFER, httpRequest.headers(), EmptyHttpHeaders.INSTANCE);
+                return new WebSocketUpgradeProperty(((InetSocketAddress) ctx.channel().remoteAddress()), URI.create(uri), subProtocol,
+                        ctx.channel(), handshaker, request);
             } else {
                 handshaker.handshake(ctx.channel(), httpRequest);
             }
@@ -206,25 +502,250 @@ public final class UpstreamHandler extends ChannelDuplexHandler {
         headers.add(Headers.X_FORWARDED_PROTO, isTLSConnection ? "https" : "http");
     }
 
+    /**
+     * Lookup {@link Cluster} for a {@link HttpRequest} by Hostname. This is used
+     * when no {@link Route} of {@link RouteTable} matches the {@link HttpRequest}.
+     */
+    private Cluster cluster(CharSequence hostname) {
+        HostIndex hostIndex = httpLoadBalancer.hostIndex();
+        if (hostIndex != cachedHostIndex || !AsciiString.contentEquals(hostname, cachedHostname)) {
+            cachedCluster = hostIndex.lookup(hostname);
+            cachedHostname = hostname;
+            cachedHostIndex = hostIndex;
+        }
+        return cachedCluster;
+    }
+
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         NonceWrapped<?> nonceWrapped = (NonceWrapped<?>) msg;
-        if (nonceWrapped.get() instanceof FullHttpResponse || nonceWrapped.get() instanceof LastHttpContent) {
-            // Remove mapping of finished Request.
-            HTTPConnection connection = connectionMap.remove(nonceWrapped.nonce());
-            connection.finishedOutstandingRequest(nonceWrapped.nonce());
-            connection.release();
+        long nonce = nonceWrapped.nonce();
+        Object response = nonceWrapped.get();
+        boolean isLast = response instanceof FullHttpResponse || response instanceof LastHttpContent;
+
+        // Request ID of the client request, it differs from nonce if this is a response to a retried or hedged attempt.
+        long requestId = nonce;
+        if (!replayableMap.isEmpty()) {
+            ReplayableRequest replayable = replayableMap.get(nonce);
+            if (replayable != null) {
+                // First attempt to respond wins, responses to all other attempts are discarded.
+                if (replayable.winner == 0) {
+                    replayable.winner = nonce;
+                    replayable.cancelHedge();
+                    if (requestLogMap != null) {
+                        RequestLog requestLog = requestLogMap.get(replayable.requestId);
+                        if (requestLog != null) {
+                            requestLog.node = connectionMap.get(nonce).node();
+                        }
+                    }
+                } else if (replayable.winner != nonce) {
+                    ReferenceCountedUtil.silentRelease(response);
+                    promise.trySuccess();
+                    if (isLast) {
+                        replayableMap.remove(nonce);
+                        requestStartMap.remove(nonce);
+                        finished(nonce);
+                    }
+                    return;
+                }
+
+                requestId = replayable.requestId;
+                if (isLast) {
+                    replayableMap.remove(nonce);
+                }
+            }
+        }
+
+        recordLatency(nonce, response);
+        if (requestLogMap != null) {
+            onResponseWrite(ctx, requestId, response);
+        }
+
+        if (isLast) {
+            finished(nonce);
+        }
+        super.write(ctx, response, promise);
+    }
+
+    /**
+     * Remove mapping of finished Request and release its connection.
+     */
+    private void finished(long nonce) {
+        HTTPConnection connection = connectionMap.remove(nonce);
+        connection.finishedOutstandingRequest(nonce);
+        connection.release();
+    }
+
+    /**
+     * Record time to first byte, duration and outcome of the request into {@link Node}.
+     * Latency of a retried or hedged attempt is measured from when the attempt was sent.
+     */
+    private void recordLatency(long nonce, Object response) {
+        boolean isFinalResponse = response instanceof HttpResponse httpResponse && httpResponse.status().codeClass() != HttpStatusClass.INFORMATIONAL;
+        boolean isLast = response instanceof LastHttpContent;
+        if (!isFinalResponse && !isLast) {
+            return;
+        }
+
+        HTTPConnection connection = connectionMap.get(nonce);
+        if (connection == null || !requestStartMap.containsKey(nonce)) {
+            return;
+        }
+
+        long elapsed = System.nanoTime() - requestStartMap.get(nonce);
+        if (isFinalResponse) {
+            connection.node().recordTimeToFirstByte(elapsed);
+
+            // Gateway errors mean Node is overloaded or cannot reach its own upstream.
+            int status = ((HttpResponse) response).status().code();
+            if (status == 502 || status == 503 || status == 504) {
+                connection.node().circuitBreaker().onFailure();
+            } else {
+                connection.node().circuitBreaker().onSuccess();
+            }
+        }
+        if (isLast) {
+            requestStartMap.remove(nonce);
+            connection.node().recordDuration(elapsed);
+        }
+    }
+
+    /**
+     * Record response status and size, and log the request once response is finished.
+     */
+    private void onResponseWrite(ChannelHandlerContext ctx, long requestId, Object response) {
+        RequestLog requestLog = requestLogMap.get(requestId);
+        if (requestLog == null) {
+            return;
+        }
+
+        if (response instanceof HttpResponse httpResponse) {
+            requestLog.status = httpResponse.status().code();
+        }
+        if (response instanceof HttpContent httpContent) {
+            requestLog.bytesSent += httpContent.content().readableBytes();
+        }
+        if (response instanceof LastHttpContent) {
+            requestLogMap.remove(requestId);
+            requestLog.log(accessLog, ctx);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        // Upstream Channel is writable again, resume reading from all Backends
+        // which are serving this Upstream Channel.
+        if (ctx.channel().isWritable()) {
+            connectionMap.values().forEach(connection -> connection.autoRead(true));
         }
-        super.write(ctx, nonceWrapped.get(), promise);
+        ctx.fireChannelWritabilityChanged();
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
         connectionMap.forEach((id, connection) -> connection.release());
+        requestStartMap.clear();
+        replayableMap.values().forEach(ReplayableRequest::cancelHedge);
+        replayableMap.clear();
+
+        // Log requests which were not finished before connection was closed
+        if (requestLogMap != null) {
+            requestLogMap.values().forEach(requestLog -> requestLog.log(accessLog, ctx));
+            requestLogMap.clear();
+        }
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         logger.error("Caught Error at Upstream Handler", cause);
     }
+
+    /**
+     * Access Log record of a Request which is in progress
+     */
+    private static final class RequestLog {
+        private final long startMillis = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private final String hostname;
+        private Node node;
+        private final String method;
+        private final String uri;
+        private int status;
+        private long bytesReceived;
+        private long bytesSent;
+
+        private RequestLog(HttpRequest request, Node node) {
+            this.hostname = request.headers().get(HttpHeaderNames.HOST);
+            this.node = node;
+            this.method = request.method().name();
+            this.uri = request.uri();
+        }
+
+        private void log(AccessLog accessLog, ChannelHandlerContext ctx) {
+            accessLog.logRequest(startMillis, System.nanoTime() - startNanos, ctx.channel().remoteAddress(), hostname, node,
+                    method, uri, status, bytesReceived, bytesSent);
+        }
+    }
+
+    /**
+     * Idempotent Request without body which can be sent again to another {@link Node}
+     * when an attempt fails or, if hedging is enabled, takes too long.
+     */
+    private static final class ReplayableRequest {
+        private final long requestId;
+        private final HttpRequest request;
+        private final Cluster cluster;
+        private final InetSocketAddress clientAddress;
+        private final List<Node> triedNodes = new ArrayList<>(2);
+
+        /**
+         * Request ID of the attempt which has responded first, {@code 0} if none has responded yet
+         */
+        private long winner;
+        private int pending = 1;
+        private int retries;
+        private ScheduledFuture<?> hedgeTask;
+
+        private ReplayableRequest(long requestId, HttpRequest request, Cluster cluster, InetSocketAddress clientAddress, Node node) {
+            this.requestId = requestId;
+            this.request = request;
+            this.cluster = cluster;
+            this.clientAddress = clientAddress;
+            triedNodes.add(node);
+        }
+
+        /**
+         * Pick a {@link Node} from {@link Cluster} which was not tried yet
+         *
+         * @return {@link Node} or {@code null} if no such {@link Node} was found
+         */
+        private Node nextNode() {
+            try {
+                return cluster.nextNode(new HTTPBalanceRequest(clientAddress, request.headers()), triedNodes).node();
+            } catch (LoadBalanceException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Create a copy of request for a new attempt to {@link Node}. Backend pipeline does not
+         * modify requests, so the original request is kept and copied only when an attempt is made.
+         */
+        private HttpRequest newAttempt(Node node) {
+            triedNodes.add(node);
+            pending++;
+            return copy(request);
+        }
+
+        private void cancelHedge() {
+            if (hedgeTask != null) {
+                hedgeTask.cancel(false);
+                hedgeTask = null;
+            }
+        }
+
+        private static HttpRequest copy(HttpRequest request) {
+            return new DefaultHttpRequest(request.protocolVersion(), request.method(), request.uri(), request.headers().copy());
+        }
+    }
 }
@@ -17,23 +17,34 @@
  */
 package com.shieldblaze.expressgateway.protocol.http.loadbalancer;
 
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
 import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
 import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
 import com.shieldblaze.expressgateway.core.L4FrontListener;
 import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
+import com.shieldblaze.expressgateway.protocol.http.ConnectionPrewarmer;
 import com.shieldblaze.expressgateway.protocol.http.HTTPServerInitializer;
+import com.shieldblaze.expressgateway.protocol.http.routing.Route;
+import com.shieldblaze.expressgateway.protocol.http.routing.RouteTable;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 
 /**
  * HTTP Load Balancer
  */
 public class HTTPLoadBalancer extends L4LoadBalancer {
 
+    private volatile RouteTable routeTable = RouteTable.EMPTY;
+    private final RetryBudget retryBudget;
+    private final ConnectionPrewarmer connectionPrewarmer;
+
     HTTPLoadBalancer(String name, InetSocketAddress bindAddress, L4FrontListener l4FrontListener,
                      ConfigurationContext configurationContext, HTTPServerInitializer httpServerInitializer) {
         super(name, bindAddress, l4FrontListener, configurationContext, httpServerInitializer);
+        retryBudget = new RetryBudget(configurationContext.httpConfiguration().retryBudgetPercent());
         httpServerInitializer.httpLoadBalancer(this);
+        connectionPrewarmer = httpServerInitializer.connectionPrewarmer();
     }
 
     /**
@@ -43,6 +54,51 @@ public class HTTPLoadBalancer extends L4LoadBalancer {
         return configurationContext().httpConfiguration();
     }
 
+    /**
+     * Replace all {@link Route}s of this {@link HTTPLoadBalancer}. Routes are compiled
+     * into a new {@link RouteTable} which atomically replaces the current one.
+     *
+     * @param routes {@link List} of {@link Route}
+     */
+    public void routes(List<Route> routes) {
+        RouteTable newRouteTable = RouteTable.compile(routes);
+        for (Route route : newRouteTable.routes()) {
+            if (route.cluster().eventStream() != eventStream()) {
+                route.cluster().useEventStream(eventStream());
+            }
+            connectionPrewarmer.warm(route.cluster());
+        }
+        routeTable = newRouteTable;
+    }
+
+    @Override
+    public void mapCluster(String hostname, Cluster cluster) {
+        super.mapCluster(hostname, cluster);
+        connectionPrewarmer.warm(cluster);
+    }
+
+    /**
+     * Get current {@link RouteTable} of this {@link HTTPLoadBalancer}
+     */
+    public RouteTable routeTable() {
+        return routeTable;
+    }
+
+    /**
+     * Get {@link RetryBudget} shared by all connections of this {@link HTTPLoadBalancer}
+     */
+    public RetryBudget retryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Get {@link ConnectionPrewarmer} which keeps idle connections ready for all {@link Cluster}s
+     * of this {@link HTTPLoadBalancer}
+     */
+    public ConnectionPrewarmer connectionPrewarmer() {
+        return connectionPrewarmer;
+    }
+
     @Override
     public String type() {
         return "L7/HTTP";
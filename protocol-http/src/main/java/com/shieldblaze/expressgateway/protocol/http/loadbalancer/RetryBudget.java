@@ -0,0 +1,98 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.loadbalancer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> {@link RetryBudget} limits retries and hedged requests to a percentage of all requests
+ * of a {@link HTTPLoadBalancer}. When a cluster is overloaded, per-request retry limits alone
+ * multiply load on it; a budget keeps the extra load bounded. </p>
+ *
+ * <p> Requests and retries are counted in windows of {@link #WINDOW_NANOS}. A small number of
+ * retries ({@link #MIN_RETRIES_PER_WINDOW}) is always allowed so low traffic load balancers can retry too.
+ * Counters are not updated atomically together, so budget can be exceeded by a few retries under contention. </p>
+ */
+public final class RetryBudget {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int MIN_RETRIES_PER_WINDOW = 10;
+
+    private final int percent;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private volatile long windowStart = System.nanoTime();
+
+    /**
+     * Create a new {@link RetryBudget}
+     *
+     * @param percent Percentage of requests which can be retried, {@code 0} disables retries
+     */
+    public RetryBudget(int percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Percent must be in range of 0-100: " + percent);
+        }
+        this.percent = percent;
+    }
+
+    /**
+     * Record a new request
+     */
+    public void onRequest() {
+        requests.increment();
+    }
+
+    /**
+     * Try to withdraw a retry from this budget
+     *
+     * @return {@code true} if retry is allowed else {@code false}
+     */
+    public boolean tryAcquire() {
+        if (percent == 0) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        if (now - windowStart > WINDOW_NANOS) {
+            resetWindow(now);
+        }
+
+        long allowed = MIN_RETRIES_PER_WINDOW + requests.sum() * percent / 100;
+        if (retries.sum() >= allowed) {
+            return false;
+        }
+
+        retries.increment();
+        return true;
+    }
+
+    private synchronized void resetWindow(long now) {
+        // Another thread may have already reset the window
+        if (now - windowStart > WINDOW_NANOS) {
+            requests.reset();
+            retries.reset();
+            windowStart = now;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{percent=" + percent + ", requests=" + requests.sum() + ", retries=" + retries.sum() + '}';
+    }
+}
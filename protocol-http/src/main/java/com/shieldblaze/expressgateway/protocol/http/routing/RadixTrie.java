@@ -0,0 +1,194 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.routing;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p> Immutable radix trie of {@link Route} keyed by path. </p>
+ *
+ * <p> Each node holds the label of its edge, children sorted by the first character
+ * of their label, and routes ending at this node. Lookup walks the request path once
+ * and does not allocate. </p>
+ */
+final class RadixTrie {
+
+    private static final Route[] EMPTY_ROUTES = new Route[0];
+    private static final char[] EMPTY_KEYS = new char[0];
+    private static final TrieNode[] EMPTY_NODES = new TrieNode[0];
+
+    private final TrieNode root;
+
+    private RadixTrie(TrieNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Compile {@link Route}s into {@link RadixTrie}. Routes with same path are matched
+     * in the order they are present in the list.
+     */
+    static RadixTrie compile(List<Route> routes) {
+        MutableNode root = new MutableNode("");
+        for (Route route : routes) {
+            MutableNode node = root.insert(route.path(), 0);
+            if (route.exactPath()) {
+                node.exactRoutes.add(route);
+            } else {
+                node.prefixRoutes.add(route);
+            }
+        }
+        return new RadixTrie(root.freeze());
+    }
+
+    /**
+     * Find the {@link Route} for a request. Exact path routes are preferred over
+     * prefix routes, and longer prefixes are preferred over shorter ones. Prefix routes
+     * only match if the prefix ends with {@code /} or is followed by {@code /} or end of path.
+     *
+     * @param uri     Request URI
+     * @param start   Index where path starts in URI
+     * @param end     Index where path ends in URI (exclusive)
+     * @param method  Request {@link HttpMethod}
+     * @param headers Request {@link HttpHeaders}
+     * @return {@link Route} if found else {@code null}
+     */
+    Route match(String uri, int start, int end, HttpMethod method, HttpHeaders headers) {
+        TrieNode node = root;
+        int position = start;
+        Route prefixMatch = null;
+
+        for (;;) {
+            if (node.prefixRoutes.length != 0 && isSegmentBoundary(uri, start, position, end)) {
+                Route route = firstMatch(node.prefixRoutes, method, headers);
+                if (route != null) {
+                    prefixMatch = route;
+                }
+            }
+
+            if (position == end) {
+                Route route = firstMatch(node.exactRoutes, method, headers);
+                return route != null ? route : prefixMatch;
+            }
+
+            int index = Arrays.binarySearch(node.keys, uri.charAt(position));
+            if (index < 0) {
+                return prefixMatch;
+            }
+
+            TrieNode child = node.children[index];
+            int length = child.label.length();
+            if (end - position < length || !uri.regionMatches(position, child.label, 0, length)) {
+                return prefixMatch;
+            }
+
+            position += length;
+            node = child;
+        }
+    }
+
+    private static boolean isSegmentBoundary(String uri, int start, int position, int end) {
+        return position == start || position == end || uri.charAt(position) == '/' || uri.charAt(position - 1) == '/';
+    }
+
+    private static Route firstMatch(Route[] routes, HttpMethod method, HttpHeaders headers) {
+        for (Route route : routes) {
+            if (route.matches(method, headers)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private record TrieNode(String label, char[] keys, TrieNode[] children, Route[] exactRoutes, Route[] prefixRoutes) {
+    }
+
+    /**
+     * Node used while building the trie
+     */
+    private static final class MutableNode {
+        private String label;
+        private final Map<Character, MutableNode> children = new TreeMap<>();
+        private final List<Route> exactRoutes = new ArrayList<>();
+        private final List<Route> prefixRoutes = new ArrayList<>();
+
+        private MutableNode(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Insert the remaining part of path starting at index and return the node where it ends
+         */
+        private MutableNode insert(String path, int index) {
+            if (index == path.length()) {
+                return this;
+            }
+
+            char key = path.charAt(index);
+            MutableNode child = children.get(key);
+            if (child == null) {
+                child = new MutableNode(path.substring(index));
+                children.put(key, child);
+                return child;
+            }
+
+            int common = 0;
+            int max = Math.min(child.label.length(), path.length() - index);
+            while (common < max && child.label.charAt(common) == path.charAt(index + common)) {
+                common++;
+            }
+
+            // Split the child if path diverges in the middle of its label.
+            if (common < child.label.length()) {
+                MutableNode parent = new MutableNode(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                parent.children.put(child.label.charAt(0), child);
+                children.put(key, parent);
+                child = parent;
+            }
+
+            return child.insert(path, index + common);
+        }
+
+        private TrieNode freeze() {
+            if (children.isEmpty()) {
+                return new TrieNode(label, EMPTY_KEYS, EMPTY_NODES, routes(exactRoutes), routes(prefixRoutes));
+            }
+
+            char[] keys = new char[children.size()];
+            TrieNode[] nodes = new TrieNode[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().freeze();
+                i++;
+            }
+            return new TrieNode(label, keys, nodes, routes(exactRoutes), routes(prefixRoutes));
+        }
+
+        private static Route[] routes(List<Route> routes) {
+            return routes.isEmpty() ? EMPTY_ROUTES : routes.toArray(EMPTY_ROUTES);
+        }
+    }
+}
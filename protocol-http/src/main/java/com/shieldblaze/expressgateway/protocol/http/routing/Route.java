@@ -0,0 +1,125 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.routing;
+
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+
+/**
+ * <p> {@link Route} maps HTTP requests to a {@link Cluster}. </p>
+ *
+ * <p> A request matches a {@link Route} when its hostname, path, method and headers
+ * match. Hostname and method are optional, {@code null} matches any value. </p>
+ */
+public final class Route {
+
+    private final String host;
+    private final String path;
+    private final boolean exactPath;
+    private final HttpMethod method;
+    private final String[] headerNames;
+    private final String[] headerValues;
+    private final Cluster cluster;
+    private final boolean idempotent;
+
+    Route(String host, String path, boolean exactPath, HttpMethod method, String[] headerNames, String[] headerValues, Cluster cluster,
+          boolean idempotent) {
+        this.host = host;
+        this.path = path;
+        this.exactPath = exactPath;
+        this.method = method;
+        this.headerNames = headerNames;
+        this.headerValues = headerValues;
+        this.cluster = cluster;
+        this.idempotent = idempotent;
+    }
+
+    /**
+     * Hostname of this {@link Route}, {@code null} if this route matches any hostname
+     */
+    public String host() {
+        return host;
+    }
+
+    /**
+     * Path or path prefix of this {@link Route}
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns {@code true} if {@link #path()} must match the request path exactly
+     * else {@code false} if it is matched as prefix
+     */
+    public boolean exactPath() {
+        return exactPath;
+    }
+
+    /**
+     * {@link HttpMethod} of this {@link Route}, {@code null} if this route matches any method
+     */
+    public HttpMethod method() {
+        return method;
+    }
+
+    /**
+     * {@link Cluster} which will handle requests matching this {@link Route}
+     */
+    public Cluster cluster() {
+        return cluster;
+    }
+
+    /**
+     * Returns {@code true} if requests of this {@link Route} are idempotent and can be retried
+     * or hedged regardless of their method
+     */
+    public boolean idempotent() {
+        return idempotent;
+    }
+
+    /**
+     * Returns {@code true} if method and headers of a request match this {@link Route}
+     */
+    boolean matches(HttpMethod method, HttpHeaders headers) {
+        if (this.method != null && !this.method.equals(method)) {
+            return false;
+        }
+
+        for (int i = 0; i < headerNames.length; i++) {
+            if (!headers.contains(headerNames[i], headerValues[i], false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "Route{" +
+                "host=" + host +
+                ", path=" + path +
+                ", exactPath=" + exactPath +
+                ", method=" + method +
+                ", headers=" + headerNames.length +
+                ", cluster=" + cluster +
+                ", idempotent=" + idempotent +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.routing;
+
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Builder for {@link Route}
+ */
+public final class RouteBuilder {
+
+    private String host;
+    private String path = "/";
+    private boolean exactPath;
+    private HttpMethod method;
+    private final List<String> headerNames = new ArrayList<>();
+    private final List<String> headerValues = new ArrayList<>();
+    private Cluster cluster;
+    private boolean idempotent;
+
+    public static RouteBuilder newBuilder() {
+        return new RouteBuilder();
+    }
+
+    /**
+     * Set hostname to match, port is ignored. Any hostname is matched if not set.
+     */
+    public RouteBuilder withHost(String host) {
+        this.host = Objects.requireNonNull(host, "Host").toLowerCase(Locale.ROOT);
+        return this;
+    }
+
+    /**
+     * Match requests whose path starts with the given prefix. Default prefix is {@code /}.
+     */
+    public RouteBuilder withPathPrefix(String pathPrefix) {
+        this.path = validatePath(pathPrefix);
+        this.exactPath = false;
+        return this;
+    }
+
+    /**
+     * Match requests whose path is equal to the given path
+     */
+    public RouteBuilder withExactPath(String path) {
+        this.path = validatePath(path);
+        this.exactPath = true;
+        return this;
+    }
+
+    /**
+     * Set {@link HttpMethod} to match. Any method is matched if not set.
+     */
+    public RouteBuilder withMethod(HttpMethod method) {
+        this.method = Objects.requireNonNull(method, "Method");
+        return this;
+    }
+
+    /**
+     * Match requests which have a header with the given name and value
+     */
+    public RouteBuilder withHeader(String name, String value) {
+        headerNames.add(Objects.requireNonNull(name, "Header Name"));
+        headerValues.add(Objects.requireNonNull(value, "Header Value"));
+        return this;
+    }
+
+    public RouteBuilder withCluster(Cluster cluster) {
+        this.cluster = cluster;
+        return this;
+    }
+
+    /**
+     * Mark requests matching this route as idempotent. Idempotent requests without
+     * body are retried and hedged like {@code GET}, {@code HEAD} and {@code OPTIONS}.
+     */
+    public RouteBuilder withIdempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+        return this;
+    }
+
+    public Route build() {
+        Objects.requireNonNull(cluster, "Cluster cannot be 'null'");
+        return new Route(host, path, exactPath, method, headerNames.toArray(new String[0]), headerValues.toArray(new String[0]), cluster, idempotent);
+    }
+
+    private static String validatePath(String path) {
+        Objects.requireNonNull(path, "Path");
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("Path must start with '/': " + path);
+        }
+        return path;
+    }
+
+    private RouteBuilder() {
+        // Prevent outside initialization
+    }
+}
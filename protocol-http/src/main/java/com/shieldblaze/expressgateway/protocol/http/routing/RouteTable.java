@@ -0,0 +1,265 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.routing;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p> Immutable table of {@link Route}. Routes are compiled into one {@link RadixTrie}
+ * per hostname and one for routes matching any hostname. </p>
+ *
+ * <p> Routes of a matching hostname take precedence over routes matching any hostname.
+ * Hostnames are matched case-insensitively (ASCII) and port is ignored, i.e. {@code Example.com:8080}
+ * matches {@code example.com}. Prefix routes only match at a path segment boundary, i.e. {@code /api}
+ * matches {@code /api} and {@code /api/users} but not {@code /apix}. </p>
+ *
+ * <p> Lookup does not allocate, so a {@link RouteTable} should be compiled once and swapped as a whole
+ * when routes change. </p>
+ */
+public final class RouteTable {
+
+    /**
+     * {@link RouteTable} without any {@link Route}
+     */
+    public static final RouteTable EMPTY = compile(Collections.emptyList());
+
+    private final List<Route> routes;
+    private final HostTable hostTries;
+    private final RadixTrie anyHostTrie;
+
+    private RouteTable(List<Route> routes, HostTable hostTries, RadixTrie anyHostTrie) {
+        this.routes = routes;
+        this.hostTries = hostTries;
+        this.anyHostTrie = anyHostTrie;
+    }
+
+    /**
+     * Compile a new {@link RouteTable}
+     *
+     * @param routes {@link List} of {@link Route}, routes with same hostname and path are
+     *               matched in the order they are present in the list
+     * @return New {@link RouteTable} instance
+     */
+    public static RouteTable compile(List<Route> routes) {
+        Map<String, List<Route>> routesByHost = new LinkedHashMap<>();
+        List<Route> anyHostRoutes = new ArrayList<>();
+
+        for (Route route : routes) {
+            if (route.host() == null) {
+                anyHostRoutes.add(route);
+            } else {
+                String host = route.host().substring(0, hostEnd(route.host())).toLowerCase(Locale.ROOT);
+                routesByHost.computeIfAbsent(host, key -> new ArrayList<>()).add(route);
+            }
+        }
+
+        return new RouteTable(List.copyOf(routes), new HostTable(routesByHost), RadixTrie.compile(anyHostRoutes));
+    }
+
+    /**
+     * Find the {@link Route} for a {@link HttpRequest}
+     *
+     * @return {@link Route} if found else {@code null}
+     */
+    public Route match(HttpRequest request) {
+        return match(request, request.headers().get(HttpHeaderNames.HOST));
+    }
+
+    /**
+     * Find the {@link Route} for a {@link HttpRequest} whose Hostname has already been read
+     *
+     * @param request {@link HttpRequest} to match
+     * @param host    Value of {@code Host} header of {@link HttpRequest}, may be {@code null}
+     * @return {@link Route} if found else {@code null}
+     */
+    public Route match(HttpRequest request, CharSequence host) {
+        if (routes.isEmpty()) {
+            return null;
+        }
+
+        String uri = request.uri();
+        int start = pathStart(uri);
+        int end = pathEnd(uri, start);
+
+        // Absolute-form request target without path, i.e. 'http://host'
+        if (start == end) {
+            uri = "/";
+            start = 0;
+            end = 1;
+        }
+
+        if (host != null && hostTries.size != 0) {
+            RadixTrie trie = hostTries.get(host, hostEnd(host));
+            if (trie != null) {
+                Route route = trie.match(uri, start, end, request.method(), request.headers());
+                if (route != null) {
+                    return route;
+                }
+            }
+        }
+
+        return anyHostTrie.match(uri, start, end, request.method(), request.headers());
+    }
+
+    /**
+     * All {@link Route}s of this {@link RouteTable}
+     */
+    public List<Route> routes() {
+        return routes;
+    }
+
+    /**
+     * Returns index where path starts, handles both origin-form ({@code /path})
+     * and absolute-form ({@code http://host/path}) request targets.
+     */
+    private static int pathStart(String uri) {
+        if (uri.isEmpty() || uri.charAt(0) == '/') {
+            return 0;
+        }
+
+        int scheme = uri.indexOf("://");
+        if (scheme == -1) {
+            return 0;
+        }
+
+        int slash = uri.indexOf('/', scheme + 3);
+        return slash == -1 ? uri.length() : slash;
+    }
+
+    /**
+     * Returns index where path ends, i.e. start of query or fragment
+     */
+    private static int pathEnd(String uri, int start) {
+        for (int i = start; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return uri.length();
+    }
+
+    /**
+     * Returns index where hostname ends, excluding port and trailing dot.
+     */
+    private static int hostEnd(CharSequence hostname) {
+        int length = hostname.length();
+        int end = length;
+
+        if (length > 0 && hostname.charAt(0) == '[') {
+            // IPv6 literal, i.e. '[::1]:8080'
+            for (int i = 1; i < length; i++) {
+                if (hostname.charAt(i) == ']') {
+                    return i + 1;
+                }
+            }
+            return length;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (hostname.charAt(i) == ':') {
+                end = i;
+                break;
+            }
+        }
+
+        if (end > 0 && hostname.charAt(end - 1) == '.') {
+            end--;
+        }
+        return end;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+    private static int hash(CharSequence value, int end) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < end; i++) {
+            hash = (hash ^ toLowerCase(value.charAt(i))) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Open addressing hash table of lower-case hostnames, looked up case-insensitively
+     */
+    private static final class HostTable {
+        private final String[] keys;
+        private final RadixTrie[] values;
+        private final int mask;
+        private final int size;
+
+        private HostTable(Map<String, List<Route>> routesByHost) {
+            // Keep load factor at or below 0.5
+            int capacity = Integer.highestOneBit(Math.max(routesByHost.size(), 1) * 2 - 1) << 1;
+            this.keys = new String[capacity];
+            this.values = new RadixTrie[capacity];
+            this.mask = capacity - 1;
+            this.size = routesByHost.size();
+
+            // Keys of the map are unique, so there is no need to check for duplicates.
+            for (Map.Entry<String, List<Route>> entry : routesByHost.entrySet()) {
+                String key = entry.getKey();
+                int index = hash(key, key.length()) & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = RadixTrie.compile(entry.getValue());
+            }
+        }
+
+        private RadixTrie get(CharSequence hostname, int end) {
+            int index = hash(hostname, end) & mask;
+            String key;
+            while ((key = keys[index]) != null) {
+                if (matches(key, hostname, end)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private static boolean matches(String key, CharSequence hostname, int end) {
+            if (key.length() != end) {
+                return false;
+            }
+            for (int i = 0; i < end; i++) {
+                if (key.charAt(i) != toLowerCase(hostname.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RouteTable{routes=" + routes.size() + '}';
+    }
+}
@@ -19,6 +19,7 @@ package com.shieldblaze.expressgateway.protocol.http.websocket;
 
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.NodeBytesTracker;
+import com.shieldblaze.expressgateway.backend.NodeTlsSessionTracker;
 import com.shieldblaze.expressgateway.core.factory.BootstrapFactory;
 import com.shieldblaze.expressgateway.core.handlers.ConnectionTimeoutHandler;
 import com.shieldblaze.expressgateway.protocol.http.HTTPCodecs;
@@ -54,13 +55,22 @@ final class Bootstrapper {
         this.byteBufAllocator = httpLoadBalancer.byteBufAllocator();
     }
 
-    WebSocketConnection newInit(Node node, WebSocketUpgradeProperty wsProperty) {
+    /**
+     * Create a new {@link WebSocketConnection} to {@link Node}
+     *
+     * @param node       {@link Node} to connect to
+     * @param wsProperty {@link WebSocketUpgradeProperty} of Client
+     * @param relay      {@link WebSocketRelay} if raw frames are relayed else {@code null}
+     */
+    WebSocketConnection newInit(Node node, WebSocketUpgradeProperty wsProperty, WebSocketRelay relay) {
         HttpHeaders headers = new DefaultHttpHeaders();
         headers.set(Headers.X_FORWARDED_FOR, wsProperty.clientAddress().getAddress().getHostAddress()); // Add Client IP Address
         WebSocketClientHandshaker factory = WebSocketClientHandshakerFactory.newHandshaker(wsProperty.uri(), V13, wsProperty.subProtocol(), true, headers);
         WebSocketConnection connection = new WebSocketConnection(node, factory);
 
-        Bootstrap bootstrap = BootstrapFactory.tcp(httpLoadBalancer.configurationContext(), eventLoopGroup, byteBufAllocator);
+        // Relay keeps Backend on event loop of Client, so both channels are driven by one thread.
+        EventLoopGroup group = relay == null ? eventLoopGroup : wsProperty.channel().eventLoop();
+        Bootstrap bootstrap = BootstrapFactory.tcp(httpLoadBalancer.configurationContext(), group, byteBufAllocator);
         bootstrap.handler(new ChannelInitializer<SocketChannel>() {
             @Override
             protected void initChannel(SocketChannel ch) {
@@ -83,6 +93,7 @@ final class Bootstrapper {
                             .newHandler(ch.alloc(), hostname, port);
 
                     pipeline.addLast(sslHandler);
+                    pipeline.addLast(new NodeTlsSessionTracker(node));
                 }
 
                 // Add HTTP Client
@@ -93,10 +104,14 @@ final class Bootstrapper {
 
                 // Add WebSocketClientHandshakerFinisherHandler which will finish the
                 // handshaking process.
-                pipeline.addLast(new WebSocketClientHandshakerFinisherHandler(factory));
+                pipeline.addLast(new WebSocketClientHandshakerFinisherHandler(factory, relay));
 
                 // Add Downstream Handler
-                pipeline.addLast(new WebSocketDownstreamHandler(wsProperty.channel()));
+                if (relay == null) {
+                    pipeline.addLast(new WebSocketDownstreamHandler(wsProperty.channel()));
+                } else {
+                    pipeline.addLast(relay.backendHandler());
+                }
             }
         });
 
@@ -22,6 +22,7 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketHandshakeException;
 
 /**
  * This class completes WebSocket client handshake. Once handshake is done,
@@ -30,9 +31,11 @@ import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 final class WebSocketClientHandshakerFinisherHandler extends ChannelInboundHandlerAdapter {
 
     private final WebSocketClientHandshaker handshaker;
+    private final WebSocketRelay relay;
 
-    WebSocketClientHandshakerFinisherHandler(WebSocketClientHandshaker handshaker) {
+    WebSocketClientHandshakerFinisherHandler(WebSocketClientHandshaker handshaker, WebSocketRelay relay) {
         this.handshaker = handshaker;
+        this.relay = relay;
     }
 
     @Override
@@ -41,9 +44,25 @@ final class WebSocketClientHandshakerFinisherHandler extends ChannelInboundHandl
         // then capture the FullHttpResponse and pass it to handshaker
         // to complete the handshake.
         if (msg instanceof FullHttpResponse response && !handshaker.isHandshakeComplete()) {
-            handshaker.finishHandshake(ctx.channel(), response); // Finish the handshake
-            response.release();          // Release the HttpResponse
-            ctx.pipeline().remove(this); // Let's remove ourselves because we're done.
+            if (relay == null) {
+                handshaker.finishHandshake(ctx.channel(), response); // Finish the handshake
+                response.release();          // Release the HttpResponse
+                ctx.pipeline().remove(this); // Let's remove ourselves because we're done.
+                return;
+            }
+
+            try {
+                handshaker.finishHandshake(ctx.channel(), response);
+            } catch (WebSocketHandshakeException ex) {
+                relay.fail();
+                ctx.close();
+                return;
+            } finally {
+                response.release();
+            }
+
+            ctx.pipeline().remove(this);
+            relay.start(ctx.channel());
             return;
         }
 
@@ -0,0 +1,120 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.websocket;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p> {@link WebSocketFrameScanner} walks frame boundaries of a raw WebSocket byte stream
+ * without copying or unmasking payloads. Only frame headers are read, so the stream can be
+ * relayed as-is while masking direction is enforced and close frames are detected. </p>
+ *
+ * <p> Frame headers may be split across buffers, partial header bytes are kept until
+ * the rest of the header arrives. </p>
+ */
+final class WebSocketFrameScanner {
+
+    private static final int OPCODE_CLOSE = 0x8;
+
+    private final boolean masked;
+    private final byte[] header = new byte[14];
+    private int headerLength;
+    private long payloadRemaining;
+    private boolean inCloseFrame;
+    private boolean closeFrameSeen;
+
+    /**
+     * Create a new {@link WebSocketFrameScanner} Instance
+     *
+     * @param masked {@code true} if frames must be masked (Client to Server) else {@code false} (Server to Client)
+     */
+    WebSocketFrameScanner(boolean masked) {
+        this.masked = masked;
+    }
+
+    /**
+     * Scan readable bytes of {@link ByteBuf}. Reader index is not modified.
+     *
+     * @param buf {@link ByteBuf} to scan
+     * @return {@code true} if frames are valid else {@code false} if masking direction is violated
+     * or payload length is invalid
+     */
+    boolean scan(ByteBuf buf) {
+        int index = buf.readerIndex();
+        int end = buf.writerIndex();
+
+        while (index < end) {
+            // Skip payload of current frame
+            if (payloadRemaining > 0) {
+                int skip = (int) Math.min(payloadRemaining, end - index);
+                index += skip;
+                payloadRemaining -= skip;
+                if (payloadRemaining == 0 && inCloseFrame) {
+                    closeFrameSeen = true;
+                }
+                continue;
+            }
+
+            header[headerLength++] = buf.getByte(index++);
+            if (headerLength < 2) {
+                continue;
+            }
+
+            boolean frameMasked = (header[1] & 0x80) != 0;
+            if (frameMasked != masked) {
+                return false;
+            }
+
+            int length = header[1] & 0x7F;
+            int lengthBytes = length == 126 ? 2 : length == 127 ? 8 : 0;
+            if (headerLength < 2 + lengthBytes + (masked ? 4 : 0)) {
+                continue;
+            }
+
+            long payloadLength = length;
+            if (lengthBytes != 0) {
+                payloadLength = 0;
+                for (int i = 0; i < lengthBytes; i++) {
+                    payloadLength = payloadLength << 8 | header[2 + i] & 0xFF;
+                }
+
+                // Most significant bit of 64-bit length must be 0
+                if (payloadLength < 0) {
+                    return false;
+                }
+            }
+
+            inCloseFrame = (header[0] & 0x0F) == OPCODE_CLOSE;
+            if (inCloseFrame && payloadLength == 0) {
+                closeFrameSeen = true;
+            }
+
+            payloadRemaining = payloadLength;
+            headerLength = 0;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if a Close frame, including its payload, has been scanned
+     */
+    boolean closeFrameSeen() {
+        return closeFrameSeen;
+    }
+}
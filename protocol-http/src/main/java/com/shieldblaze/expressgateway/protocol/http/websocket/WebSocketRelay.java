@@ -0,0 +1,118 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.websocket;
+
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import com.shieldblaze.expressgateway.configuration.transport.TransportConfiguration;
+import com.shieldblaze.expressgateway.protocol.http.HTTPResponses;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.websocketx.WebSocketHandshakeException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p> {@link WebSocketRelay} switches a WebSocket connection from frame decoding to raw relay. </p>
+ *
+ * <p> Client reads are paused until Backend handshake is complete. Then Client handshake response
+ * is sent and frame codecs are removed from both pipelines, so no frame is ever decoded.
+ * Client and Backend channels share the same event loop, so all of this runs on one thread. </p>
+ *
+ * <p> Frames from Client are masked and frames to Backend must be masked, and frames from Backend are
+ * unmasked and frames to Client must be unmasked, so bytes can be relayed in both directions as they are.
+ * WebSocket extensions are never negotiated by handshakers, so frames do not need any transformation. </p>
+ */
+final class WebSocketRelay {
+
+    private static final Logger logger = LogManager.getLogger(WebSocketRelay.class);
+
+    private final WebSocketUpgradeProperty wsProperty;
+    private final WebSocketRelayHandler clientHandler;
+    private final WebSocketRelayHandler backendHandler;
+
+    WebSocketRelay(WebSocketUpgradeProperty wsProperty, TransportConfiguration transportConfiguration) {
+        this.wsProperty = wsProperty;
+        this.clientHandler = new WebSocketRelayHandler(true, new FlushBatcher(transportConfiguration));
+        this.backendHandler = new WebSocketRelayHandler(false, new FlushBatcher(transportConfiguration));
+        backendHandler.peer(wsProperty.channel(), clientHandler);
+    }
+
+    /**
+     * {@link WebSocketRelayHandler} which reads from Backend and writes to Client
+     */
+    WebSocketRelayHandler backendHandler() {
+        return backendHandler;
+    }
+
+    /**
+     * Called once Backend handshake is complete. Sends Client handshake response and starts relaying.
+     *
+     * @param backend Backend {@link Channel}
+     */
+    void start(Channel backend) {
+        // Backend handshaker has added frame codecs, remove them.
+        removeIfPresent(backend.pipeline(), "ws-decoder");
+        removeIfPresent(backend.pipeline(), "ws-encoder");
+        clientHandler.peer(backend, backendHandler);
+
+        Channel client = wsProperty.channel();
+        ChannelFuture handshakeFuture;
+        try {
+            handshakeFuture = wsProperty.handshaker().handshake(client, wsProperty.request());
+        } catch (WebSocketHandshakeException ex) {
+            logger.debug("WebSocket handshake with Client failed", ex);
+            client.close();
+            backend.close();
+            return;
+        }
+
+        handshakeFuture.addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                client.close();
+                backend.close();
+                return;
+            }
+
+            // Client handshaker has added frame codecs, remove them.
+            ChannelPipeline pipeline = client.pipeline();
+            removeIfPresent(pipeline, "wsdecoder");
+            removeIfPresent(pipeline, "wsencoder");
+            pipeline.addBefore("WebSocketHandler", null, clientHandler);
+
+            clientHandler.activate();
+            backendHandler.activate();
+            client.config().setAutoRead(true);
+        });
+    }
+
+    /**
+     * Called if connecting or handshaking with Backend failed. Client has not received
+     * handshake response yet, so it receives Bad Gateway response.
+     */
+    void fail() {
+        wsProperty.channel().writeAndFlush(HTTPResponses.BAD_GATEWAY_502.retainedDuplicate()).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    private static void removeIfPresent(ChannelPipeline pipeline, String name) {
+        if (pipeline.get(name) != null) {
+            pipeline.remove(name);
+        }
+    }
+}
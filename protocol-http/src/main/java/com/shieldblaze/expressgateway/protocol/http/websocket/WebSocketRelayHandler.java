@@ -0,0 +1,164 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.websocket;
+
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import com.shieldblaze.expressgateway.common.utils.ReferenceCountedUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * <p> Relays raw WebSocket bytes read from one {@link Channel} to its peer {@link Channel}
+ * without decoding frames. {@link WebSocketFrameScanner} inspects frame headers to enforce
+ * masking direction and detect Close frames. </p>
+ *
+ * <p> Bytes read before {@link #activate()} is called are held back, so nothing reaches
+ * the peer before its handshake is complete. </p>
+ */
+final class WebSocketRelayHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = LogManager.getLogger(WebSocketRelayHandler.class);
+
+    private final WebSocketFrameScanner scanner;
+    private final FlushBatcher flushBatcher;
+    private final Queue<ByteBuf> pending = new ArrayDeque<>();
+    private ChannelHandlerContext ctx;
+    private Channel peer;
+    private WebSocketRelayHandler peerHandler;
+    private boolean active;
+
+    /**
+     * Create a new {@link WebSocketRelayHandler} Instance
+     *
+     * @param fromClient   {@code true} if this handler reads from Client and frames must be masked
+     * @param flushBatcher {@link FlushBatcher} used for writing into peer
+     */
+    WebSocketRelayHandler(boolean fromClient, FlushBatcher flushBatcher) {
+        this.scanner = new WebSocketFrameScanner(fromClient);
+        this.flushBatcher = flushBatcher;
+    }
+
+    /**
+     * Set {@link Channel} where data is relayed to and {@link WebSocketRelayHandler} reading from it
+     */
+    void peer(Channel peer, WebSocketRelayHandler peerHandler) {
+        this.peer = peer;
+        this.peerHandler = peerHandler;
+    }
+
+    /**
+     * Start relaying and relay data held back so far
+     */
+    void activate() {
+        active = true;
+
+        ByteBuf buf;
+        while ((buf = pending.poll()) != null) {
+            relay(buf);
+        }
+        flushBatcher.flush();
+        closeIfDone();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof ByteBuf buf)) {
+            ReferenceCountedUtil.silentRelease(msg);
+            return;
+        }
+
+        if (active) {
+            relay(buf);
+        } else {
+            pending.add(buf);
+        }
+    }
+
+    private void relay(ByteBuf buf) {
+        if (!scanner.scan(buf)) {
+            logger.debug("Invalid WebSocket frame received, closing {} and {}", ctx.channel(), peer);
+            buf.release();
+            ctx.channel().close();
+            peer.close();
+            return;
+        }
+
+        flushBatcher.write(peer, buf);
+
+        // If peer cannot take more data then stop reading until it drains its outbound buffer.
+        if (!peer.isWritable()) {
+            ctx.channel().config().setAutoRead(false);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        flushBatcher.flush();
+        closeIfDone();
+    }
+
+    /**
+     * Close both channels once Close frames have been relayed in both directions.
+     */
+    private void closeIfDone() {
+        if (active && scanner.closeFrameSeen() && peerHandler.scanner.closeFrameSeen()) {
+            peer.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+            ctx.channel().writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        // Our Channel is writable again, resume reading from peer Channel.
+        if (active && ctx.channel().isWritable()) {
+            peer.config().setAutoRead(true);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        flushBatcher.flush();
+        pending.forEach(ReferenceCountedUtil::silentRelease);
+        pending.clear();
+
+        if (peer != null) {
+            peer.close();
+        }
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.error("Caught Error at WebSocket Relay Handler", cause);
+    }
+}
@@ -18,6 +18,8 @@
 package com.shieldblaze.expressgateway.protocol.http.websocket;
 
 import io.netty.channel.Channel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
@@ -30,6 +32,8 @@ public final class WebSocketUpgradeProperty {
     private final URI uri;
     private final String subProtocol;
     private final Channel channel;
+    private final WebSocketServerHandshaker handshaker;
+    private final FullHttpRequest request;
 
     /**
      * Create a new {@link WebSocketUpgradeProperty} Instance
@@ -40,10 +44,28 @@ public final class WebSocketUpgradeProperty {
      * @param channel       {@link Channel} of Client
      */
     public WebSocketUpgradeProperty(InetSocketAddress clientAddress, URI uri, String subProtocol, Channel channel) {
+        this(clientAddress, uri, subProtocol, channel, null, null);
+    }
+
+    /**
+     * Create a new {@link WebSocketUpgradeProperty} Instance for relaying raw frames.
+     * Client handshake is performed by {@link WebSocketRelay} once Backend handshake is complete.
+     *
+     * @param clientAddress {@link InetSocketAddress} of Client
+     * @param uri           HTTP Request URI
+     * @param subProtocol   WebSocket SubProtocol
+     * @param channel       {@link Channel} of Client
+     * @param handshaker    {@link WebSocketServerHandshaker} for Client handshake
+     * @param request       {@link FullHttpRequest} of Client handshake
+     */
+    public WebSocketUpgradeProperty(InetSocketAddress clientAddress, URI uri, String subProtocol, Channel channel,
+                                    WebSocketServerHandshaker handshaker, FullHttpRequest request) {
         this.clientAddress = clientAddress;
         this.uri = uri;
         this.subProtocol = subProtocol;
         this.channel = channel;
+        this.handshaker = handshaker;
+        this.request = request;
     }
 
     InetSocketAddress clientAddress() {
@@ -61,4 +83,19 @@ public final class WebSocketUpgradeProperty {
     Channel channel() {
         return channel;
     }
+
+    WebSocketServerHandshaker handshaker() {
+        return handshaker;
+    }
+
+    FullHttpRequest request() {
+        return request;
+    }
+
+    /**
+     * Returns {@code true} if raw frames are relayed after handshake
+     */
+    boolean relay() {
+        return handshaker != null;
+    }
 }
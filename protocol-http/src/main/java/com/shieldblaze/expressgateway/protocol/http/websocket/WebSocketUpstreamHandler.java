@@ -40,7 +40,21 @@ public final class WebSocketUpstreamHandler extends ChannelInboundHandlerAdapter
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) {
         Bootstrapper bootstrapper = new Bootstrapper(httpLoadBalancer);
-        connection = bootstrapper.newInit(node, webSocketUpgradeProperty);
+        if (!webSocketUpgradeProperty.relay()) {
+            connection = bootstrapper.newInit(node, webSocketUpgradeProperty, null);
+            return;
+        }
+
+        // Don't read from Client until Backend handshake is complete and relay has started.
+        ctx.channel().config().setAutoRead(false);
+
+        WebSocketRelay relay = new WebSocketRelay(webSocketUpgradeProperty, httpLoadBalancer.configurationContext().transportConfiguration());
+        connection = bootstrapper.newInit(node, webSocketUpgradeProperty, relay);
+        connection.channelFuture().addListener(future -> {
+            if (!future.isSuccess()) {
+                relay.fail();
+            }
+        });
     }
 
     @Override
@@ -0,0 +1,132 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.HTTPRoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
+import com.shieldblaze.expressgateway.configuration.tls.CertificateKeyPair;
+import com.shieldblaze.expressgateway.configuration.tls.TlsClientConfiguration;
+import com.shieldblaze.expressgateway.core.events.L4FrontListenerStartupEvent;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancer;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancerBuilder;
+import com.shieldblaze.expressgateway.protocol.tcp.TCPListener;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPrewarmerTest {
+
+    private static HttpServer httpServer;
+    private static HTTPLoadBalancer httpLoadBalancer;
+    private static Node node;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        httpServer = new HttpServer(true);
+        httpServer.start();
+        httpServer.START_FUTURE.get();
+
+        HttpConfiguration httpConfiguration = HttpConfiguration.copyFrom(HttpConfiguration.DEFAULT)
+                .setMinIdleConnections(2)
+                .validate();
+
+        TlsClientConfiguration tlsClientConfiguration = TlsClientConfiguration.copyFrom(TlsClientConfiguration.DEFAULT);
+        tlsClientConfiguration.enable();
+        tlsClientConfiguration.setAcceptAllCerts(true);
+        tlsClientConfiguration.defaultMapping(CertificateKeyPair.newDefaultClientInstance());
+
+        httpLoadBalancer = HTTPLoadBalancerBuilder.newBuilder()
+                .withConfigurationContext(ConfigurationContext.create(httpConfiguration, tlsClientConfiguration))
+                .withBindAddress(new InetSocketAddress("localhost", 9113))
+                .withHTTPInitializer(new DefaultHTTPServerInitializer())
+                .withL4FrontListener(new TCPListener())
+                .build();
+
+        L4FrontListenerStartupEvent l4FrontListenerStartupEvent = httpLoadBalancer.start();
+        l4FrontListenerStartupEvent.future().join();
+        assertTrue(l4FrontListenerStartupEvent.isSuccess());
+
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new HTTPRoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        httpLoadBalancer.mapCluster("localhost:9113", cluster);
+
+        // Node is added after Cluster is mapped, so it is warmed by NodeAddedEvent.
+        node = NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("localhost", httpServer.port()))
+                .build();
+    }
+
+    @AfterAll
+    static void shutdown() throws Exception {
+        httpLoadBalancer.stop().future().join();
+        httpServer.shutdown();
+        httpServer.SHUTDOWN_FUTURE.get();
+    }
+
+    @Test
+    void poolIsWarmedAndRefilled() throws Exception {
+        awaitIdleConnections(2);
+        assertEquals(2, node.activeConnection());
+
+        assertEquals("HTTP/1.1 200 OK", request());
+        assertEquals(1, node.poolHits());
+        assertEquals(0, node.poolMisses());
+
+        // Leased connection is replaced in background
+        awaitIdleConnections(2);
+        assertTrue(node.toJson().getAsJsonObject("Pool").get("Idle").getAsInt() >= 2);
+    }
+
+    private static void awaitIdleConnections(int idleConnections) throws InterruptedException {
+        for (int i = 0; i < 100 && node.idleConnections() < idleConnections; i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(node.idleConnections() >= idleConnections);
+    }
+
+    private static String request() throws IOException {
+        try (Socket socket = new Socket("localhost", 9113)) {
+            socket.setSoTimeout(5000);
+            String request = "GET / HTTP/1.1\r\nHost: localhost:9113\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            return reader.readLine();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownstreamHandlerTest {
+
+    @Test
+    void upstreamResumesOnlyWhenAllBackendsAreWritable() {
+        EmbeddedChannel upstream = new EmbeddedChannel();
+        EmbeddedChannel backend1 = backend(upstream);
+        EmbeddedChannel backend2 = backend(upstream);
+
+        assertTrue(upstream.config().isAutoRead());
+
+        makeUnwritable(backend1);
+        assertFalse(upstream.config().isAutoRead());
+
+        makeUnwritable(backend2);
+        assertFalse(upstream.config().isAutoRead());
+
+        // Backend 2 is still unwritable, Upstream must stay paused.
+        makeWritable(backend1);
+        assertFalse(upstream.config().isAutoRead());
+
+        makeWritable(backend2);
+        assertTrue(upstream.config().isAutoRead());
+
+        backend1.finishAndReleaseAll();
+        backend2.finishAndReleaseAll();
+        upstream.finishAndReleaseAll();
+    }
+
+    @Test
+    void closedBackendDoesNotHoldUpstream() {
+        EmbeddedChannel upstream = new EmbeddedChannel();
+        EmbeddedChannel backend = backend(upstream);
+
+        makeUnwritable(backend);
+        assertFalse(upstream.config().isAutoRead());
+
+        backend.finishAndReleaseAll();
+        assertTrue(upstream.config().isAutoRead());
+
+        upstream.finishAndReleaseAll();
+    }
+
+    private static EmbeddedChannel backend(EmbeddedChannel upstream) {
+        EmbeddedChannel backend = new EmbeddedChannel(new DownstreamHandler(upstream, new FlushBatcher(0)));
+        backend.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        return backend;
+    }
+
+    private static void makeUnwritable(EmbeddedChannel backend) {
+        backend.write(Unpooled.wrappedBuffer(new byte[32]));
+        assertFalse(backend.isWritable());
+    }
+
+    private static void makeWritable(EmbeddedChannel backend) {
+        backend.flush();
+        for (Object msg; (msg = backend.readOutbound()) != null; ) {
+            ((ByteBuf) msg).release();
+        }
+        assertTrue(backend.isWritable());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.util.ReferenceCountUtil;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares allocation and throughput of {@link HTTP1RequestDecoder} and {@link HttpRequestDecoder}
+ * decoding {@link HTTP1RequestDecoderTest#REQUEST} through {@link EmbeddedChannel} on the calling thread.
+ * Results depend on JVM and hardware, so this is run manually instead of as part of the test suite.
+ */
+public class HTTP1RequestDecoderBenchmark {
+
+    private static final int WARMUP_REQUESTS = 1_000_000;
+    private static final int REQUESTS = 1_000_000;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        HttpConfiguration configuration = HttpConfiguration.DEFAULT;
+
+        EmbeddedChannel netty = new EmbeddedChannel(new HttpRequestDecoder(configuration.maxInitialLineLength(),
+                configuration.maxHeaderSize(), configuration.maxChunkSize()));
+        EmbeddedChannel decoder = HTTP1RequestDecoderTest.newChannel();
+
+        run(threadMXBean, netty, WARMUP_REQUESTS);
+        run(threadMXBean, decoder, WARMUP_REQUESTS);
+
+        print("HttpRequestDecoder", run(threadMXBean, netty, REQUESTS));
+        print("HTTP1RequestDecoder", run(threadMXBean, decoder, REQUESTS));
+
+        netty.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+    }
+
+    /**
+     * @return Allocated bytes per request and requests per second
+     */
+    private static long[] run(com.sun.management.ThreadMXBean threadMXBean, EmbeddedChannel channel, int requests) {
+        byte[] bytes = HTTP1RequestDecoderTest.REQUEST.getBytes(StandardCharsets.US_ASCII);
+        ByteBuf buf = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+
+        long startBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            channel.writeInbound(buf.retainedDuplicate());
+
+            HttpRequest request = channel.readInbound();
+            if (request.headers().get(HttpHeaderNames.HOST) == null) {
+                throw new IllegalStateException("Host header not decoded");
+            }
+            ReferenceCountUtil.release(channel.readInbound());
+        }
+        long elapsed = System.nanoTime() - startTime;
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - startBytes;
+
+        buf.release();
+        return new long[]{allocated / requests, requests * 1_000_000_000L / elapsed};
+    }
+
+    private static void print(String name, long[] result) {
+        System.out.printf("%-20s %6d bytes/request %10d requests/s%n", name + ':', result[0], result[1]);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HTTP1RequestDecoderTest {
+
+    static final String REQUEST = "GET /api/v1/users?id=1 HTTP/1.1\r\n" +
+            "Host: www.shieldblaze.com\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:106.0) Gecko/20100101 Firefox/106.0\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" +
+            "Accept-Language: en-US,en;q=0.5\r\n" +
+            "Accept-Encoding: gzip, deflate, br\r\n" +
+            "Cookie: session=4f1d5d8e37a142a4a6a41201f4f8f639\r\n" +
+            "X-Custom-Header: Meow\r\n" +
+            "Connection: keep-alive\r\n" +
+            "\r\n";
+
+    @Test
+    void decodeRequestWithoutBody() {
+        EmbeddedChannel channel = newChannel();
+        assertTrue(channel.writeInbound(buffer(REQUEST)));
+
+        HttpRequest request = channel.readInbound();
+        assertTrue(request.decoderResult().isSuccess());
+        assertSame(HttpMethod.GET, request.method());
+        assertSame(HttpVersion.HTTP_1_1, request.protocolVersion());
+        assertEquals("/api/v1/users?id=1", request.uri());
+        assertEquals("www.shieldblaze.com", request.headers().get(HttpHeaderNames.HOST));
+        assertEquals("Meow", request.headers().get("x-custom-header"));
+        assertInstanceOf(AsciiString.class, request.headers().iteratorCharSequence().next().getValue());
+
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+        assertNull(channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void decodeFixedLengthBodyAcrossBuffers() {
+        EmbeddedChannel channel = newChannel();
+        channel.writeInbound(buffer("POST /upload HTTP/1.1\r\nHost: localhost\r\nContent-Len"));
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(buffer("gth: 10\r\n\r\nHello"));
+        HttpRequest request = channel.readInbound();
+        assertSame(HttpMethod.POST, request.method());
+        assertEquals(10, Integer.parseInt(request.headers().get(HttpHeaderNames.CONTENT_LENGTH)));
+        assertContent("Hello", channel.readInbound(), false);
+
+        channel.writeInbound(buffer("World"));
+        assertContent("World", channel.readInbound(), true);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void decodeChunkedBodyWithTrailers() {
+        EmbeddedChannel channel = newChannel();
+        channel.writeInbound(buffer("POST /upload HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "Content-Length: 100\r\n" +
+                "\r\n" +
+                "5;name=value\r\nHello\r\n" +
+                "6\r\n World\r\n" +
+                "0\r\n" +
+                "Checksum: 1234\r\n" +
+                "\r\n"));
+
+        HttpRequest request = channel.readInbound();
+        assertFalse(request.headers().contains(HttpHeaderNames.CONTENT_LENGTH));
+        assertContent("Hello", channel.readInbound(), false);
+        assertContent(" World", channel.readInbound(), false);
+
+        LastHttpContent lastHttpContent = channel.readInbound();
+        assertEquals("1234", lastHttpContent.trailingHeaders().get("checksum"));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void rejectInvalidRequests() {
+        String[] requests = {
+                "GET / HTTP/1.1\r\nHost : localhost\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: localhost\r\n Folded: value\r\n\r\n",
+                "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 1\r\nContent-Length: 2\r\n\r\n",
+                "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: -1\r\n\r\n",
+                "POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: gzip\r\n\r\n",
+                "GET /" + "a".repeat(HttpConfiguration.DEFAULT.maxInitialLineLength()) + " HTTP/1.1\r\n\r\n"
+        };
+
+        for (String invalid : requests) {
+            EmbeddedChannel channel = newChannel();
+            channel.writeInbound(buffer(invalid + REQUEST));
+
+            HttpRequest request = channel.readInbound();
+            assertTrue(request.decoderResult().isFailure(), invalid);
+            ReferenceCountUtil.release(request);
+            assertNull(channel.readInbound());
+            assertFalse(channel.finish());
+        }
+    }
+
+    @Test
+    void rejectHeaderInjection() {
+        String[] requests = {
+                // Bare CR inside header value
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX-Header: value\rInjected: true\r\n\r\n",
+                // Bare CR at the end of header value
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX-Header: value\r\r\n\r\n",
+                // Other control characters in header value
+                "GET / HTTP/1.1\r\nHost: local\u0000host\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX-Header: a\u000Bb\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX-Header: a\u007Fb\r\n\r\n",
+                // Header names which are not tokens
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX\rHeader: value\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX(Header): value\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX\"Header: value\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: localhost\r\nX/Header: value\r\n\r\n",
+                "GET / HTTP/1.1\r\nHost: localhost\r\n\u00E9: value\r\n\r\n",
+                // Control characters in request line
+                "GET /a\rb HTTP/1.1\r\nHost: localhost\r\n\r\n",
+                "G\rET / HTTP/1.1\r\nHost: localhost\r\n\r\n",
+                // Bare CR in trailer
+                "POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n0\r\nX-Trailer: a\rb\r\n\r\n",
+        };
+
+        for (String invalid : requests) {
+            EmbeddedChannel channel = newChannel();
+            channel.writeInbound(Unpooled.copiedBuffer(invalid + REQUEST, StandardCharsets.ISO_8859_1));
+
+            Object msg;
+            boolean failed = false;
+            while ((msg = channel.readInbound()) != null) {
+                failed |= msg instanceof HttpRequest request && request.decoderResult().isFailure()
+                        || msg instanceof LastHttpContent content && content.decoderResult().isFailure();
+                ReferenceCountUtil.release(msg);
+            }
+            assertTrue(failed, invalid);
+            assertFalse(channel.finish());
+        }
+    }
+
+    @Test
+    void acceptValidHeaderCharacters() {
+        EmbeddedChannel channel = newChannel();
+        channel.writeInbound(Unpooled.copiedBuffer("GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Token!#$%&'*+-.^_`|~: value\r\n" +
+                "X-Tab: a\tb\r\n" +
+                "X-Obs-Text: caf\u00E9\r\n" +
+                "X-Lf-Only: value\n" +
+                "\r\n", StandardCharsets.ISO_8859_1));
+
+        HttpRequest request = channel.readInbound();
+        assertTrue(request.decoderResult().isSuccess());
+        assertEquals("value", request.headers().get("x-token!#$%&'*+-.^_`|~"));
+        assertEquals("a\tb", request.headers().get("x-tab"));
+        assertEquals("caf\u00E9", request.headers().get("x-obs-text"));
+        assertEquals("value", request.headers().get("x-lf-only"));
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void responseToHeadHasNoBody() {
+        EmbeddedChannel channel = newChannel();
+        channel.writeInbound(buffer("HEAD / HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+        channel.readInbound();
+        channel.readInbound();
+
+        DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.wrappedBuffer(new byte[10]));
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 10);
+        channel.writeOutbound(response);
+
+        StringBuilder sb = new StringBuilder();
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            sb.append(buf.toString(StandardCharsets.US_ASCII));
+            buf.release();
+        }
+        assertTrue(sb.toString().endsWith("content-length: 10\r\n\r\n"), sb.toString());
+        assertFalse(channel.finish());
+    }
+
+    static EmbeddedChannel newChannel() {
+        return new EmbeddedChannel(new HTTP1ServerCodec(HttpConfiguration.DEFAULT));
+    }
+
+    private static ByteBuf buffer(String data) {
+        return Unpooled.copiedBuffer(data, StandardCharsets.US_ASCII);
+    }
+
+    private static void assertContent(String expected, HttpContent content, boolean last) {
+        assertEquals(expected, content.content().toString(StandardCharsets.US_ASCII));
+        assertEquals(last, content instanceof LastHttpContent);
+        content.release();
+    }
+}
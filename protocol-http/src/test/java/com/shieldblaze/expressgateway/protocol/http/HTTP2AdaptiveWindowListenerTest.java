@@ -0,0 +1,125 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2FrameReader;
+import io.netty.handler.codec.http2.DefaultHttp2FrameWriter;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameAdapter;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HTTP2AdaptiveWindowListenerTest {
+
+    @Test
+    void growWindowOnBDPSample() throws Exception {
+        EmbeddedChannel server = new EmbeddedChannel(HTTPCodecs.http2ServerCodec(HttpConfiguration.DEFAULT));
+        EmbeddedChannel client = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ChannelHandlerContext ctx = client.pipeline().firstContext();
+
+        DefaultHttp2FrameWriter writer = new DefaultHttp2FrameWriter();
+        Http2Headers headers = new DefaultHttp2Headers()
+                .method("POST")
+                .scheme("http")
+                .authority("localhost")
+                .path("/");
+
+        client.writeOutbound(Http2CodecUtil.connectionPrefaceBuf());
+        writer.writeSettings(ctx, new Http2Settings(), ctx.newPromise());
+        writer.writeHeaders(ctx, 1, headers, 0, false, ctx.newPromise());
+        for (int i = 0; i < 3; i++) {
+            writer.writeData(ctx, 1, Unpooled.wrappedBuffer(new byte[16384]), 0, false, ctx.newPromise());
+        }
+        ctx.flush();
+        transfer(client, server);
+
+        FrameCollector frames = readFrames(ctx, server);
+        assertEquals(List.of(HTTP2AdaptiveWindowListener.BDP_PING_DATA), frames.pings);
+
+        // 3 * 16384 bytes were received before PING ACK, new window must be twice of that.
+        writer.writePing(ctx, true, HTTP2AdaptiveWindowListener.BDP_PING_DATA, ctx.newPromise());
+        ctx.flush();
+        transfer(client, server);
+
+        frames = readFrames(ctx, server);
+        assertTrue(frames.settings.stream().anyMatch(settings -> settings.initialWindowSize() != null &&
+                settings.initialWindowSize() == 3 * 16384 * 2));
+
+        releaseInbound(server);
+        server.close();
+        client.close();
+    }
+
+    private static void transfer(EmbeddedChannel from, EmbeddedChannel to) {
+        ByteBuf buf;
+        while ((buf = from.readOutbound()) != null) {
+            to.writeInbound(buf);
+        }
+    }
+
+    private static FrameCollector readFrames(ChannelHandlerContext ctx, EmbeddedChannel channel) throws Exception {
+        FrameCollector frameCollector = new FrameCollector();
+        DefaultHttp2FrameReader reader = new DefaultHttp2FrameReader();
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            while (buf.isReadable()) {
+                reader.readFrame(ctx, buf, frameCollector);
+            }
+            buf.release();
+        }
+        reader.close();
+        return frameCollector;
+    }
+
+    private static void releaseInbound(EmbeddedChannel channel) {
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private static final class FrameCollector extends Http2FrameAdapter {
+        private final List<Long> pings = new ArrayList<>();
+        private final List<Http2Settings> settings = new ArrayList<>();
+
+        @Override
+        public void onPingRead(ChannelHandlerContext ctx, long data) {
+            pings.add(data);
+        }
+
+        @Override
+        public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) {
+            this.settings.add(settings);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.HTTPRoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.core.events.L4FrontListenerStartupEvent;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancer;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancerBuilder;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.RetryBudget;
+import com.shieldblaze.expressgateway.protocol.tcp.TCPListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.FullHttpRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryTest {
+
+    private static HttpServer httpServer;
+    private static HttpServer secondHttpServer;
+    private static HttpServer closingHttpServer;
+    private static HTTPLoadBalancer refusingLoadBalancer;
+    private static HTTPLoadBalancer closingLoadBalancer;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        httpServer = new HttpServer(false);
+        httpServer.start();
+        httpServer.START_FUTURE.get();
+
+        secondHttpServer = new HttpServer(false);
+        secondHttpServer.start();
+        secondHttpServer.START_FUTURE.get();
+
+        closingHttpServer = new HttpServer(false, new ClosingHandler());
+        closingHttpServer.start();
+        closingHttpServer.START_FUTURE.get();
+
+        int refusingPort;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            refusingPort = serverSocket.getLocalPort();
+        }
+
+        refusingLoadBalancer = loadBalancer(9111, refusingPort, httpServer.port());
+        closingLoadBalancer = loadBalancer(9112, closingHttpServer.port(), secondHttpServer.port());
+    }
+
+    @AfterAll
+    static void shutdown() throws Exception {
+        refusingLoadBalancer.stop().future().join();
+        closingLoadBalancer.stop().future().join();
+        httpServer.shutdown();
+        secondHttpServer.shutdown();
+        closingHttpServer.shutdown();
+        httpServer.SHUTDOWN_FUTURE.get();
+        secondHttpServer.SHUTDOWN_FUTURE.get();
+        closingHttpServer.SHUTDOWN_FUTURE.get();
+    }
+
+    @Test
+    void connectFailureIsRetried() throws IOException {
+        // Round-robin alternates between refusing and healthy node, every request must succeed.
+        for (int i = 0; i < 10; i++) {
+            assertEquals("HTTP/1.1 200 OK", request(9111, "GET"));
+        }
+    }
+
+    @Test
+    void connectionCloseIsRetried() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            assertEquals("HTTP/1.1 200 OK", request(9112, "GET"));
+        }
+    }
+
+    @Test
+    void nonIdempotentRequestIsNotRetried() throws IOException {
+        int failed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (!"HTTP/1.1 200 OK".equals(request(9112, "DELETE"))) {
+                failed++;
+            }
+        }
+        assertEquals(5, failed);
+    }
+
+    @Test
+    void retryBudget() {
+        RetryBudget retryBudget = new RetryBudget(10);
+
+        // Minimum retries are always allowed
+        for (int i = 0; i < 10; i++) {
+            assertTrue(retryBudget.tryAcquire());
+        }
+        assertFalse(retryBudget.tryAcquire());
+
+        for (int i = 0; i < 100; i++) {
+            retryBudget.onRequest();
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(retryBudget.tryAcquire());
+        }
+        assertFalse(retryBudget.tryAcquire());
+
+        assertFalse(new RetryBudget(0).tryAcquire());
+    }
+
+    /**
+     * Send a request and return status line of response, or {@code null} if connection was closed without response.
+     */
+    private static String request(int port, String method) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5000);
+            String request = method + " / HTTP/1.1\r\nHost: localhost:" + port + "\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            return reader.readLine();
+        }
+    }
+
+    private static HTTPLoadBalancer loadBalancer(int port, int failingNodePort, int nodePort) throws Exception {
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new HTTPRoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        HTTPLoadBalancer httpLoadBalancer = HTTPLoadBalancerBuilder.newBuilder()
+                .withConfigurationContext(ConfigurationContext.DEFAULT)
+                .withBindAddress(new InetSocketAddress("localhost", port))
+                .withHTTPInitializer(new DefaultHTTPServerInitializer())
+                .withL4FrontListener(new TCPListener())
+                .build();
+
+        httpLoadBalancer.mapCluster("localhost:" + port, cluster);
+
+        NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("localhost", failingNodePort))
+                .build();
+
+        NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("localhost", nodePort))
+                .build();
+
+        L4FrontListenerStartupEvent l4FrontListenerStartupEvent = httpLoadBalancer.start();
+        l4FrontListenerStartupEvent.future().join();
+        assertTrue(l4FrontListenerStartupEvent.isSuccess());
+        return httpLoadBalancer;
+    }
+
+    /**
+     * Closes connection without responding, like a crashed Backend
+     */
+    @ChannelHandler.Sharable
+    private static final class ClosingHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest msg) {
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http;
+
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.HTTPRoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.configuration.tls.CertificateKeyPair;
+import com.shieldblaze.expressgateway.configuration.tls.TlsClientConfiguration;
+import com.shieldblaze.expressgateway.core.events.L4FrontListenerStartupEvent;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancer;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancerBuilder;
+import com.shieldblaze.expressgateway.protocol.tcp.TCPListener;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TlsSessionResumptionTest {
+
+    private static HttpServer httpServer;
+    private static HTTPLoadBalancer httpLoadBalancer;
+    private static Node node;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        httpServer = new HttpServer(true);
+        httpServer.start();
+        httpServer.START_FUTURE.get();
+
+        TlsClientConfiguration tlsClientConfiguration = TlsClientConfiguration.copyFrom(TlsClientConfiguration.DEFAULT);
+        tlsClientConfiguration.enable();
+        tlsClientConfiguration.setAcceptAllCerts(true);
+        tlsClientConfiguration.defaultMapping(CertificateKeyPair.newDefaultClientInstance());
+
+        httpLoadBalancer = HTTPLoadBalancerBuilder.newBuilder()
+                .withConfigurationContext(ConfigurationContext.create(tlsClientConfiguration))
+                .withBindAddress(new InetSocketAddress("localhost", 9114))
+                .withHTTPInitializer(new DefaultHTTPServerInitializer())
+                .withL4FrontListener(new TCPListener())
+                .build();
+
+        L4FrontListenerStartupEvent l4FrontListenerStartupEvent = httpLoadBalancer.start();
+        l4FrontListenerStartupEvent.future().join();
+        assertTrue(l4FrontListenerStartupEvent.isSuccess());
+
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new HTTPRoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        httpLoadBalancer.mapCluster("localhost:9114", cluster);
+
+        node = NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("localhost", httpServer.port()))
+                .build();
+    }
+
+    @AfterAll
+    static void shutdown() throws Exception {
+        httpLoadBalancer.stop().future().join();
+        httpServer.shutdown();
+        httpServer.SHUTDOWN_FUTURE.get();
+    }
+
+    @Test
+    void newConnectionsResumeSession() throws Exception {
+        Bootstrapper bootstrapper = new Bootstrapper(httpLoadBalancer);
+
+        for (int i = 0; i < 5; i++) {
+            HTTPConnection connection = bootstrapper.newInit(node, null);
+            connection.readyFuture().get(5, TimeUnit.SECONDS);
+
+            // TLS 1.3 session ticket is sent by Backend after handshake has finished
+            Thread.sleep(100);
+            connection.close();
+        }
+
+        // First handshake is a full handshake, all following ones resume its session.
+        assertEquals(5, node.tlsHandshakes());
+        assertEquals(4, node.tlsResumedHandshakes());
+    }
+}
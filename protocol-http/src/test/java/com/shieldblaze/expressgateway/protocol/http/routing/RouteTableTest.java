@@ -0,0 +1,197 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.routing;
+
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.HTTPRoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.sessionpersistence.NOOPSessionPersistence;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RouteTableTest {
+
+    @Test
+    void pathPrefixAndExactPath() {
+        Cluster root = newCluster();
+        Cluster api = newCluster();
+        Cluster apiV2 = newCluster();
+        Cluster health = newCluster();
+
+        RouteTable routeTable = RouteTable.compile(List.of(
+                RouteBuilder.newBuilder().withCluster(root).build(),
+                RouteBuilder.newBuilder().withPathPrefix("/api").withCluster(api).build(),
+                RouteBuilder.newBuilder().withPathPrefix("/api/v2").withCluster(apiV2).build(),
+                RouteBuilder.newBuilder().withExactPath("/api/health").withCluster(health).build()
+        ));
+
+        assertSame(root, match(routeTable, HttpMethod.GET, "example.com", "/"));
+        assertSame(root, match(routeTable, HttpMethod.GET, "example.com", "/static/index.html"));
+        assertSame(api, match(routeTable, HttpMethod.GET, "example.com", "/api/v1/users?id=1"));
+        assertSame(apiV2, match(routeTable, HttpMethod.GET, "example.com", "/api/v2/users"));
+        assertSame(health, match(routeTable, HttpMethod.GET, "example.com", "/api/health"));
+        assertSame(health, match(routeTable, HttpMethod.GET, "example.com", "/api/health?verbose=true"));
+        assertSame(api, match(routeTable, HttpMethod.GET, "example.com", "/api/healthz"));
+        assertSame(apiV2, match(routeTable, HttpMethod.GET, "example.com", "http://example.com/api/v2/users"));
+        assertSame(root, match(routeTable, HttpMethod.GET, "example.com", "http://example.com"));
+    }
+
+    @Test
+    void hostMethodAndHeaders() {
+        Cluster anyHost = newCluster();
+        Cluster exampleCom = newCluster();
+        Cluster examplePost = newCluster();
+        Cluster exampleCanary = newCluster();
+
+        RouteTable routeTable = RouteTable.compile(List.of(
+                RouteBuilder.newBuilder().withPathPrefix("/").withCluster(anyHost).build(),
+                RouteBuilder.newBuilder().withHost("example.com").withPathPrefix("/app")
+                        .withHeader("X-Canary", "true").withCluster(exampleCanary).build(),
+                RouteBuilder.newBuilder().withHost("example.com").withPathPrefix("/app")
+                        .withMethod(HttpMethod.POST).withCluster(examplePost).build(),
+                RouteBuilder.newBuilder().withHost("Example.com").withPathPrefix("/app").withCluster(exampleCom).build()
+        ));
+
+        assertSame(exampleCom, match(routeTable, HttpMethod.GET, "example.com", "/app/index"));
+        assertSame(exampleCom, match(routeTable, HttpMethod.GET, "EXAMPLE.COM", "/app/index"));
+        assertSame(examplePost, match(routeTable, HttpMethod.POST, "example.com", "/app/form"));
+        assertSame(anyHost, match(routeTable, HttpMethod.GET, "example.com", "/other"));
+        assertSame(anyHost, match(routeTable, HttpMethod.GET, "example.org", "/app/index"));
+
+        HttpRequest canaryRequest = request(HttpMethod.POST, "example.com", "/app/form");
+        canaryRequest.headers().set("X-Canary", "true");
+        assertSame(exampleCanary, routeTable.match(canaryRequest).cluster());
+    }
+
+    @Test
+    void pathPrefixSegmentBoundary() {
+        Cluster api = newCluster();
+        Cluster assets = newCluster();
+
+        RouteTable routeTable = RouteTable.compile(List.of(
+                RouteBuilder.newBuilder().withPathPrefix("/api").withCluster(api).build(),
+                RouteBuilder.newBuilder().withPathPrefix("/assets/").withCluster(assets).build()
+        ));
+
+        assertSame(api, match(routeTable, HttpMethod.GET, "example.com", "/api"));
+        assertSame(api, match(routeTable, HttpMethod.GET, "example.com", "/api/"));
+        assertSame(api, match(routeTable, HttpMethod.GET, "example.com", "/api?id=1"));
+        assertSame(api, match(routeTable, HttpMethod.GET, "example.com", "/api/users"));
+        assertSame(assets, match(routeTable, HttpMethod.GET, "example.com", "/assets/app.js"));
+        assertNull(routeTable.match(request(HttpMethod.GET, "example.com", "/apix")));
+        assertNull(routeTable.match(request(HttpMethod.GET, "example.com", "/api-internal/users")));
+        assertNull(routeTable.match(request(HttpMethod.GET, "example.com", "/assets")));
+    }
+
+    @Test
+    void hostWithPort() {
+        Cluster anyHost = newCluster();
+        Cluster exampleCom = newCluster();
+        Cluster ipv6 = newCluster();
+
+        RouteTable routeTable = RouteTable.compile(List.of(
+                RouteBuilder.newBuilder().withCluster(anyHost).build(),
+                RouteBuilder.newBuilder().withHost("example.com:8080").withCluster(exampleCom).build(),
+                RouteBuilder.newBuilder().withHost("[::1]").withCluster(ipv6).build()
+        ));
+
+        assertSame(exampleCom, match(routeTable, HttpMethod.GET, "example.com", "/"));
+        assertSame(exampleCom, match(routeTable, HttpMethod.GET, "example.com:8080", "/"));
+        assertSame(exampleCom, match(routeTable, HttpMethod.GET, "Example.COM:9090", "/"));
+        assertSame(exampleCom, match(routeTable, HttpMethod.GET, "example.com.", "/"));
+        assertSame(ipv6, match(routeTable, HttpMethod.GET, "[::1]:8080", "/"));
+        assertSame(anyHost, match(routeTable, HttpMethod.GET, "example.org:8080", "/"));
+        assertSame(anyHost, match(routeTable, HttpMethod.GET, "example.co", "/"));
+    }
+
+    @Test
+    void noMatch() {
+        RouteTable routeTable = RouteTable.compile(List.of(
+                RouteBuilder.newBuilder().withHost("example.com").withExactPath("/login").withCluster(newCluster()).build()
+        ));
+
+        assertNull(routeTable.match(request(HttpMethod.GET, "example.com", "/logout")));
+        assertNull(routeTable.match(request(HttpMethod.GET, "example.com", "/login/")));
+        assertNull(routeTable.match(request(HttpMethod.GET, "example.org", "/login")));
+        assertNull(RouteTable.EMPTY.match(request(HttpMethod.GET, "example.com", "/login")));
+    }
+
+    @Test
+    void matchWithHostnameAlreadyRead() {
+        Cluster example = newCluster();
+        Cluster anyHost = newCluster();
+
+        RouteTable routeTable = RouteTable.compile(List.of(
+                RouteBuilder.newBuilder().withHost("example.com").withPathPrefix("/api").withCluster(example).build(),
+                RouteBuilder.newBuilder().withPathPrefix("/api").withCluster(anyHost).build()
+        ));
+
+        // Hostname is given as read from Host header, AsciiString and other CharSequences work too.
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/api/users");
+        assertSame(example, routeTable.match(request, AsciiString.of("Example.com:8080")).cluster());
+        assertSame(anyHost, routeTable.match(request, "example.org").cluster());
+        assertSame(anyHost, routeTable.match(request, null).cluster());
+    }
+
+    @Test
+    void manyRoutes() {
+        Cluster cluster = newCluster();
+        List<Cluster> clusters = new ArrayList<>();
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            Cluster routeCluster = i % 1000 == 0 ? newCluster() : cluster;
+            clusters.add(routeCluster);
+            routes.add(RouteBuilder.newBuilder().withPathPrefix("/tenant/" + i + "/").withCluster(routeCluster).build());
+        }
+        RouteTable routeTable = RouteTable.compile(routes);
+
+        assertEquals(50_000, routeTable.routes().size());
+        for (int i = 0; i < 50_000; i += 1000) {
+            assertSame(clusters.get(i), match(routeTable, HttpMethod.GET, "example.com", "/tenant/" + i + "/resource"));
+        }
+        assertNull(routeTable.match(request(HttpMethod.GET, "example.com", "/tenant/50000/resource")));
+    }
+
+    private static Cluster match(RouteTable routeTable, HttpMethod method, String host, String uri) {
+        return routeTable.match(request(method, host, uri)).cluster();
+    }
+
+    private static HttpRequest request(HttpMethod method, String host, String uri) {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, uri);
+        request.headers().set(HttpHeaderNames.HOST, host);
+        return request;
+    }
+
+    private static Cluster newCluster() {
+        return ClusterBuilder.newBuilder()
+                .withLoadBalance(new HTTPRoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+    }
+}
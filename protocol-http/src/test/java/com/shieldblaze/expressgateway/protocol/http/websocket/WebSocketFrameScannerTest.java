@@ -0,0 +1,86 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebSocketFrameScannerTest {
+
+    @Test
+    void maskedFramesTest() {
+        WebSocketFrameScanner scanner = new WebSocketFrameScanner(true);
+
+        // Masked Text frame with 5 bytes payload followed by masked Close frame with 2 bytes payload
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes(new byte[]{(byte) 0x81, (byte) 0x85, 1, 2, 3, 4, 'H', 'e', 'l', 'l', 'o'});
+        buf.writeBytes(new byte[]{(byte) 0x88, (byte) 0x82, 1, 2, 3, 4, 0x03, (byte) 0xE8});
+
+        assertTrue(scanner.scan(buf));
+        assertTrue(scanner.closeFrameSeen());
+        assertEquals(0, buf.readerIndex());
+        buf.release();
+    }
+
+    @Test
+    void maskingDirectionTest() {
+        ByteBuf unmasked = Unpooled.wrappedBuffer(new byte[]{(byte) 0x81, 0x01, 'A'});
+        assertFalse(new WebSocketFrameScanner(true).scan(unmasked));
+        assertTrue(new WebSocketFrameScanner(false).scan(unmasked));
+        unmasked.release();
+
+        ByteBuf masked = Unpooled.wrappedBuffer(new byte[]{(byte) 0x81, (byte) 0x81, 1, 2, 3, 4, 'A'});
+        assertFalse(new WebSocketFrameScanner(false).scan(masked));
+        masked.release();
+    }
+
+    @Test
+    void splitHeaderAndPayloadTest() {
+        WebSocketFrameScanner scanner = new WebSocketFrameScanner(false);
+
+        // Binary frame with 16-bit extended payload length of 300 bytes, split inside header and payload
+        byte[] frame = new byte[4 + 300];
+        frame[0] = (byte) 0x82;
+        frame[1] = 126;
+        frame[2] = 0x01;
+        frame[3] = 0x2C;
+
+        assertTrue(scanner.scan(Unpooled.wrappedBuffer(frame, 0, 3)));
+        assertTrue(scanner.scan(Unpooled.wrappedBuffer(frame, 3, 200)));
+        assertTrue(scanner.scan(Unpooled.wrappedBuffer(frame, 203, 101)));
+
+        // Close frame split between header and payload is seen only once its payload has been scanned
+        assertTrue(scanner.scan(Unpooled.wrappedBuffer(new byte[]{(byte) 0x88, 0x02, 0x03})));
+        assertFalse(scanner.closeFrameSeen());
+        assertTrue(scanner.scan(Unpooled.wrappedBuffer(new byte[]{(byte) 0xE8})));
+        assertTrue(scanner.closeFrameSeen());
+    }
+
+    @Test
+    void invalidPayloadLengthTest() {
+        WebSocketFrameScanner scanner = new WebSocketFrameScanner(false);
+        ByteBuf buf = Unpooled.wrappedBuffer(new byte[]{(byte) 0x82, 127, (byte) 0x80, 0, 0, 0, 0, 0, 0, 0});
+        assertFalse(scanner.scan(buf));
+        buf.release();
+    }
+}
@@ -17,8 +17,10 @@
  */
 package com.shieldblaze.expressgateway.protocol.http.websocket;
 
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 
@@ -30,6 +32,10 @@ final class WebSocketHandler extends SimpleChannelInboundHandler<WebSocketFrame>
 
             // Echo Back
             ctx.writeAndFlush(new TextWebSocketFrame(frame.text()));
+        } else if (webSocketFrame instanceof CloseWebSocketFrame frame) {
+
+            // Complete Close handshake
+            ctx.writeAndFlush(frame.retainedDuplicate()).addListener(ChannelFutureListener.CLOSE);
         }
     }
 }
@@ -0,0 +1,252 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.http.websocket;
+
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.HTTPRoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l7.http.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.configuration.http.HttpConfiguration;
+import com.shieldblaze.expressgateway.configuration.tls.TlsClientConfiguration;
+import com.shieldblaze.expressgateway.configuration.tls.TlsServerConfiguration;
+import com.shieldblaze.expressgateway.protocol.http.DefaultHTTPServerInitializer;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancer;
+import com.shieldblaze.expressgateway.protocol.http.loadbalancer.HTTPLoadBalancerBuilder;
+import com.shieldblaze.expressgateway.protocol.tcp.TCPListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput and round trip latency of WebSocket proxy with frame decoding and with raw relay
+ * ({@link HttpConfiguration#setWebSocketRelay(boolean)}) between a client and {@link WebSocketEchoServer}
+ * on loopback. Client writes masked text frames directly to socket, so client overhead is the same for
+ * both modes. Client, proxy and backend share the machine, so results are only comparable between runs
+ * on the same machine. This is run manually instead of as part of the test suite.
+ */
+public class WebSocketRelayBenchmark {
+
+    private static final int[] PAYLOAD_SIZES = {16, 8192};
+    private static final long THROUGHPUT_BYTES = 256L * 1024 * 1024;
+    private static final int MAX_THROUGHPUT_MESSAGES = 1_000_000;
+    private static final int LATENCY_WARMUP_ROUND_TRIPS = 5_000;
+    private static final int LATENCY_ROUND_TRIPS = 20_000;
+
+    private static int nextPort = 9420;
+
+    public static void main(String[] args) throws Exception {
+        WebSocketEchoServer webSocketEchoServer = new WebSocketEchoServer();
+        webSocketEchoServer.startServer();
+
+        benchmark("Frame decoding", false);
+        benchmark("Relay", true);
+
+        webSocketEchoServer.shutdown();
+        System.exit(0);
+    }
+
+    private static void benchmark(String name, boolean relay) throws Exception {
+        int port = nextPort++;
+        HTTPLoadBalancer httpLoadBalancer = start(port, relay);
+        try {
+            for (int payloadSize : PAYLOAD_SIZES) {
+                int messages = (int) Math.min(THROUGHPUT_BYTES / payloadSize, MAX_THROUGHPUT_MESSAGES);
+
+                // Warmup
+                throughput(port, payloadSize, messages / 4);
+                latency(port, payloadSize, LATENCY_WARMUP_ROUND_TRIPS);
+
+                long[] throughput = throughput(port, payloadSize, messages);
+                long[] latency = latency(port, payloadSize, LATENCY_ROUND_TRIPS);
+                System.out.printf("%-16s %5d B frames: %8d frames/s %6.1f MB/s   p50 %4d us   p99 %5d us%n", name + ':', payloadSize,
+                        throughput[0], throughput[1] / (1024 * 1024.0), TimeUnit.NANOSECONDS.toMicros(latency[0]), TimeUnit.NANOSECONDS.toMicros(latency[1]));
+            }
+        } finally {
+            httpLoadBalancer.stop().future().join();
+        }
+    }
+
+    private static HTTPLoadBalancer start(int port, boolean relay) throws Exception {
+        HttpConfiguration httpConfiguration = HttpConfiguration.copyFrom(HttpConfiguration.DEFAULT)
+                .setWebSocketRelay(relay)
+                .validate();
+
+        TlsClientConfiguration tlsClientConfiguration = TlsClientConfiguration.copyFrom(TlsClientConfiguration.DEFAULT);
+        TlsServerConfiguration tlsServerConfiguration = TlsServerConfiguration.copyFrom(TlsServerConfiguration.DEFAULT);
+
+        HTTPLoadBalancer httpLoadBalancer = HTTPLoadBalancerBuilder.newBuilder()
+                .withConfigurationContext(ConfigurationContext.create(httpConfiguration, tlsClientConfiguration, tlsServerConfiguration))
+                .withBindAddress(new InetSocketAddress("127.0.0.1", port))
+                .withL4FrontListener(new TCPListener())
+                .withHTTPInitializer(new DefaultHTTPServerInitializer())
+                .build();
+
+        httpLoadBalancer.start().future().get();
+
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new HTTPRoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        httpLoadBalancer.mapCluster("localhost:" + port, cluster);
+
+        NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("localhost", 5000))
+                .build();
+
+        return httpLoadBalancer;
+    }
+
+    /**
+     * Write frames from a separate thread while reading echoed frames
+     *
+     * @return Frames per second and bytes per second of echoed payload
+     */
+    private static long[] throughput(int port, int payloadSize, int messages) throws Exception {
+        try (SocketChannel client = connect(port)) {
+            ByteBuffer frame = clientFrame(payloadSize);
+            IOException[] failure = new IOException[1];
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < messages; i++) {
+                        write(client, frame.rewind());
+                    }
+                } catch (IOException ex) {
+                    failure[0] = ex;
+                }
+            }, "websocket-benchmark-writer");
+
+            long start = System.nanoTime();
+            writer.start();
+            read(client, ByteBuffer.allocateDirect(65536), (long) messages * serverFrameSize(payloadSize));
+            long elapsed = System.nanoTime() - start;
+            writer.join();
+
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            return new long[]{messages * 1_000_000_000L / elapsed, (long) messages * payloadSize * 1_000_000_000L / elapsed};
+        }
+    }
+
+    /**
+     * Send one frame at a time
+     *
+     * @return Median and 99th percentile round trip time in nanoseconds
+     */
+    private static long[] latency(int port, int payloadSize, int roundTrips) throws IOException {
+        long[] samples = new long[roundTrips];
+        try (SocketChannel client = connect(port)) {
+            ByteBuffer frame = clientFrame(payloadSize);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+            int serverFrameSize = serverFrameSize(payloadSize);
+            for (int i = 0; i < roundTrips; i++) {
+                long start = System.nanoTime();
+                write(client, frame.rewind());
+                read(client, buffer, serverFrameSize);
+                samples[i] = System.nanoTime() - start;
+            }
+        }
+
+        Arrays.sort(samples);
+        return new long[]{samples[roundTrips / 2], samples[(int) (roundTrips * 0.99)]};
+    }
+
+    /**
+     * Connect to proxy and perform WebSocket handshake
+     */
+    private static SocketChannel connect(int port) throws IOException {
+        SocketChannel client = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+        client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        String request = "GET / HTTP/1.1\r\n" +
+                "Host: localhost:" + port + "\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                "Sec-WebSocket-Version: 13\r\n\r\n";
+        write(client, ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII)));
+
+        // Read response one byte at a time, so no frame byte is consumed.
+        StringBuilder response = new StringBuilder();
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        while (!response.toString().endsWith("\r\n\r\n")) {
+            if (client.read(buffer.clear()) == -1) {
+                throw new IOException("Connection closed during handshake: " + response);
+            }
+            response.append((char) buffer.get(0));
+        }
+        if (!response.toString().startsWith("HTTP/1.1 101")) {
+            throw new IOException("Handshake failed: " + response);
+        }
+        return client;
+    }
+
+    /**
+     * Text frame with all-zero masking key, so masked payload is the same as unmasked payload
+     */
+    private static ByteBuffer clientFrame(int payloadSize) {
+        ByteBuffer frame = ByteBuffer.allocateDirect(payloadSize + 8);
+        frame.put((byte) 0x81);
+        if (payloadSize < 126) {
+            frame.put((byte) (0x80 | payloadSize));
+        } else {
+            frame.put((byte) (0x80 | 126));
+            frame.putShort((short) payloadSize);
+        }
+        frame.putInt(0);
+        for (int i = 0; i < payloadSize; i++) {
+            frame.put((byte) 'a');
+        }
+        return frame.flip();
+    }
+
+    private static int serverFrameSize(int payloadSize) {
+        return headerSize(payloadSize) + payloadSize;
+    }
+
+    private static int headerSize(int payloadSize) {
+        return payloadSize < 126 ? 2 : 4;
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void read(SocketChannel channel, ByteBuffer buffer, long bytes) throws IOException {
+        long read = 0;
+        while (read < bytes) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), bytes - read));
+            int n = channel.read(buffer);
+            if (n == -1) {
+                throw new IOException("Connection closed after " + read + " of " + bytes + " bytes");
+            }
+            read += n;
+        }
+    }
+}
@@ -17,8 +17,10 @@
  */
 package com.shieldblaze.expressgateway.protocol.tcp;
 
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.NodeBytesTracker;
+import com.shieldblaze.expressgateway.backend.NodeTlsSessionTracker;
 import com.shieldblaze.expressgateway.core.factory.BootstrapFactory;
 import com.shieldblaze.expressgateway.core.handlers.ConnectionTimeoutHandler;
 import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
@@ -29,6 +31,9 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.ssl.SslHandler;
 
@@ -47,8 +52,13 @@ final class Bootstrapper {
 
     TCPConnection newInit(Node node, Channel channel) {
         TCPConnection tcpConnection = new TCPConnection(node);
+        Duration timeout = Duration.ofMillis(l4LoadBalancer.configurationContext().transportConfiguration().connectionIdleTimeout());
 
-        Bootstrap bootstrap = BootstrapFactory.tcp(l4LoadBalancer.configurationContext(), eventLoopGroup, byteBufAllocator)
+        // Splice requires both channels to be registered on the same EventLoop with level-triggered epoll mode.
+        boolean splice = channel instanceof EpollSocketChannel epollSocketChannel && TCPSplicer.isPrepared(epollSocketChannel);
+        EventLoopGroup group = splice ? channel.eventLoop() : eventLoopGroup;
+
+        Bootstrap bootstrap = BootstrapFactory.tcp(l4LoadBalancer.configurationContext(), group, byteBufAllocator)
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) {
@@ -56,7 +66,10 @@ final class Bootstrapper {
 
                         pipeline.addFirst(new NodeBytesTracker(node));
 
-                        Duration timeout = Duration.ofMillis(l4LoadBalancer.configurationContext().transportConfiguration().connectionIdleTimeout());
+                        if (splice) {
+                            TCPSplicer.prepare((EpollSocketChannel) ch);
+                        }
+
                         pipeline.addLast(new ConnectionTimeoutHandler(timeout, false));
 
                         if (l4LoadBalancer.configurationContext().tlsClientConfiguration().enabled()) {
@@ -68,14 +81,27 @@ final class Bootstrapper {
                                     .newHandler(ch.alloc(), hostname, port);
 
                             pipeline.addLast(sslHandler);
+                            pipeline.addLast(new NodeTlsSessionTracker(node));
                         }
 
-                        pipeline.addLast(new DownstreamHandler(channel, node));
+                        pipeline.addLast(new DownstreamHandler(channel, node, new FlushBatcher(l4LoadBalancer.configurationContext().transportConfiguration()), tcpConnection));
                     }
                 });
 
+        if (splice) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+        }
+
         ChannelFuture channelFuture = bootstrap.connect(node.socketAddress());
         tcpConnection.init(channelFuture);
+
+        if (splice) {
+            channelFuture.addListener(future -> {
+                if (future.isSuccess()) {
+                    new TCPSplicer((EpollSocketChannel) channel, (EpollSocketChannel) channelFuture.channel(), tcpConnection, timeout).start();
+                }
+            });
+        }
         return tcpConnection;
     }
 }
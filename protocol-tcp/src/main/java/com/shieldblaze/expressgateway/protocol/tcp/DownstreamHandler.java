@@ -17,7 +17,9 @@
  */
 package com.shieldblaze.expressgateway.protocol.tcp;
 
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
 import com.shieldblaze.expressgateway.backend.Node;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -33,20 +35,33 @@ final class DownstreamHandler extends ChannelInboundHandlerAdapter {
     private final Channel upstream;
     private final Node node;
     private final InetSocketAddress upstreamAddress;
+    private final FlushBatcher flushBatcher;
+    private final TCPConnection tcpConnection;
 
-    DownstreamHandler(Channel upstream, Node node) {
+    DownstreamHandler(Channel upstream, Node node, FlushBatcher flushBatcher, TCPConnection tcpConnection) {
         this.upstream = upstream;
         this.node = node;
+        this.tcpConnection = tcpConnection;
         this.upstreamAddress = (InetSocketAddress) upstream.remoteAddress();
+        this.flushBatcher = flushBatcher;
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        upstream.writeAndFlush(msg, upstream.voidPromise()); // Write Data back to Client
+        if (msg instanceof ByteBuf byteBuf) {
+            tcpConnection.incBytesToClient(byteBuf.readableBytes());
+        }
+        flushBatcher.write(upstream, msg); // Write Data back to Client
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        flushBatcher.flush();
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
+        flushBatcher.flush();
         if (logger.isInfoEnabled()) {
             logger.info("Closing Upstream {} and Downstream {} Channel",
                     upstreamAddress.getAddress().getHostAddress() + ":" + upstreamAddress.getPort(),
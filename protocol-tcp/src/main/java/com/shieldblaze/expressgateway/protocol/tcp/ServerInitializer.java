@@ -23,6 +23,8 @@ import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,6 +46,13 @@ final class ServerInitializer extends ChannelInitializer<SocketChannel> {
         ChannelPipeline pipeline = ch.pipeline();
         pipeline.addLast(l4LoadBalancer.connectionTracker());
 
+        // TCPListener sets level-triggered epoll mode when splice is available.
+        if (ch instanceof EpollSocketChannel epollSocketChannel &&
+                epollSocketChannel.config().getEpollMode() == EpollMode.LEVEL_TRIGGERED &&
+                TCPSplicer.isAvailable(l4LoadBalancer.configurationContext())) {
+            TCPSplicer.prepare(epollSocketChannel);
+        }
+
         Duration timeout = Duration.ofMillis(l4LoadBalancer.configurationContext()
                 .transportConfiguration()
                 .connectionIdleTimeout());
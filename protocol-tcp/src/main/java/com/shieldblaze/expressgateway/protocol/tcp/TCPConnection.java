@@ -23,10 +23,48 @@ import io.netty.channel.ChannelFuture;
 
 final class TCPConnection extends Connection {
 
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Each counter is only incremented by EventLoop which reads those bytes
+     */
+    private volatile long bytesFromClient;
+    private volatile long bytesToClient;
+
     TCPConnection(Node node) {
         super(node);
     }
 
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    void incBytesFromClient(int bytes) {
+        bytesFromClient += bytes;
+    }
+
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
+    void incBytesToClient(int bytes) {
+        if (bytesToClient == 0 && bytes > 0) {
+            node().recordTimeToFirstByte(System.nanoTime() - startNanos);
+        }
+        bytesToClient += bytes;
+    }
+
+    long bytesFromClient() {
+        return bytesFromClient;
+    }
+
+    long bytesToClient() {
+        return bytesToClient;
+    }
+
+    /**
+     * Record duration of this connection into {@link Node} if it was established
+     */
+    void recordDuration() {
+        if (channelFuture != null && channelFuture.isSuccess()) {
+            node().recordDuration(System.nanoTime() - startNanos);
+        }
+    }
+
     @Override
     protected void processBacklog(ChannelFuture channelFuture) {
         if (channelFuture.isSuccess()) {
@@ -30,6 +30,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.epoll.EpollServerSocketChannelConfig;
@@ -63,8 +64,10 @@ public class TCPListener extends L4FrontListener {
         ByteBufAllocator byteBufAllocator = l4LoadBalancer().byteBufAllocator();
 
         ChannelHandler channelHandler;
+        boolean splice = false;
         if (l4LoadBalancer().channelHandler() == null) {
             channelHandler = new ServerInitializer(l4LoadBalancer());
+            splice = TCPSplicer.isAvailable(l4LoadBalancer().configurationContext());
         } else {
             channelHandler = l4LoadBalancer().channelHandler();
         }
@@ -80,6 +83,7 @@ public class TCPListener extends L4FrontListener {
                 .childOption(ChannelOption.SO_SNDBUF, transportConfiguration.socketSendBufferSize())
                 .childOption(ChannelOption.SO_RCVBUF, transportConfiguration.socketReceiveBufferSize())
                 .childOption(ChannelOption.RCVBUF_ALLOCATOR, transportConfiguration.recvByteBufAllocator())
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, transportConfiguration.writeBufferWaterMark())
                 .channelFactory(() -> {
                     if (transportConfiguration.transportType() == TransportType.IO_URING) {
                         IOUringServerSocketChannel serverSocketChannel = new IOUringServerSocketChannel();
@@ -101,6 +105,11 @@ public class TCPListener extends L4FrontListener {
                 })
                 .childHandler(channelHandler);
 
+        // Splice requires level-triggered epoll mode and it can only be set before registration.
+        if (splice) {
+            serverBootstrap.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+        }
+
         int bindRounds = 1;
         if (transportConfiguration.transportType().nativeTransport()) {
             bindRounds = l4LoadBalancer().configurationContext().eventLoopConfiguration().parentWorkers();
@@ -150,7 +159,7 @@ public class TCPListener extends L4FrontListener {
         L4FrontListenerShutdownEvent shutdownEvent = new L4FrontListenerShutdownEvent();
 
         event.future().whenCompleteAsync((_void, throwable) -> {
-            l4LoadBalancer().clusters().clear();
+            l4LoadBalancer().clearClusters();
             l4LoadBalancer().eventLoopFactory().parentGroup().shutdownGracefully();
             l4LoadBalancer().eventLoopFactory().childGroup().shutdownGracefully();
             shutdownEvent.markSuccess();
@@ -0,0 +1,289 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.tcp;
+
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.configuration.transport.TransportType;
+import com.shieldblaze.expressgateway.core.handlers.ConnectionTimeoutHandler;
+import com.shieldblaze.expressgateway.core.handlers.IdleTimeout;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.util.UncheckedBooleanSupplier;
+
+import java.time.Duration;
+import java.util.function.IntConsumer;
+
+/**
+ * <p> {@link TCPSplicer} forwards data between Upstream and Downstream {@link EpollSocketChannel}
+ * using splice(2). Data is moved from socket to socket through a pipe without being copied into user space. </p>
+ *
+ * <p> Spliced data never passes through {@link ChannelPipeline}, so spliced bytes are accounted to {@link Node}
+ * and {@link TCPConnection} from the {@link RecvByteBufAllocator.Handle} of each channel. Idle connections are detected
+ * by {@link IdleTimeout} instead of {@link ConnectionTimeoutHandler}, splicing in either direction defers it,
+ * so connections are closed only once both directions are idle. </p>
+ *
+ * <p> Both channels run with {@link ChannelOption#ALLOW_HALF_CLOSURE} while spliced. When one side shuts down
+ * its output, data still queued in its socket is spliced to the other side before the shutdown is propagated.
+ * Both channels are closed once both directions are done. </p>
+ */
+final class TCPSplicer {
+
+    private final EpollSocketChannel upstream;
+    private final EpollSocketChannel downstream;
+    private final Duration timeout;
+    private final Direction upstreamToDownstream;
+    private final Direction downstreamToUpstream;
+    private IdleTimeout idleTimeout;
+
+    TCPSplicer(EpollSocketChannel upstream, EpollSocketChannel downstream, TCPConnection tcpConnection, Duration timeout) {
+        this.upstream = upstream;
+        this.downstream = downstream;
+        this.timeout = timeout;
+
+        Node node = tcpConnection.node();
+        upstreamToDownstream = new Direction(upstream, downstream, bytes -> {
+            node.incBytesSent(bytes);
+            tcpConnection.incBytesFromClient(bytes);
+        });
+        downstreamToUpstream = new Direction(downstream, upstream, bytes -> {
+            node.incBytesReceived(bytes);
+            tcpConnection.incBytesToClient(bytes);
+        });
+    }
+
+    /**
+     * Returns {@code true} if connections can be spliced using the given {@link ConfigurationContext}.
+     * Splice requires {@link TransportType#EPOLL} and must not be used when TLS is enabled on
+     * either side because data must be decrypted and encrypted in user space.
+     */
+    static boolean isAvailable(ConfigurationContext configurationContext) {
+        return configurationContext.transportConfiguration().tcpSplice() &&
+                configurationContext.transportConfiguration().transportType() == TransportType.EPOLL &&
+                !configurationContext.tlsServerConfiguration().enabled() &&
+                !configurationContext.tlsClientConfiguration().enabled();
+    }
+
+    /**
+     * Prepare a {@link EpollSocketChannel} for splicing. This method must be called
+     * before the channel reads any data, i.e. from {@link io.netty.channel.ChannelInitializer}.
+     */
+    static void prepare(EpollSocketChannel channel) {
+        ChannelConfig config = channel.config();
+        config.setRecvByteBufAllocator(new SpliceRecvByteBufAllocator(config.getRecvByteBufAllocator()));
+    }
+
+    /**
+     * Returns {@code true} if the given {@link EpollSocketChannel} has been prepared for splicing
+     */
+    static boolean isPrepared(EpollSocketChannel channel) {
+        return channel.config().getRecvByteBufAllocator() instanceof SpliceRecvByteBufAllocator;
+    }
+
+    /**
+     * Start splicing in both directions. This method must be called from the {@link io.netty.channel.EventLoop}
+     * shared by Upstream and Downstream channels once Downstream channel is connected.
+     */
+    void start() {
+        // Upstream may have been closed while Downstream was connecting.
+        if (!upstream.isActive() || !downstream.isActive()) {
+            return;
+        }
+
+        upstream.pipeline().remove(ConnectionTimeoutHandler.class);
+        downstream.pipeline().remove(ConnectionTimeoutHandler.class);
+
+        idleTimeout = new IdleTimeout(upstream.eventLoop(), timeout, this::close);
+        upstream.closeFuture().addListener(future -> idleTimeout.cancel());
+
+        upstreamToDownstream.start();
+        downstreamToUpstream.start();
+    }
+
+    private void closeIfDone() {
+        if (upstreamToDownstream.done && downstreamToUpstream.done) {
+            close();
+        }
+    }
+
+    private void close() {
+        upstream.close();
+        downstream.close();
+    }
+
+    /**
+     * One direction of splicing, from source channel to target channel.
+     */
+    private final class Direction {
+        private final EpollSocketChannel source;
+        private final EpollSocketChannel target;
+        private final IntConsumer bytesCounter;
+        private int bytesSplicedInRead;
+        private boolean done;
+
+        private Direction(EpollSocketChannel source, EpollSocketChannel target, IntConsumer bytesCounter) {
+            this.source = source;
+            this.target = target;
+            this.bytesCounter = bytesCounter;
+        }
+
+        private void start() {
+            source.config().setOption(ChannelOption.ALLOW_HALF_CLOSURE, true);
+            ((SpliceRecvByteBufAllocator) source.config().getRecvByteBufAllocator()).direction = this;
+
+            // Integer.MAX_VALUE splices until one of the channels is closed.
+            source.spliceTo(target, Integer.MAX_VALUE);
+        }
+
+        private void readStarted() {
+            bytesSplicedInRead = 0;
+        }
+
+        private void bytesSpliced(int bytes) {
+            if (bytes > 0) {
+                bytesSplicedInRead += bytes;
+                bytesCounter.accept(bytes);
+                idleTimeout.touch();
+            }
+        }
+
+        /**
+         * Called once a read from the source channel has finished. While the source input is open,
+         * level-triggered epoll drives splicing. Once it has been shut down we drive remaining reads ourselves
+         * because a socket at EOF stays readable.
+         */
+        private void readComplete() {
+            if (done || !source.isInputShutdown()) {
+                return;
+            }
+
+            source.config().setAutoRead(false);
+
+            ChannelOutboundBuffer outboundBuffer = target.unsafe().outboundBuffer();
+            if (bytesSplicedInRead == 0 && (outboundBuffer == null || outboundBuffer.isEmpty())) {
+                done = true;
+                target.shutdownOutput().addListener((ChannelFutureListener) future -> closeIfDone());
+            } else {
+                // Read again once everything spliced so far has been written to the target channel.
+                // Read is triggered from a task because EPOLLIN is cleared when the current read finishes.
+                target.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener((ChannelFutureListener) future -> {
+                    if (future.isSuccess()) {
+                        source.eventLoop().execute(source::read);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * {@link RecvByteBufAllocator} which reports bytes read from socket to {@link Direction}.
+     */
+    private static final class SpliceRecvByteBufAllocator implements RecvByteBufAllocator {
+        private final RecvByteBufAllocator delegate;
+        private Direction direction;
+
+        private SpliceRecvByteBufAllocator(RecvByteBufAllocator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Handle newHandle() {
+            return new SpliceHandle((ExtendedHandle) delegate.newHandle());
+        }
+
+        private final class SpliceHandle implements ExtendedHandle {
+            private final ExtendedHandle delegate;
+
+            private SpliceHandle(ExtendedHandle delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public ByteBuf allocate(ByteBufAllocator alloc) {
+                return delegate.allocate(alloc);
+            }
+
+            @Override
+            public int guess() {
+                return delegate.guess();
+            }
+
+            @Override
+            public void reset(ChannelConfig config) {
+                delegate.reset(config);
+                if (direction != null) {
+                    direction.readStarted();
+                }
+            }
+
+            @Override
+            public void incMessagesRead(int numMessages) {
+                delegate.incMessagesRead(numMessages);
+            }
+
+            @Override
+            public void lastBytesRead(int bytes) {
+                delegate.lastBytesRead(bytes);
+                if (direction != null) {
+                    direction.bytesSpliced(bytes);
+                }
+            }
+
+            @Override
+            public int lastBytesRead() {
+                return delegate.lastBytesRead();
+            }
+
+            @Override
+            public void attemptedBytesRead(int bytes) {
+                delegate.attemptedBytesRead(bytes);
+            }
+
+            @Override
+            public int attemptedBytesRead() {
+                return delegate.attemptedBytesRead();
+            }
+
+            @Override
+            public boolean continueReading() {
+                return delegate.continueReading();
+            }
+
+            @Override
+            public boolean continueReading(UncheckedBooleanSupplier maybeMoreDataSupplier) {
+                return delegate.continueReading(maybeMoreDataSupplier);
+            }
+
+            @Override
+            public void readComplete() {
+                delegate.readComplete();
+                if (direction != null) {
+                    direction.readComplete();
+                }
+            }
+        }
+    }
+}
@@ -18,10 +18,14 @@
 package com.shieldblaze.expressgateway.protocol.tcp;
 
 import com.shieldblaze.expressgateway.backend.Connection;
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
 import com.shieldblaze.expressgateway.backend.strategy.l4.L4Request;
 import com.shieldblaze.expressgateway.backend.strategy.l4.L4Response;
+import com.shieldblaze.expressgateway.core.accesslog.AccessLog;
 import com.shieldblaze.expressgateway.core.handlers.ConnectionTimeoutHandler;
 import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.apache.logging.log4j.LogManager;
@@ -35,17 +39,28 @@ final class UpstreamHandler extends ChannelInboundHandlerAdapter {
 
     private final L4LoadBalancer l4LoadBalancer;
     private final Bootstrapper bootstrapper;
+    private final FlushBatcher flushBatcher;
     private TCPConnection tcpConnection;
+    private String clusterHostname;
+    private long startMillis;
+    private long startNanos;
 
     UpstreamHandler(L4LoadBalancer l4LoadBalancer) {
         this.l4LoadBalancer = l4LoadBalancer;
         bootstrapper = new Bootstrapper(l4LoadBalancer);
+        flushBatcher = new FlushBatcher(l4LoadBalancer.configurationContext().transportConfiguration());
     }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        startMillis = System.currentTimeMillis();
+        startNanos = System.nanoTime();
+
         try {
-            L4Response response = (L4Response) l4LoadBalancer.defaultCluster().nextNode(new L4Request((InetSocketAddress) ctx.channel().remoteAddress()));
+            Cluster cluster = l4LoadBalancer.defaultCluster();
+            clusterHostname = l4LoadBalancer.hostIndex().hostname(cluster);
+
+            L4Response response = (L4Response) cluster.nextNode(new L4Request((InetSocketAddress) ctx.channel().remoteAddress()));
 
             // Close the connection since we have no node available to handle this request
             if (response == L4Response.NO_NODE) {
@@ -67,11 +82,21 @@ final class UpstreamHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        tcpConnection.writeAndFlush(msg);
+        if (msg instanceof ByteBuf byteBuf) {
+            tcpConnection.incBytesFromClient(byteBuf.readableBytes());
+        }
+        flushBatcher.write(tcpConnection, msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        flushBatcher.flush();
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
+        flushBatcher.flush();
+
         if (logger.isInfoEnabled()) {
             InetSocketAddress socketAddress = ((InetSocketAddress) ctx.channel().remoteAddress());
             if (tcpConnection == null || tcpConnection.socketAddress() == null) {
@@ -87,8 +112,19 @@ final class UpstreamHandler extends ChannelInboundHandlerAdapter {
             ctx.channel().close();
         }
 
-        if (tcpConnection != null && tcpConnection.state() == Connection.State.CONNECTED_AND_ACTIVE) {
-            tcpConnection.close();
+        if (tcpConnection != null) {
+            tcpConnection.recordDuration();
+            if (tcpConnection.state() == Connection.State.CONNECTED_AND_ACTIVE) {
+                tcpConnection.close();
+            }
+        }
+
+        AccessLog accessLog = l4LoadBalancer.accessLog();
+        if (accessLog != null) {
+            accessLog.logConnection(startMillis, System.nanoTime() - startNanos, ctx.channel().remoteAddress(), clusterHostname,
+                    tcpConnection == null ? null : tcpConnection.node(),
+                    tcpConnection == null ? 0 : tcpConnection.bytesFromClient(),
+                    tcpConnection == null ? 0 : tcpConnection.bytesToClient());
         }
     }
 
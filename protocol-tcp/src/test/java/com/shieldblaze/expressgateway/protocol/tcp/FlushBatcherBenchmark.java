@@ -0,0 +1,251 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.tcp;
+
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l4.RoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.configuration.transport.ReceiveBufferAllocationType;
+import com.shieldblaze.expressgateway.configuration.transport.TransportConfiguration;
+import com.shieldblaze.expressgateway.configuration.transport.TransportType;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancerBuilder;
+import io.netty.channel.epoll.Epoll;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures write syscalls and throughput of TCP proxy with {@link FlushBatcher} disabled
+ * (flush on every write) and enabled. Splice is disabled so data passes through proxy handlers.
+ * Write syscalls are read from {@code /proc/self/io} and client writes are subtracted,
+ * backends do not write while streaming. Epoll sends a single buffer with send(2), which is
+ * not accounted in {@code /proc/self/io}, so syscalls are only reported for NIO.
+ * Results depend on kernel and hardware, so this is run manually instead of as part of the test suite.
+ */
+public class FlushBatcherBenchmark {
+
+    private static final int SINK_PORT = 9400;
+    private static final int ECHO_PORT = 9401;
+    private static final int STREAM_BYTES = 256 * 1024 * 1024;
+    private static final int MESSAGE_SIZE = 128;
+    private static final int MESSAGES = 1_000_000;
+    private static final int WARMUP_ROUND_TRIPS = 5_000;
+    private static final int ROUND_TRIPS = 20_000;
+
+    private static int nextPort = 9410;
+
+    public static void main(String[] args) throws Exception {
+        startSink();
+        startEcho();
+
+        List<TransportType> transportTypes = Epoll.isAvailable() ? List.of(TransportType.NIO, TransportType.EPOLL) : List.of(TransportType.NIO);
+        for (TransportType transportType : transportTypes) {
+            for (ReceiveBufferAllocationType allocationType : ReceiveBufferAllocationType.values()) {
+                String name = transportType + " " + allocationType;
+                benchmark(name + ", no batching", configuration(transportType, allocationType).setFlushConsolidationLimit(0));
+                benchmark(name + ", batching", configuration(transportType, allocationType));
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Fixed allocation reads 4 KB at a time, so a read burst of a busy connection has many reads.
+     */
+    private static TransportConfiguration configuration(TransportType transportType, ReceiveBufferAllocationType allocationType) {
+        return new TransportConfiguration()
+                .setTransportType(transportType)
+                .setReceiveBufferAllocationType(allocationType)
+                .setReceiveBufferSizes(allocationType == ReceiveBufferAllocationType.FIXED ? new int[]{4096} : new int[]{512, 9001, 65535})
+                .setTcpConnectionBacklog(1000)
+                .setSocketReceiveBufferSize(67_108_864)
+                .setSocketSendBufferSize(67_108_864)
+                .setTcpFastOpenMaximumPendingRequests(100)
+                .setBackendConnectTimeout(1000 * 10)
+                .setConnectionIdleTimeout(1000 * 120)
+                .setTcpSplice(false);
+    }
+
+    private static void benchmark(String name, TransportConfiguration transportConfiguration) throws Exception {
+        transportConfiguration.validate();
+
+        L4LoadBalancer sink = start(transportConfiguration, SINK_PORT);
+        L4LoadBalancer echo = start(transportConfiguration, ECHO_PORT);
+        try {
+            // Warmup
+            stream(sink.bindAddress().getPort(), STREAM_BYTES / 4, 65536);
+            stream(sink.bindAddress().getPort(), STREAM_BYTES / 16, MESSAGE_SIZE);
+
+            long[] bulk = stream(sink.bindAddress().getPort(), STREAM_BYTES, 65536);
+            long[] small = stream(sink.bindAddress().getPort(), MESSAGES * MESSAGE_SIZE, MESSAGE_SIZE);
+            long[] latency = latency(echo.bindAddress().getPort());
+
+            boolean syscalls = transportConfiguration.transportType() == TransportType.NIO;
+            System.out.printf("%-30s bulk: %5d MB/s %8s writes/GB   %d B writes: %4d MB/s %8s writes/GB   p50 %4d us   p99 %5d us%n",
+                    name + ':', bulk[0], syscalls ? bulk[1] : "-", MESSAGE_SIZE, small[0], syscalls ? small[1] : "-",
+                    TimeUnit.NANOSECONDS.toMicros(latency[0]), TimeUnit.NANOSECONDS.toMicros(latency[1]));
+        } finally {
+            sink.stop().future().join();
+            echo.stop().future().join();
+        }
+    }
+
+    private static L4LoadBalancer start(TransportConfiguration transportConfiguration, int backendPort) throws Exception {
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        L4LoadBalancer l4LoadBalancer = L4LoadBalancerBuilder.newBuilder()
+                .withCoreConfiguration(ConfigurationContext.create(transportConfiguration))
+                .withBindAddress(new InetSocketAddress("127.0.0.1", nextPort++))
+                .withL4FrontListener(new TCPListener())
+                .build();
+
+        l4LoadBalancer.defaultCluster(cluster);
+
+        NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("127.0.0.1", backendPort))
+                .build();
+
+        l4LoadBalancer.start().future().join();
+        return l4LoadBalancer;
+    }
+
+    /**
+     * Stream bytes to sink backend through proxy in writes of given size
+     *
+     * @return MB per second and proxy write syscalls per GB
+     */
+    private static long[] stream(int port, long bytes, int writeSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(writeSize);
+        long clientWrites = 0;
+
+        try (SocketChannel client = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            long startWrites = writeSyscalls();
+            long startTime = System.nanoTime();
+
+            for (long written = 0; written < bytes; written += writeSize) {
+                // Blocking write is a single syscall which writes the whole buffer.
+                client.write(buffer.clear());
+                clientWrites++;
+            }
+
+            // Sink replies once all bytes of this connection have been received.
+            client.shutdownOutput();
+            client.read(ByteBuffer.allocate(1));
+
+            long elapsed = System.nanoTime() - startTime;
+            long proxyWrites = writeSyscalls() - startWrites - clientWrites;
+            return new long[]{bytes * 1_000_000_000L / elapsed / (1024 * 1024), proxyWrites * (1024L * 1024 * 1024) / bytes};
+        }
+    }
+
+    /**
+     * Send one message at a time to echo backend through proxy
+     *
+     * @return Median and 99th percentile round trip time in nanoseconds
+     */
+    private static long[] latency(int port) throws IOException {
+        long[] samples = new long[ROUND_TRIPS];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+
+        try (SocketChannel client = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            for (int i = 0; i < WARMUP_ROUND_TRIPS + ROUND_TRIPS; i++) {
+                long start = System.nanoTime();
+                client.write(buffer.clear());
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    client.read(buffer);
+                }
+                if (i >= WARMUP_ROUND_TRIPS) {
+                    samples[i - WARMUP_ROUND_TRIPS] = System.nanoTime() - start;
+                }
+            }
+        }
+
+        Arrays.sort(samples);
+        return new long[]{samples[ROUND_TRIPS / 2], samples[(int) (ROUND_TRIPS * 0.99)]};
+    }
+
+    private static long writeSyscalls() throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc/self/io"))) {
+            if (line.startsWith("syscw:")) {
+                return Long.parseLong(line.substring(6).trim());
+            }
+        }
+        throw new IllegalStateException("syscw not found in /proc/self/io");
+    }
+
+    /**
+     * Backend which reads until end of stream and then writes a single byte
+     */
+    private static void startSink() throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", SINK_PORT));
+        Thread thread = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+            while (true) {
+                try (SocketChannel channel = server.accept()) {
+                    while (channel.read(buffer.clear()) != -1) {
+                        // Discard
+                    }
+                    channel.write(ByteBuffer.wrap(new byte[1]));
+                } catch (IOException ex) {
+                    // Connection failed, accept next one
+                }
+            }
+        }, "tcp-sink-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void startEcho() throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", ECHO_PORT));
+        Thread thread = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+            while (true) {
+                try (SocketChannel channel = server.accept()) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    while (channel.read(buffer.clear()) != -1) {
+                        channel.write(buffer.flip());
+                    }
+                } catch (IOException ex) {
+                    // Connection failed, accept next one
+                }
+            }
+        }, "tcp-echo-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.tcp;
+
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l4.RoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.configuration.transport.ReceiveBufferAllocationType;
+import com.shieldblaze.expressgateway.configuration.transport.TransportConfiguration;
+import com.shieldblaze.expressgateway.configuration.transport.TransportType;
+import com.shieldblaze.expressgateway.core.events.L4FrontListenerStartupEvent;
+import com.shieldblaze.expressgateway.core.events.L4FrontListenerStopEvent;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancerBuilder;
+import io.netty.channel.epoll.Epoll;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+final class TCPSplicerTest {
+
+    private static final int DATA_SIZE = 1024 * 1024 * 4;
+    private static final int DOWNLOAD_CHUNKS = 30;
+
+    static L4LoadBalancer l4LoadBalancer;
+    static L4LoadBalancer idleL4LoadBalancer;
+    static Node node;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        assumeTrue(Epoll.isAvailable(), "Splice requires Epoll");
+
+        new EchoServer().start();
+        new DownloadServer().start();
+
+        l4LoadBalancer = start(9120, 9121, 1000 * 120);
+        idleL4LoadBalancer = start(9122, 9123, 1000);
+        node = l4LoadBalancer.defaultCluster().onlineNodes().get(0);
+    }
+
+    private static L4LoadBalancer start(int port, int backendPort, int idleTimeout) throws Exception {
+        TransportConfiguration transportConfiguration = new TransportConfiguration()
+                .setTransportType(TransportType.EPOLL)
+                .setReceiveBufferAllocationType(ReceiveBufferAllocationType.ADAPTIVE)
+                .setReceiveBufferSizes(new int[]{512, 9001, 65535})
+                .setTcpConnectionBacklog(1000)
+                .setSocketReceiveBufferSize(67_108_864)
+                .setSocketSendBufferSize(67_108_864)
+                .setTcpFastOpenMaximumPendingRequests(100)
+                .setBackendConnectTimeout(1000 * 10)
+                .setConnectionIdleTimeout(idleTimeout)
+                .setTcpSplice(true)
+                .validate();
+
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        L4LoadBalancer l4LoadBalancer = L4LoadBalancerBuilder.newBuilder()
+                .withCoreConfiguration(ConfigurationContext.create(transportConfiguration))
+                .withBindAddress(new InetSocketAddress("127.0.0.1", port))
+                .withL4FrontListener(new TCPListener())
+                .build();
+
+        l4LoadBalancer.defaultCluster(cluster);
+
+        NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("127.0.0.1", backendPort))
+                .build();
+
+        L4FrontListenerStartupEvent l4FrontListenerStartupEvent = l4LoadBalancer.start();
+        l4FrontListenerStartupEvent.future().join();
+        assertTrue(l4FrontListenerStartupEvent.isSuccess());
+        return l4LoadBalancer;
+    }
+
+    @AfterAll
+    static void stop() {
+        if (l4LoadBalancer != null) {
+            L4FrontListenerStopEvent l4FrontListenerStopEvent = l4LoadBalancer.stop();
+            l4FrontListenerStopEvent.future().join();
+            assertTrue(l4FrontListenerStopEvent.isSuccess());
+        }
+        if (idleL4LoadBalancer != null) {
+            L4FrontListenerStopEvent l4FrontListenerStopEvent = idleL4LoadBalancer.stop();
+            l4FrontListenerStopEvent.future().join();
+            assertTrue(l4FrontListenerStopEvent.isSuccess());
+        }
+    }
+
+    @Test
+    void spliceAndAccountBytes() throws Exception {
+        byte[] data = new byte[DATA_SIZE];
+        new Random().nextBytes(data);
+
+        try (Socket client = new Socket("127.0.0.1", 9120)) {
+            OutputStream out = client.getOutputStream();
+            DataInputStream in = new DataInputStream(client.getInputStream());
+
+            Thread writer = new Thread(() -> {
+                try {
+                    out.write(data);
+                    out.flush();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            });
+            writer.start();
+
+            byte[] received = new byte[DATA_SIZE];
+            in.readFully(received);
+            writer.join();
+
+            assertArrayEquals(data, received);
+
+            // Backend has closed the connection after echoing everything back.
+            assertEquals(-1, in.read());
+        }
+
+        assertEquals(DATA_SIZE, node.bytesSent());
+        assertEquals(DATA_SIZE, node.bytesReceived());
+    }
+
+    @Test
+    void closeOnlyWhenBothDirectionsIdle() throws Exception {
+        try (Socket client = new Socket("127.0.0.1", 9122)) {
+            client.setSoTimeout(10_000);
+            InputStream in = client.getInputStream();
+
+            // Backend streams for 3 seconds while client sends nothing. Idle timeout
+            // is 1 second, so connection must survive until the stream has stopped.
+            long start = System.nanoTime();
+            byte[] buffer = new byte[8192];
+            int total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(DOWNLOAD_CHUNKS * 1024, total);
+
+            // Backend keeps its socket open, so end of stream comes from idle timeout.
+            assertTrue(elapsedMillis < 8000, "Connection was not closed by idle timeout");
+        }
+    }
+
+    private static final class EchoServer extends Thread {
+
+        @Override
+        public void run() {
+            try (ServerSocket serverSocket = new ServerSocket(9121, 1000, InetAddress.getByName("127.0.0.1"));
+                 Socket clientSocket = serverSocket.accept()) {
+                InputStream input = clientSocket.getInputStream();
+                OutputStream out = clientSocket.getOutputStream();
+
+                byte[] buffer = new byte[8192];
+                int total = 0;
+                int read;
+                while (total < DATA_SIZE && (read = input.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    total += read;
+                }
+                out.flush();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private static final class DownloadServer extends Thread {
+
+        private DownloadServer() {
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try (ServerSocket serverSocket = new ServerSocket(9123, 1000, InetAddress.getByName("127.0.0.1"));
+                 Socket clientSocket = serverSocket.accept()) {
+                OutputStream out = clientSocket.getOutputStream();
+
+                byte[] chunk = new byte[1024];
+                for (int i = 0; i < DOWNLOAD_CHUNKS; i++) {
+                    out.write(chunk);
+                    out.flush();
+                    Thread.sleep(100);
+                }
+
+                // Keep connection open, only load balancer may close it.
+                Thread.sleep(30_000);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+}
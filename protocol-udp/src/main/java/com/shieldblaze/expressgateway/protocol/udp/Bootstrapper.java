@@ -17,6 +17,7 @@
  */
 package com.shieldblaze.expressgateway.protocol.udp;
 
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.NodeBytesTracker;
 import com.shieldblaze.expressgateway.core.factory.BootstrapFactory;
@@ -28,7 +29,6 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.EventLoopGroup;
 
 import java.net.InetSocketAddress;
 import java.time.Duration;
@@ -36,19 +36,21 @@ import java.time.Duration;
 final class Bootstrapper {
 
     private final L4LoadBalancer l4LoadBalancer;
-    private final EventLoopGroup eventLoopGroup;
     private final ByteBufAllocator byteBufAllocator;
 
-    Bootstrapper(L4LoadBalancer l4LoadBalancer, EventLoopGroup eventLoopGroup, ByteBufAllocator byteBufAllocator) {
+    Bootstrapper(L4LoadBalancer l4LoadBalancer, ByteBufAllocator byteBufAllocator) {
         this.l4LoadBalancer = l4LoadBalancer;
-        this.eventLoopGroup = eventLoopGroup;
         this.byteBufAllocator = byteBufAllocator;
     }
 
+    /**
+     * Create a new {@link UDPConnection} to {@link Node}. Downstream channel is registered
+     * on event loop of Upstream channel, so both ends of a flow are handled by a single thread.
+     */
     UDPConnection newInit(Channel channel, Node node, InetSocketAddress socketAddress) {
         UDPConnection udpConnection = new UDPConnection(node);
 
-        Bootstrap bootstrap = BootstrapFactory.udp(l4LoadBalancer.configurationContext(), eventLoopGroup, byteBufAllocator);
+        Bootstrap bootstrap = BootstrapFactory.udp(l4LoadBalancer.configurationContext(), channel.eventLoop(), byteBufAllocator);
         bootstrap.handler(new ChannelInitializer<>() {
             @Override
             protected void initChannel(Channel ch) {
@@ -57,7 +59,8 @@ final class Bootstrapper {
                 Duration timeout = Duration.ofMillis(l4LoadBalancer.configurationContext().transportConfiguration().connectionIdleTimeout());
                 pipeline.addLast(new NodeBytesTracker(node));
                 pipeline.addLast(new ConnectionTimeoutHandler(timeout, false));
-                pipeline.addLast(new DownstreamHandler(channel, socketAddress, udpConnection));
+                boolean gso = l4LoadBalancer.configurationContext().transportConfiguration().udpGso();
+                pipeline.addLast(new DownstreamHandler(channel, socketAddress, udpConnection, new FlushBatcher(l4LoadBalancer.configurationContext().transportConfiguration()), gso));
             }
         });
 
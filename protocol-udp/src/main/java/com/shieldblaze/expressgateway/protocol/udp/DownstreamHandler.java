@@ -17,6 +17,8 @@
  */
 package com.shieldblaze.expressgateway.protocol.udp;
 
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import com.shieldblaze.expressgateway.core.handlers.ConnectionTimeoutHandler;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -33,21 +35,63 @@ final class DownstreamHandler extends ChannelInboundHandlerAdapter {
     private final Channel channel;
     private final UDPConnection udpConnection;
     private final InetSocketAddress socketAddress;
+    private final FlushBatcher flushBatcher;
+    private final SegmentedDatagramBatcher segmentedDatagramBatcher;
 
-    DownstreamHandler(Channel channel, InetSocketAddress socketAddress, UDPConnection udpConnection) {
+    /**
+     * Create a new {@link DownstreamHandler} Instance
+     *
+     * @param channel       Upstream {@link Channel}
+     * @param socketAddress Client {@link InetSocketAddress}
+     * @param udpConnection {@link UDPConnection} of this flow
+     * @param flushBatcher  {@link FlushBatcher} for writes into Upstream {@link Channel}
+     * @param gso           Set to {@code true} to coalesce datagrams of a read burst using UDP GSO
+     *                      if Upstream {@link Channel} supports it
+     */
+    DownstreamHandler(Channel channel, InetSocketAddress socketAddress, UDPConnection udpConnection, FlushBatcher flushBatcher, boolean gso) {
         this.channel = channel;
         this.udpConnection = udpConnection;
         this.socketAddress = socketAddress;
+        this.flushBatcher = flushBatcher;
+
+        if (gso && SegmentedDatagramBatcher.isSupported(channel)) {
+            segmentedDatagramBatcher = new SegmentedDatagramBatcher(channel, socketAddress, flushBatcher);
+        } else {
+            segmentedDatagramBatcher = null;
+        }
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         DatagramPacket packet = (DatagramPacket) msg;
-        channel.writeAndFlush(new DatagramPacket(packet.content(), socketAddress), channel.voidPromise()); // Write Data back to Client
+
+        // Write Data back to Client
+        if (segmentedDatagramBatcher != null) {
+            segmentedDatagramBatcher.write(packet.content());
+        } else {
+            flushBatcher.write(channel, new DatagramPacket(packet.content(), socketAddress));
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        flush();
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        // No datagram has been sent by Client for idle timeout, close this flow.
+        if (evt == ConnectionTimeoutHandler.State.DOWNSTREAM_WRITE_IDLE) {
+            ctx.channel().close();
+        } else {
+            super.userEventTriggered(ctx, evt);
+        }
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
+        flush();
+
         if (logger.isDebugEnabled()) {
             logger.debug("Closing Upstream {} and Downstream {} Channel",
                     socketAddress.getAddress().getHostAddress() + ":" + socketAddress.getPort(),
@@ -58,6 +102,14 @@ final class DownstreamHandler extends ChannelInboundHandlerAdapter {
         ctx.channel().close(); // Close Downstream Channel
     }
 
+    private void flush() {
+        if (segmentedDatagramBatcher != null) {
+            segmentedDatagramBatcher.flush();
+        } else {
+            flushBatcher.flush();
+        }
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         logger.error("Caught Error at Downstream Handler", cause);
@@ -0,0 +1,122 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.udp;
+
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.common.map.EntryRemovedListener;
+import com.shieldblaze.expressgateway.core.handlers.IdleTimeout;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.DatagramPacket;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * <p> {@link UDPConnection} of UDP NAT mode which is carried by a shared {@link NatSocketPool.NatSocket}. </p>
+ *
+ * <p> Writes are addressed to {@link Node} as the shared socket is not connected. Closing this connection
+ * only removes the flow, shared socket stays open. Flow is closed once no datagram has been written
+ * by client for idle timeout. </p>
+ */
+final class NatConnection extends UDPConnection {
+
+    private final NatSocketPool.NatSocket natSocket;
+    private final long key;
+    private final InetSocketAddress client;
+    private final InetSocketAddress recipient;
+    private final EntryRemovedListener<UDPConnection> entryRemovedListener;
+    private final EventLoop eventLoop;
+    private final IdleTimeout idleTimeout;
+    private boolean closed;
+
+    NatConnection(Node node, NatSocketPool.NatSocket natSocket, long key, InetSocketAddress client, Duration timeout,
+                  EntryRemovedListener<UDPConnection> entryRemovedListener) {
+        super(node);
+        this.natSocket = natSocket;
+        this.key = key;
+        this.client = client;
+        this.recipient = node.socketAddress();
+        this.entryRemovedListener = entryRemovedListener;
+        this.eventLoop = natSocket.eventLoop();
+        this.idleTimeout = new IdleTimeout(eventLoop, timeout, this::close);
+    }
+
+    /**
+     * Called once shared socket has been bound. Writes pending in backlog are written now.
+     */
+    void bound(Channel channel) {
+        if (closed) {
+            return;
+        }
+
+        this.channel = channel;
+        socketAddress = recipient;
+        state = State.CONNECTED_AND_ACTIVE;
+        writeBacklog();
+    }
+
+    long key() {
+        return key;
+    }
+
+    InetSocketAddress client() {
+        return client;
+    }
+
+    @Override
+    public void writeAndFlush(Object o) {
+        super.writeAndFlush(addressed(o));
+    }
+
+    @Override
+    public void write(Object o) {
+        super.write(addressed(o));
+    }
+
+    private Object addressed(Object o) {
+        idleTimeout.touch();
+        if (o instanceof ByteBuf byteBuf) {
+            node().incBytesSent(byteBuf.readableBytes());
+            return new DatagramPacket(byteBuf, recipient);
+        }
+        return o;
+    }
+
+    @Override
+    public void close() {
+        if (!eventLoop.inEventLoop()) {
+            eventLoop.execute(this::close);
+            return;
+        }
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        clearBacklog();
+        idleTimeout.cancel();
+        natSocket.remove(this);
+        state = State.CONNECTION_CLOSED;
+
+        node().removeConnection(this);
+        entryRemovedListener.removed(client, this);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.udp;
+
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import com.shieldblaze.expressgateway.backend.Node;
+import com.shieldblaze.expressgateway.common.map.EntryRemovedListener;
+import com.shieldblaze.expressgateway.core.factory.BootstrapFactory;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.DatagramPacket;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+
+/**
+ * <p> Shared backend-facing sockets of an event loop for UDP NAT mode. </p>
+ *
+ * <p> Every {@link NatSocket} is an unconnected socket bound to an ephemeral port which carries flows
+ * of many clients. Backend replies are mapped back to flows by the address of the backend they are
+ * received from, so a {@link NatSocket} carries at most one flow per backend. A new flow is placed
+ * on the first {@link NatSocket} which has no flow to its backend yet. </p>
+ *
+ * <p> Sockets are bound lazily on first use. This class is not thread-safe and must only be used
+ * from the event loop of the Upstream channel. </p>
+ */
+final class NatSocketPool {
+
+    private static final Logger logger = LogManager.getLogger(NatSocketPool.class);
+
+    private final L4LoadBalancer l4LoadBalancer;
+    private final Channel channel;
+    private final EntryRemovedListener<UDPConnection> entryRemovedListener;
+    private final NatSocket[] sockets;
+    private final Duration timeout;
+
+    /**
+     * Create a new {@link NatSocketPool} Instance
+     *
+     * @param l4LoadBalancer       {@link L4LoadBalancer} Instance
+     * @param channel              Upstream {@link Channel}
+     * @param size                 Maximum number of shared sockets
+     * @param entryRemovedListener {@link EntryRemovedListener} notified when a flow is closed
+     */
+    NatSocketPool(L4LoadBalancer l4LoadBalancer, Channel channel, int size, EntryRemovedListener<UDPConnection> entryRemovedListener) {
+        this.l4LoadBalancer = l4LoadBalancer;
+        this.channel = channel;
+        this.entryRemovedListener = entryRemovedListener;
+        this.sockets = new NatSocket[size];
+        this.timeout = Duration.ofMillis(l4LoadBalancer.configurationContext().transportConfiguration().connectionIdleTimeout());
+    }
+
+    /**
+     * Create a new {@link NatConnection} to {@link Node} on a shared socket
+     *
+     * @param node          {@link Node} to connect to
+     * @param socketAddress Client {@link InetSocketAddress}
+     * @return {@link NatConnection} or {@code null} if {@link Node} address is not IPv4
+     * or every shared socket already carries a flow to {@link Node}
+     */
+    NatConnection newConnection(Node node, InetSocketAddress socketAddress) {
+        long key = key(node.socketAddress());
+        if (key == -1) {
+            return null;
+        }
+
+        for (int i = 0; i < sockets.length; i++) {
+            if (sockets[i] == null) {
+                sockets[i] = new NatSocket(i);
+            }
+
+            NatSocket natSocket = sockets[i];
+            if (!natSocket.flows.containsKey(key)) {
+                NatConnection natConnection = new NatConnection(node, natSocket, key, socketAddress, timeout, entryRemovedListener);
+                natSocket.flows.put(key, natConnection);
+
+                if (natSocket.bindFuture.isSuccess()) {
+                    natConnection.bound(natSocket.bindFuture.channel());
+                }
+                return natConnection;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Close all shared sockets and their flows
+     */
+    void close() {
+        for (NatSocket natSocket : sockets) {
+            if (natSocket != null) {
+                natSocket.bindFuture.channel().close();
+            }
+        }
+    }
+
+    /**
+     * Pack IPv4 address and port into a {@code long} key
+     *
+     * @return Key or {@code -1} if address is not IPv4
+     */
+    static long key(InetSocketAddress socketAddress) {
+        if (!(socketAddress.getAddress() instanceof Inet4Address)) {
+            return -1;
+        }
+
+        byte[] address = socketAddress.getAddress().getAddress();
+        long ip = (address[0] & 0xFFL) << 24 | (address[1] & 0xFFL) << 16 | (address[2] & 0xFFL) << 8 | (address[3] & 0xFFL);
+        return ip << 16 | socketAddress.getPort();
+    }
+
+    /**
+     * Shared socket which relays backend replies to clients of its flows
+     */
+    final class NatSocket extends ChannelInboundHandlerAdapter {
+
+        private final Long2ObjectOpenHashMap<NatConnection> flows = new Long2ObjectOpenHashMap<>();
+        private final ChannelFuture bindFuture;
+        private final FlushBatcher flushBatcher;
+        private final int index;
+
+        private NatSocket(int index) {
+            this.index = index;
+            this.flushBatcher = new FlushBatcher(l4LoadBalancer.configurationContext().transportConfiguration());
+
+            bindFuture = BootstrapFactory.udp(l4LoadBalancer.configurationContext(), channel.eventLoop(), l4LoadBalancer.byteBufAllocator())
+                    .handler(this)
+                    .bind(0);
+
+            bindFuture.addListener(future -> {
+                if (future.isSuccess()) {
+                    new ArrayList<>(flows.values()).forEach(natConnection -> natConnection.bound(bindFuture.channel()));
+                } else {
+                    logger.error("Failed to bind NAT socket", future.cause());
+                    removeFromPool();
+                    closeFlows();
+                }
+            });
+        }
+
+        /**
+         * Event loop of this socket and its flows
+         */
+        EventLoop eventLoop() {
+            return channel.eventLoop();
+        }
+
+        void remove(NatConnection natConnection) {
+            flows.remove(natConnection.key(), natConnection);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            DatagramPacket packet = (DatagramPacket) msg;
+            NatConnection natConnection = flows.get(key(packet.sender()));
+
+            // Drop datagrams which do not belong to any flow
+            if (natConnection == null) {
+                packet.release();
+                return;
+            }
+
+            natConnection.node().incBytesReceived(packet.content().readableBytes());
+            flushBatcher.write(channel, new DatagramPacket(packet.content(), natConnection.client())); // Write Data back to Client
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            flushBatcher.flush();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            flushBatcher.flush();
+            removeFromPool();
+            closeFlows();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            logger.error("Caught Error at NAT Socket", cause);
+        }
+
+        private void removeFromPool() {
+            if (sockets[index] == this) {
+                sockets[index] = null;
+            }
+        }
+
+        private void closeFlows() {
+            new ArrayList<>(flows.values()).forEach(NatConnection::close);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.udp;
+
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.SegmentedDatagramPacket;
+import io.netty.channel.socket.DatagramPacket;
+
+import java.net.Inet6Address;
+import java.net.InetSocketAddress;
+
+/**
+ * <p> Coalesces consecutive datagrams written to a single recipient during a read burst into
+ * {@link SegmentedDatagramPacket}, which is sent with a single UDP GSO system call and split
+ * into datagrams by the kernel. </p>
+ *
+ * <p> All datagrams of a {@link SegmentedDatagramPacket} must have the same size except the last one,
+ * which may be shorter. A datagram which breaks this rule starts a new {@link SegmentedDatagramPacket}. </p>
+ *
+ * <p> Only datagrams which fit into a single Ethernet frame (1500 bytes MTU minus IP and UDP headers) are coalesced.
+ * Kernel would send larger segments as IP fragments, so they are written as plain {@link DatagramPacket}. </p>
+ *
+ * <p> This class is not thread-safe and must only be used from the event loop of the reading channel. </p>
+ */
+final class SegmentedDatagramBatcher {
+
+    /**
+     * Maximum number of segments accepted by kernel in a single send (UDP_MAX_SEGMENTS)
+     */
+    private static final int MAX_SEGMENTS = 64;
+
+    /**
+     * Maximum payload of a single UDP send
+     */
+    private static final int MAX_BYTES = 65507;
+
+    /**
+     * Maximum segment size for IPv4 and IPv6 recipients, 1500 bytes MTU minus IP and UDP headers
+     */
+    static final int MAX_SEGMENT_SIZE_IPV4 = 1500 - 20 - 8;
+    static final int MAX_SEGMENT_SIZE_IPV6 = 1500 - 40 - 8;
+
+    private final Channel channel;
+    private final InetSocketAddress recipient;
+    private final FlushBatcher flushBatcher;
+    private final int maxSegmentSize;
+    private ByteBuf first;
+    private CompositeByteBuf composite;
+    private int segmentSize;
+    private int segments;
+    private int bytes;
+    private boolean lastShorter;
+
+    SegmentedDatagramBatcher(Channel channel, InetSocketAddress recipient, FlushBatcher flushBatcher) {
+        this.channel = channel;
+        this.recipient = recipient;
+        this.flushBatcher = flushBatcher;
+        maxSegmentSize = recipient.getAddress() instanceof Inet6Address ? MAX_SEGMENT_SIZE_IPV6 : MAX_SEGMENT_SIZE_IPV4;
+    }
+
+    /**
+     * Returns {@code true} if UDP GSO can be used on {@link Channel}
+     */
+    static boolean isSupported(Channel channel) {
+        return channel instanceof EpollDatagramChannel && SegmentedDatagramPacket.isSupported();
+    }
+
+    /**
+     * Write datagram payload
+     *
+     * @param content Payload of datagram
+     */
+    void write(ByteBuf content) {
+        int size = content.readableBytes();
+        if (size > maxSegmentSize) {
+            writePending();
+            flushBatcher.write(channel, new DatagramPacket(content, recipient));
+            return;
+        }
+
+        if (segments != 0 && (lastShorter || size > segmentSize || segments == MAX_SEGMENTS || bytes + size > MAX_BYTES)) {
+            writePending();
+        }
+
+        if (segments == 0) {
+            first = content;
+            segmentSize = size;
+        } else {
+            if (composite == null) {
+                composite = channel.alloc().compositeDirectBuffer(MAX_SEGMENTS);
+                composite.addComponent(true, first);
+                first = null;
+            }
+            composite.addComponent(true, content);
+        }
+
+        segments++;
+        bytes += size;
+        lastShorter = size < segmentSize;
+    }
+
+    /**
+     * Write pending datagrams and flush
+     */
+    void flush() {
+        writePending();
+        flushBatcher.flush();
+    }
+
+    private void writePending() {
+        if (segments == 0) {
+            return;
+        }
+
+        if (composite == null) {
+            flushBatcher.write(channel, new DatagramPacket(first, recipient));
+        } else {
+            flushBatcher.write(channel, new SegmentedDatagramPacket(composite, segmentSize, recipient));
+        }
+        reset();
+    }
+
+    private void reset() {
+        first = null;
+        composite = null;
+        segmentSize = 0;
+        segments = 0;
+        bytes = 0;
+        lastShorter = false;
+    }
+}
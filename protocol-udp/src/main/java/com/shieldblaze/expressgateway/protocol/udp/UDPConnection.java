@@ -21,7 +21,12 @@ import com.shieldblaze.expressgateway.backend.Connection;
 import com.shieldblaze.expressgateway.backend.Node;
 import io.netty.channel.ChannelFuture;
 
-final class UDPConnection extends Connection {
+class UDPConnection extends Connection {
+
+    /**
+     * Set to {@code true} when writes of current read burst are pending flush
+     */
+    boolean flushPending;
 
     UDPConnection(Node node) {
         super(node);
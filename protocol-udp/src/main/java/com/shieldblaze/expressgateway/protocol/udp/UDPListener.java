@@ -55,19 +55,16 @@ public class UDPListener extends L4FrontListener {
         ConfigurationContext configurationContext = l4LoadBalancer().configurationContext();
         EventLoopGroup eventLoopGroup = l4LoadBalancer().eventLoopFactory().parentGroup();
 
-        ChannelHandler channelHandler;
-        if (l4LoadBalancer().channelHandler() == null) {
-            channelHandler = new UpstreamHandler(l4LoadBalancer());
-        } else {
-            channelHandler = l4LoadBalancer().channelHandler();
-        }
-
         Bootstrap bootstrap = BootstrapFactory.udp(configurationContext, eventLoopGroup, l4LoadBalancer().byteBufAllocator())
                 .handler(new ChannelInitializer<DatagramChannel>() {
                     @Override
                     protected void initChannel(DatagramChannel ch) {
                         ch.pipeline().addFirst(EdgeNetworkMetricRecorder.INSTANCE);
-                        ch.pipeline().addLast(channelHandler);
+
+                        // Every bound channel gets its own UpstreamHandler which owns sessions of flows
+                        // delivered to that channel by SO_REUSEPORT.
+                        ChannelHandler channelHandler = l4LoadBalancer().channelHandler();
+                        ch.pipeline().addLast(channelHandler == null ? new UpstreamHandler(l4LoadBalancer()) : channelHandler);
                     }
                 });
 
@@ -119,7 +116,7 @@ public class UDPListener extends L4FrontListener {
         L4FrontListenerShutdownEvent shutdownEvent = new L4FrontListenerShutdownEvent();
 
         event.future().whenCompleteAsync((_void, throwable) -> {
-            l4LoadBalancer().clusters().clear();
+            l4LoadBalancer().clearClusters();
             l4LoadBalancer().eventLoopFactory().parentGroup().shutdownGracefully();
             l4LoadBalancer().eventLoopFactory().childGroup().shutdownGracefully();
             shutdownEvent.markSuccess(null);
@@ -20,9 +20,7 @@ package com.shieldblaze.expressgateway.protocol.udp;
 import com.shieldblaze.expressgateway.backend.Node;
 import com.shieldblaze.expressgateway.backend.strategy.l4.L4Request;
 import com.shieldblaze.expressgateway.common.map.EntryRemovedListener;
-import com.shieldblaze.expressgateway.common.map.SelfExpiringMap;
 import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.socket.DatagramPacket;
@@ -30,58 +28,122 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.net.InetSocketAddress;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
-@ChannelHandler.Sharable
+/**
+ * <p> Handles datagrams received by one listening channel. </p>
+ *
+ * <p> Every listening channel has its own {@link UpstreamHandler} and flows are sharded between listening
+ * channels by {@code SO_REUSEPORT}. Session lookup, forwarding and Downstream channel of a flow are handled
+ * on event loop of the listening channel, so the session table is not shared between threads. </p>
+ *
+ * <p> Datagrams of a read burst are written without flushing and every {@link UDPConnection} written to is
+ * flushed once when the burst completes, so native transports send the burst with batched system calls. </p>
+ *
+ * <p> In NAT mode, flows are carried by shared sockets of {@link NatSocketPool} and only flows which do not
+ * fit into shared sockets get a dedicated Downstream channel. </p>
+ */
 final class UpstreamHandler extends ChannelInboundHandlerAdapter implements EntryRemovedListener<UDPConnection> {
 
     private static final Logger logger = LogManager.getLogger(UpstreamHandler.class);
 
-    private final Map<InetSocketAddress, UDPConnection> connectionMap;
+    private final Map<InetSocketAddress, UDPConnection> connectionMap = new HashMap<>();
+    private final List<UDPConnection> pendingFlush = new ArrayList<>();
     private final L4LoadBalancer l4LoadBalancer;
     private final Bootstrapper bootstrapper;
+    private final int flushConsolidationLimit;
+    private NatSocketPool natSocketPool;
+    private int pendingWrites;
 
     UpstreamHandler(L4LoadBalancer l4LoadBalancer) {
         this.l4LoadBalancer = l4LoadBalancer;
-        this.bootstrapper = new Bootstrapper(l4LoadBalancer, l4LoadBalancer.eventLoopFactory().childGroup(), l4LoadBalancer.byteBufAllocator());
-        connectionMap = new SelfExpiringMap<>(
-                new ConcurrentHashMap<>(),
-                Duration.ofMillis(l4LoadBalancer.configurationContext().transportConfiguration().connectionIdleTimeout()),
-                true
-        );
+        this.bootstrapper = new Bootstrapper(l4LoadBalancer, l4LoadBalancer.byteBufAllocator());
+        this.flushConsolidationLimit = l4LoadBalancer.configurationContext().transportConfiguration().flushConsolidationLimit();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        int natSockets = l4LoadBalancer.configurationContext().transportConfiguration().udpNatSockets();
+        if (natSockets > 0) {
+            natSocketPool = new NatSocketPool(l4LoadBalancer, ctx.channel(), natSockets, this);
+        }
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        l4LoadBalancer.eventLoopFactory().childGroup().next().execute(() -> {
-            DatagramPacket datagramPacket = (DatagramPacket) msg;
-            UDPConnection udpConnection = connectionMap.get(datagramPacket.sender());
-
-            // If connection is null then we need to establish a new connection to the node.
-            if (udpConnection == null) {
-                try {
-                    Node node = l4LoadBalancer.defaultCluster().nextNode(new L4Request(datagramPacket.sender())).node();
-                    udpConnection = bootstrapper.newInit(ctx.channel(), node, datagramPacket.sender());
-                    node.addConnection(udpConnection);
-                    connectionMap.put(datagramPacket.sender(), udpConnection);
-                    l4LoadBalancer.connectionTracker().increment();
-                } catch (Exception e) {
-                    return;
+        DatagramPacket datagramPacket = (DatagramPacket) msg;
+        InetSocketAddress sender = datagramPacket.sender();
+        UDPConnection udpConnection = connectionMap.get(sender);
+
+        // If connection is null then we need to establish a new connection to the node.
+        if (udpConnection == null) {
+            try {
+                Node node = l4LoadBalancer.defaultCluster().nextNode(new L4Request(sender)).node();
+                if (natSocketPool != null) {
+                    udpConnection = natSocketPool.newConnection(node, sender);
                 }
+
+                if (udpConnection == null) {
+                    udpConnection = bootstrapper.newInit(ctx.channel(), node, sender);
+
+                    // Downstream channel is closed once flow is idle, remove the flow then.
+                    UDPConnection connection = udpConnection;
+                    udpConnection.channelFuture().channel().closeFuture().addListener(future -> removed(sender, connection));
+                }
+
+                node.addConnection(udpConnection);
+                connectionMap.put(sender, udpConnection);
+                l4LoadBalancer.connectionTracker().increment();
+            } catch (Exception e) {
+                datagramPacket.release();
+                return;
             }
+        }
 
+        if (flushConsolidationLimit == 0) {
             udpConnection.writeAndFlush(datagramPacket.content());
-        });
+            return;
+        }
+
+        udpConnection.write(datagramPacket.content());
+        if (!udpConnection.flushPending) {
+            udpConnection.flushPending = true;
+            pendingFlush.add(udpConnection);
+        }
+
+        if (++pendingWrites >= flushConsolidationLimit) {
+            flush();
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        flush();
+        ctx.fireChannelReadComplete();
+    }
+
+    private void flush() {
+        for (UDPConnection udpConnection : pendingFlush) {
+            udpConnection.flushPending = false;
+            udpConnection.flush();
+        }
+        pendingFlush.clear();
+        pendingWrites = 0;
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         logger.info("Closing All Upstream and Downstream Channels");
-        ((SelfExpiringMap<?, ?>) connectionMap).close();
-        connectionMap.forEach((socketAddress, udpConnection) -> udpConnection.close());
+        flush();
+        new ArrayList<>(connectionMap.values()).forEach(UDPConnection::close);
         connectionMap.clear();
+        if (natSocketPool != null) {
+            natSocketPool.close();
+        }
+        super.channelInactive(ctx);
     }
 
     @Override
@@ -90,8 +152,9 @@ final class UpstreamHandler extends ChannelInboundHandlerAdapter implements Entr
     }
 
     @Override
-    public void removed(Object key, UDPConnection value) {
-        l4LoadBalancer.connectionTracker().decrement();
-        value.close();
+    public void removed(Object sender, UDPConnection udpConnection) {
+        if (connectionMap.remove(sender, udpConnection)) {
+            l4LoadBalancer.connectionTracker().decrement();
+        }
     }
 }
@@ -0,0 +1,163 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.udp;
+
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l4.RoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.configuration.transport.ReceiveBufferAllocationType;
+import com.shieldblaze.expressgateway.configuration.transport.TransportConfiguration;
+import com.shieldblaze.expressgateway.core.events.L4FrontListenerStartupEvent;
+import com.shieldblaze.expressgateway.core.events.L4FrontListenerStopEvent;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancerBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class NatModeTest {
+
+    static L4LoadBalancer l4LoadBalancer;
+    static EchoServer echoServer;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        echoServer = new EchoServer();
+        echoServer.start();
+
+        TransportConfiguration transportConfiguration = new TransportConfiguration()
+                .setTransportType(TransportConfiguration.DEFAULT.transportType())
+                .setReceiveBufferAllocationType(ReceiveBufferAllocationType.ADAPTIVE)
+                .setReceiveBufferSizes(new int[]{512, 9001, 65535})
+                .setTcpConnectionBacklog(1000)
+                .setSocketReceiveBufferSize(67_108_864)
+                .setSocketSendBufferSize(67_108_864)
+                .setTcpFastOpenMaximumPendingRequests(100)
+                .setBackendConnectTimeout(1000 * 10)
+                .setConnectionIdleTimeout(1000 * 120)
+                .setUdpNatSockets(2)
+                .validate();
+
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        l4LoadBalancer = L4LoadBalancerBuilder.newBuilder()
+                .withCoreConfiguration(ConfigurationContext.create(transportConfiguration))
+                .withBindAddress(new InetSocketAddress("127.0.0.1", 9112))
+                .withL4FrontListener(new UDPListener())
+                .build();
+
+        l4LoadBalancer.defaultCluster(cluster);
+
+        NodeBuilder.newBuilder()
+                .withCluster(cluster)
+                .withSocketAddress(new InetSocketAddress("127.0.0.1", 9113))
+                .build();
+
+        L4FrontListenerStartupEvent l4FrontListenerStartupEvent = l4LoadBalancer.start();
+        l4FrontListenerStartupEvent.future().join();
+        assertTrue(l4FrontListenerStartupEvent.isSuccess());
+    }
+
+    @AfterAll
+    static void stop() {
+        echoServer.socket.close();
+
+        L4FrontListenerStopEvent l4FrontListenerStopEvent = l4LoadBalancer.stop();
+        l4FrontListenerStopEvent.future().join();
+        assertTrue(l4FrontListenerStopEvent.isSuccess());
+    }
+
+    @Test
+    void sharedSocketsDemultiplexReplies() throws Exception {
+        // 2 Flows are carried by shared sockets and 3rd one falls back to a dedicated socket.
+        List<DatagramSocket> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                DatagramSocket datagramSocket = new DatagramSocket();
+                datagramSocket.setSoTimeout(5000);
+                clients.add(datagramSocket);
+            }
+
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < clients.size(); i++) {
+                    String message = "HELLO_FROM_CLIENT_" + i + "_" + round;
+                    clients.get(i).send(new DatagramPacket(message.getBytes(), message.length(), InetAddress.getByName("127.0.0.1"), 9112));
+                }
+
+                for (int i = 0; i < clients.size(); i++) {
+                    byte[] bytes = new byte[2048];
+                    DatagramPacket datagramPacket = new DatagramPacket(bytes, bytes.length);
+                    clients.get(i).receive(datagramPacket);
+                    assertEquals("HELLO_FROM_CLIENT_" + i + "_" + round, new String(Arrays.copyOf(datagramPacket.getData(), datagramPacket.getLength())));
+                }
+            }
+        } finally {
+            clients.forEach(DatagramSocket::close);
+        }
+
+        // Every flow must have used a single gateway socket for all rounds.
+        synchronized (echoServer.senders) {
+            assertEquals(3, echoServer.senders.size());
+        }
+    }
+
+    private static final class EchoServer extends Thread {
+
+        private final Set<InetSocketAddress> senders = new HashSet<>();
+        private final DatagramSocket socket;
+
+        private EchoServer() throws Exception {
+            socket = new DatagramSocket(9113, InetAddress.getByName("127.0.0.1"));
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] bytes = new byte[2048];
+                while (!socket.isClosed()) {
+                    DatagramPacket datagramPacket = new DatagramPacket(bytes, bytes.length);
+                    socket.receive(datagramPacket);
+                    synchronized (senders) {
+                        senders.add((InetSocketAddress) datagramPacket.getSocketAddress());
+                    }
+                    socket.send(new DatagramPacket(datagramPacket.getData(), datagramPacket.getLength(), datagramPacket.getSocketAddress()));
+                }
+            } catch (Exception ex) {
+                // Socket closed
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.udp;
+
+import com.shieldblaze.expressgateway.backend.FlushBatcher;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.epoll.SegmentedDatagramPacket;
+import io.netty.channel.socket.DatagramPacket;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SegmentedDatagramBatcherTest {
+
+    private static final InetSocketAddress RECIPIENT = new InetSocketAddress("127.0.0.1", 9000);
+
+    @Test
+    void coalesceDatagramsWhichFitMtu() {
+        assumeTrue(SegmentedDatagramPacket.isSupported(), "UDP GSO is not supported");
+
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel();
+        SegmentedDatagramBatcher batcher = new SegmentedDatagramBatcher(embeddedChannel, RECIPIENT, new FlushBatcher(64));
+
+        for (int i = 0; i < 3; i++) {
+            batcher.write(Unpooled.buffer().writeZero(SegmentedDatagramBatcher.MAX_SEGMENT_SIZE_IPV4));
+        }
+        batcher.flush();
+
+        SegmentedDatagramPacket packet = assertInstanceOf(SegmentedDatagramPacket.class, embeddedChannel.readOutbound());
+        assertEquals(SegmentedDatagramBatcher.MAX_SEGMENT_SIZE_IPV4, packet.segmentSize());
+        assertEquals(SegmentedDatagramBatcher.MAX_SEGMENT_SIZE_IPV4 * 3, packet.content().readableBytes());
+        packet.release();
+
+        assertNull(embeddedChannel.readOutbound());
+        embeddedChannel.close();
+    }
+
+    @Test
+    void sendOversizedDatagramsAsIs() {
+        assumeTrue(SegmentedDatagramPacket.isSupported(), "UDP GSO is not supported");
+
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel();
+        SegmentedDatagramBatcher batcher = new SegmentedDatagramBatcher(embeddedChannel, RECIPIENT, new FlushBatcher(64));
+
+        // Small reply, then replies which would be fragmented, then small replies again.
+        batcher.write(Unpooled.buffer().writeZero(100));
+        for (int i = 0; i < 3; i++) {
+            batcher.write(Unpooled.buffer().writeZero(4000));
+        }
+        batcher.write(Unpooled.buffer().writeZero(100));
+        batcher.write(Unpooled.buffer().writeZero(100));
+        batcher.flush();
+
+        int[] sizes = {100, 4000, 4000, 4000};
+        for (int size : sizes) {
+            DatagramPacket packet = embeddedChannel.readOutbound();
+            assertEquals(DatagramPacket.class, packet.getClass());
+            assertEquals(size, packet.content().readableBytes());
+            assertEquals(RECIPIENT, packet.recipient());
+            packet.release();
+        }
+
+        SegmentedDatagramPacket packet = assertInstanceOf(SegmentedDatagramPacket.class, embeddedChannel.readOutbound());
+        assertEquals(100, packet.segmentSize());
+        assertEquals(200, packet.content().readableBytes());
+        packet.release();
+
+        assertNull(embeddedChannel.readOutbound());
+        embeddedChannel.close();
+    }
+}
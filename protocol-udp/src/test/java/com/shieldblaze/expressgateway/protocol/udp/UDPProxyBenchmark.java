@@ -0,0 +1,307 @@
+/*
+ * This file is part of ShieldBlaze ExpressGateway. [www.shieldblaze.com]
+ * Copyright (c) 2020-2022 ShieldBlaze
+ *
+ * ShieldBlaze ExpressGateway is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ShieldBlaze ExpressGateway is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ShieldBlaze ExpressGateway.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.shieldblaze.expressgateway.protocol.udp;
+
+import com.shieldblaze.expressgateway.backend.NodeBuilder;
+import com.shieldblaze.expressgateway.backend.cluster.Cluster;
+import com.shieldblaze.expressgateway.backend.cluster.ClusterBuilder;
+import com.shieldblaze.expressgateway.backend.strategy.l4.RoundRobin;
+import com.shieldblaze.expressgateway.backend.strategy.l4.sessionpersistence.NOOPSessionPersistence;
+import com.shieldblaze.expressgateway.configuration.ConfigurationContext;
+import com.shieldblaze.expressgateway.configuration.transport.ReceiveBufferAllocationType;
+import com.shieldblaze.expressgateway.configuration.transport.TransportConfiguration;
+import com.shieldblaze.expressgateway.configuration.transport.TransportType;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancer;
+import com.shieldblaze.expressgateway.core.loadbalancer.L4LoadBalancerBuilder;
+import io.netty.channel.epoll.Epoll;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures packets per second, round trip latency and backend-facing socket count of UDP proxy
+ * between clients and echo backends on loopback. Clients, proxy and backends share the machine,
+ * so results are only comparable between runs on the same machine. This is run manually
+ * instead of as part of the test suite.
+ */
+public class UDPProxyBenchmark {
+
+    private static final int PAYLOAD_SIZE = 64;
+    private static final int BACKENDS = 16;
+    private static final int THROUGHPUT_FLOWS = 16;
+    private static final int THROUGHPUT_WINDOW = 32;
+    private static final long THROUGHPUT_WARMUP_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long THROUGHPUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int LATENCY_WARMUP_ROUND_TRIPS = 5_000;
+    private static final int LATENCY_ROUND_TRIPS = 20_000;
+    private static final int SOCKET_FLOWS = 1_000;
+
+    private static int nextPort = 9200;
+
+    public static void main(String[] args) throws Exception {
+        EchoServer echoServer = new EchoServer();
+        echoServer.start();
+
+        benchmark("NIO", configuration(TransportType.NIO));
+        if (Epoll.isAvailable()) {
+            benchmark("EPOLL", configuration(TransportType.EPOLL).setUdpGso(false));
+            benchmark("EPOLL GSO", configuration(TransportType.EPOLL));
+            benchmark("EPOLL GSO recvmmsg", configuration(TransportType.EPOLL).setUdpMaxDatagramPayloadSize(2048));
+        }
+
+        TransportType transportType = TransportConfiguration.DEFAULT.transportType();
+        sockets("Socket per flow", configuration(transportType));
+        sockets("NAT 64 sockets", configuration(transportType).setUdpNatSockets(64));
+
+        echoServer.close();
+        System.exit(0);
+    }
+
+    private static TransportConfiguration configuration(TransportType transportType) {
+        return new TransportConfiguration()
+                .setTransportType(transportType)
+                .setReceiveBufferAllocationType(ReceiveBufferAllocationType.ADAPTIVE)
+                .setReceiveBufferSizes(new int[]{512, 9001, 65535})
+                .setTcpConnectionBacklog(1000)
+                .setSocketReceiveBufferSize(67_108_864)
+                .setSocketSendBufferSize(67_108_864)
+                .setTcpFastOpenMaximumPendingRequests(100)
+                .setBackendConnectTimeout(1000 * 10)
+                .setConnectionIdleTimeout(1000 * 120);
+    }
+
+    private static void benchmark(String name, TransportConfiguration transportConfiguration) throws Exception {
+        int port = nextPort++;
+        L4LoadBalancer l4LoadBalancer = start(transportConfiguration.validate(), port);
+        try {
+            throughput(port, THROUGHPUT_WARMUP_NANOS);
+            long pps = throughput(port, THROUGHPUT_NANOS);
+            long[] latency = latency(port);
+            System.out.printf("%-20s %9d packets/s   p50 %5d us   p99 %5d us   lost %d%n", name + ':', pps,
+                    TimeUnit.NANOSECONDS.toMicros(latency[0]), TimeUnit.NANOSECONDS.toMicros(latency[1]), latency[2]);
+        } finally {
+            l4LoadBalancer.stop().future().join();
+        }
+    }
+
+    private static void sockets(String name, TransportConfiguration transportConfiguration) throws Exception {
+        int port = nextPort++;
+        L4LoadBalancer l4LoadBalancer = start(transportConfiguration.validate(), port);
+        List<DatagramSocket> clients = new ArrayList<>();
+        try {
+            long before = openFileDescriptors();
+            byte[] bytes = new byte[PAYLOAD_SIZE];
+            for (int i = 0; i < SOCKET_FLOWS; i++) {
+                DatagramSocket client = new DatagramSocket();
+                client.setSoTimeout(1000);
+                clients.add(client);
+                client.send(new DatagramPacket(bytes, bytes.length, new InetSocketAddress("127.0.0.1", port)));
+                client.receive(new DatagramPacket(new byte[2048], 2048));
+            }
+
+            // Open file descriptors of clients are not part of proxy.
+            long proxySockets = openFileDescriptors() - before - SOCKET_FLOWS;
+            System.out.printf("%-20s %d flows to %d backends use %d backend-facing sockets%n", name + ':', SOCKET_FLOWS, BACKENDS, proxySockets);
+        } finally {
+            clients.forEach(DatagramSocket::close);
+            l4LoadBalancer.stop().future().join();
+        }
+    }
+
+    private static L4LoadBalancer start(TransportConfiguration transportConfiguration, int port) throws Exception {
+        Cluster cluster = ClusterBuilder.newBuilder()
+                .withLoadBalance(new RoundRobin(NOOPSessionPersistence.INSTANCE))
+                .build();
+
+        L4LoadBalancer l4LoadBalancer = L4LoadBalancerBuilder.newBuilder()
+                .withCoreConfiguration(ConfigurationContext.create(transportConfiguration))
+                .withBindAddress(new InetSocketAddress("127.0.0.1", port))
+                .withL4FrontListener(new UDPListener())
+                .build();
+
+        l4LoadBalancer.defaultCluster(cluster);
+
+        for (int i = 0; i < BACKENDS; i++) {
+            NodeBuilder.newBuilder()
+                    .withCluster(cluster)
+                    .withSocketAddress(new InetSocketAddress("127.0.0.1", EchoServer.FIRST_PORT + i))
+                    .build();
+        }
+
+        l4LoadBalancer.start().future().join();
+        return l4LoadBalancer;
+    }
+
+    /**
+     * Keep {@link #THROUGHPUT_WINDOW} datagrams in flight on each of {@link #THROUGHPUT_FLOWS} flows
+     * and count echoed datagrams.
+     *
+     * @return Echoed datagrams per second
+     */
+    private static long throughput(int port, long durationNanos) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocateDirect(PAYLOAD_SIZE);
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(2048);
+        List<DatagramChannel> channels = new ArrayList<>();
+
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < THROUGHPUT_FLOWS; i++) {
+                DatagramChannel channel = DatagramChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(new InetSocketAddress("127.0.0.1", port));
+                channel.register(selector, SelectionKey.OP_READ);
+                channels.add(channel);
+            }
+            fillWindows(channels, payload);
+
+            long received = 0;
+            long deadline = System.nanoTime() + durationNanos;
+            while (System.nanoTime() < deadline) {
+                if (selector.select(100) == 0) {
+                    // Datagrams were lost, start over with full windows.
+                    fillWindows(channels, payload);
+                    continue;
+                }
+
+                for (SelectionKey key : selector.selectedKeys()) {
+                    DatagramChannel channel = (DatagramChannel) key.channel();
+                    while (channel.read(receiveBuffer.clear()) > 0) {
+                        received++;
+                        channel.write(payload.clear());
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+
+            return received * 1_000_000_000L / durationNanos;
+        } finally {
+            for (DatagramChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    private static void fillWindows(List<DatagramChannel> channels, ByteBuffer payload) throws IOException {
+        for (DatagramChannel channel : channels) {
+            for (int i = 0; i < THROUGHPUT_WINDOW; i++) {
+                channel.write(payload.clear());
+            }
+        }
+    }
+
+    /**
+     * Send one datagram at a time on a single flow.
+     *
+     * @return Median and 99th percentile round trip time in nanoseconds, and number of lost datagrams
+     */
+    private static long[] latency(int port) throws IOException {
+        long[] samples = new long[LATENCY_ROUND_TRIPS];
+        int count = 0;
+        long lost = 0;
+
+        try (DatagramSocket client = new DatagramSocket()) {
+            client.setSoTimeout(100);
+            SocketAddress proxy = new InetSocketAddress("127.0.0.1", port);
+            DatagramPacket request = new DatagramPacket(new byte[PAYLOAD_SIZE], PAYLOAD_SIZE, proxy);
+            DatagramPacket response = new DatagramPacket(new byte[2048], 2048);
+
+            for (int i = 0; i < LATENCY_WARMUP_ROUND_TRIPS + LATENCY_ROUND_TRIPS; i++) {
+                long start = System.nanoTime();
+                client.send(request);
+                try {
+                    client.receive(response);
+                } catch (SocketTimeoutException ex) {
+                    lost++;
+                    continue;
+                }
+                if (i >= LATENCY_WARMUP_ROUND_TRIPS) {
+                    samples[count++] = System.nanoTime() - start;
+                }
+            }
+        }
+
+        Arrays.sort(samples, 0, count);
+        return new long[]{samples[count / 2], samples[(int) (count * 0.99)], lost};
+    }
+
+    private static long openFileDescriptors() throws IOException {
+        try (Stream<Path> stream = Files.list(Path.of("/proc/self/fd"))) {
+            return stream.count();
+        }
+    }
+
+    /**
+     * Echo backends on consecutive ports served by a single thread
+     */
+    private static final class EchoServer extends Thread {
+
+        private static final int FIRST_PORT = 9300;
+
+        private final Selector selector;
+
+        private EchoServer() throws IOException {
+            super("udp-echo-server");
+            setDaemon(true);
+            selector = Selector.open();
+            for (int i = 0; i < BACKENDS; i++) {
+                DatagramChannel channel = DatagramChannel.open();
+                channel.configureBlocking(false);
+                channel.bind(new InetSocketAddress("127.0.0.1", FIRST_PORT + i));
+                channel.register(selector, SelectionKey.OP_READ);
+            }
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+            try {
+                while (selector.isOpen()) {
+                    selector.select();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        DatagramChannel channel = (DatagramChannel) key.channel();
+                        SocketAddress sender;
+                        while ((sender = channel.receive(buffer.clear())) != null) {
+                            channel.send(buffer.flip(), sender);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (Exception ex) {
+                // Selector closed
+            }
+        }
+
+        private void close() throws IOException {
+            selector.close();
+        }
+    }
+}
@@ -45,6 +45,7 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -113,6 +114,21 @@ public final class ClusterHandler {
         return FastBuilder.response(apiResponse.getResponse(), HttpResponseStatus.OK);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> get(@RequestParam String id, @RequestParam String hostname) {
+        LoadBalancerContext property = CoreContext.get(id);
+        Objects.requireNonNull(hostname, "Hostname");
+
+        Cluster cluster = property.l4LoadBalancer().cluster(hostname);
+
+        APIResponse apiResponse = APIResponse.newBuilder()
+                .isSuccess(true)
+                .withResult(Result.newBuilder().withHeader("Cluster").withMessage(cluster.toJson()).build())
+                .build();
+
+        return FastBuilder.response(apiResponse.getResponse(), HttpResponseStatus.OK);
+    }
+
     /**
      * Determine the type of {@link LoadBalance} and {@link SessionPersistence}
      * from {@link ClusterContext}
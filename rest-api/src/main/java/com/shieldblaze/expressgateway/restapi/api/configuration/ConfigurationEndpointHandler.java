@@ -23,6 +23,7 @@ import com.google.gson.JsonParser;
 import com.shieldblaze.expressgateway.common.JacksonJson;
 import com.shieldblaze.expressgateway.configuration.Configuration;
 import com.shieldblaze.expressgateway.configuration.ConfigurationStore;
+import com.shieldblaze.expressgateway.configuration.accesslog.AccessLogConfiguration;
 import com.shieldblaze.expressgateway.configuration.buffer.BufferConfiguration;
 import com.shieldblaze.expressgateway.configuration.eventloop.EventLoopConfiguration;
 import com.shieldblaze.expressgateway.configuration.eventstream.EventStreamConfiguration;
@@ -54,6 +55,21 @@ import static com.shieldblaze.expressgateway.configuration.ConfigurationStore.lo
 @RequestMapping("/v1/configuration")
 public final class ConfigurationEndpointHandler {
 
+    @GetMapping(value = "/accesslog", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getAccessLog() throws Exception {
+        return response(load(AccessLogConfiguration.class));
+    }
+
+    @GetMapping(value = "/accesslog/default", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getAccessLogDefault() throws Exception {
+        return response(AccessLogConfiguration.DEFAULT);
+    }
+
+    @PostMapping(value = "/accesslog", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> setAccessLog(@RequestBody AccessLogConfiguration configuration) throws Exception {
+        return saveAndGenerateResponse(configuration);
+    }
+
     @GetMapping(value = "/buffer", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<String> getBuffer() throws Exception {
         return response(load(BufferConfiguration.class));